@@ -0,0 +1,130 @@
+package com.example.vibelet.config;
+
+import com.example.vibelet.security.BoundedPasswordEncoder;
+import com.example.vibelet.security.RateLimitFilter;
+import com.example.vibelet.security.UploadLimitFilter;
+import com.example.vibelet.service.FriendGraphCache;
+import com.example.vibelet.service.MediaGcService;
+import com.example.vibelet.service.MediaStore;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Publishes the counters the components already keep for their periodic log lines, so
+ * they can be scraped instead of grepped. Values are read at scrape time.
+ */
+@Component
+public class ApplicationMetrics implements MeterBinder {
+    private final MediaStore mediaStore;
+    private final UploadLimitFilter uploadLimitFilter;
+    private final RateLimitFilter rateLimitFilter;
+    private final BoundedPasswordEncoder passwordEncoder;
+    private final FriendGraphCache friendGraph;
+    private final MediaGcService mediaGcService;
+    private final EntityCacheStats entityCacheStats;
+    private final ObjectProvider<ReadWriteRoutingDataSource> routingDataSource;
+
+    public ApplicationMetrics(MediaStore mediaStore,
+                              UploadLimitFilter uploadLimitFilter,
+                              RateLimitFilter rateLimitFilter,
+                              BoundedPasswordEncoder passwordEncoder,
+                              FriendGraphCache friendGraph,
+                              MediaGcService mediaGcService,
+                              EntityCacheStats entityCacheStats,
+                              ObjectProvider<ReadWriteRoutingDataSource> routingDataSource) {
+        this.mediaStore = mediaStore;
+        this.uploadLimitFilter = uploadLimitFilter;
+        this.rateLimitFilter = rateLimitFilter;
+        this.passwordEncoder = passwordEncoder;
+        this.friendGraph = friendGraph;
+        this.mediaGcService = mediaGcService;
+        this.entityCacheStats = entityCacheStats;
+        this.routingDataSource = routingDataSource;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        counter(registry, "vibelet.uploads", mediaStore, MediaStore::getUploads, "Uploads received in full");
+        FunctionCounter.builder("vibelet.uploads.bytes", mediaStore, MediaStore::getUploadedBytes)
+                .baseUnit("bytes").description("Bytes of uploads received; rate() gives upload bytes/sec").register(registry);
+        gauge(registry, "vibelet.uploads.in.flight", uploadLimitFilter, UploadLimitFilter::inFlight, "Uploads being received");
+        counter(registry, "vibelet.uploads.rejected", uploadLimitFilter, UploadLimitFilter::getRejected, "Uploads refused by the upload limits");
+
+        for (String group : RateLimitFilter.GROUPS) {
+            FunctionCounter.builder("vibelet.rate.limit.rejected", rateLimitFilter, filter -> filter.rejected(group))
+                    .tag("group", group).description("Requests answered with 429 by the rate limiter").register(registry);
+        }
+
+        gauge(registry, "vibelet.password.hashing.active", passwordEncoder, e -> e.getStats().getActive(), "Password hashes being computed");
+        gauge(registry, "vibelet.password.hashing.queued", passwordEncoder, e -> e.getStats().getQueued(), "Password hashes waiting for a thread");
+        gauge(registry, "vibelet.password.hashing.wait.avg.ms", passwordEncoder, e -> e.getStats().getAverageWaitMs(), "Average queue wait");
+        counter(registry, "vibelet.password.hashing.completed", passwordEncoder, e -> e.getStats().getCompleted(), "Password hashes computed");
+        counter(registry, "vibelet.password.hashing.shed", passwordEncoder,
+                e -> e.getStats().getRejected() + e.getStats().getTimedOut(), "Password hashes refused or timed out");
+
+        gauge(registry, "vibelet.friend.graph.users", friendGraph, g -> g.getStats().getUsers(), "Users in the friend graph cache");
+        gauge(registry, "vibelet.friend.graph.footprint.bytes", friendGraph, g -> g.getStats().getFootprintBytes(), "Approximate friend graph cache size");
+        counter(registry, "vibelet.friend.graph.hits", friendGraph, g -> g.getStats().getHits(), "Friend graph cache hits");
+        counter(registry, "vibelet.friend.graph.misses", friendGraph, g -> g.getStats().getMisses(), "Friend graph cache misses");
+
+        counter(registry, "vibelet.media.gc.deleted", mediaGcService, gc -> gc.getStats().getTotalFilesDeleted(), "Media files removed by the GC");
+        counter(registry, "vibelet.media.gc.reclaimed.bytes", mediaGcService, gc -> gc.getStats().getTotalBytesReclaimed(), "Bytes reclaimed by the GC");
+        gauge(registry, "vibelet.media.gc.last.duration.ms", mediaGcService, gc -> gc.getStats().getScanDurationMs(), "Duration of the last GC pass");
+
+        for (EntityCacheStats.Region region : entityCacheStats.getRegions()) {
+            String name = region.getName();
+            regionCounter(registry, "vibelet.entity.cache.hits", name, EntityCacheStats.Region::getHits);
+            regionCounter(registry, "vibelet.entity.cache.misses", name, EntityCacheStats.Region::getMisses);
+            regionCounter(registry, "vibelet.entity.cache.puts", name, EntityCacheStats.Region::getPuts);
+        }
+
+        ReadWriteRoutingDataSource routing = routingDataSource.getIfAvailable();
+        if (routing != null) {
+            for (ReadWriteRoutingDataSource.RouteStats route : routing.getStats()) {
+                String name = route.getName();
+                FunctionCounter.builder("vibelet.datasource.routed", routing, r -> routeValue(r, name, ReadWriteRoutingDataSource.RouteStats::getRouted))
+                        .tag("route", name).description("Connections routed to this datasource").register(registry);
+                Gauge.builder("vibelet.datasource.replica.lag.ms", routing, r -> routeValue(r, name, ReadWriteRoutingDataSource.RouteStats::getLagMs))
+                        .tag("route", name).description("Last measured replication lag, -1 if unknown").register(registry);
+                Gauge.builder("vibelet.datasource.healthy", routing, r -> routeValue(r, name, s -> s.isHealthy() ? 1 : 0))
+                        .tag("route", name).description("1 while the route is in rotation").register(registry);
+            }
+            counter(registry, "vibelet.datasource.fallbacks", routing, ReadWriteRoutingDataSource::getFallbacks,
+                    "Replica reads sent to the primary because no replica was healthy");
+        }
+    }
+
+    private void regionCounter(MeterRegistry registry, String name, String region, ToDoubleFunction<EntityCacheStats.Region> value) {
+        FunctionCounter.builder(name, entityCacheStats, stats -> regionValue(stats, region, value))
+                .tag("region", region).register(registry);
+    }
+
+    private static <T> void counter(MeterRegistry registry, String name, T source, ToDoubleFunction<T> value, String description) {
+        FunctionCounter.builder(name, source, value).description(description).register(registry);
+    }
+
+    private static <T> void gauge(MeterRegistry registry, String name, T source, ToDoubleFunction<T> value, String description) {
+        Gauge.builder(name, source, value).description(description).register(registry);
+    }
+
+    private static double regionValue(EntityCacheStats stats, String name, ToDoubleFunction<EntityCacheStats.Region> value) {
+        EntityCacheStats.Region region = stats.getRegion(name);
+        return region == null ? 0 : value.applyAsDouble(region);
+    }
+
+    private static double routeValue(ReadWriteRoutingDataSource routing, String name,
+                                     ToDoubleFunction<ReadWriteRoutingDataSource.RouteStats> value) {
+        for (ReadWriteRoutingDataSource.RouteStats route : routing.getStats()) {
+            if (route.getName().equals(name)) {
+                return value.applyAsDouble(route);
+            }
+        }
+        return Double.NaN;
+    }
+}
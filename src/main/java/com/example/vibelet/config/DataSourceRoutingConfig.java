@@ -0,0 +1,94 @@
+package com.example.vibelet.config;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Replaces the single auto-configured pool with a primary pool plus one pool per read replica
+ * when vibelet.datasource.replica-urls is set. Replica pools copy the primary's Hikari settings
+ * and credentials, and are opened read-only.
+ */
+@Configuration
+@ConditionalOnExpression("!'${vibelet.datasource.replica-urls:}'.isBlank()")
+public class DataSourceRoutingConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    @Bean
+    public ReadWriteRoutingDataSource routingDataSource(
+            HikariDataSource primaryDataSource,
+            @Value("${vibelet.datasource.replica-urls}") List<String> replicaUrls,
+            @Value("${vibelet.datasource.replica-lag-query:}") String lagQuery,
+            @Value("${vibelet.datasource.max-replica-lag:5s}") Duration maxLag,
+            @Value("${vibelet.datasource.sticky-window:10s}") Duration stickyWindow,
+            @Value("${vibelet.datasource.lag-check-interval-ms:2000}") long checkIntervalMs,
+            ObjectProvider<MeterRegistry> meterRegistry) {
+        MeterRegistry registry = meterRegistry.getIfAvailable();
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        for (String url : replicaUrls) {
+            if (url.isBlank()) {
+                continue;
+            }
+            String name = "replica-" + (replicas.size() + 1);
+            HikariConfig config = new HikariConfig();
+            primaryDataSource.copyStateTo(config);
+            config.setJdbcUrl(url.trim());
+            config.setPoolName(name);
+            config.setReadOnly(true);
+            // A replica that is down at startup just stays out of rotation
+            config.setInitializationFailTimeout(-1);
+            // Not beans, so the pool metrics auto-configuration never sees them
+            if (registry != null) {
+                config.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registry));
+            }
+            replicas.put(name, new HikariDataSource(config));
+        }
+        ReadWriteRoutingDataSource routing = new ReadWriteRoutingDataSource(primaryDataSource, replicas,
+                lagQuery.isBlank() ? ReadWriteRoutingDataSource.POSTGRES_LAG_QUERY : lagQuery, maxLag, stickyWindow,
+                Duration.ofMillis(checkIntervalMs));
+        routing.startHealthChecks();
+        return routing;
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ReadWriteRoutingDataSource routingDataSource) {
+        return new LazyConnectionDataSourceProxy(routingDataSource);
+    }
+
+    @Bean
+    public ReadYourWritesFilter readYourWritesFilter(ReadWriteRoutingDataSource routingDataSource) {
+        return new ReadYourWritesFilter(routingDataSource);
+    }
+
+    // Picked up by the auto-configured applicationTaskExecutor, which also runs async MVC
+    // bodies such as the data export, so they route like the request that started them.
+    @Bean
+    public TaskDecorator readYourWritesTaskDecorator(ReadWriteRoutingDataSource routingDataSource) {
+        return routingDataSource::propagateRequest;
+    }
+}
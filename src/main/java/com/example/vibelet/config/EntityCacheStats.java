@@ -0,0 +1,82 @@
+package com.example.vibelet.config;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Hit/miss counts of the Hibernate second-level cache regions (entities and natural ids).
+ * Empty unless both the cache and hibernate.generate_statistics are enabled.
+ */
+@Component
+public class EntityCacheStats {
+    private static final Logger log = LoggerFactory.getLogger(EntityCacheStats.class);
+
+    private final Statistics statistics;
+
+    public EntityCacheStats(EntityManagerFactory entityManagerFactory) {
+        this.statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    public List<Region> getRegions() {
+        List<Region> regions = new ArrayList<>();
+        if (!statistics.isStatisticsEnabled()) {
+            return regions;
+        }
+        for (String name : statistics.getSecondLevelCacheRegionNames()) {
+            CacheRegionStatistics region = statistics.getDomainDataRegionStatistics(name);
+            if (region != null) {
+                regions.add(new Region(name, region.getHitCount(), region.getMissCount(), region.getPutCount()));
+            }
+        }
+        return regions;
+    }
+
+    /** Null when the region does not exist or statistics are disabled. */
+    public Region getRegion(String name) {
+        CacheRegionStatistics region = statistics.isStatisticsEnabled() ? statistics.getDomainDataRegionStatistics(name) : null;
+        return region == null ? null : new Region(name, region.getHitCount(), region.getMissCount(), region.getPutCount());
+    }
+
+    @Scheduled(fixedDelayString = "${vibelet.entity-cache.stats-interval-ms:300000}")
+    public void logStats() {
+        for (Region region : getRegions()) {
+            if (region.getHits() + region.getMisses() > 0) {
+                log.info("Entity cache {}: hit ratio {} ({} hits, {} misses, {} puts)", region.getName(),
+                        String.format("%.3f", region.getHitRatio()), region.getHits(), region.getMisses(), region.getPuts());
+            }
+        }
+    }
+
+    public static final class Region {
+        private final String name;
+        private final long hits;
+        private final long misses;
+        private final long puts;
+
+        Region(String name, long hits, long misses, long puts) {
+            this.name = name;
+            this.hits = hits;
+            this.misses = misses;
+            this.puts = puts;
+        }
+
+        public String getName() { return name; }
+        public long getHits() { return hits; }
+        public long getMisses() { return misses; }
+        public long getPuts() { return puts; }
+
+        public double getHitRatio() {
+            long total = hits + misses;
+            return total == 0 ? 0.0 : (double) hits / total;
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.vibelet.config;
+
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.config.MeterFilter;
+import io.micrometer.core.instrument.distribution.DistributionStatisticConfig;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.Set;
+
+/**
+ * Scraped at /actuator/prometheus. Latency histograms are published only for the hot
+ * endpoints below and for Hikari connection acquisition; every other endpoint keeps the
+ * default count/sum/max, which keeps the number of series small.
+ */
+@Configuration
+public class MetricsConfig {
+    static final Set<String> HOT_PATHS = Set.of(
+            "/vibes",
+            "/api/v1/vibes",
+            "/api/v1/vibes/feed",
+            "/api/v1/interactions/vibe/{vibeId}/like",
+            "/api/v1/interactions/vibe/{vibeId}/comment",
+            "/api/v1/users/search",
+            "/explore",
+            "/api/v1/data/export");
+
+    @Bean
+    public MeterFilter hotPathHistograms() {
+        DistributionStatisticConfig histogram = DistributionStatisticConfig.builder()
+                .percentilesHistogram(true)
+                .minimumExpectedValue((double) Duration.ofMillis(1).toNanos())
+                .maximumExpectedValue((double) Duration.ofSeconds(30).toNanos())
+                .build();
+        return new MeterFilter() {
+            @Override
+            public DistributionStatisticConfig configure(Meter.Id id, DistributionStatisticConfig config) {
+                boolean hot = "http.server.requests".equals(id.getName()) && HOT_PATHS.contains(id.getTag("uri"));
+                if (hot || "hikaricp.connections.acquire".equals(id.getName())) {
+                    return histogram.merge(config);
+                }
+                return config;
+            }
+        };
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer sqlStatementCounter() {
+        return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, new SqlStatementCounter());
+    }
+
+    @Bean
+    public SqlStatementMetricsFilter sqlStatementMetricsFilter(MeterRegistry registry) {
+        return new SqlStatementMetricsFilter(registry);
+    }
+}
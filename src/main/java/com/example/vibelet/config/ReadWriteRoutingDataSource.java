@@ -0,0 +1,336 @@
+package com.example.vibelet.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Sends read-only transactions declared by the application (services, repositories, read-only
+ * TransactionTemplates) to a healthy replica and everything else to the primary. Read-only
+ * transactions Spring Data opens on its own repository methods stay on the primary, so
+ * lookups like the one behind login never see replica lag.
+ * <p>
+ * A replica is used only while its last lag probe succeeded, reported no more than the
+ * allowed lag, and is no older than two check intervals; a probe that stops running takes
+ * replicas out of rotation instead of leaving them trusted. Probes run on their own thread
+ * (see {@link #startHealthChecks}) so slow scheduled jobs cannot delay them. Once a request has written, the rest of it reads from the primary; with
+ * {@link #recordWrite}/{@link #wroteRecently} the same holds for the user's next requests
+ * for a short window, so a redirect after a POST sees its own write.
+ * <p>
+ * Must sit behind a LazyConnectionDataSourceProxy: transaction managers fetch the
+ * connection before the read-only flag is bound to the thread.
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+    private static final Logger log = LoggerFactory.getLogger(ReadWriteRoutingDataSource.class);
+    static final String PRIMARY = "primary";
+    public static final String POSTGRES_LAG_QUERY =
+            "SELECT CASE WHEN NOT pg_is_in_recovery() OR pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0 " +
+            "ELSE CAST(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()) * 1000 AS BIGINT) END";
+    private static final String SPRING_DATA_TRANSACTIONS = "org.springframework.data.";
+
+    private final DataSource primary;
+    private final List<Replica> replicas = new ArrayList<>();
+    private final String lagQuery;
+    private final long maxLagMs;
+    private final long stickyNanos;
+    private final long checkIntervalMs;
+    private final Clock clock;
+    private final AtomicInteger next = new AtomicInteger();
+    private final LongAdder primaryRoutes = new LongAdder();
+    private final LongAdder fallbacks = new LongAdder();
+    private final ThreadLocal<RequestState> request = new ThreadLocal<>();
+    private final ConcurrentMap<String, Long> recentWriters = new ConcurrentHashMap<>();
+    private ScheduledExecutorService healthChecks;
+
+    /**
+     * @param lagQuery single-value query returning replica lag in milliseconds, run on each
+     *                 replica; null only checks that a connection can be obtained
+     */
+    public ReadWriteRoutingDataSource(DataSource primary, Map<String, DataSource> replicas,
+                                      String lagQuery, Duration maxLag, Duration stickyWindow, Duration checkInterval) {
+        this(primary, replicas, lagQuery, maxLag, stickyWindow, checkInterval, Clock.systemUTC());
+    }
+
+    ReadWriteRoutingDataSource(DataSource primary, Map<String, DataSource> replicas, String lagQuery,
+                               Duration maxLag, Duration stickyWindow, Duration checkInterval, Clock clock) {
+        this.primary = primary;
+        this.lagQuery = lagQuery;
+        this.maxLagMs = maxLag.toMillis();
+        this.stickyNanos = stickyWindow.toNanos();
+        this.checkIntervalMs = checkInterval.toMillis();
+        this.clock = clock;
+
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        replicas.forEach((name, dataSource) -> {
+            this.replicas.add(new Replica(name, dataSource));
+            targets.put(name, dataSource);
+        });
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        setLenientFallback(false);
+        initialize();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        boolean readOnly = TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+        RequestState state = request.get();
+        if (!readOnly) {
+            if (state != null && TransactionSynchronizationManager.isActualTransactionActive()) {
+                state.wrote = true;
+            }
+            primaryRoutes.increment();
+            return PRIMARY;
+        }
+        String name = TransactionSynchronizationManager.getCurrentTransactionName();
+        if ((name != null && name.startsWith(SPRING_DATA_TRANSACTIONS)) || (state != null && (state.pinned || state.wrote))) {
+            primaryRoutes.increment();
+            return PRIMARY;
+        }
+
+        int size = replicas.size();
+        int start = Math.floorMod(next.getAndIncrement(), Math.max(size, 1));
+        long now = clock.millis();
+        for (int i = 0; i < size; i++) {
+            Replica replica = replicas.get((start + i) % size);
+            if (isUsable(replica, now)) {
+                replica.routes.increment();
+                return replica.name;
+            }
+        }
+        fallbacks.increment();
+        primaryRoutes.increment();
+        return PRIMARY;
+    }
+
+    /** Starts request scope; reads stay on the primary throughout when {@code pinned}. */
+    public void beginRequest(boolean pinned) {
+        RequestState state = new RequestState();
+        state.pinned = pinned;
+        request.set(state);
+    }
+
+    /** Ends request scope and reports whether the request opened a read-write transaction. */
+    public boolean endRequest() {
+        RequestState state = request.get();
+        request.remove();
+        return state != null && state.wrote;
+    }
+
+    /**
+     * Carries the calling request's routing onto another thread, such as the MVC executor
+     * running a StreamingResponseBody: the task reads from the primary if the request was
+     * pinned or has written by the time the task is handed off.
+     */
+    public Runnable propagateRequest(Runnable task) {
+        RequestState state = request.get();
+        if (state == null) {
+            return task;
+        }
+        boolean pinned = state.pinned || state.wrote;
+        return () -> {
+            beginRequest(pinned);
+            try {
+                task.run();
+            } finally {
+                endRequest();
+            }
+        };
+    }
+
+    public void recordWrite(String key) {
+        recentWriters.put(key, System.nanoTime());
+    }
+
+    public boolean wroteRecently(String key) {
+        Long at = recentWriters.get(key);
+        if (at == null) {
+            return false;
+        }
+        if (System.nanoTime() - at < stickyNanos) {
+            return true;
+        }
+        recentWriters.remove(key, at);
+        return false;
+    }
+
+    private boolean isUsable(Replica replica, long now) {
+        return replica.healthy && now - replica.checkedAt <= 2 * checkIntervalMs;
+    }
+
+    /** Probes the replicas every check interval on a dedicated daemon thread. */
+    public synchronized void startHealthChecks() {
+        if (healthChecks != null) {
+            return;
+        }
+        healthChecks = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "replica-health");
+            thread.setDaemon(true);
+            return thread;
+        });
+        healthChecks.scheduleWithFixedDelay(() -> {
+            try {
+                checkReplicas();
+            } catch (RuntimeException e) {
+                log.warn("Replica health check failed", e);
+            }
+        }, 0, checkIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    public void checkReplicas() {
+        for (Replica replica : replicas) {
+            boolean healthy;
+            long lag = -1;
+            try (Connection connection = replica.dataSource.getConnection()) {
+                if (lagQuery == null) {
+                    healthy = connection.isValid(2);
+                    lag = 0;
+                } else {
+                    try (Statement statement = connection.createStatement();
+                         ResultSet rs = statement.executeQuery(lagQuery)) {
+                        lag = rs.next() ? rs.getLong(1) : Long.MAX_VALUE;
+                    }
+                    healthy = lag <= maxLagMs;
+                }
+            } catch (SQLException e) {
+                healthy = false;
+                if (replica.healthy) {
+                    log.warn("Replica {} failed its health check, reads fall back to the primary", replica.name, e);
+                }
+            }
+            if (replica.healthy && !healthy && lag >= 0) {
+                log.warn("Replica {} is {} ms behind (max {} ms), taking it out of rotation", replica.name, lag, maxLagMs);
+            } else if (!replica.healthy && healthy) {
+                log.info("Replica {} back in rotation ({} ms behind)", replica.name, lag);
+            }
+            replica.lagMs = lag;
+            replica.healthy = healthy;
+            if (healthy) {
+                replica.checkedAt = clock.millis();
+            }
+        }
+
+        long now = System.nanoTime();
+        recentWriters.values().removeIf(at -> now - at >= stickyNanos);
+    }
+
+    public List<RouteStats> getStats() {
+        List<RouteStats> stats = new ArrayList<>(replicas.size() + 1);
+        stats.add(RouteStats.of(PRIMARY, primary, true, 0, primaryRoutes.sum()));
+        long now = clock.millis();
+        for (Replica replica : replicas) {
+            stats.add(RouteStats.of(replica.name, replica.dataSource, isUsable(replica, now), replica.lagMs, replica.routes.sum()));
+        }
+        return stats;
+    }
+
+    public long getFallbacks() {
+        return fallbacks.sum();
+    }
+
+    @Scheduled(fixedDelayString = "${vibelet.datasource.stats-interval-ms:300000}")
+    public void logStats() {
+        for (RouteStats route : getStats()) {
+            log.info("Datasource route {}: {} connections routed, healthy={}, lag {} ms, pool active/idle/waiting {}/{}/{}",
+                    route.getName(), route.getRouted(), route.isHealthy(), route.getLagMs(),
+                    route.getActive(), route.getIdle(), route.getWaiting());
+        }
+        log.info("Datasource routing: {} replica reads fell back to the primary", fallbacks.sum());
+    }
+
+    @PreDestroy
+    public void closeReplicas() {
+        synchronized (this) {
+            if (healthChecks != null) {
+                healthChecks.shutdownNow();
+            }
+        }
+        for (Replica replica : replicas) {
+            if (replica.dataSource instanceof HikariDataSource hikari) {
+                hikari.close();
+            }
+        }
+    }
+
+    private static final class RequestState {
+        boolean pinned;
+        boolean wrote;
+    }
+
+    private static final class Replica {
+        final String name;
+        final DataSource dataSource;
+        final LongAdder routes = new LongAdder();
+        volatile boolean healthy;
+        volatile long lagMs = -1;
+        /** Clock millis of the last probe that found the replica healthy. */
+        volatile long checkedAt;
+
+        Replica(String name, DataSource dataSource) {
+            this.name = name;
+            this.dataSource = dataSource;
+        }
+    }
+
+    public static final class RouteStats {
+        private final String name;
+        private final boolean healthy;
+        private final long lagMs;
+        private final long routed;
+        private final int active;
+        private final int idle;
+        private final int waiting;
+
+        RouteStats(String name, boolean healthy, long lagMs, long routed, int active, int idle, int waiting) {
+            this.name = name;
+            this.healthy = healthy;
+            this.lagMs = lagMs;
+            this.routed = routed;
+            this.active = active;
+            this.idle = idle;
+            this.waiting = waiting;
+        }
+
+        static RouteStats of(String name, DataSource dataSource, boolean healthy, long lagMs, long routed) {
+            HikariPoolMXBean pool = dataSource instanceof HikariDataSource hikari ? hikari.getHikariPoolMXBean() : null;
+            if (pool == null) {
+                return new RouteStats(name, healthy, lagMs, routed, 0, 0, 0);
+            }
+            return new RouteStats(name, healthy, lagMs, routed,
+                    pool.getActiveConnections(), pool.getIdleConnections(), pool.getThreadsAwaitingConnection());
+        }
+
+        public String getName() { return name; }
+        public boolean isHealthy() { return healthy; }
+        public long getLagMs() { return lagMs; }
+        public long getRouted() { return routed; }
+        public int getActive() { return active; }
+        public int getIdle() { return idle; }
+        public int getWaiting() { return waiting; }
+    }
+}
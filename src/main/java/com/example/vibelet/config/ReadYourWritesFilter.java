@@ -0,0 +1,38 @@
+package com.example.vibelet.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.security.Principal;
+
+/**
+ * Scopes replica routing to a request: a user who wrote within the sticky window reads
+ * from the primary for the whole request, and a request that writes marks its user.
+ * Registered after the security chain, so the principal is known.
+ */
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+    private final ReadWriteRoutingDataSource routing;
+
+    public ReadYourWritesFilter(ReadWriteRoutingDataSource routing) {
+        this.routing = routing;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        Principal principal = request.getUserPrincipal();
+        String user = principal != null ? principal.getName() : null;
+        routing.beginRequest(user != null && routing.wroteRecently(user));
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            if (routing.endRequest() && user != null) {
+                routing.recordWrite(user);
+            }
+        }
+    }
+}
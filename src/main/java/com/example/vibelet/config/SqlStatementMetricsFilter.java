@@ -0,0 +1,48 @@
+package com.example.vibelet.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+
+/**
+ * Records how many SQL statements each request issued, per handler mapping, as
+ * vibelet.http.sql.statements. Requests that never reached a handler (rejected by a
+ * filter, static resources not found) are not recorded.
+ */
+public class SqlStatementMetricsFilter extends OncePerRequestFilter {
+    static final String METRIC = "vibelet.http.sql.statements";
+    private static final double[] BUCKETS = {1, 2, 3, 5, 8, 13, 20, 30, 50, 100};
+
+    private final MeterRegistry registry;
+
+    public SqlStatementMetricsFilter(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        SqlStatementCounter.begin();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            int statements = SqlStatementCounter.end();
+            Object uri = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            if (uri != null) {
+                DistributionSummary.builder(METRIC)
+                        .description("SQL statements issued through Hibernate per request")
+                        .tags("method", request.getMethod(), "uri", uri.toString())
+                        .serviceLevelObjectives(BUCKETS)
+                        .register(registry)
+                        .record(statements);
+            }
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.vibelet.config;
+
+import com.example.vibelet.service.VibeCounterService;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Operator-triggered recount of vibes.like_count / comment_count. Not exposed over HTTP:
+ * enable JMX (spring.jmx.enabled=true, management.endpoints.jmx.exposure.include=vibecounters)
+ * and invoke the recount operation.
+ */
+@Component
+@Endpoint(id = "vibecounters")
+public class VibeCounterEndpoint {
+    private final VibeCounterService vibeCounterService;
+
+    public VibeCounterEndpoint(VibeCounterService vibeCounterService) {
+        this.vibeCounterService = vibeCounterService;
+    }
+
+    @WriteOperation
+    public Map<String, Integer> recount() {
+        return Map.of("recounted", vibeCounterService.recount());
+    }
+}
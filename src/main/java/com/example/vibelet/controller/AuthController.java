@@ -1,7 +1,11 @@
 package com.example.vibelet.controller;
 
 import com.example.vibelet.dto.LoginRequest;
+import com.example.vibelet.dto.RefreshRequest;
 import com.example.vibelet.dto.RegisterRequest;
+import com.example.vibelet.dto.TokenResponse;
+import com.example.vibelet.security.TokenService;
+import com.example.vibelet.security.VibeletUserDetails;
 import com.example.vibelet.service.AuthService;
 import jakarta.validation.Valid;
 import org.springframework.http.HttpStatus;
@@ -9,7 +13,6 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 
 @RestController
@@ -17,10 +20,12 @@ import org.springframework.web.bind.annotation.*;
 public class AuthController {
     private final AuthService authService;
     private final AuthenticationManager authenticationManager;
+    private final TokenService tokenService;
 
-    public AuthController(AuthService authService, AuthenticationManager authenticationManager) {
+    public AuthController(AuthService authService, AuthenticationManager authenticationManager, TokenService tokenService) {
         this.authService = authService;
         this.authenticationManager = authenticationManager;
+        this.tokenService = tokenService;
     }
 
     @PostMapping("/register")
@@ -34,7 +39,7 @@ public class AuthController {
     }
 
     @PostMapping("/login")
-    public ResponseEntity<String> login(@RequestBody LoginRequest loginRequest) {
+    public ResponseEntity<TokenResponse> login(@RequestBody LoginRequest loginRequest) {
         Authentication authentication = authenticationManager.authenticate(
                 new UsernamePasswordAuthenticationToken(
                         loginRequest.getUsername(),
@@ -42,7 +47,12 @@ public class AuthController {
                 )
         );
 
-        SecurityContextHolder.getContext().setAuthentication(authentication);
-        return ResponseEntity.ok("User logged in successfully!");
+        VibeletUserDetails principal = (VibeletUserDetails) authentication.getPrincipal();
+        return ResponseEntity.ok(tokenService.issue(principal.getCurrentUser()));
+    }
+
+    @PostMapping("/refresh")
+    public ResponseEntity<TokenResponse> refresh(@RequestBody @Valid RefreshRequest request) {
+        return ResponseEntity.ok(tokenService.refresh(request.getRefreshToken()));
     }
 }
\ No newline at end of file
@@ -1,119 +1,76 @@
 package com.example.vibelet.controller;
 
-import com.example.vibelet.dto.DataExportDto;
-import com.example.vibelet.dto.VibeExportDto;
-import com.example.vibelet.model.*;
-import com.example.vibelet.repository.FriendshipRepository;
+import com.example.vibelet.dto.ImportProgress;
+import com.example.vibelet.model.User;
 import com.example.vibelet.repository.UserRepository;
-import com.example.vibelet.repository.VibeRepository;
+import com.example.vibelet.security.CurrentUser;
+import com.example.vibelet.service.DataExportService;
+import com.example.vibelet.service.DataImportService;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.security.Principal;
-import java.time.LocalDateTime;
-import java.util.List;
-import java.util.Optional;
-import java.util.stream.Collectors;
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
 
 @RestController
 @RequestMapping("/api/v1/data")
 public class DataExportController {
     private final UserRepository userRepository;
-    private final VibeRepository vibeRepository;
-    private final FriendshipRepository friendshipRepository;
+    private final DataExportService dataExportService;
+    private final DataImportService dataImportService;
 
-    public DataExportController(UserRepository userRepository, VibeRepository vibeRepository, FriendshipRepository friendshipRepository) {
+    public DataExportController(UserRepository userRepository, DataExportService dataExportService, DataImportService dataImportService) {
         this.userRepository = userRepository;
-        this.vibeRepository = vibeRepository;
-        this.friendshipRepository = friendshipRepository;
+        this.dataExportService = dataExportService;
+        this.dataImportService = dataImportService;
     }
 
     @GetMapping("/export")
-    public ResponseEntity<DataExportDto> exportData(Principal principal) {
-        User user = userRepository.findByUsername(principal.getName())
+    public ResponseEntity<StreamingResponseBody> exportData(@RequestParam(defaultValue = "false") boolean gzip, CurrentUser me) {
+        User user = userRepository.findById(me.getId())
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
-        List<VibeExportDto> vibesDtoList = user.getVibes().stream()
-                .map(v -> new VibeExportDto(v.getContent(), v.getCreatedAt().toString()))
-                .collect(Collectors.toList());
-
-        List<Friendship> friendships = friendshipRepository.findAllFriendsOfUser(user);
-        List<String> friendsList = friendships.stream()
-                .map(f -> f.getRequester().getId().equals(user.getId()) ? f.getReceiver().getUsername() : f.getRequester().getUsername())
-                .collect(Collectors.toList());
-
-        DataExportDto exportData = new DataExportDto(
-                user.getUsername(),
-                user.getEmail(),
-                user.getBio(),
-                vibesDtoList,
-                friendsList
-        );
+        StreamingResponseBody body = gzip
+                ? out -> {
+                    GZIPOutputStream compressed = new GZIPOutputStream(out, 8192);
+                    dataExportService.writeExport(user, compressed);
+                    compressed.finish();
+                }
+                : out -> dataExportService.writeExport(user, out);
 
         return ResponseEntity.ok()
-                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"vibelet_backup.json\"")
-                .body(exportData);
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"vibelet_backup.json" + (gzip ? ".gz" : "") + "\"")
+                .contentType(gzip ? MediaType.parseMediaType("application/gzip") : MediaType.APPLICATION_JSON)
+                .body(body);
     }
 
     @PostMapping("/import")
-    @Transactional
-    public ResponseEntity<String> importData(@RequestBody DataExportDto data, Principal principal) {
-        User user = userRepository.findByUsername(principal.getName())
-                .orElseThrow(() -> new RuntimeException("User not found"));
-
-        if (data.getBio() != null) {
-            user.setBio(data.getBio());
-        }
-        userRepository.save(user);
-
-        int importedVibesCount = 0;
-        if (data.getVibes() != null && !data.getVibes().isEmpty()) {
-            for (VibeExportDto vibeDto : data.getVibes()) {
-                LocalDateTime createdAt;
-                try {
-                    createdAt = LocalDateTime.parse(vibeDto.getCreatedAt());
-                } catch (Exception e) {
-                    createdAt = LocalDateTime.now();
-                }
-
-                boolean exists = vibeRepository.existsByUserAndContentAndCreatedAt(
-                        user,
-                        vibeDto.getContent(),
-                        createdAt
-                );
+    public ResponseEntity<String> importData(InputStream body, CurrentUser me) throws IOException {
+        ImportProgress result = dataImportService.importData(me, decompressIfGzipped(body));
 
-                if (!exists) {
-                    Vibe newVibe = new Vibe();
-                    newVibe.setContent(vibeDto.getContent());
-                    newVibe.setCreatedAt(createdAt);
-                    newVibe.setUser(user);
-                    newVibe.setPrivacyStatus(PrivacyStatus.PRIVATE);
-                    vibeRepository.save(newVibe);
-                    importedVibesCount++;
-                }
-            }
-        }
+        return ResponseEntity.ok(String.format("Data imported. Vibes: %d, Friends restored: %d", result.getVibesImported(), result.getFriendsRestored()));
+    }
 
-        int importedFriendsCount = 0;
-        if (data.getFriends() != null) {
-            for (String friendUsername : data.getFriends()) {
-                Optional<User> friendOpt = userRepository.findByUsername(friendUsername);
-                if (friendOpt.isPresent()) {
-                    User friend = friendOpt.get();
-                    if (!friendshipRepository.existsByUsers(user, friend)) {
-                        Friendship friendship = new Friendship();
-                        friendship.setRequester(user);
-                        friendship.setReceiver(friend);
-                        friendship.setStatus(FriendshipStatus.ACCEPTED);
-                        friendshipRepository.save(friendship);
-                        importedFriendsCount++;
-                    }
-                }
-            }
-        }
+    @GetMapping("/import/progress")
+    public ResponseEntity<ImportProgress> importProgress(CurrentUser me) {
+        return dataImportService.getProgress(me.getId())
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.noContent().build());
+    }
 
-        return ResponseEntity.ok(String.format("Data imported. Vibes: %d, Friends restored: %d", importedVibesCount, importedFriendsCount));
+    // Accepts the .json.gz produced by export?gzip=true as well as plain JSON.
+    private static InputStream decompressIfGzipped(InputStream body) throws IOException {
+        BufferedInputStream in = new BufferedInputStream(body);
+        in.mark(2);
+        int first = in.read();
+        int second = in.read();
+        in.reset();
+        return first == 0x1f && second == 0x8b ? new GZIPInputStream(in) : in;
     }
-}
\ No newline at end of file
+}
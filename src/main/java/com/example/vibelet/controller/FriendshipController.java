@@ -1,13 +1,12 @@
 package com.example.vibelet.controller;
 
-import com.example.vibelet.model.Friendship;
-import com.example.vibelet.model.User;
+import com.example.vibelet.dto.FriendRequestResponse;
+import com.example.vibelet.dto.FriendResponse;
+import com.example.vibelet.security.CurrentUser;
 import com.example.vibelet.service.FriendshipService;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
-import java.security.Principal;
 import java.util.List;
-import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/v1/friends")
@@ -19,33 +18,30 @@ public class FriendshipController {
     }
 
     @PostMapping("/request/{userId}")
-    public ResponseEntity<?> sendRequest(@PathVariable Long userId, Principal principal) {
-        friendshipService.sendFriendRequest(principal.getName(), userId);
+    public ResponseEntity<?> sendRequest(@PathVariable Long userId, CurrentUser me) {
+        friendshipService.sendFriendRequest(me, userId);
         return ResponseEntity.ok("Request sent");
     }
 
     @PutMapping("/accept/{friendshipId}")
-    public ResponseEntity<?> acceptRequest(@PathVariable Long friendshipId, Principal principal) {
-        friendshipService.acceptFriendRequest(principal.getName(), friendshipId);
+    public ResponseEntity<?> acceptRequest(@PathVariable Long friendshipId, CurrentUser me) {
+        friendshipService.acceptFriendRequest(me, friendshipId);
         return ResponseEntity.ok("Friendship accepted");
     }
 
     @DeleteMapping("/{friendshipId}")
-    public ResponseEntity<?> removeFriend(@PathVariable Long friendshipId, Principal principal) {
-        friendshipService.removeFriendOrRejectRequest(principal.getName(), friendshipId);
+    public ResponseEntity<?> removeFriend(@PathVariable Long friendshipId, CurrentUser me) {
+        friendshipService.removeFriendOrRejectRequest(me, friendshipId);
         return ResponseEntity.ok("Removed");
     }
 
     @GetMapping
-    public List<User> getFriends(Principal principal) {
-        String username = principal.getName();
-        return friendshipService.getAcceptedFriendships(username).stream()
-                .map(f -> f.getRequester().getUsername().equals(username) ? f.getReceiver() : f.getRequester())
-                .collect(Collectors.toList());
+    public List<FriendResponse> getFriends(CurrentUser me) {
+        return friendshipService.getFriends(me);
     }
 
     @GetMapping("/requests")
-    public List<Friendship> getRequests(Principal principal) {
-        return friendshipService.getPendingRequests(principal.getName());
+    public List<FriendRequestResponse> getRequests(CurrentUser me) {
+        return friendshipService.getIncomingRequests(me);
     }
 }
\ No newline at end of file
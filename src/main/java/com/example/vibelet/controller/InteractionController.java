@@ -1,11 +1,12 @@
 package com.example.vibelet.controller;
 
+import com.example.vibelet.dto.LikeState;
 import com.example.vibelet.model.Comment;
+import com.example.vibelet.security.CurrentUser;
 import com.example.vibelet.service.CommentService;
 import com.example.vibelet.service.VibeService;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
-import java.security.Principal;
 import java.util.Map;
 
 @RestController
@@ -20,29 +21,38 @@ public class InteractionController {
     }
 
     @PostMapping("/interactions/vibe/{vibeId}/like")
-    public ResponseEntity<?> likeVibe(@PathVariable Long vibeId, Principal principal) {
-        vibeService.toggleLike(vibeId, principal.getName());
-        return ResponseEntity.ok().build();
+    public ResponseEntity<LikeState> toggleLike(@PathVariable Long vibeId, CurrentUser me) {
+        return ResponseEntity.ok(vibeService.toggleLike(vibeId, me));
+    }
+
+    @PutMapping("/interactions/vibe/{vibeId}/like")
+    public ResponseEntity<LikeState> likeVibe(@PathVariable Long vibeId, CurrentUser me) {
+        return ResponseEntity.ok(vibeService.like(vibeId, me));
+    }
+
+    @DeleteMapping("/interactions/vibe/{vibeId}/like")
+    public ResponseEntity<LikeState> unlikeVibe(@PathVariable Long vibeId, CurrentUser me) {
+        return ResponseEntity.ok(vibeService.unlike(vibeId, me));
     }
 
     @PostMapping("/interactions/vibe/{vibeId}/comment")
     public ResponseEntity<?> commentVibe(
             @PathVariable Long vibeId,
             @RequestBody Map<String, String> payload,
-            Principal principal
+            CurrentUser me
     ) {
         String content = payload.get("content");
         if (content == null || content.isBlank()) {
             return ResponseEntity.badRequest().body("Content cannot be empty");
         }
 
-        Comment comment = vibeService.addComment(vibeId, principal.getName(), content);
+        Comment comment = vibeService.addComment(vibeId, me, content);
 
         return ResponseEntity.ok(Map.of(
                 "id", comment.getId(),
                 "content", comment.getContent(),
-                "username", comment.getUser().getUsername(),
-                "userId", comment.getUser().getId(),
+                "username", me.getUsername(),
+                "userId", me.getId(),
                 "createdAt", comment.getCreatedAt().toString()
         ));
     }
@@ -51,18 +61,18 @@ public class InteractionController {
     public ResponseEntity<?> updateComment(
             @PathVariable Long id,
             @RequestBody Map<String, String> payload,
-            Principal principal
+            CurrentUser me
     ) {
-        commentService.updateComment(id, payload.get("content"), principal.getName());
+        commentService.updateComment(id, payload.get("content"), me);
         return ResponseEntity.ok().build();
     }
 
     @DeleteMapping("/comments/{id}")
     public ResponseEntity<?> deleteComment(
             @PathVariable Long id,
-            Principal principal
+            CurrentUser me
     ) {
-        commentService.deleteComment(id, principal.getName());
+        commentService.deleteComment(id, me);
         return ResponseEntity.ok().build();
     }
 }
\ No newline at end of file
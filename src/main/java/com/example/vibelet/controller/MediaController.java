@@ -0,0 +1,171 @@
+package com.example.vibelet.controller;
+
+import com.example.vibelet.exception.ResourceNotFoundException;
+import com.example.vibelet.service.MediaStore;
+import com.example.vibelet.storage.MediaStorage;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Serves uploaded media. Content-addressed files get a hash ETag and a one-year immutable
+ * Cache-Control, so feed renders stop revalidating them. Single byte ranges are honoured.
+ * When the container supports sendfile (Tomcat NIO does), the body is handed to it and the
+ * request thread returns without copying bytes; otherwise it is streamed with transferTo.
+ * With remote storage the client is redirected to a presigned URL instead.
+ */
+@RestController
+public class MediaController {
+    static final String IMMUTABLE = "private, max-age=31536000, immutable";
+    static final String REVALIDATE = "private, no-cache";
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+    // Below this, a plain write is cheaper than a sendfile hand-off (Tomcat's own default).
+    private static final long SENDFILE_MIN_BYTES = 48 * 1024;
+
+    private final MediaStorage storage;
+    private final Duration presignTtl;
+
+    public MediaController(MediaStorage storage,
+                           @Value("${vibelet.media.s3.presign-ttl:10m}") Duration presignTtl) {
+        this.storage = storage;
+        this.presignTtl = presignTtl;
+    }
+
+    @RequestMapping(value = "/uploads/{*path}", method = {RequestMethod.GET, RequestMethod.HEAD})
+    public void serve(@PathVariable String path, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        String key = path.startsWith("/") ? path.substring(1) : path;
+        Path file = storage.localPath(key);
+        if (file == null) {
+            redirectToStore(key, response);
+            return;
+        }
+        BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        } catch (IOException e) {
+            throw new ResourceNotFoundException("Media not found: " + key);
+        }
+        if (!attributes.isRegularFile()) {
+            throw new ResourceNotFoundException("Media not found: " + key);
+        }
+
+        long length = attributes.size();
+        long lastModified = attributes.lastModifiedTime().toMillis();
+        boolean fingerprinted = MediaStore.isFingerprinted(key);
+        String etag = fingerprinted
+                ? "\"" + stem(file) + "\""
+                : "\"" + Long.toHexString(length) + "-" + Long.toHexString(lastModified) + "\"";
+
+        response.setHeader(HttpHeaders.CACHE_CONTROL, fingerprinted ? IMMUTABLE : REVALIDATE);
+        if (new ServletWebRequest(request, response).checkNotModified(etag, lastModified)) {
+            return;
+        }
+
+        long start = 0;
+        long end = length - 1;
+        String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        boolean partial = false;
+        if (rangeHeader != null && length > 0 && (ifRange == null || ifRange.equals(etag))) {
+            List<HttpRange> ranges;
+            try {
+                ranges = HttpRange.parseRanges(rangeHeader);
+            } catch (IllegalArgumentException e) {
+                ranges = List.of();
+            }
+            // Multipart/byteranges is rarely worth it for images; several ranges get the whole file.
+            if (ranges.size() == 1) {
+                HttpRange range = ranges.get(0);
+                try {
+                    start = range.getRangeStart(length);
+                    end = range.getRangeEnd(length);
+                } catch (IllegalArgumentException e) {
+                    response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                    response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                    return;
+                }
+                if (start >= length) {
+                    response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                    response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                    return;
+                }
+                partial = true;
+            }
+        }
+
+        long count = end - start + 1;
+        response.setStatus(partial ? HttpServletResponse.SC_PARTIAL_CONTENT : HttpServletResponse.SC_OK);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        response.setHeader("X-Content-Type-Options", "nosniff");
+        response.setContentType(MediaTypeFactory.getMediaType(file.getFileName().toString())
+                .orElse(MediaType.APPLICATION_OCTET_STREAM).toString());
+        response.setContentLengthLong(count);
+        if (partial) {
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+        }
+        if ("HEAD".equals(request.getMethod()) || count <= 0) {
+            return;
+        }
+
+        if (count >= SENDFILE_MIN_BYTES && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            request.setAttribute(SENDFILE_FILENAME, file.toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, end + 1);
+            return;
+        }
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            long remaining = count;
+            while (remaining > 0) {
+                long sent = channel.transferTo(position, remaining, out);
+                if (sent <= 0) {
+                    break;
+                }
+                position += sent;
+                remaining -= sent;
+            }
+        }
+    }
+
+    // Remote storage: the client fetches the bytes from the store itself.
+    private void redirectToStore(String key, HttpServletResponse response) throws IOException {
+        String url = key.isEmpty() || key.startsWith(".") || key.contains("..") ? null : storage.presignedUrl(key, presignTtl);
+        if (url == null) {
+            throw new ResourceNotFoundException("Media not found: " + key);
+        }
+        // The signature expires, so the redirect may only be cached for part of its lifetime.
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "private, max-age=" + presignTtl.toSeconds() / 2);
+        response.sendRedirect(url);
+    }
+
+    private static String stem(Path file) {
+        String name = file.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        return dot > 0 ? name.substring(0, dot) : name;
+    }
+}
@@ -1,50 +1,70 @@
 package com.example.vibelet.controller;
 
+import com.example.vibelet.dto.ProfileResponse;
 import com.example.vibelet.dto.UserProfileUpdateDto;
 import com.example.vibelet.dto.UserSearchDto;
 import com.example.vibelet.model.User;
+import com.example.vibelet.security.CurrentUser;
+import com.example.vibelet.security.CurrentUserResolver;
 import com.example.vibelet.service.UserService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.security.Principal;
+import java.io.InputStream;
 import java.util.List;
 
 @RestController
 @RequestMapping("/api/v1/users")
 public class UserController {
     private final UserService userService;
+    private final CurrentUserResolver currentUserResolver;
 
-    public UserController(UserService userService) {
+    public UserController(UserService userService, CurrentUserResolver currentUserResolver) {
         this.userService = userService;
+        this.currentUserResolver = currentUserResolver;
     }
 
     @GetMapping("/search")
-    public ResponseEntity<List<UserSearchDto>> searchUsers(@RequestParam String query, Principal principal) {
-        return ResponseEntity.ok(userService.searchUsers(query, principal.getName()));
+    public ResponseEntity<List<UserSearchDto>> searchUsers(@RequestParam String query,
+                                                           @RequestParam(defaultValue = "0") int page,
+                                                           @RequestParam(defaultValue = "20") int size,
+                                                           CurrentUser me) {
+        return ResponseEntity.ok(userService.searchUsers(query, me, page, size));
     }
 
     @PutMapping(value = "/me", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
-    public ResponseEntity<User> updateMyProfile(
+    public ResponseEntity<ProfileResponse> updateMyProfile(
             @ModelAttribute UserProfileUpdateDto dto,
             @RequestParam(value = "file", required = false) MultipartFile file,
-            Principal principal) {
-        return ResponseEntity.ok(userService.updateUserProfile(principal.getName(), dto, file));
+            CurrentUser me) {
+        return ResponseEntity.ok(ProfileResponse.from(userService.updateUserProfile(me, dto, file)));
+    }
+
+    @PutMapping(value = "/me/avatar", consumes = {MediaType.IMAGE_JPEG_VALUE, MediaType.IMAGE_PNG_VALUE, MediaType.IMAGE_GIF_VALUE, "image/webp"})
+    public ResponseEntity<ProfileResponse> updateMyAvatar(InputStream body, CurrentUser me) {
+        return ResponseEntity.ok(ProfileResponse.from(userService.updateAvatar(me, body)));
     }
 
     @DeleteMapping("/me")
-    public ResponseEntity<String> deleteMyAccount(Principal principal) {
-        userService.deleteUser(principal.getName());
+    public ResponseEntity<String> deleteMyAccount(CurrentUser me) {
+        userService.deleteUser(me);
         return ResponseEntity.ok("Account deleted successfully.");
     }
 
     @PutMapping("/me/security")
     public ResponseEntity<?> updateSecurity(
             @RequestBody com.example.vibelet.dto.UserSecurityUpdateDto dto,
-            Principal principal) {
-        userService.updateSecurityDetails(principal.getName(), dto);
+            CurrentUser me,
+            HttpServletRequest request,
+            HttpServletResponse response) {
+        User updated = userService.updateSecurityDetails(me, dto);
+        if (!updated.getUsername().equals(me.getUsername())) {
+            currentUserResolver.refresh(updated, request, response);
+        }
         return ResponseEntity.ok("Security details updated");
     }
 }
\ No newline at end of file
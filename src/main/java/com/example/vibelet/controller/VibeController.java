@@ -1,7 +1,10 @@
 package com.example.vibelet.controller;
 
+import com.example.vibelet.dto.CursorSlice;
+import com.example.vibelet.dto.VibeResponse;
 import com.example.vibelet.model.PrivacyStatus;
 import com.example.vibelet.model.Vibe;
+import com.example.vibelet.security.CurrentUser;
 import com.example.vibelet.service.VibeService;
 import org.springframework.data.domain.Page;
 import org.springframework.http.HttpStatus;
@@ -9,7 +12,8 @@ import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
-import java.security.Principal;
+
+import java.io.InputStream;
 
 @RestController
 @RequestMapping("/api/v1/vibes")
@@ -21,28 +25,54 @@ public class VibeController {
     }
 
     @PostMapping(consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
-    public ResponseEntity<Vibe> createVibe(
+    public ResponseEntity<VibeResponse> createVibe(
             @RequestParam("content") String content,
             @RequestParam(value = "file", required = false) MultipartFile file,
             @RequestParam("privacy") PrivacyStatus privacy,
-            Principal principal) {
+            CurrentUser me) {
+
+        Vibe createdVibe = vibeService.createVibe(me, content, file, privacy);
+        return new ResponseEntity<>(VibeResponse.from(createdVibe), HttpStatus.CREATED);
+    }
+
+    /**
+     * Single-pass alternative to the multipart form: the request body is the image itself,
+     * streamed into the media store without being spooled to a temp file first.
+     */
+    @PostMapping(consumes = {MediaType.IMAGE_JPEG_VALUE, MediaType.IMAGE_PNG_VALUE, MediaType.IMAGE_GIF_VALUE, "image/webp"})
+    public ResponseEntity<VibeResponse> createVibeFromImage(
+            @RequestParam("content") String content,
+            @RequestParam("privacy") PrivacyStatus privacy,
+            InputStream body,
+            CurrentUser me) {
 
-        Vibe createdVibe = vibeService.createVibe(principal.getName(), content, file, privacy);
-        return new ResponseEntity<>(createdVibe, HttpStatus.CREATED);
+        Vibe createdVibe = vibeService.createVibeWithImage(me, content, body, privacy);
+        return new ResponseEntity<>(VibeResponse.from(createdVibe), HttpStatus.CREATED);
     }
 
     @GetMapping("/feed")
-    public ResponseEntity<Page<Vibe>> getFeed(
-            Principal principal,
+    public ResponseEntity<Page<VibeResponse>> getFeed(
+            CurrentUser me,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size) {
 
-        Page<Vibe> feed = vibeService.getFeed(principal.getName(), page, size);
+        Page<VibeResponse> feed = vibeService.getFeed(me, page, size).map(VibeResponse::from);
         return ResponseEntity.ok(feed);
     }
 
+    @GetMapping(value = "/feed", params = "cursor")
+    public ResponseEntity<CursorSlice<VibeResponse>> getFeedSlice(
+            CurrentUser me,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size) {
+
+        CursorSlice<Vibe> slice = vibeService.getFeedSlice(me, cursor, size);
+        return ResponseEntity.ok(new CursorSlice<>(
+                slice.getContent().stream().map(VibeResponse::from).toList(), slice.getNextCursor()));
+    }
+
     @GetMapping("/user/{userId}")
-    public ResponseEntity<Page<Vibe>> getUserVibes(
+    public ResponseEntity<Page<VibeResponse>> getUserVibes(
             @PathVariable Long userId,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size) {
@@ -50,20 +80,29 @@ public class VibeController {
         return ResponseEntity.ok(vibeService.getUserVibes(userId, page, size));
     }
 
+    @GetMapping(value = "/user/{userId}", params = "cursor")
+    public ResponseEntity<CursorSlice<VibeResponse>> getUserVibesSlice(
+            @PathVariable Long userId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size) {
+
+        return ResponseEntity.ok(vibeService.getUserVibesSlice(userId, cursor, size));
+    }
+
     @DeleteMapping("/{id}")
-    public ResponseEntity<Void> deleteVibe(@PathVariable Long id, Principal principal) {
-        vibeService.deleteVibe(id, principal.getName());
+    public ResponseEntity<Void> deleteVibe(@PathVariable Long id, CurrentUser me) {
+        vibeService.deleteVibe(id, me);
         return ResponseEntity.noContent().build();
     }
 
     @PutMapping("/{id}")
-    public ResponseEntity<Vibe> updateVibe(
+    public ResponseEntity<VibeResponse> updateVibe(
             @PathVariable Long id,
             @RequestParam(required = false) String content,
             @RequestParam(required = false) PrivacyStatus privacy,
-            Principal principal) {
+            CurrentUser me) {
 
-        Vibe updatedVibe = vibeService.updateVibe(id, principal.getName(), content, privacy);
-        return ResponseEntity.ok(updatedVibe);
+        Vibe updatedVibe = vibeService.updateVibe(id, me, content, privacy);
+        return ResponseEntity.ok(VibeResponse.from(updatedVibe));
     }
 }
\ No newline at end of file
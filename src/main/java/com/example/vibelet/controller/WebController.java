@@ -6,7 +6,9 @@ import com.example.vibelet.model.*;
 import com.example.vibelet.repository.FriendshipRepository;
 import com.example.vibelet.repository.UserRepository;
 import com.example.vibelet.repository.VibeRepository;
+import com.example.vibelet.security.CurrentUser;
 import com.example.vibelet.service.AuthService;
+import com.example.vibelet.service.FeedViewService;
 import com.example.vibelet.service.FriendshipService;
 import com.example.vibelet.service.UserService;
 import com.example.vibelet.service.VibeService;
@@ -31,23 +33,26 @@ public class WebController {
     private final UserService userService;
     private final AuthService authService;
     private final FriendshipService friendshipService;
+    private final FeedViewService feedViewService;
     private final VibeRepository vibeRepository;
     private final UserRepository userRepository;
 
-    public WebController(VibeService vibeService, UserService userService, AuthService authService, FriendshipService friendshipService, VibeRepository vibeRepository, UserRepository userRepository) {
+    public WebController(VibeService vibeService, UserService userService, AuthService authService, FriendshipService friendshipService, FeedViewService feedViewService, VibeRepository vibeRepository, UserRepository userRepository) {
         this.vibeService = vibeService;
         this.userService = userService;
         this.authService = authService;
         this.friendshipService = friendshipService;
+        this.feedViewService = feedViewService;
         this.vibeRepository = vibeRepository;
         this.userRepository = userRepository;
     }
 
-    private void addCurrentUserToModel(Model model, Principal principal) {
-        if (principal != null) {
-            userRepository.findByUsername(principal.getName())
-                    .ifPresent(u -> model.addAttribute("currentUser", u));
-        }
+    // The layout needs the avatar, so pages load the entity once, by id.
+    private User loadCurrentUser(CurrentUser me, Model model) {
+        User currentUser = userRepository.findById(me.getId())
+                .orElseThrow(() -> new RuntimeException("User not found"));
+        model.addAttribute("currentUser", currentUser);
+        return currentUser;
     }
 
     @GetMapping("/")
@@ -81,18 +86,11 @@ public class WebController {
     }
 
     @GetMapping("/vibes")
-    public String feed(Model model, Principal principal) {
-        User currentUser = userRepository.findByUsername(principal.getName()).orElseThrow();
-        Page<Vibe> vibePage = vibeRepository.findFeedForUser(
-                currentUser,
-                FriendshipStatus.ACCEPTED,
-                PrivacyStatus.PRIVATE,
-                PageRequest.of(0, 50)
-        );
-
-        model.addAttribute("vibes", vibePage.getContent());
-        model.addAttribute("currentUser", currentUser);
-        model.addAttribute("currentUser", currentUser);
+    public String feed(Model model, CurrentUser me) {
+        Page<Vibe> vibePage = vibeService.getFeed(me, 0, 50);
+
+        model.addAttribute("vibes", feedViewService.toViews(vibePage.getContent(), me.getId()));
+        loadCurrentUser(me, model);
         return "vibes";
     }
 
@@ -100,65 +98,63 @@ public class WebController {
     public String createVibe(@RequestParam("content") String content,
                              @RequestParam(value = "file", required = false) MultipartFile file,
                              @RequestParam("privacy") PrivacyStatus privacy,
-                             Principal principal) {
-        vibeService.createVibe(principal.getName(), content, file, privacy);
+                             CurrentUser me) {
+        vibeService.createVibe(me, content, file, privacy);
         return "redirect:/vibes";
     }
 
     @PostMapping("/vibes/{id}/delete")
-    public String deleteVibe(@PathVariable Long id, Principal principal) {
-        vibeService.deleteVibe(id, principal.getName());
+    public String deleteVibe(@PathVariable Long id, CurrentUser me) {
+        vibeService.deleteVibe(id, me);
         return "redirect:/vibes";
     }
 
     @GetMapping("/friends")
-    public String friends(Model model, Principal principal) {
-        String username = principal.getName();
-        addCurrentUserToModel(model, principal);
-        model.addAttribute("friends", friendshipService.getAcceptedFriendships(username));
-        model.addAttribute("requests", friendshipService.getPendingRequests(username));
+    public String friends(Model model, CurrentUser me) {
+        loadCurrentUser(me, model);
+        model.addAttribute("friends", friendshipService.getAcceptedFriendships(me));
+        model.addAttribute("requests", friendshipService.getPendingRequests(me));
         return "friends";
     }
 
     @GetMapping("/explore")
-    public String explore(@RequestParam(required = false) String query, Model model, Principal principal) {
-        User currentUser = userRepository.findByUsername(principal.getName()).orElseThrow();
+    public String explore(@RequestParam(required = false) String query, Model model, CurrentUser me) {
         List<UserSearchDto> results;
 
         if (query == null || query.isBlank()) {
             Page<User> usersPage = userRepository.findAll(PageRequest.of(0, 20));
-            results = usersPage.stream()
-                    .filter(u -> !u.getId().equals(currentUser.getId()))
-                    .map(u -> userService.mapToSearchDto(u, currentUser))
+            List<User> others = usersPage.stream()
+                    .filter(u -> !u.getId().equals(me.getId()))
                     .collect(Collectors.toList());
+            results = userService.mapToSearchDtos(others, me.getId());
         } else {
-            results = userService.searchUsers(query, currentUser.getUsername());
+            results = userService.searchUsers(query, me, 0, 50);
         }
 
-        addCurrentUserToModel(model, principal);
+        loadCurrentUser(me, model);
         model.addAttribute("searchResults", results);
         return "explore";
     }
 
     @GetMapping("/profile")
-    public String profile(Model model, Principal principal) {
-        User currentUser = userRepository.findByUsername(principal.getName()).orElseThrow();
-        model.addAttribute("currentUser", currentUser);
-        model.addAttribute("friendCount", friendshipService.getAcceptedFriendships(currentUser.getUsername()).size());
+    public String profile(Model model, CurrentUser me) {
+        User currentUser = loadCurrentUser(me, model);
+        model.addAttribute("friendCount", friendshipService.countFriends(currentUser));
         return "profile";
     }
 
     @GetMapping("/users/{id}")
-    public String userProfile(@PathVariable Long id, Model model, Principal principal) {
+    public String userProfile(@PathVariable Long id, Model model, CurrentUser me) {
         User targetUser = userRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("User not found"));
-        User currentUser = userRepository.findByUsername(principal.getName()).orElseThrow();
+        User currentUser = targetUser.getId().equals(me.getId()) ? targetUser : loadCurrentUser(me, model);
 
         model.addAttribute("targetUser", targetUser);
         model.addAttribute("currentUser", currentUser);
         model.addAttribute("vibeCount", vibeRepository.countByUser(targetUser));
-        model.addAttribute("friendCount", friendshipService.getAcceptedFriendships(targetUser.getUsername()).size());
-        model.addAttribute("vibes", vibeRepository.findByUserOrderByCreatedAtDesc(targetUser, PageRequest.of(0, 20)));
+        model.addAttribute("friendCount", friendshipService.countFriends(targetUser));
+        Page<Vibe> vibePage = vibeRepository.findByUserOrderByCreatedAtDesc(targetUser, PageRequest.of(0, 20));
+        model.addAttribute("vibes", feedViewService.toViews(vibePage.getContent(), currentUser.getId()));
 
         String status = "NONE";
         Long friendshipId = null;
@@ -166,10 +162,7 @@ public class WebController {
         if (targetUser.getId().equals(currentUser.getId())) {
             status = "SELF";
         } else {
-            Optional<Friendship> friendshipOpt = friendshipService.getFriendshipRepository().findByRequesterAndReceiver(currentUser, targetUser);
-            if (friendshipOpt.isEmpty()) {
-                friendshipOpt = friendshipService.getFriendshipRepository().findByRequesterAndReceiver(targetUser, currentUser);
-            }
+            Optional<Friendship> friendshipOpt = friendshipService.findRelationship(currentUser, targetUser);
 
             if (friendshipOpt.isPresent()) {
                 Friendship f = friendshipOpt.get();
@@ -0,0 +1,20 @@
+package com.example.vibelet.dto;
+
+public class AuthorView {
+    private final Long id;
+    private final String username;
+    private final String avatarUrl;
+    private final String avatarVariants;
+
+    public AuthorView(Long id, String username, String avatarUrl, String avatarVariants) {
+        this.id = id;
+        this.username = username;
+        this.avatarUrl = avatarUrl;
+        this.avatarVariants = avatarVariants;
+    }
+
+    public Long getId() { return id; }
+    public String getUsername() { return username; }
+    public String getAvatarUrl() { return avatarUrl; }
+    public String getAvatarVariants() { return avatarVariants; }
+}
@@ -0,0 +1,22 @@
+package com.example.vibelet.dto;
+
+import java.time.LocalDateTime;
+
+public class CommentView {
+    private final Long id;
+    private final String content;
+    private final LocalDateTime createdAt;
+    private final AuthorView user;
+
+    public CommentView(Long id, String content, LocalDateTime createdAt, AuthorView user) {
+        this.id = id;
+        this.content = content;
+        this.createdAt = createdAt;
+        this.user = user;
+    }
+
+    public Long getId() { return id; }
+    public String getContent() { return content; }
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public AuthorView getUser() { return user; }
+}
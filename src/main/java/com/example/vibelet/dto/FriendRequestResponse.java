@@ -0,0 +1,20 @@
+package com.example.vibelet.dto;
+
+import java.time.LocalDateTime;
+
+public class FriendRequestResponse {
+    private final Long id;
+    private final AuthorView requester;
+    private final LocalDateTime createdAt;
+
+    public FriendRequestResponse(Long id, Long requesterId, String requesterUsername, String requesterAvatarUrl,
+                                 String requesterAvatarVariants, LocalDateTime createdAt) {
+        this.id = id;
+        this.requester = new AuthorView(requesterId, requesterUsername, requesterAvatarUrl, requesterAvatarVariants);
+        this.createdAt = createdAt;
+    }
+
+    public Long getId() { return id; }
+    public AuthorView getRequester() { return requester; }
+    public LocalDateTime getCreatedAt() { return createdAt; }
+}
@@ -0,0 +1,29 @@
+package com.example.vibelet.dto;
+
+import java.time.LocalDateTime;
+
+public class FriendResponse {
+    private final Long friendshipId;
+    private final Long id;
+    private final String username;
+    private final String avatarUrl;
+    private final String avatarVariants;
+    private final LocalDateTime friendsSince;
+
+    public FriendResponse(Long friendshipId, Long id, String username, String avatarUrl, String avatarVariants,
+                          LocalDateTime friendsSince) {
+        this.friendshipId = friendshipId;
+        this.id = id;
+        this.username = username;
+        this.avatarUrl = avatarUrl;
+        this.avatarVariants = avatarVariants;
+        this.friendsSince = friendsSince;
+    }
+
+    public Long getFriendshipId() { return friendshipId; }
+    public Long getId() { return id; }
+    public String getUsername() { return username; }
+    public String getAvatarUrl() { return avatarUrl; }
+    public String getAvatarVariants() { return avatarVariants; }
+    public LocalDateTime getFriendsSince() { return friendsSince; }
+}
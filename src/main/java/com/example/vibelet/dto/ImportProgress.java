@@ -0,0 +1,31 @@
+package com.example.vibelet.dto;
+
+public class ImportProgress {
+    private volatile int vibesImported;
+    private volatile int vibesSkipped;
+    private volatile int friendsRestored;
+
+    public int getVibesImported() {
+        return vibesImported;
+    }
+
+    public int getVibesSkipped() {
+        return vibesSkipped;
+    }
+
+    public int getFriendsRestored() {
+        return friendsRestored;
+    }
+
+    public void addVibesImported(int count) {
+        vibesImported += count;
+    }
+
+    public void addVibesSkipped(int count) {
+        vibesSkipped += count;
+    }
+
+    public void addFriendsRestored(int count) {
+        friendsRestored += count;
+    }
+}
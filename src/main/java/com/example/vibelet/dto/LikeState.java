@@ -0,0 +1,14 @@
+package com.example.vibelet.dto;
+
+public class LikeState {
+    private final boolean liked;
+    private final long likeCount;
+
+    public LikeState(boolean liked, long likeCount) {
+        this.liked = liked;
+        this.likeCount = likeCount;
+    }
+
+    public boolean isLiked() { return liked; }
+    public long getLikeCount() { return likeCount; }
+}
@@ -0,0 +1,34 @@
+package com.example.vibelet.dto;
+
+import com.example.vibelet.model.User;
+
+/** The signed-in user's own profile as the REST API returns it: no credentials, no associations. */
+public class ProfileResponse {
+    private final Long id;
+    private final String username;
+    private final String bio;
+    private final String status;
+    private final String avatarUrl;
+    private final String avatarVariants;
+
+    public ProfileResponse(Long id, String username, String bio, String status, String avatarUrl, String avatarVariants) {
+        this.id = id;
+        this.username = username;
+        this.bio = bio;
+        this.status = status;
+        this.avatarUrl = avatarUrl;
+        this.avatarVariants = avatarVariants;
+    }
+
+    public static ProfileResponse from(User user) {
+        return new ProfileResponse(user.getId(), user.getUsername(), user.getBio(), user.getStatus(),
+                user.getAvatarUrl(), user.getAvatarVariants());
+    }
+
+    public Long getId() { return id; }
+    public String getUsername() { return username; }
+    public String getBio() { return bio; }
+    public String getStatus() { return status; }
+    public String getAvatarUrl() { return avatarUrl; }
+    public String getAvatarVariants() { return avatarVariants; }
+}
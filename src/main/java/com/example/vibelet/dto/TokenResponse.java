@@ -0,0 +1,18 @@
+package com.example.vibelet.dto;
+
+public class TokenResponse {
+    private final String accessToken;
+    private final String refreshToken;
+    private final long expiresIn;
+
+    public TokenResponse(String accessToken, String refreshToken, long expiresIn) {
+        this.accessToken = accessToken;
+        this.refreshToken = refreshToken;
+        this.expiresIn = expiresIn;
+    }
+
+    public String getAccessToken() { return accessToken; }
+    public String getRefreshToken() { return refreshToken; }
+    public String getTokenType() { return "Bearer"; }
+    public long getExpiresIn() { return expiresIn; }
+}
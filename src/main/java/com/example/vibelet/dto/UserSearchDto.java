@@ -4,17 +4,20 @@ public class UserSearchDto {
     private Long id;
     private String username;
     private String avatarUrl;
+    private String avatarVariants;
     private String friendshipStatus;
 
-    public UserSearchDto(Long id, String username, String avatarUrl, String friendshipStatus) {
+    public UserSearchDto(Long id, String username, String avatarUrl, String avatarVariants, String friendshipStatus) {
         this.id = id;
         this.username = username;
         this.avatarUrl = avatarUrl;
+        this.avatarVariants = avatarVariants;
         this.friendshipStatus = friendshipStatus;
     }
 
     public Long getId() { return id; }
     public String getUsername() { return username; }
     public String getAvatarUrl() { return avatarUrl; }
+    public String getAvatarVariants() { return avatarVariants; }
     public String getFriendshipStatus() { return friendshipStatus; }
 }
\ No newline at end of file
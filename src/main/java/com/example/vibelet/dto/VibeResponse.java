@@ -0,0 +1,55 @@
+package com.example.vibelet.dto;
+
+import com.example.vibelet.model.PrivacyStatus;
+import com.example.vibelet.model.User;
+import com.example.vibelet.model.Vibe;
+
+import java.time.LocalDateTime;
+
+/**
+ * REST representation of a vibe. Built either by a JPQL constructor expression (flat
+ * constructor) or from an entity whose author is already loaded, so Jackson only ever
+ * sees plain values and never reaches a lazy association.
+ */
+public class VibeResponse {
+    private final Long id;
+    private final String content;
+    private final String imageUrl;
+    private final String imageVariants;
+    private final PrivacyStatus privacyStatus;
+    private final LocalDateTime createdAt;
+    private final AuthorView user;
+    private final long likeCount;
+    private final long commentCount;
+
+    public VibeResponse(Long id, String content, String imageUrl, String imageVariants, PrivacyStatus privacyStatus,
+                        LocalDateTime createdAt, long likeCount, long commentCount,
+                        Long userId, String username, String avatarUrl, String avatarVariants) {
+        this.id = id;
+        this.content = content;
+        this.imageUrl = imageUrl;
+        this.imageVariants = imageVariants;
+        this.privacyStatus = privacyStatus;
+        this.createdAt = createdAt;
+        this.user = new AuthorView(userId, username, avatarUrl, avatarVariants);
+        this.likeCount = likeCount;
+        this.commentCount = commentCount;
+    }
+
+    public static VibeResponse from(Vibe vibe) {
+        User author = vibe.getUser();
+        return new VibeResponse(vibe.getId(), vibe.getContent(), vibe.getImageUrl(), vibe.getImageVariants(),
+                vibe.getPrivacyStatus(), vibe.getCreatedAt(), vibe.getLikeCount(), vibe.getCommentCount(),
+                author.getId(), author.getUsername(), author.getAvatarUrl(), author.getAvatarVariants());
+    }
+
+    public Long getId() { return id; }
+    public String getContent() { return content; }
+    public String getImageUrl() { return imageUrl; }
+    public String getImageVariants() { return imageVariants; }
+    public PrivacyStatus getPrivacyStatus() { return privacyStatus; }
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public AuthorView getUser() { return user; }
+    public long getLikeCount() { return likeCount; }
+    public long getCommentCount() { return commentCount; }
+}
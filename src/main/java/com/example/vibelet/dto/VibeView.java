@@ -0,0 +1,47 @@
+package com.example.vibelet.dto;
+
+import com.example.vibelet.model.PrivacyStatus;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public class VibeView {
+    private final Long id;
+    private final String content;
+    private final String imageUrl;
+    private final String imageVariants;
+    private final PrivacyStatus privacyStatus;
+    private final LocalDateTime createdAt;
+    private final AuthorView user;
+    private final long likeCount;
+    private final boolean likedByMe;
+    private final long commentCount;
+    private final List<CommentView> comments;
+
+    public VibeView(Long id, String content, String imageUrl, String imageVariants, PrivacyStatus privacyStatus, LocalDateTime createdAt,
+                    AuthorView user, long likeCount, boolean likedByMe, long commentCount, List<CommentView> comments) {
+        this.id = id;
+        this.content = content;
+        this.imageUrl = imageUrl;
+        this.imageVariants = imageVariants;
+        this.privacyStatus = privacyStatus;
+        this.createdAt = createdAt;
+        this.user = user;
+        this.likeCount = likeCount;
+        this.likedByMe = likedByMe;
+        this.commentCount = commentCount;
+        this.comments = comments;
+    }
+
+    public Long getId() { return id; }
+    public String getContent() { return content; }
+    public String getImageUrl() { return imageUrl; }
+    public String getImageVariants() { return imageVariants; }
+    public PrivacyStatus getPrivacyStatus() { return privacyStatus; }
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public AuthorView getUser() { return user; }
+    public long getLikeCount() { return likeCount; }
+    public boolean isLikedByMe() { return likedByMe; }
+    public long getCommentCount() { return commentCount; }
+    public List<CommentView> getComments() { return comments; }
+}
@@ -1,12 +1,16 @@
 package com.example.vibelet.model;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "friendships", uniqueConstraints = {
         @UniqueConstraint(columnNames = {"requester_id", "receiver_id"})
 })
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 public class Friendship {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -0,0 +1,46 @@
+package com.example.vibelet.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "media_blobs")
+public class MediaBlob {
+    @Id
+    @Column(length = 100)
+    private String path;
+
+    @Column(nullable = false)
+    private long size;
+
+    @Column(nullable = false)
+    private int refCount;
+
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        this.createdAt = LocalDateTime.now();
+    }
+
+    public MediaBlob() {}
+
+    public MediaBlob(String path, long size) {
+        this.path = path;
+        this.size = size;
+        this.refCount = 1;
+    }
+
+    public String getPath() {
+        return path;
+    }
+    public long getSize() {
+        return size;
+    }
+    public int getRefCount() {
+        return refCount;
+    }
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+}
@@ -0,0 +1,9 @@
+package com.example.vibelet.model;
+
+public enum RelationshipStatus {
+    SELF,
+    FRIEND,
+    PENDING_SENT,
+    PENDING_RECEIVED,
+    NONE
+}
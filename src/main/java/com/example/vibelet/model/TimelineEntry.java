@@ -0,0 +1,70 @@
+package com.example.vibelet.model;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "timeline_entries",
+        uniqueConstraints = {
+                @UniqueConstraint(columnNames = {"owner_id", "vibe_id"})
+        },
+        indexes = {
+                @Index(name = "idx_timeline_owner_created", columnList = "owner_id, created_at DESC, vibe_id DESC"),
+                @Index(name = "idx_timeline_vibe", columnList = "vibe_id")
+        })
+public class TimelineEntry {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "owner_id", nullable = false)
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    private User owner;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "vibe_id", nullable = false)
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    private Vibe vibe;
+
+    @Column(name = "author_id", nullable = false)
+    private Long authorId;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    public Long getId() {
+        return id;
+    }
+    public User getOwner() {
+        return owner;
+    }
+    public Vibe getVibe() {
+        return vibe;
+    }
+    public Long getAuthorId() {
+        return authorId;
+    }
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+    public void setOwner(User owner) {
+        this.owner = owner;
+    }
+    public void setVibe(Vibe vibe) {
+        this.vibe = vibe;
+    }
+    public void setAuthorId(Long authorId) {
+        this.authorId = authorId;
+    }
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+}
@@ -1,6 +1,10 @@
 package com.example.vibelet.model;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
 import org.springframework.boot.jdbc.DataSourceBuilder;
 
 import javax.sql.DataSource;
@@ -10,12 +14,16 @@ import java.util.List;
 
 @Entity
 @Table(name = "users")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@NaturalIdCache
 public class User {
 
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
+    @NaturalId(mutable = true)
     @Column(unique = true, nullable = false)
     private String username;
 
@@ -26,6 +34,7 @@ public class User {
     private String password;
 
     private String avatarUrl;
+    private String avatarVariants;
     private String bio;
     private String status;
 
@@ -54,6 +63,9 @@ public class User {
     public String getAvatarUrl() {
         return avatarUrl;
     }
+    public String getAvatarVariants() {
+        return avatarVariants;
+    }
     public String getPassword() {
         return password;
     }
@@ -79,6 +91,9 @@ public class User {
     public void setAvatarUrl(String avatarUrl) {
         this.avatarUrl = avatarUrl;
     }
+    public void setAvatarVariants(String avatarVariants) {
+        this.avatarVariants = avatarVariants;
+    }
     public void setPassword(String password) {
         this.password = password;
     }
@@ -1,12 +1,17 @@
 package com.example.vibelet.model;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.ColumnDefault;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 
 @Entity
 @Table(name = "vibes")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 public class Vibe {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -17,6 +22,8 @@ public class Vibe {
 
     private String imageUrl;
 
+    private String imageVariants;
+
     @Enumerated(EnumType.STRING)
     @Column(nullable = false)
     private PrivacyStatus privacyStatus;
@@ -27,6 +34,13 @@ public class Vibe {
 
     private LocalDateTime createdAt;
 
+    @ColumnDefault("0")
+    @Column(nullable = false, insertable = false, updatable = false)
+    private long likeCount;
+
+    @ColumnDefault("0")
+    @Column(nullable = false, insertable = false, updatable = false)
+    private long commentCount;
 
     @OneToMany(mappedBy = "vibe", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<Comment> comments = new ArrayList<>();
@@ -48,6 +62,9 @@ public class Vibe {
     public String getImageUrl() {
         return imageUrl;
     }
+    public String getImageVariants() {
+        return imageVariants;
+    }
     public PrivacyStatus getPrivacyStatus() {
         return privacyStatus;
     }
@@ -57,6 +74,12 @@ public class Vibe {
     public LocalDateTime getCreatedAt() {
         return createdAt;
     }
+    public long getLikeCount() {
+        return likeCount;
+    }
+    public long getCommentCount() {
+        return commentCount;
+    }
     public List<Comment> getComments() {
         return comments;
     }
@@ -76,6 +99,9 @@ public class Vibe {
     public void setImageUrl(String imageUrl) {
         this.imageUrl = imageUrl;
     }
+    public void setImageVariants(String imageVariants) {
+        this.imageVariants = imageVariants;
+    }
     public void setPrivacyStatus(PrivacyStatus privacyStatus) {
         this.privacyStatus = privacyStatus;
     }
@@ -88,4 +114,10 @@ public class Vibe {
     public void setComments(List<Comment> comments) {
         this.comments = comments;
     }
+    public void setLikeCount(long likeCount) {
+        this.likeCount = likeCount;
+    }
+    public void setCommentCount(long commentCount) {
+        this.commentCount = commentCount;
+    }
 }
\ No newline at end of file
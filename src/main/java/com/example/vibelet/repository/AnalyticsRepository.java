@@ -1,8 +1,13 @@
 package com.example.vibelet.repository;
 
+import com.example.vibelet.model.User;
+import jakarta.persistence.EntityManagerFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
@@ -10,11 +15,14 @@ import java.util.List;
 
 @Repository
 public class AnalyticsRepository {
+    private static final Logger log = LoggerFactory.getLogger(AnalyticsRepository.class);
 
     private final JdbcTemplate jdbcTemplate;
+    private final EntityManagerFactory entityManagerFactory;
 
-    public AnalyticsRepository(JdbcTemplate jdbcTemplate) {
+    public AnalyticsRepository(JdbcTemplate jdbcTemplate, EntityManagerFactory entityManagerFactory) {
         this.jdbcTemplate = jdbcTemplate;
+        this.entityManagerFactory = entityManagerFactory;
     }
 
     public static class UserStats {
@@ -22,6 +30,7 @@ public class AnalyticsRepository {
         public int vibeCount;
     }
 
+    @Transactional(readOnly = true)
     public List<UserStats> getUserPostCounts() {
         String sql = "SELECT u.username, COUNT(v.id) as count FROM users u LEFT JOIN vibes v ON u.id = v.user_id GROUP BY u.username";
 
@@ -39,6 +48,7 @@ public class AnalyticsRepository {
     public void banUser(String username) {
         String sql = "UPDATE users SET status = 'BANNED' WHERE username = ?";
         int rows = jdbcTemplate.update(sql, username);
-        System.out.println("JDBC Audit: Użytkownik " + username + " został zbanowany. Zmieniono wierszy: " + rows);
+        entityManagerFactory.getCache().evict(User.class);
+        log.info("JDBC audit: user {} banned, {} rows updated", username, rows);
     }
 }
\ No newline at end of file
@@ -0,0 +1,16 @@
+package com.example.vibelet.repository;
+
+/**
+ * Query spaces for native updates. Without one, Hibernate drops every second-level cache
+ * region after each native executeUpdate, so each of them names the table it writes.
+ */
+public final class CacheSpaces {
+    /**
+     * For single-row updates of cached entities: names no table, so no region is dropped,
+     * and the caller evicts the one affected entry once its transaction has committed.
+     */
+    public static final String CALLER_EVICTS = "caller_evicts";
+
+    private CacheSpaces() {
+    }
+}
@@ -2,6 +2,19 @@ package com.example.vibelet.repository;
 
 import com.example.vibelet.model.Comment;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
 
 public interface CommentRepository extends JpaRepository<Comment, Long> {
-}
\ No newline at end of file
+
+    @Query(value = "SELECT c.id, c.vibe_id, c.content, c.created_at, u.id AS author_id, u.username, u.avatar_url " +
+            "FROM (SELECT c.*, ROW_NUMBER() OVER (PARTITION BY c.vibe_id ORDER BY c.created_at, c.id) AS rn " +
+            "      FROM comments c WHERE c.vibe_id IN (:vibeIds)) c " +
+            "JOIN users u ON u.id = c.user_id " +
+            "WHERE c.rn <= :perVibe " +
+            "ORDER BY c.vibe_id, c.created_at, c.id", nativeQuery = true)
+    List<Object[]> findPreviewRows(@Param("vibeIds") Collection<Long> vibeIds, @Param("perVibe") int perVibe);
+}
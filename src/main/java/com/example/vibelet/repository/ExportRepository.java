@@ -0,0 +1,48 @@
+package com.example.vibelet.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Forward-only reads for data export. Rows are handed to the callback as they arrive;
+ * with a fetch size set and inside a transaction the driver streams them from a cursor.
+ */
+@Repository
+public class ExportRepository {
+    private static final int FETCH_SIZE = 500;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public ExportRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = new JdbcTemplate(jdbcTemplate.getDataSource());
+        this.jdbcTemplate.setFetchSize(FETCH_SIZE);
+    }
+
+    public void streamVibes(Long userId, RowCallbackHandler handler) {
+        String sql = "SELECT v.id, v.content, v.created_at, v.image_url, v.privacy_status, v.like_count, v.comment_count " +
+                "FROM vibes v WHERE v.user_id = ? ORDER BY v.created_at, v.id";
+        jdbcTemplate.query(sql, handler, userId);
+    }
+
+    public void streamComments(Long userId, RowCallbackHandler handler) {
+        String sql = "SELECT c.content, c.created_at, c.vibe_id, u.username AS vibe_author " +
+                "FROM comments c JOIN vibes v ON v.id = c.vibe_id JOIN users u ON u.id = v.user_id " +
+                "WHERE c.user_id = ? ORDER BY c.created_at, c.id";
+        jdbcTemplate.query(sql, handler, userId);
+    }
+
+    public void streamLikes(Long userId, RowCallbackHandler handler) {
+        String sql = "SELECT pl.vibe_id, u.username AS vibe_author " +
+                "FROM post_likes pl JOIN vibes v ON v.id = pl.vibe_id JOIN users u ON u.id = v.user_id " +
+                "WHERE pl.user_id = ? ORDER BY pl.id";
+        jdbcTemplate.query(sql, handler, userId);
+    }
+
+    public void streamFriendUsernames(Long userId, RowCallbackHandler handler) {
+        String sql = "SELECT u.username FROM friendships f " +
+                "JOIN users u ON u.id = CASE WHEN f.requester_id = ? THEN f.receiver_id ELSE f.requester_id END " +
+                "WHERE (f.requester_id = ? OR f.receiver_id = ?) AND f.status = 'ACCEPTED' ORDER BY f.id";
+        jdbcTemplate.query(sql, handler, userId, userId, userId);
+    }
+}
@@ -1,11 +1,14 @@
 package com.example.vibelet.repository;
 
+import com.example.vibelet.dto.FriendRequestResponse;
+import com.example.vibelet.dto.FriendResponse;
 import com.example.vibelet.model.Friendship;
 import com.example.vibelet.model.FriendshipStatus;
 import com.example.vibelet.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -16,10 +19,37 @@ public interface FriendshipRepository extends JpaRepository<Friendship, Long> {
     boolean existsByUsers(@Param("user1") User user1, @Param("user2") User user2);
 
     Optional<Friendship> findByRequesterAndReceiver(User requester, User receiver);
+
+    @Query("SELECT f FROM Friendship f " +
+            "WHERE (f.requester = :user1 AND f.receiver = :user2) " +
+            "OR (f.requester = :user2 AND f.receiver = :user1)")
+    Optional<Friendship> findBetween(@Param("user1") User user1, @Param("user2") User user2);
+
+    @Query("SELECT f.requester.id, f.receiver.id, f.status FROM Friendship f " +
+            "WHERE f.requester.id = :userId OR f.receiver.id = :userId")
+    List<Object[]> findEdgesOf(@Param("userId") Long userId);
+
+    @Query("SELECT f.requester.id, f.receiver.id, f.status FROM Friendship f " +
+            "WHERE (f.requester.id = :userId AND f.receiver.id IN :otherIds) " +
+            "OR (f.receiver.id = :userId AND f.requester.id IN :otherIds)")
+    List<Object[]> findEdgesBetween(@Param("userId") Long userId, @Param("otherIds") Collection<Long> otherIds);
     List<Friendship> findByReceiverAndStatus(User receiver, FriendshipStatus status);
 
     @Query("SELECT f FROM Friendship f " +
             "WHERE (f.requester = :user OR f.receiver = :user) " +
             "AND f.status = 'ACCEPTED'")
     List<Friendship> findAllFriendsOfUser(@Param("user") User user);
+
+    @Query("SELECT new com.example.vibelet.dto.FriendResponse(f.id, u.id, u.username, u.avatarUrl, u.avatarVariants, f.createdAt) " +
+            "FROM Friendship f, User u " +
+            "WHERE f.status = 'ACCEPTED' " +
+            "AND ((f.requester.id = :userId AND u.id = f.receiver.id) OR (f.receiver.id = :userId AND u.id = f.requester.id)) " +
+            "ORDER BY u.username")
+    List<FriendResponse> findFriendResponses(@Param("userId") Long userId);
+
+    @Query("SELECT new com.example.vibelet.dto.FriendRequestResponse(f.id, r.id, r.username, r.avatarUrl, r.avatarVariants, f.createdAt) " +
+            "FROM Friendship f JOIN f.requester r " +
+            "WHERE f.receiver.id = :userId AND f.status = 'PENDING' " +
+            "ORDER BY f.createdAt DESC, f.id DESC")
+    List<FriendRequestResponse> findPendingRequestResponses(@Param("userId") Long userId);
 }
\ No newline at end of file
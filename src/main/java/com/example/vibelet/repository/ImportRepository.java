@@ -0,0 +1,89 @@
+package com.example.vibelet.repository;
+
+import com.example.vibelet.model.User;
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Bulk writes for data import. Vibe and friendship ids are IDENTITY columns, which keeps
+ * Hibernate from batching inserts, so chunks are written here with JDBC batch statements.
+ */
+@Repository
+public class ImportRepository {
+    private static final int FETCH_SIZE = 500;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final EntityManagerFactory entityManagerFactory;
+
+    public ImportRepository(JdbcTemplate jdbcTemplate, EntityManagerFactory entityManagerFactory) {
+        this.entityManagerFactory = entityManagerFactory;
+        this.jdbcTemplate = new JdbcTemplate(jdbcTemplate.getDataSource());
+        this.jdbcTemplate.setFetchSize(FETCH_SIZE);
+        this.namedJdbcTemplate = new NamedParameterJdbcTemplate(this.jdbcTemplate);
+    }
+
+    /** Streams from a cursor when called inside a transaction, like the reads of ExportRepository. */
+    public void streamVibeKeys(Long userId, RowCallbackHandler handler) {
+        jdbcTemplate.query("SELECT created_at, content FROM vibes WHERE user_id = ?", handler, userId);
+    }
+
+    public void updateBio(Long userId, String bio) {
+        jdbcTemplate.update("UPDATE users SET bio = ? WHERE id = ?", bio, userId);
+        entityManagerFactory.getCache().evict(User.class, userId);
+    }
+
+    public void insertVibes(Long userId, List<String> contents, List<LocalDateTime> createdAts) {
+        String sql = "INSERT INTO vibes (content, created_at, privacy_status, user_id, like_count, comment_count) " +
+                "VALUES (?, ?, 'PRIVATE', ?, 0, 0)";
+        List<Object[]> rows = new ArrayList<>(contents.size());
+        for (int i = 0; i < contents.size(); i++) {
+            rows.add(new Object[]{contents.get(i), Timestamp.valueOf(createdAts.get(i)), userId});
+        }
+        jdbcTemplate.batchUpdate(sql, rows);
+    }
+
+    public Map<String, Long> findUserIdsByUsernames(Collection<String> usernames) {
+        Map<String, Long> ids = new HashMap<>(usernames.size() * 2);
+        namedJdbcTemplate.query("SELECT id, username FROM users WHERE username IN (:usernames)",
+                new MapSqlParameterSource("usernames", usernames),
+                (RowCallbackHandler) rs -> ids.put(rs.getString("username"), rs.getLong("id")));
+        return ids;
+    }
+
+    // Any existing row in either direction, whatever its status, blocks a restore.
+    public Set<Long> findConnectedIds(Long userId, Collection<Long> otherIds) {
+        String sql = "SELECT CASE WHEN requester_id = :userId THEN receiver_id ELSE requester_id END AS other_id " +
+                "FROM friendships WHERE (requester_id = :userId AND receiver_id IN (:others)) " +
+                "OR (receiver_id = :userId AND requester_id IN (:others))";
+        Set<Long> connected = new HashSet<>();
+        namedJdbcTemplate.query(sql,
+                new MapSqlParameterSource("userId", userId).addValue("others", otherIds),
+                (RowCallbackHandler) rs -> connected.add(rs.getLong("other_id")));
+        return connected;
+    }
+
+    public void insertAcceptedFriendships(Long requesterId, Collection<Long> receiverIds) {
+        String sql = "INSERT INTO friendships (requester_id, receiver_id, status, created_at) VALUES (?, ?, 'ACCEPTED', ?)";
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> rows = new ArrayList<>(receiverIds.size());
+        for (Long receiverId : receiverIds) {
+            rows.add(new Object[]{requesterId, receiverId, now});
+        }
+        jdbcTemplate.batchUpdate(sql, rows);
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.vibelet.repository;
+
+import com.example.vibelet.model.MediaBlob;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+public interface MediaBlobRepository extends JpaRepository<MediaBlob, String> {
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "media_blobs"))
+    @Query(value = "UPDATE media_blobs SET ref_count = ref_count + 1 WHERE path = :path", nativeQuery = true)
+    int incrementRefCount(@Param("path") String path);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "media_blobs"))
+    @Query(value = "UPDATE media_blobs SET ref_count = ref_count - 1 WHERE path = :path", nativeQuery = true)
+    int decrementRefCount(@Param("path") String path);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "media_blobs"))
+    @Query(value = "DELETE FROM media_blobs WHERE path = :path AND ref_count <= 0", nativeQuery = true)
+    int deleteIfUnreferenced(@Param("path") String path);
+}
@@ -0,0 +1,46 @@
+package com.example.vibelet.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import java.util.function.Consumer;
+
+/**
+ * Reference lookups for the media garbage collector. The full listing is streamed (fetch
+ * size plus a surrounding transaction gives a server-side cursor), the single-key check
+ * is what a deletion is finally decided on.
+ */
+@Repository
+public class MediaGcRepository {
+    private static final int FETCH_SIZE = 1000;
+    private static final String REFERENCED_KEYS =
+            "SELECT image_url FROM vibes WHERE image_url IS NOT NULL " +
+            "UNION ALL SELECT avatar_url FROM users WHERE avatar_url IS NOT NULL " +
+            "UNION ALL SELECT path FROM media_blobs WHERE ref_count > 0";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public MediaGcRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = new JdbcTemplate(jdbcTemplate.getDataSource());
+        this.jdbcTemplate.setFetchSize(FETCH_SIZE);
+    }
+
+    public long countReferences() {
+        Long count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM (" + REFERENCED_KEYS + ") refs", Long.class);
+        return count == null ? 0 : count;
+    }
+
+    public void streamReferencedKeys(Consumer<String> consumer) {
+        jdbcTemplate.query(REFERENCED_KEYS, (RowCallbackHandler) rs -> consumer.accept(rs.getString(1)));
+    }
+
+    public boolean isReferenced(String key) {
+        Integer found = jdbcTemplate.queryForObject(
+                "SELECT CASE WHEN EXISTS (SELECT 1 FROM vibes WHERE image_url = ?) " +
+                "OR EXISTS (SELECT 1 FROM users WHERE avatar_url = ?) " +
+                "OR EXISTS (SELECT 1 FROM media_blobs WHERE path = ?) THEN 1 ELSE 0 END",
+                Integer.class, key, key, key);
+        return found != null && found == 1;
+    }
+}
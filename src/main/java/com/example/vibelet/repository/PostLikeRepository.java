@@ -1,12 +1,39 @@
 package com.example.vibelet.repository;
 
 import com.example.vibelet.model.PostLike;
-import com.example.vibelet.model.User;
-import com.example.vibelet.model.Vibe;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
-import java.util.Optional;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
 
 public interface PostLikeRepository extends JpaRepository<PostLike, Long> {
-    Optional<PostLike> findByUserAndVibe(User user, Vibe vibe);
-    boolean existsByUserAndVibe(User user, Vibe vibe);
-}
\ No newline at end of file
+    // Same visibility rules as VibeService.checkAccess, evaluated inside the insert.
+    @Transactional
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "post_likes"))
+    @Query(value = "INSERT INTO post_likes (vibe_id, user_id) " +
+            "SELECT v.id, u.id FROM vibes v, users u " +
+            "WHERE v.id = :vibeId AND u.id = :userId " +
+            "AND (v.user_id = u.id OR v.privacy_status = 'PUBLIC' OR (v.privacy_status = 'FRIENDS_ONLY' AND EXISTS (" +
+            "  SELECT 1 FROM friendships f " +
+            "  WHERE (f.requester_id = v.user_id AND f.receiver_id = u.id) OR (f.requester_id = u.id AND f.receiver_id = v.user_id)" +
+            "))) " +
+            "AND NOT EXISTS (SELECT 1 FROM post_likes pl WHERE pl.vibe_id = v.id AND pl.user_id = u.id)", nativeQuery = true)
+    int insertIfPermitted(@Param("vibeId") Long vibeId, @Param("userId") Long userId);
+
+    @Transactional
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "post_likes"))
+    @Query(value = "DELETE FROM post_likes WHERE vibe_id = :vibeId AND user_id = :userId", nativeQuery = true)
+    int deleteByVibeIdAndUserId(@Param("vibeId") Long vibeId, @Param("userId") Long userId);
+
+    @Query("SELECT pl.vibe.id FROM PostLike pl WHERE pl.user.id = :userId AND pl.vibe.id IN :vibeIds")
+    List<Long> findLikedVibeIds(@Param("userId") Long userId, @Param("vibeIds") Collection<Long> vibeIds);
+}
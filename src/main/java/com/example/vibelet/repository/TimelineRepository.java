@@ -0,0 +1,99 @@
+package com.example.vibelet.repository;
+
+import com.example.vibelet.model.TimelineEntry;
+import com.example.vibelet.model.Vibe;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface TimelineRepository extends JpaRepository<TimelineEntry, Long> {
+
+    @Query("SELECT v FROM TimelineEntry t JOIN t.vibe v JOIN FETCH v.user " +
+            "WHERE t.owner.id = :ownerId " +
+            "ORDER BY t.createdAt DESC, v.id DESC")
+    List<Vibe> findVibesForOwner(@Param("ownerId") Long ownerId, Pageable pageable);
+
+    @Query("SELECT v FROM TimelineEntry t JOIN t.vibe v JOIN FETCH v.user " +
+            "WHERE t.owner.id = :ownerId " +
+            "AND (t.createdAt < :createdAt OR (t.createdAt = :createdAt AND v.id < :vibeId)) " +
+            "ORDER BY t.createdAt DESC, v.id DESC")
+    List<Vibe> findVibesForOwnerBefore(@Param("ownerId") Long ownerId,
+                                       @Param("createdAt") LocalDateTime createdAt,
+                                       @Param("vibeId") Long vibeId,
+                                       Pageable pageable);
+
+    @Query("SELECT COUNT(t) FROM TimelineEntry t WHERE t.owner.id = :ownerId")
+    long countForOwner(@Param("ownerId") Long ownerId);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "timeline_entries"))
+    @Query(value = "INSERT INTO timeline_entries (owner_id, vibe_id, author_id, created_at) " +
+            "VALUES (:ownerId, :vibeId, :authorId, :createdAt)", nativeQuery = true)
+    int insertEntry(@Param("ownerId") Long ownerId,
+                    @Param("vibeId") Long vibeId,
+                    @Param("authorId") Long authorId,
+                    @Param("createdAt") LocalDateTime createdAt);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "timeline_entries"))
+    @Query(value = "INSERT INTO timeline_entries (owner_id, vibe_id, author_id, created_at) " +
+            "SELECT CASE WHEN f.requester_id = :authorId THEN f.receiver_id ELSE f.requester_id END, " +
+            "       :vibeId, :authorId, :createdAt " +
+            "FROM friendships f " +
+            "WHERE (f.requester_id = :authorId OR f.receiver_id = :authorId) " +
+            "AND f.status = 'ACCEPTED'", nativeQuery = true)
+    int fanOutToFriends(@Param("vibeId") Long vibeId,
+                        @Param("authorId") Long authorId,
+                        @Param("createdAt") LocalDateTime createdAt);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "timeline_entries"))
+    @Query(value = "INSERT INTO timeline_entries (owner_id, vibe_id, author_id, created_at) " +
+            "SELECT :ownerId, v.id, v.user_id, v.created_at FROM vibes v " +
+            "WHERE ((v.user_id = :ownerId AND v.privacy_status <> 'PUBLIC') " +
+            "   OR (v.privacy_status = 'FRIENDS_ONLY' AND v.user_id IN (" +
+            "       SELECT f.receiver_id FROM friendships f WHERE f.requester_id = :ownerId AND f.status = 'ACCEPTED' " +
+            "       UNION " +
+            "       SELECT f.requester_id FROM friendships f WHERE f.receiver_id = :ownerId AND f.status = 'ACCEPTED'))) " +
+            "AND NOT EXISTS (SELECT 1 FROM timeline_entries t WHERE t.owner_id = :ownerId AND t.vibe_id = v.id)",
+            nativeQuery = true)
+    int backfillOwner(@Param("ownerId") Long ownerId);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "timeline_rebuilds"))
+    @Query(value = "INSERT INTO timeline_rebuilds (owner_id, requested_at) VALUES (:ownerId, CURRENT_TIMESTAMP)",
+            nativeQuery = true)
+    int requestRebuild(@Param("ownerId") Long ownerId);
+
+    /** One row per owner with a pending rebuild: owner id and the newest request id, oldest owners first. */
+    @Query(value = "SELECT owner_id, MAX(id) FROM timeline_rebuilds GROUP BY owner_id ORDER BY MIN(id) LIMIT :limit",
+            nativeQuery = true)
+    List<Object[]> findPendingRebuilds(@Param("limit") int limit);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "timeline_rebuilds"))
+    @Query(value = "DELETE FROM timeline_rebuilds WHERE owner_id = :ownerId AND id <= :upTo", nativeQuery = true)
+    int completeRebuilds(@Param("ownerId") Long ownerId, @Param("upTo") Long upTo);
+
+    @Modifying
+    @Query("DELETE FROM TimelineEntry t WHERE t.vibe.id = :vibeId")
+    int deleteByVibeId(@Param("vibeId") Long vibeId);
+
+    @Modifying
+    @Query("DELETE FROM TimelineEntry t WHERE t.owner.id = :ownerId")
+    int deleteByOwnerId(@Param("ownerId") Long ownerId);
+
+    @Modifying
+    @Query("DELETE FROM TimelineEntry t " +
+            "WHERE (t.owner.id = :userA AND t.authorId = :userB) " +
+            "OR (t.owner.id = :userB AND t.authorId = :userA)")
+    int deleteBetween(@Param("userA") Long userA, @Param("userB") Long userB);
+}
@@ -0,0 +1,12 @@
+package com.example.vibelet.repository;
+
+import com.example.vibelet.model.User;
+
+import java.util.Optional;
+
+public interface UserCacheOperations {
+    /** Resolved through the natural-id cache, so a cached user costs no query at all. */
+    Optional<User> findByUsername(String username);
+
+    void evictFromCache(Long userId);
+}
@@ -0,0 +1,39 @@
+package com.example.vibelet.repository;
+
+import com.example.vibelet.model.User;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Session;
+import org.springframework.orm.jpa.EntityManagerFactoryUtils;
+
+import java.util.Optional;
+
+public class UserCacheOperationsImpl implements UserCacheOperations {
+    private final EntityManagerFactory entityManagerFactory;
+
+    public UserCacheOperationsImpl(EntityManagerFactory entityManagerFactory) {
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    // Uses the transaction's (or open-in-view) EntityManager when there is one, like the shared
+    // EntityManager would; the Session API is not reachable through the shared proxy outside one.
+    @Override
+    public Optional<User> findByUsername(String username) {
+        EntityManager current = EntityManagerFactoryUtils.getTransactionalEntityManager(entityManagerFactory);
+        if (current != null) {
+            return lookup(current, username);
+        }
+        try (EntityManager entityManager = entityManagerFactory.createEntityManager()) {
+            return lookup(entityManager, username);
+        }
+    }
+
+    @Override
+    public void evictFromCache(Long userId) {
+        entityManagerFactory.getCache().evict(User.class, userId);
+    }
+
+    private static Optional<User> lookup(EntityManager entityManager, String username) {
+        return entityManager.unwrap(Session.class).bySimpleNaturalId(User.class).loadOptional(username);
+    }
+}
@@ -1,15 +1,47 @@
 package com.example.vibelet.repository;
 
 import com.example.vibelet.model.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
 
-public interface UserRepository extends JpaRepository<User, Long> {
-    Optional<User> findByUsername(String username);
+public interface UserRepository extends JpaRepository<User, Long>, UserCacheOperations {
     Optional<User> findByEmail(String email);
     boolean existsByUsername(String username);
     boolean existsByEmail(String email);
-    List<User> findByUsernameContainingIgnoreCase(String username);
-}
\ No newline at end of file
+    List<User> findByUsernameContainingIgnoreCase(String username, Pageable pageable);
+    List<User> findByUsernameStartingWithIgnoreCase(String username, Pageable pageable);
+
+    // Credential checks: the second-level cache is per node, so a password change or rename made
+    // on another node would stay invisible here until the cached entry expired.
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHE_MODE, value = "IGNORE"))
+    @Query("SELECT u FROM User u WHERE u.id = :id")
+    Optional<User> findUncachedById(@Param("id") Long id);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHE_MODE, value = "IGNORE"))
+    @Query("SELECT u FROM User u WHERE u.username = :username")
+    Optional<User> findUncachedByUsername(@Param("username") String username);
+
+    @Query("SELECT u.id, u.username FROM User u WHERE u.id > :lastId ORDER BY u.id")
+    List<Object[]> findIdAndUsernameAfter(@Param("lastId") Long lastId, Pageable pageable);
+
+    // Guarded by the current avatar so a late result cannot attach to a newer upload.
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = CacheSpaces.CALLER_EVICTS))
+    @Query(value = "UPDATE users SET avatar_variants = :variants WHERE id = :userId AND avatar_url = :avatarUrl", nativeQuery = true)
+    int updateAvatarVariants(@Param("userId") Long userId, @Param("avatarUrl") String avatarUrl, @Param("variants") String variants);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE User u SET u.password = :password WHERE u.id = :userId")
+    int updatePassword(@Param("userId") Long userId, @Param("password") String password);
+}
@@ -0,0 +1,5 @@
+package com.example.vibelet.repository;
+
+public interface VibeCacheOperations {
+    void evictFromCache(Long vibeId);
+}
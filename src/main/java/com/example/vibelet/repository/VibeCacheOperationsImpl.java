@@ -0,0 +1,17 @@
+package com.example.vibelet.repository;
+
+import com.example.vibelet.model.Vibe;
+import jakarta.persistence.EntityManagerFactory;
+
+public class VibeCacheOperationsImpl implements VibeCacheOperations {
+    private final EntityManagerFactory entityManagerFactory;
+
+    public VibeCacheOperationsImpl(EntityManagerFactory entityManagerFactory) {
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    @Override
+    public void evictFromCache(Long vibeId) {
+        entityManagerFactory.getCache().evict(Vibe.class, vibeId);
+    }
+}
@@ -1,18 +1,33 @@
 package com.example.vibelet.repository;
 
+import com.example.vibelet.dto.VibeResponse;
 import com.example.vibelet.model.User;
 import com.example.vibelet.model.Vibe;
 import com.example.vibelet.model.PrivacyStatus;
 import com.example.vibelet.model.FriendshipStatus;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
 
-public interface VibeRepository extends JpaRepository<Vibe, Long> {
+public interface VibeRepository extends JpaRepository<Vibe, Long>, VibeCacheOperations {
+    /** Selects exactly the columns of a {@link VibeResponse}; no entity is materialized. */
+    String RESPONSE_SELECT = "SELECT new com.example.vibelet.dto.VibeResponse(v.id, v.content, v.imageUrl, v.imageVariants, " +
+            "v.privacyStatus, v.createdAt, v.likeCount, v.commentCount, u.id, u.username, u.avatarUrl, u.avatarVariants) " +
+            "FROM Vibe v JOIN v.user u ";
+
+    /** Native predicate on "vibes" for rows whose stored counters differ from their like and comment rows. */
+    String MISCOUNTED = "like_count <> (SELECT COUNT(*) FROM post_likes pl WHERE pl.vibe_id = vibes.id) " +
+            "OR comment_count <> (SELECT COUNT(*) FROM comments c WHERE c.vibe_id = vibes.id)";
 
     @Query("SELECT v FROM Vibe v WHERE " +
             "v.user = :user " +
@@ -30,7 +45,85 @@ public interface VibeRepository extends JpaRepository<Vibe, Long> {
             Pageable pageable
     );
 
+    @Query("SELECT v FROM Vibe v JOIN FETCH v.user " +
+            "WHERE v.privacyStatus = :privacyStatus " +
+            "ORDER BY v.createdAt DESC, v.id DESC")
+    List<Vibe> findStreamByPrivacy(@Param("privacyStatus") PrivacyStatus privacyStatus, Pageable pageable);
+
+    @Query("SELECT v FROM Vibe v JOIN FETCH v.user " +
+            "WHERE v.privacyStatus = :privacyStatus " +
+            "AND (v.createdAt < :createdAt OR (v.createdAt = :createdAt AND v.id < :id)) " +
+            "ORDER BY v.createdAt DESC, v.id DESC")
+    List<Vibe> findStreamByPrivacyBefore(@Param("privacyStatus") PrivacyStatus privacyStatus,
+                                         @Param("createdAt") LocalDateTime createdAt,
+                                         @Param("id") Long id,
+                                         Pageable pageable);
+
+    long countByPrivacyStatus(PrivacyStatus privacyStatus);
+
+    @Query(value = RESPONSE_SELECT + "WHERE v.user.id = :userId ORDER BY v.createdAt DESC, v.id DESC",
+            countQuery = "SELECT COUNT(v) FROM Vibe v WHERE v.user.id = :userId")
+    Page<VibeResponse> findResponsesByUserId(@Param("userId") Long userId, Pageable pageable);
+
+    @Query(RESPONSE_SELECT + "WHERE v.user.id = :userId ORDER BY v.createdAt DESC, v.id DESC")
+    List<VibeResponse> findLatestByUserId(@Param("userId") Long userId, Pageable pageable);
+
+    @Query(RESPONSE_SELECT +
+            "WHERE v.user.id = :userId " +
+            "AND (v.createdAt < :createdAt OR (v.createdAt = :createdAt AND v.id < :id)) " +
+            "ORDER BY v.createdAt DESC, v.id DESC")
+    List<VibeResponse> findByUserIdBefore(@Param("userId") Long userId,
+                                  @Param("createdAt") LocalDateTime createdAt,
+                                  @Param("id") Long id,
+                                  Pageable pageable);
+
     Page<Vibe> findByUserOrderByCreatedAtDesc(User user, Pageable pageable);
     long countByUser(User user);
-    boolean existsByUserAndContentAndCreatedAt(User user, String content, LocalDateTime createdAt);
-}
\ No newline at end of file
+
+    @Query("SELECT v.likeCount FROM Vibe v WHERE v.id = :vibeId")
+    Optional<Long> findLikeCount(@Param("vibeId") Long vibeId);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = CacheSpaces.CALLER_EVICTS))
+    @Query(value = "UPDATE vibes SET like_count = GREATEST(like_count + :delta, 0) WHERE id = :vibeId", nativeQuery = true)
+    int adjustLikeCount(@Param("vibeId") Long vibeId, @Param("delta") long delta);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = CacheSpaces.CALLER_EVICTS))
+    @Query(value = "UPDATE vibes SET comment_count = GREATEST(comment_count + :delta, 0) WHERE id = :vibeId", nativeQuery = true)
+    int adjustCommentCount(@Param("vibeId") Long vibeId, @Param("delta") long delta);
+
+    @Query(value = "SELECT CASE WHEN EXISTS (" +
+            "  SELECT 1 FROM vibes WHERE " + MISCOUNTED +
+            ") THEN 1 ELSE 0 END", nativeQuery = true)
+    int hasMiscountedInteractions();
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "vibes"))
+    @Query(value = "UPDATE vibes SET " +
+            "like_count = (SELECT COUNT(*) FROM post_likes pl WHERE pl.vibe_id = vibes.id), " +
+            "comment_count = (SELECT COUNT(*) FROM comments c WHERE c.vibe_id = vibes.id) " +
+            "WHERE " + MISCOUNTED, nativeQuery = true)
+    int recountInteractions();
+
+    /** Takes a user's likes off other people's vibes; run before the likes themselves are deleted. */
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "vibes"))
+    @Query(value = "UPDATE vibes SET like_count = GREATEST(like_count - " +
+            "(SELECT COUNT(*) FROM post_likes pl WHERE pl.vibe_id = vibes.id AND pl.user_id = :userId), 0) " +
+            "WHERE user_id <> :userId AND id IN (SELECT vibe_id FROM post_likes WHERE user_id = :userId)", nativeQuery = true)
+    int discountLikesBy(@Param("userId") Long userId);
+
+    /** Takes a user's comments off other people's vibes; run before the comments themselves are deleted. */
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "vibes"))
+    @Query(value = "UPDATE vibes SET comment_count = GREATEST(comment_count - " +
+            "(SELECT COUNT(*) FROM comments c WHERE c.vibe_id = vibes.id AND c.user_id = :userId), 0) " +
+            "WHERE user_id <> :userId AND id IN (SELECT vibe_id FROM comments WHERE user_id = :userId)", nativeQuery = true)
+    int discountCommentsBy(@Param("userId") Long userId);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = CacheSpaces.CALLER_EVICTS))
+    @Query(value = "UPDATE vibes SET image_variants = :variants WHERE id = :vibeId AND image_url = :imageUrl", nativeQuery = true)
+    int updateImageVariants(@Param("vibeId") Long vibeId, @Param("imageUrl") String imageUrl, @Param("variants") String variants);
+}
@@ -0,0 +1,155 @@
+package com.example.vibelet.security;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runs the delegate's encode/matches on a small dedicated pool. Only that many hashes burn
+ * CPU at once, and at most queue-capacity more callers wait for one; past that a caller is
+ * turned away immediately with {@link PasswordHashingBusyException}, so a login storm holds
+ * a bounded number of request threads instead of all of them.
+ */
+public class BoundedPasswordEncoder implements PasswordEncoder {
+    private static final Logger log = LoggerFactory.getLogger(BoundedPasswordEncoder.class);
+
+    private final PasswordEncoder delegate;
+    private final ThreadPoolExecutor executor;
+    private final int queueCapacity;
+    private final long maxWaitNanos;
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder timedOut = new LongAdder();
+    private final LongAdder waitNanos = new LongAdder();
+    private long rejectedAtLastLog;
+
+    public BoundedPasswordEncoder(PasswordEncoder delegate, int threads, int queueCapacity, Duration maxWait) {
+        this.delegate = delegate;
+        this.queueCapacity = queueCapacity;
+        this.maxWaitNanos = maxWait.toNanos();
+        AtomicInteger workers = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                task -> {
+                    Thread thread = new Thread(task, "password-hasher-" + workers.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return run(() -> delegate.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return run(() -> delegate.matches(rawPassword, encodedPassword));
+    }
+
+    /**
+     * Rehash-on-login costs a second hash, so it is put off while the pool is under
+     * pressure; the next quiet login performs it instead.
+     */
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword)
+                && executor.getQueue().size() < queueCapacity / 2;
+    }
+
+    private <T> T run(Callable<T> hash) {
+        long enqueued = System.nanoTime();
+        Future<T> result;
+        try {
+            result = executor.submit(() -> {
+                waitNanos.add(System.nanoTime() - enqueued);
+                return hash.call();
+            });
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new PasswordHashingBusyException("Password hashing is busy, try again shortly");
+        }
+        try {
+            T value = result.get(maxWaitNanos, TimeUnit.NANOSECONDS);
+            completed.increment();
+            return value;
+        } catch (TimeoutException e) {
+            result.cancel(true);
+            timedOut.increment();
+            throw new PasswordHashingBusyException("Password hashing is busy, try again shortly");
+        } catch (InterruptedException e) {
+            result.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new PasswordHashingBusyException("Interrupted while waiting for password hashing");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException("Password hashing failed", e.getCause());
+        }
+    }
+
+    public Stats getStats() {
+        long done = completed.sum();
+        return new Stats(executor.getActiveCount(), executor.getQueue().size(), queueCapacity,
+                done, rejected.sum(), timedOut.sum(), done == 0 ? 0 : waitNanos.sum() / done / 1_000_000);
+    }
+
+    @Scheduled(fixedDelayString = "${vibelet.security.hashing.stats-interval-ms:60000}")
+    public void logStats() {
+        Stats stats = getStats();
+        long shed = stats.getRejected() + stats.getTimedOut();
+        if (shed > rejectedAtLastLog) {
+            log.warn("Password hashing shed {} requests so far (queue {}/{}, avg wait {} ms)",
+                    shed, stats.getQueued(), stats.getQueueCapacity(), stats.getAverageWaitMs());
+        }
+        rejectedAtLastLog = shed;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    public static final class Stats {
+        private final int active;
+        private final int queued;
+        private final int queueCapacity;
+        private final long completed;
+        private final long rejected;
+        private final long timedOut;
+        private final long averageWaitMs;
+
+        Stats(int active, int queued, int queueCapacity, long completed, long rejected, long timedOut, long averageWaitMs) {
+            this.active = active;
+            this.queued = queued;
+            this.queueCapacity = queueCapacity;
+            this.completed = completed;
+            this.rejected = rejected;
+            this.timedOut = timedOut;
+            this.averageWaitMs = averageWaitMs;
+        }
+
+        public int getActive() { return active; }
+        public int getQueued() { return queued; }
+        public int getQueueCapacity() { return queueCapacity; }
+        public long getCompleted() { return completed; }
+        public long getRejected() { return rejected; }
+        public long getTimedOut() { return timedOut; }
+        public long getAverageWaitMs() { return averageWaitMs; }
+    }
+}
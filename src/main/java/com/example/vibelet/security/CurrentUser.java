@@ -0,0 +1,48 @@
+package com.example.vibelet.security;
+
+import com.example.vibelet.model.User;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * The signed-in user as carried by the principal: enough to key lookups by id and to
+ * attribute actions, without loading the User entity. Declare it as a controller
+ * parameter to have CurrentUserResolver supply it.
+ */
+public final class CurrentUser implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final Long id;
+    private final String username;
+
+    public CurrentUser(Long id, String username) {
+        this.id = Objects.requireNonNull(id, "id");
+        this.username = Objects.requireNonNull(username, "username");
+    }
+
+    public static CurrentUser of(User user) {
+        return new CurrentUser(user.getId(), user.getUsername());
+    }
+
+    public Long getId() { return id; }
+    public String getUsername() { return username; }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof CurrentUser)) return false;
+        CurrentUser that = (CurrentUser) o;
+        return id.equals(that.id) && username.equals(that.username);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id, username);
+    }
+
+    @Override
+    public String toString() {
+        return username + "#" + id;
+    }
+}
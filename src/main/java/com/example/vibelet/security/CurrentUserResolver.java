@@ -0,0 +1,96 @@
+package com.example.vibelet.security;
+
+import com.example.vibelet.model.User;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.core.MethodParameter;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.web.context.HttpSessionSecurityContextRepository;
+import org.springframework.security.web.context.SecurityContextRepository;
+import org.springframework.stereotype.Component;
+import org.springframework.web.bind.support.WebDataBinderFactory;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.method.support.ModelAndViewContainer;
+
+/**
+ * Supplies {@link CurrentUser} controller arguments. Principals created by
+ * CustomUserDetailsService already carry the snapshot, so this normally costs nothing;
+ * any other principal (e.g. a session from before the snapshot existed) is loaded once
+ * and the result kept on the request for the other arguments that need it.
+ */
+@Component
+public class CurrentUserResolver implements HandlerMethodArgumentResolver {
+    private static final String ATTRIBUTE = CurrentUserResolver.class.getName();
+
+    private final UserDetailsService userDetailsService;
+    private final SecurityContextRepository securityContextRepository = new HttpSessionSecurityContextRepository();
+
+    public CurrentUserResolver(UserDetailsService userDetailsService) {
+        this.userDetailsService = userDetailsService;
+    }
+
+    @Override
+    public boolean supportsParameter(MethodParameter parameter) {
+        return CurrentUser.class.equals(parameter.getParameterType());
+    }
+
+    @Override
+    public Object resolveArgument(MethodParameter parameter, ModelAndViewContainer mavContainer,
+                                  NativeWebRequest webRequest, WebDataBinderFactory binderFactory) {
+        CurrentUser cached = (CurrentUser) webRequest.getAttribute(ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (cached != null) {
+            return cached;
+        }
+        CurrentUser resolved = resolve(SecurityContextHolder.getContext().getAuthentication());
+        if (resolved != null) {
+            webRequest.setAttribute(ATTRIBUTE, resolved, RequestAttributes.SCOPE_REQUEST);
+        }
+        return resolved;
+    }
+
+    private CurrentUser resolve(Authentication authentication) {
+        if (authentication == null || authentication instanceof AnonymousAuthenticationToken
+                || !authentication.isAuthenticated()) {
+            return null;
+        }
+        if (authentication.getPrincipal() instanceof VibeletUserDetails details) {
+            return details.getCurrentUser();
+        }
+        UserDetails loaded = userDetailsService.loadUserByUsername(authentication.getName());
+        if (loaded instanceof VibeletUserDetails details) {
+            return details.getCurrentUser();
+        }
+        throw new IllegalStateException("No user id available for principal " + authentication.getName());
+    }
+
+    /**
+     * Swaps the snapshot in the caller's security context (and session, if there is one)
+     * for one taken from the updated user, so a rename is visible from the next request on.
+     */
+    public void refresh(User user, HttpServletRequest request, HttpServletResponse response) {
+        Authentication current = SecurityContextHolder.getContext().getAuthentication();
+        if (current == null) {
+            return;
+        }
+        CurrentUser snapshot = CurrentUser.of(user);
+        VibeletUserDetails principal = new VibeletUserDetails(snapshot, "", current.getAuthorities());
+        principal.eraseCredentials();
+
+        SecurityContext context = SecurityContextHolder.createEmptyContext();
+        context.setAuthentication(UsernamePasswordAuthenticationToken.authenticated(principal, null, current.getAuthorities()));
+        SecurityContextHolder.setContext(context);
+        // Token clients have no session to update; their next refreshed token carries the new name.
+        if (request.getSession(false) != null) {
+            securityContextRepository.saveContext(context, request, response);
+        }
+        request.setAttribute(ATTRIBUTE, snapshot);
+    }
+}
@@ -2,13 +2,15 @@ package com.example.vibelet.security;
 
 import com.example.vibelet.model.User;
 import com.example.vibelet.repository.UserRepository;
+import org.springframework.security.core.authority.AuthorityUtils;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
 @Service
-public class CustomUserDetailsService implements UserDetailsService {
+public class CustomUserDetailsService implements UserDetailsService, UserDetailsPasswordService {
     private final UserRepository userRepository;
 
     public CustomUserDetailsService(UserRepository userRepository) {
@@ -17,13 +19,18 @@ public class CustomUserDetailsService implements UserDetailsService {
 
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        User user = userRepository.findByUsername(username)
+        User user = userRepository.findUncachedByUsername(username)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found: " + username));
 
-        return org.springframework.security.core.userdetails.User.builder()
-                .username(user.getUsername())
-                .password(user.getPassword())
-                .roles("USER")
-                .build();
+        return new VibeletUserDetails(CurrentUser.of(user), user.getPassword(),
+                AuthorityUtils.createAuthorityList("ROLE_USER"));
     }
-}
\ No newline at end of file
+
+    /** Called by DaoAuthenticationProvider after a login whose stored hash used weaker cost parameters. */
+    @Override
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        CurrentUser currentUser = ((VibeletUserDetails) user).getCurrentUser();
+        userRepository.updatePassword(currentUser.getId(), newPassword);
+        return new VibeletUserDetails(currentUser, newPassword, user.getAuthorities());
+    }
+}
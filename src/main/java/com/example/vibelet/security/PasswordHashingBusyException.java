@@ -0,0 +1,14 @@
+package com.example.vibelet.security;
+
+import org.springframework.security.authentication.InternalAuthenticationServiceException;
+
+/**
+ * Thrown when the password-hashing pool is saturated. It is an internal authentication
+ * failure so form login falls back to the login page instead of an error page, and
+ * GlobalExceptionHandler answers API callers with 503.
+ */
+public class PasswordHashingBusyException extends InternalAuthenticationServiceException {
+    public PasswordHashingBusyException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,184 @@
+package com.example.vibelet.security;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.security.Principal;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Token buckets in front of the write and search endpoints, one per signed-in user (or per
+ * client address for anonymous requests) and endpoint group. Every request also draws from a
+ * per-address bucket whose capacity is vibelet.rate-limit.address-factor times the group's,
+ * so one address cannot get around the limit by cycling accounts while users behind a shared
+ * NAT still get their own allowance. Each bucket is a single
+ * AtomicLong holding the time at which it will be full again (GCRA), updated with CAS, so
+ * an over-limit request is answered with 429 after one map lookup and never reaches the
+ * database. Limits are "capacity/period", e.g. 30/1m allows bursts of 30 refilled over a minute.
+ */
+@Component
+public class RateLimitFilter extends OncePerRequestFilter {
+    private static final Logger log = LoggerFactory.getLogger(RateLimitFilter.class);
+    public static final List<String> GROUPS = List.of("posts", "interactions", "friend-requests", "search");
+
+    private final Limit posts;
+    private final Limit interactions;
+    private final Limit friendRequests;
+    private final Limit search;
+
+    public RateLimitFilter(@Value("${vibelet.rate-limit.posts:10/1m}") String posts,
+                           @Value("${vibelet.rate-limit.interactions:120/1m}") String interactions,
+                           @Value("${vibelet.rate-limit.friend-requests:20/1h}") String friendRequests,
+                           @Value("${vibelet.rate-limit.search:60/1m}") String search,
+                           @Value("${vibelet.rate-limit.address-factor:10}") int addressFactor) {
+        this.posts = Limit.parse("posts", posts, addressFactor);
+        this.interactions = Limit.parse("interactions", interactions, addressFactor);
+        this.friendRequests = Limit.parse("friend-requests", friendRequests, addressFactor);
+        this.search = Limit.parse("search", search, addressFactor);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return limitFor(request) == null;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        Limit limit = limitFor(request);
+        Principal principal = request.getUserPrincipal();
+        String address = request.getRemoteAddr();
+        String key = principal != null ? "u:" + principal.getName() : "ip:" + address;
+
+        long now = System.nanoTime();
+        long waitNanos = limit.perClient.acquire(key, now);
+        if (waitNanos == 0) {
+            waitNanos = limit.perAddress.acquire(address, now);
+        }
+        if (waitNanos > 0) {
+            limit.rejected.increment();
+            log.debug("Rate limit '{}' exceeded by {}", limit.name, key);
+            response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + 999_999_999))));
+            response.setContentType("text/plain;charset=UTF-8");
+            response.getWriter().write("Too many requests, slow down");
+            return;
+        }
+        chain.doFilter(request, response);
+    }
+
+    private Limit limitFor(HttpServletRequest request) {
+        String method = request.getMethod();
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+
+        if ("GET".equals(method)) {
+            return path.equals("/api/v1/users/search") || path.equals("/explore") ? search : null;
+        }
+        if ("POST".equals(method) && (path.equals("/api/v1/vibes") || path.equals("/vibes"))) {
+            return posts;
+        }
+        if (path.startsWith("/api/v1/interactions/vibe/") && (path.endsWith("/like") || path.endsWith("/comment"))) {
+            return interactions;
+        }
+        if ("POST".equals(method) && path.startsWith("/api/v1/friends/request/")) {
+            return friendRequests;
+        }
+        return null;
+    }
+
+    /** Drops buckets that have refilled completely; they are indistinguishable from new ones. */
+    @Scheduled(fixedDelayString = "${vibelet.rate-limit.sweep-interval-ms:60000}")
+    public void sweep() {
+        long now = System.nanoTime();
+        for (Limit limit : List.of(posts, interactions, friendRequests, search)) {
+            limit.perClient.sweep(now);
+            limit.perAddress.sweep(now);
+        }
+    }
+
+    public long rejected(String group) {
+        for (Limit limit : List.of(posts, interactions, friendRequests, search)) {
+            if (limit.name.equals(group)) {
+                return limit.rejected.sum();
+            }
+        }
+        throw new IllegalArgumentException(group);
+    }
+
+    private static final class Limit {
+        final String name;
+        final Buckets perClient;
+        final Buckets perAddress;
+        final LongAdder rejected = new LongAdder();
+
+        Limit(String name, int capacity, Duration period, int addressFactor) {
+            if (capacity <= 0 || addressFactor <= 0 || period.isNegative() || period.isZero()) {
+                throw new IllegalArgumentException("Invalid rate limit for " + name + ": " + capacity + "/" + period);
+            }
+            this.name = name;
+            this.perClient = new Buckets(capacity, period);
+            this.perAddress = new Buckets(Math.multiplyExact(capacity, addressFactor), period);
+        }
+
+        static Limit parse(String name, String spec, int addressFactor) {
+            int slash = spec.indexOf('/');
+            if (slash < 0) {
+                throw new IllegalArgumentException("Rate limit for " + name + " must look like 30/1m, was " + spec);
+            }
+            return new Limit(name, Integer.parseInt(spec.substring(0, slash).trim()),
+                    DurationStyle.detectAndParse(spec.substring(slash + 1).trim()), addressFactor);
+        }
+    }
+
+    private static final class Buckets {
+        final long intervalNanos;
+        final long burstNanos;
+        final ConcurrentMap<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+
+        Buckets(int capacity, Duration period) {
+            this.intervalNanos = period.toNanos() / capacity;
+            this.burstNanos = intervalNanos * capacity;
+        }
+
+        void sweep(long now) {
+            buckets.values().removeIf(full -> full.get() - now <= 0);
+        }
+
+        /** Returns 0 when a token was taken, otherwise how long until one is available. */
+        long acquire(String key, long now) {
+            AtomicLong bucket = buckets.get(key);
+            if (bucket == null) {
+                bucket = buckets.computeIfAbsent(key, k -> new AtomicLong(now));
+            }
+            while (true) {
+                long fullAt = bucket.get();
+                long next = Math.max(fullAt - now, 0) + now + intervalNanos;
+                long over = next - now - burstNanos;
+                if (over > 0) {
+                    return over;
+                }
+                if (bucket.compareAndSet(fullAt, next)) {
+                    return 0;
+                }
+            }
+        }
+    }
+}
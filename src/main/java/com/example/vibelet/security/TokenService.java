@@ -0,0 +1,203 @@
+package com.example.vibelet.security;
+
+import com.example.vibelet.dto.TokenResponse;
+import com.example.vibelet.model.User;
+import com.example.vibelet.repository.UserRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Issues and checks the bearer tokens of the REST API: HS256-signed JWTs, a short-lived
+ * access token whose claims (user id, name, roles) are all a request needs, and a longer
+ * refresh token. Refresh tokens carry a fingerprint of the stored password hash, so
+ * changing the password revokes every outstanding one without any server-side state.
+ */
+@Service
+public class TokenService {
+    private static final Logger log = LoggerFactory.getLogger(TokenService.class);
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final String ACCESS = "access";
+    private static final String REFRESH = "refresh";
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+    private static final String HEADER = ENCODER.encodeToString(
+            "{\"alg\":\"HS256\",\"typ\":\"JWT\"}".getBytes(StandardCharsets.UTF_8));
+    private static final List<GrantedAuthority> USER_ROLES = AuthorityUtils.createAuthorityList("ROLE_USER");
+
+    private final UserRepository userRepository;
+    private final ObjectMapper objectMapper;
+    private final SecretKeySpec key;
+    private final Duration accessTtl;
+    private final Duration refreshTtl;
+    private final Clock clock;
+
+    @Autowired
+    public TokenService(UserRepository userRepository,
+                        ObjectMapper objectMapper,
+                        @Value("${vibelet.security.token.secret:}") String secret,
+                        @Value("${vibelet.security.token.access-ttl:15m}") Duration accessTtl,
+                        @Value("${vibelet.security.token.refresh-ttl:14d}") Duration refreshTtl) {
+        this(userRepository, objectMapper, secret, accessTtl, refreshTtl, Clock.systemUTC());
+    }
+
+    TokenService(UserRepository userRepository, ObjectMapper objectMapper, String secret,
+                 Duration accessTtl, Duration refreshTtl, Clock clock) {
+        this.userRepository = userRepository;
+        this.objectMapper = objectMapper;
+        this.key = new SecretKeySpec(secretBytes(secret), ALGORITHM);
+        this.accessTtl = accessTtl;
+        this.refreshTtl = refreshTtl;
+        this.clock = clock;
+    }
+
+    private static byte[] secretBytes(String secret) {
+        if (secret == null || secret.isBlank()) {
+            log.warn("vibelet.security.token.secret is not set; using a random key, tokens will not survive a restart or work across nodes");
+            byte[] random = new byte[32];
+            new SecureRandom().nextBytes(random);
+            return random;
+        }
+        byte[] bytes = secret.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length < 32) {
+            throw new IllegalStateException("vibelet.security.token.secret must be at least 32 bytes");
+        }
+        return bytes;
+    }
+
+    public TokenResponse issue(CurrentUser me) {
+        return issue(userRepository.findUncachedById(me.getId())
+                .orElseThrow(() -> new BadCredentialsException("User not found")));
+    }
+
+    public TokenResponse refresh(String refreshToken) {
+        JsonNode claims = verify(refreshToken, REFRESH);
+        User user = userRepository.findUncachedById(claims.path("sub").asLong())
+                .orElseThrow(() -> new BadCredentialsException("Invalid refresh token"));
+        byte[] expected = fingerprint(user).getBytes(StandardCharsets.UTF_8);
+        if (!MessageDigest.isEqual(expected, claims.path("pwd").asText().getBytes(StandardCharsets.UTF_8))) {
+            throw new BadCredentialsException("Invalid refresh token");
+        }
+        return issue(user);
+    }
+
+    /**
+     * Turns a valid access token into an authenticated principal. Most endpoints still look
+     * the caller up by name, so a token whose name no longer belongs to its user id (renamed
+     * or deleted account) is refused rather than left to act as whoever takes that name next.
+     * The id lookup skips the second-level cache so a rename on another node applies at once.
+     */
+    public Authentication authenticate(String accessToken) {
+        JsonNode claims = verify(accessToken, ACCESS);
+        List<String> roles = new ArrayList<>();
+        claims.path("roles").forEach(role -> roles.add(role.asText()));
+        List<GrantedAuthority> authorities = AuthorityUtils.createAuthorityList(roles.toArray(new String[0]));
+
+        long id = claims.path("sub").asLong();
+        String name = claims.path("name").asText();
+        User user = userRepository.findUncachedById(id)
+                .orElseThrow(() -> new BadCredentialsException("Invalid token"));
+        if (!user.getUsername().equals(name)) {
+            throw new BadCredentialsException("Token is stale, refresh it");
+        }
+        CurrentUser me = new CurrentUser(id, name);
+        VibeletUserDetails principal = new VibeletUserDetails(me, "", authorities);
+        principal.eraseCredentials();
+        return UsernamePasswordAuthenticationToken.authenticated(principal, accessToken, authorities);
+    }
+
+    private TokenResponse issue(User user) {
+        long now = clock.instant().getEpochSecond();
+
+        ObjectNode access = objectMapper.createObjectNode();
+        access.put("sub", String.valueOf(user.getId()));
+        access.put("name", user.getUsername());
+        ArrayNode roles = access.putArray("roles");
+        USER_ROLES.forEach(role -> roles.add(role.getAuthority()));
+        access.put("typ", ACCESS);
+        access.put("iat", now);
+        access.put("exp", now + accessTtl.toSeconds());
+
+        ObjectNode refresh = objectMapper.createObjectNode();
+        refresh.put("sub", String.valueOf(user.getId()));
+        refresh.put("pwd", fingerprint(user));
+        refresh.put("typ", REFRESH);
+        refresh.put("iat", now);
+        refresh.put("exp", now + refreshTtl.toSeconds());
+
+        return new TokenResponse(sign(access), sign(refresh), accessTtl.toSeconds());
+    }
+
+    private String sign(ObjectNode claims) {
+        try {
+            String payload = HEADER + "." + ENCODER.encodeToString(objectMapper.writeValueAsBytes(claims));
+            return payload + "." + ENCODER.encodeToString(mac(payload));
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to write token claims", e);
+        }
+    }
+
+    private JsonNode verify(String token, String type) {
+        String[] parts = token == null ? new String[0] : token.split("\\.");
+        if (parts.length != 3 || !HEADER.equals(parts[0])) {
+            throw new BadCredentialsException("Malformed token");
+        }
+        JsonNode claims;
+        try {
+            byte[] signature = DECODER.decode(parts[2]);
+            if (!MessageDigest.isEqual(signature, mac(parts[0] + "." + parts[1]))) {
+                throw new BadCredentialsException("Invalid token signature");
+            }
+            claims = objectMapper.readTree(DECODER.decode(parts[1]));
+        } catch (IllegalArgumentException | IOException e) {
+            throw new BadCredentialsException("Malformed token");
+        }
+        if (!type.equals(claims.path("typ").asText())) {
+            throw new BadCredentialsException("Wrong token type");
+        }
+        if (claims.path("exp").asLong() <= clock.instant().getEpochSecond()) {
+            throw new BadCredentialsException("Token expired");
+        }
+        return claims;
+    }
+
+    private String fingerprint(User user) {
+        byte[] digest = mac("pwd:" + user.getPassword());
+        return ENCODER.encodeToString(Arrays.copyOf(digest, 16));
+    }
+
+    private byte[] mac(String data) {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            return mac.doFinal(data.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 unavailable", e);
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.vibelet.security;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.security.Principal;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Caps how many uploads (multipart or raw image bodies) run at once, globally and per user.
+ * It sits after the security chain but ahead of multipart parsing, so an upload over the
+ * limit is answered with 429 before any of its body is read or spooled to disk, and one
+ * user's burst cannot tie up the request threads the feed needs.
+ */
+@Component
+public class UploadLimitFilter extends OncePerRequestFilter {
+    private static final Logger log = LoggerFactory.getLogger(UploadLimitFilter.class);
+
+    private final Semaphore global;
+    private final int maxPerUser;
+    private final long maxBytes;
+    private final ConcurrentMap<String, Integer> active = new ConcurrentHashMap<>();
+    private final LongAdder rejected = new LongAdder();
+
+    public UploadLimitFilter(@Value("${vibelet.uploads.max-concurrent:16}") int maxConcurrent,
+                             @Value("${vibelet.uploads.max-per-user:2}") int maxPerUser,
+                             @Value("${vibelet.uploads.max-size:50MB}") DataSize maxSize) {
+        this.global = new Semaphore(maxConcurrent);
+        this.maxPerUser = maxPerUser;
+        this.maxBytes = maxSize.toBytes();
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String method = request.getMethod();
+        String type = request.getContentType();
+        if (type == null || !("POST".equals(method) || "PUT".equals(method))) {
+            return true;
+        }
+        return !type.regionMatches(true, 0, "multipart/", 0, 10) && !type.regionMatches(true, 0, "image/", 0, 6);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        // A declared length over the cap can be refused outright; undeclared ones are checked while streaming.
+        if (request.getContentLengthLong() > maxBytes) {
+            rejected.increment();
+            reject(response, HttpStatus.PAYLOAD_TOO_LARGE, "Upload too large");
+            return;
+        }
+        Principal principal = request.getUserPrincipal();
+        String owner = principal != null ? principal.getName() : request.getRemoteAddr();
+        if (!enter(owner)) {
+            rejected.increment();
+            reject(response, HttpStatus.TOO_MANY_REQUESTS, "Too many uploads in progress");
+            return;
+        }
+        if (!global.tryAcquire()) {
+            leave(owner);
+            log.warn("Upload from {} rejected: global upload limit reached", owner);
+            rejected.increment();
+            reject(response, HttpStatus.TOO_MANY_REQUESTS, "Server is busy with uploads, try again shortly");
+            return;
+        }
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            global.release();
+            leave(owner);
+        }
+    }
+
+    public int inFlight() {
+        return active.values().stream().mapToInt(Integer::intValue).sum();
+    }
+
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    private boolean enter(String owner) {
+        boolean[] admitted = {false};
+        active.compute(owner, (key, count) -> {
+            int current = count == null ? 0 : count;
+            if (current >= maxPerUser) {
+                return count;
+            }
+            admitted[0] = true;
+            return current + 1;
+        });
+        return admitted[0];
+    }
+
+    private void leave(String owner) {
+        active.computeIfPresent(owner, (key, count) -> count <= 1 ? null : count - 1);
+    }
+
+    private static void reject(HttpServletResponse response, HttpStatus status, String message) throws IOException {
+        response.setStatus(status.value());
+        if (status == HttpStatus.TOO_MANY_REQUESTS) {
+            response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+        }
+        response.setHeader(HttpHeaders.CONNECTION, "close");
+        response.setContentType("text/plain;charset=UTF-8");
+        response.getWriter().write(message);
+    }
+}
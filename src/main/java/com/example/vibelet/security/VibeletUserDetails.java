@@ -0,0 +1,22 @@
+package com.example.vibelet.security;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+
+import java.util.Collection;
+
+/** Principal stored in the security context; it keeps the user's id next to the name. */
+public class VibeletUserDetails extends User {
+    private static final long serialVersionUID = 1L;
+
+    private final CurrentUser currentUser;
+
+    public VibeletUserDetails(CurrentUser currentUser, String password, Collection<? extends GrantedAuthority> authorities) {
+        super(currentUser.getUsername(), password, authorities);
+        this.currentUser = currentUser;
+    }
+
+    public CurrentUser getCurrentUser() {
+        return currentUser;
+    }
+}
@@ -9,10 +9,12 @@ import org.springframework.stereotype.Service;
 public class AuthService {
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
+    private final UserSearchIndex userSearchIndex;
 
-    public AuthService(UserRepository userRepository, PasswordEncoder passwordEncoder) {
+    public AuthService(UserRepository userRepository, PasswordEncoder passwordEncoder, UserSearchIndex userSearchIndex) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
+        this.userSearchIndex = userSearchIndex;
     }
 
     public void registerUser(String username, String email, String rawPassword) {
@@ -24,6 +26,7 @@ public class AuthService {
         }
 
         User user = new User(username, email, passwordEncoder.encode(rawPassword));
-        userRepository.save(user);
+        User saved = userRepository.save(user);
+        userSearchIndex.put(saved.getId(), saved.getUsername());
     }
 }
\ No newline at end of file
@@ -2,17 +2,20 @@ package com.example.vibelet.service;
 
 import com.example.vibelet.model.Comment;
 import com.example.vibelet.repository.CommentRepository;
+import com.example.vibelet.security.CurrentUser;
 import org.springframework.stereotype.Service;
 
 @Service
 public class CommentService {
     private final CommentRepository commentRepository;
+    private final VibeCounterService vibeCounterService;
 
-    public CommentService(CommentRepository commentRepository) {
+    public CommentService(CommentRepository commentRepository, VibeCounterService vibeCounterService) {
         this.commentRepository = commentRepository;
+        this.vibeCounterService = vibeCounterService;
     }
 
-    public void updateComment(Long commentId, String content, String username) {
+    public void updateComment(Long commentId, String content, CurrentUser me) {
         if (content == null || content.isBlank()) {
             throw new RuntimeException("Content cannot be empty");
         }
@@ -20,7 +23,7 @@ public class CommentService {
         Comment comment = commentRepository.findById(commentId)
                 .orElseThrow(() -> new RuntimeException("Comment not found"));
 
-        if (!comment.getUser().getUsername().equals(username)) {
+        if (!comment.getUser().getId().equals(me.getId())) {
             throw new RuntimeException("Not authorized");
         }
 
@@ -28,14 +31,15 @@ public class CommentService {
         commentRepository.save(comment);
     }
 
-    public void deleteComment(Long commentId, String username) {
+    public void deleteComment(Long commentId, CurrentUser me) {
         Comment comment = commentRepository.findById(commentId)
                 .orElseThrow(() -> new RuntimeException("Comment not found"));
 
-        if (!comment.getUser().getUsername().equals(username)) {
+        if (!comment.getUser().getId().equals(me.getId())) {
             throw new RuntimeException("Not authorized");
         }
 
         commentRepository.delete(comment);
+        vibeCounterService.adjustComments(comment.getVibe().getId(), -1);
     }
 }
\ No newline at end of file
@@ -0,0 +1,127 @@
+package com.example.vibelet.service;
+
+import com.example.vibelet.model.User;
+import com.example.vibelet.repository.ExportRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.function.Consumer;
+
+/**
+ * Writes a user's backup as JSON straight from database cursors, one row at a time,
+ * so memory use does not grow with the number of vibes. The JSON is spooled to a temp
+ * file first: the read transaction and its connection last as long as the queries, not
+ * as long as the client takes to download. The top-level shape stays compatible with
+ * DataExportDto, which the import endpoint reads.
+ */
+@Service
+public class DataExportService {
+    private final ExportRepository exportRepository;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate readOnlyTransaction;
+
+    public DataExportService(ExportRepository exportRepository, ObjectMapper objectMapper, PlatformTransactionManager transactionManager) {
+        this.exportRepository = exportRepository;
+        this.objectMapper = objectMapper;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    public void writeExport(User user, OutputStream out) throws IOException {
+        Path spool = Files.createTempFile("vibelet-export", ".json");
+        try {
+            try (OutputStream file = new BufferedOutputStream(Files.newOutputStream(spool))) {
+                writeJson(user, file);
+            }
+            Files.copy(spool, out);
+        } finally {
+            Files.deleteIfExists(spool);
+        }
+    }
+
+    private void writeJson(User user, OutputStream out) throws IOException {
+        JsonGenerator json = objectMapper.getFactory().createGenerator(out);
+        json.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        try {
+            json.writeStartObject();
+            json.writeStringField("username", user.getUsername());
+            json.writeStringField("email", user.getEmail());
+            json.writeStringField("bio", user.getBio());
+
+            readOnlyTransaction.executeWithoutResult(status -> {
+                writeArray(json, "vibes", rows -> exportRepository.streamVibes(user.getId(), rows), rs -> {
+                    json.writeStartObject();
+                    json.writeNumberField("id", rs.getLong("id"));
+                    json.writeStringField("content", rs.getString("content"));
+                    json.writeStringField("createdAt", timestamp(rs, "created_at"));
+                    json.writeStringField("imageUrl", rs.getString("image_url"));
+                    json.writeStringField("privacyStatus", rs.getString("privacy_status"));
+                    json.writeNumberField("likeCount", rs.getLong("like_count"));
+                    json.writeNumberField("commentCount", rs.getLong("comment_count"));
+                    json.writeEndObject();
+                });
+                writeArray(json, "comments", rows -> exportRepository.streamComments(user.getId(), rows), rs -> {
+                    json.writeStartObject();
+                    json.writeStringField("content", rs.getString("content"));
+                    json.writeStringField("createdAt", timestamp(rs, "created_at"));
+                    json.writeNumberField("vibeId", rs.getLong("vibe_id"));
+                    json.writeStringField("vibeAuthor", rs.getString("vibe_author"));
+                    json.writeEndObject();
+                });
+                writeArray(json, "likes", rows -> exportRepository.streamLikes(user.getId(), rows), rs -> {
+                    json.writeStartObject();
+                    json.writeNumberField("vibeId", rs.getLong("vibe_id"));
+                    json.writeStringField("vibeAuthor", rs.getString("vibe_author"));
+                    json.writeEndObject();
+                });
+                writeArray(json, "friends", rows -> exportRepository.streamFriendUsernames(user.getId(), rows),
+                        rs -> json.writeString(rs.getString("username")));
+            });
+
+            json.writeEndObject();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            json.close();
+        }
+    }
+
+    private void writeArray(JsonGenerator json, String field, Consumer<RowCallbackHandler> query, RowWriter writer) {
+        try {
+            json.writeArrayFieldStart(field);
+            query.accept(rs -> {
+                try {
+                    writer.write(rs);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            json.writeEndArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String timestamp(ResultSet rs, String column) throws SQLException {
+        Timestamp value = rs.getTimestamp(column);
+        return value == null ? null : value.toLocalDateTime().toString();
+    }
+
+    @FunctionalInterface
+    private interface RowWriter {
+        void write(ResultSet rs) throws SQLException, IOException;
+    }
+}
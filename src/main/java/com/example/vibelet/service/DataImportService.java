@@ -0,0 +1,277 @@
+package com.example.vibelet.service;
+
+import com.example.vibelet.dto.ImportProgress;
+import com.example.vibelet.repository.ImportRepository;
+import com.example.vibelet.security.CurrentUser;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Restores a backup written by DataExportService. The body is parsed token by token and
+ * written in chunks of vibelet.import.batch-size, each in its own transaction: a chunk
+ * that has committed stays committed, and because already-present vibes and friendships
+ * are skipped, re-running a failed import continues where it stopped.
+ */
+@Service
+public class DataImportService {
+    private static final Logger log = LoggerFactory.getLogger(DataImportService.class);
+
+    private final ImportRepository importRepository;
+    private final ObjectMapper objectMapper;
+    private final TimelineService timelineService;
+    private final FriendGraphCache friendGraph;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+    private final int batchSize;
+    private final ConcurrentMap<Long, ImportProgress> running = new ConcurrentHashMap<>();
+
+    public DataImportService(ImportRepository importRepository, ObjectMapper objectMapper, TimelineService timelineService,
+                             FriendGraphCache friendGraph, PlatformTransactionManager transactionManager,
+                             @Value("${vibelet.import.batch-size:500}") int batchSize) {
+        this.importRepository = importRepository;
+        this.objectMapper = objectMapper;
+        this.timelineService = timelineService;
+        this.friendGraph = friendGraph;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.batchSize = batchSize;
+    }
+
+    public Optional<ImportProgress> getProgress(Long userId) {
+        return Optional.ofNullable(running.get(userId));
+    }
+
+    public ImportProgress importData(CurrentUser me, InputStream body) {
+        ImportProgress current = new ImportProgress();
+        if (running.putIfAbsent(me.getId(), current) != null) {
+            throw new IllegalArgumentException("An import is already running for this account");
+        }
+        try (JsonParser parser = objectMapper.getFactory().createParser(body)) {
+            new Run(me.getId(), current).read(parser);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Malformed import file: " + e.getOriginalMessage());
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Could not read import file: " + e.getMessage());
+        } finally {
+            running.remove(me.getId(), current);
+        }
+
+        if (current.getVibesImported() > 0 || current.getFriendsRestored() > 0) {
+            timelineService.scheduleRebuild(me.getId());
+        }
+        log.info("Import for user {} finished: {} vibes imported, {} skipped, {} friends restored",
+                me.getId(), current.getVibesImported(), current.getVibesSkipped(), current.getFriendsRestored());
+        return current;
+    }
+
+    private final class Run {
+        private final Long userId;
+        private final ImportProgress progress;
+        private final Set<VibeKey> existing = new HashSet<>();
+        private final List<String> contents = new ArrayList<>(batchSize);
+        private final List<LocalDateTime> createdAts = new ArrayList<>(batchSize);
+        private final Set<String> friendNames = new LinkedHashSet<>();
+
+        Run(Long userId, ImportProgress progress) {
+            this.userId = userId;
+            this.progress = progress;
+            // The fetch size only turns into a cursor inside a transaction (Postgres ignores it in autocommit).
+            readOnlyTransaction.executeWithoutResult(status -> importRepository.streamVibeKeys(userId, rs -> {
+                Timestamp createdAt = rs.getTimestamp("created_at");
+                existing.add(new VibeKey(createdAt == null ? null : createdAt.toLocalDateTime(), rs.getString("content")));
+            }));
+        }
+
+        void read(JsonParser parser) throws IOException {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IllegalArgumentException("Malformed import file: expected a JSON object");
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                switch (field) {
+                    case "bio" -> {
+                        if (value != JsonToken.VALUE_NULL) {
+                            String bio = parser.getValueAsString();
+                            transactionTemplate.executeWithoutResult(status -> importRepository.updateBio(userId, bio));
+                        }
+                    }
+                    case "vibes" -> readArray(parser, value, () -> readVibe(parser));
+                    case "friends" -> readArray(parser, value, () -> {
+                        if (parser.currentToken() == JsonToken.VALUE_STRING) {
+                            friendNames.add(parser.getText());
+                            if (friendNames.size() >= batchSize) {
+                                flushFriends();
+                            }
+                        } else {
+                            parser.skipChildren();
+                        }
+                    });
+                    default -> parser.skipChildren();
+                }
+            }
+            flushVibes();
+            flushFriends();
+        }
+
+        private void readArray(JsonParser parser, JsonToken start, ElementReader element) throws IOException {
+            if (start != JsonToken.START_ARRAY) {
+                parser.skipChildren();
+                return;
+            }
+            while (parser.nextToken() != JsonToken.END_ARRAY) {
+                element.read();
+            }
+        }
+
+        private void readVibe(JsonParser parser) throws IOException {
+            String content = null;
+            String createdAt = null;
+            if (parser.currentToken() != JsonToken.START_OBJECT) {
+                parser.skipChildren();
+                return;
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                parser.nextToken();
+                switch (field) {
+                    case "content" -> content = parser.getValueAsString();
+                    case "createdAt" -> createdAt = parser.getValueAsString();
+                    default -> parser.skipChildren();
+                }
+            }
+
+            LocalDateTime timestamp = parseCreatedAt(createdAt);
+            if (!existing.add(new VibeKey(timestamp, content))) {
+                progress.addVibesSkipped(1);
+                return;
+            }
+            contents.add(content);
+            createdAts.add(timestamp);
+            if (contents.size() >= batchSize) {
+                flushVibes();
+            }
+        }
+
+        private void flushVibes() {
+            if (contents.isEmpty()) {
+                return;
+            }
+            transactionTemplate.executeWithoutResult(status -> importRepository.insertVibes(userId, contents, createdAts));
+            progress.addVibesImported(contents.size());
+            log.debug("Import for user {}: {} vibes written", userId, progress.getVibesImported());
+            contents.clear();
+            createdAts.clear();
+        }
+
+        private void flushFriends() {
+            if (friendNames.isEmpty()) {
+                return;
+            }
+            List<Long> restored = transactionTemplate.execute(status -> {
+                Map<String, Long> ids = importRepository.findUserIdsByUsernames(friendNames);
+                Set<Long> candidates = new LinkedHashSet<>(ids.values());
+                candidates.remove(userId);
+                if (candidates.isEmpty()) {
+                    return List.<Long>of();
+                }
+                candidates.removeAll(importRepository.findConnectedIds(userId, candidates));
+                if (!candidates.isEmpty()) {
+                    importRepository.insertAcceptedFriendships(userId, candidates);
+                }
+                return new ArrayList<>(candidates);
+            });
+            friendNames.clear();
+            if (restored.isEmpty()) {
+                return;
+            }
+            Long[] affected = new Long[restored.size() + 1];
+            affected[0] = userId;
+            for (int i = 0; i < restored.size(); i++) {
+                affected[i + 1] = restored.get(i);
+            }
+            friendGraph.invalidate(affected);
+            timelineService.scheduleRebuild(affected);
+            progress.addFriendsRestored(restored.size());
+            log.debug("Import for user {}: {} friends restored", userId, progress.getFriendsRestored());
+        }
+    }
+
+    // Matches the stored column precision, so a re-imported export compares equal.
+    private static LocalDateTime parseCreatedAt(String value) {
+        try {
+            return LocalDateTime.parse(value).truncatedTo(ChronoUnit.MICROS);
+        } catch (Exception e) {
+            return LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+        }
+    }
+
+    @FunctionalInterface
+    private interface ElementReader {
+        void read() throws IOException;
+    }
+
+    /**
+     * Dedupe key for (createdAt, content): content is kept only as a 64-bit hash, so a large
+     * existing history costs a few words per vibe rather than a copy of every text.
+     */
+    private static final class VibeKey {
+        private final LocalDateTime createdAt;
+        private final long contentHash;
+
+        VibeKey(LocalDateTime createdAt, String content) {
+            this.createdAt = createdAt == null ? null : createdAt.truncatedTo(ChronoUnit.MICROS);
+            this.contentHash = hash(content);
+        }
+
+        private static long hash(String content) {
+            if (content == null) {
+                return 0;
+            }
+            long h = 0xcbf29ce484222325L;
+            for (byte b : content.getBytes(StandardCharsets.UTF_8)) {
+                h ^= b;
+                h *= 0x100000001b3L;
+            }
+            return h;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof VibeKey other)) return false;
+            return contentHash == other.contentHash && Objects.equals(createdAt, other.createdAt);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(createdAt, contentHash);
+        }
+    }
+}
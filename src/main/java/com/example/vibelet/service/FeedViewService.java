@@ -0,0 +1,76 @@
+package com.example.vibelet.service;
+
+import com.example.vibelet.dto.AuthorView;
+import com.example.vibelet.dto.CommentView;
+import com.example.vibelet.dto.VibeView;
+import com.example.vibelet.model.User;
+import com.example.vibelet.model.Vibe;
+import com.example.vibelet.repository.CommentRepository;
+import com.example.vibelet.repository.PostLikeRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
+
+@Service
+public class FeedViewService {
+    static final int COMMENT_PREVIEW_LIMIT = 20;
+
+    private final PostLikeRepository postLikeRepository;
+    private final CommentRepository commentRepository;
+
+    public FeedViewService(PostLikeRepository postLikeRepository, CommentRepository commentRepository) {
+        this.postLikeRepository = postLikeRepository;
+        this.commentRepository = commentRepository;
+    }
+
+    @Transactional(readOnly = true)
+    public List<VibeView> toViews(List<Vibe> vibes, Long viewerId) {
+        if (vibes.isEmpty()) {
+            return List.of();
+        }
+        List<Long> ids = vibes.stream().map(Vibe::getId).toList();
+
+        Set<Long> likedByViewer = new HashSet<>(postLikeRepository.findLikedVibeIds(viewerId, ids));
+        Map<Long, List<CommentView>> previews = loadCommentPreviews(ids);
+
+        List<VibeView> views = new ArrayList<>(vibes.size());
+        for (Vibe vibe : vibes) {
+            User author = vibe.getUser();
+            views.add(new VibeView(
+                    vibe.getId(),
+                    vibe.getContent(),
+                    vibe.getImageUrl(),
+                    vibe.getImageVariants(),
+                    vibe.getPrivacyStatus(),
+                    vibe.getCreatedAt(),
+                    new AuthorView(author.getId(), author.getUsername(), author.getAvatarUrl(), author.getAvatarVariants()),
+                    vibe.getLikeCount(),
+                    likedByViewer.contains(vibe.getId()),
+                    vibe.getCommentCount(),
+                    previews.getOrDefault(vibe.getId(), List.of())
+            ));
+        }
+        return views;
+    }
+
+    private Map<Long, List<CommentView>> loadCommentPreviews(List<Long> vibeIds) {
+        Map<Long, List<CommentView>> previews = new HashMap<>();
+        for (Object[] row : commentRepository.findPreviewRows(vibeIds, COMMENT_PREVIEW_LIMIT)) {
+            Long vibeId = ((Number) row[1]).longValue();
+            AuthorView author = new AuthorView(((Number) row[4]).longValue(), (String) row[5], (String) row[6], null);
+            CommentView comment = new CommentView(((Number) row[0]).longValue(), (String) row[2], toLocalDateTime(row[3]), author);
+            previews.computeIfAbsent(vibeId, k -> new ArrayList<>()).add(comment);
+        }
+        return previews;
+    }
+
+    private static LocalDateTime toLocalDateTime(Object value) {
+        if (value instanceof Timestamp timestamp) {
+            return timestamp.toLocalDateTime();
+        }
+        return (LocalDateTime) value;
+    }
+}
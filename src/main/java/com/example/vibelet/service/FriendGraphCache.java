@@ -0,0 +1,294 @@
+package com.example.vibelet.service;
+
+import com.example.vibelet.model.FriendshipStatus;
+import com.example.vibelet.model.RelationshipStatus;
+import com.example.vibelet.repository.FriendshipRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-process adjacency lists of the friendship graph, loaded per user on first use.
+ * Entries are immutable once built; FriendshipService drops them on every mutation
+ * (again after commit, so a concurrent reader cannot re-cache pre-commit state).
+ * Invalidation only reaches this node, so entries also expire after
+ * vibelet.friend-graph.ttl: with several nodes, that bounds how long a change made
+ * elsewhere can go unseen.
+ */
+@Component
+public class FriendGraphCache {
+    private static final Logger log = LoggerFactory.getLogger(FriendGraphCache.class);
+    // ConcurrentHashMap node + boxed key + Adjacency object
+    private static final long ENTRY_OVERHEAD_BYTES = 32 + 16 + 24;
+
+    private final FriendshipRepository friendshipRepository;
+    private final int maxUsers;
+    private final long ttlMillis;
+    private final Clock clock;
+    private final ConcurrentMap<Long, Adjacency> graph = new ConcurrentHashMap<>();
+    private final AtomicLong generation = new AtomicLong();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    @Autowired
+    public FriendGraphCache(FriendshipRepository friendshipRepository,
+                            @Value("${vibelet.friend-graph.max-users:100000}") int maxUsers,
+                            @Value("${vibelet.friend-graph.ttl:60s}") Duration ttl) {
+        this(friendshipRepository, maxUsers, ttl, Clock.systemUTC());
+    }
+
+    FriendGraphCache(FriendshipRepository friendshipRepository, int maxUsers, Duration ttl, Clock clock) {
+        this.friendshipRepository = friendshipRepository;
+        this.maxUsers = maxUsers;
+        this.ttlMillis = ttl.toMillis();
+        this.clock = clock;
+    }
+
+    public boolean areFriends(Long userId, Long otherId) {
+        return adjacency(userId).friends.contains(otherId);
+    }
+
+    public boolean hasPendingRequest(Long senderId, Long receiverId) {
+        return adjacency(senderId).sent.contains(receiverId);
+    }
+
+    public boolean isConnected(Long userId, Long otherId) {
+        Adjacency adjacency = adjacency(userId);
+        return adjacency.friends.contains(otherId)
+                || adjacency.sent.contains(otherId)
+                || adjacency.received.contains(otherId);
+    }
+
+    public int friendCount(Long userId) {
+        return adjacency(userId).friends.size();
+    }
+
+    public RelationshipStatus relationship(Long viewerId, Long otherId) {
+        if (viewerId.equals(otherId)) {
+            return RelationshipStatus.SELF;
+        }
+        return relationship(viewerId, otherId, adjacency(viewerId));
+    }
+
+    private static RelationshipStatus relationship(Long viewerId, Long otherId, Adjacency adjacency) {
+        if (viewerId.equals(otherId)) {
+            return RelationshipStatus.SELF;
+        }
+        if (adjacency.friends.contains(otherId)) {
+            return RelationshipStatus.FRIEND;
+        }
+        if (adjacency.sent.contains(otherId)) {
+            return RelationshipStatus.PENDING_SENT;
+        }
+        if (adjacency.received.contains(otherId)) {
+            return RelationshipStatus.PENDING_RECEIVED;
+        }
+        return RelationshipStatus.NONE;
+    }
+
+    /**
+     * Resolves many candidates at once: from memory when the viewer is cached, otherwise
+     * with a single query restricted to the candidate ids (the viewer's full adjacency
+     * is not loaded just for one page of search results).
+     */
+    public Map<Long, RelationshipStatus> relationships(Long viewerId, Collection<Long> candidateIds) {
+        Map<Long, RelationshipStatus> statuses = new HashMap<>(candidateIds.size() * 2);
+        Adjacency cached = cached(viewerId);
+        if (cached != null) {
+            hits.increment();
+            for (Long candidateId : candidateIds) {
+                statuses.put(candidateId, relationship(viewerId, candidateId, cached));
+            }
+            return statuses;
+        }
+        misses.increment();
+
+        List<Long> others = new ArrayList<>(candidateIds.size());
+        for (Long candidateId : candidateIds) {
+            if (!candidateId.equals(viewerId)) {
+                others.add(candidateId);
+            }
+        }
+        Adjacency partial = others.isEmpty()
+                ? new Adjacency(0, 0)
+                : toAdjacency(viewerId, friendshipRepository.findEdgesBetween(viewerId, others));
+        for (Long candidateId : candidateIds) {
+            statuses.put(candidateId, relationship(viewerId, candidateId, partial));
+        }
+        return statuses;
+    }
+
+    public void invalidate(Long... userIds) {
+        nowAndAfterCompletion(() -> evict(userIds));
+    }
+
+    /** For a deleted user: drops their entry and every cached entry that still lists them. */
+    public void invalidateUser(Long userId) {
+        nowAndAfterCompletion(() -> {
+            evict(userId);
+            graph.values().removeIf(adjacency -> adjacency.mentions(userId));
+        });
+    }
+
+    private static void nowAndAfterCompletion(Runnable eviction) {
+        eviction.run();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    eviction.run();
+                }
+            });
+        }
+    }
+
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        graph.clear();
+    }
+
+    public Stats getStats() {
+        long footprint = 0;
+        for (Adjacency adjacency : graph.values()) {
+            footprint += ENTRY_OVERHEAD_BYTES + adjacency.footprintBytes();
+        }
+        return new Stats(graph.size(), hits.sum(), misses.sum(), footprint);
+    }
+
+    @Scheduled(fixedDelayString = "${vibelet.friend-graph.stats-interval-ms:300000}")
+    public void logStats() {
+        Stats stats = getStats();
+        if (stats.getHits() + stats.getMisses() > 0) {
+            log.info("Friend graph cache: {} users, hit ratio {}, ~{} KiB",
+                    stats.getUsers(), String.format("%.3f", stats.getHitRatio()), stats.getFootprintBytes() / 1024);
+        }
+    }
+
+    private void evict(Long... userIds) {
+        generation.incrementAndGet();
+        for (Long userId : userIds) {
+            if (userId != null) {
+                graph.remove(userId);
+            }
+        }
+    }
+
+    private Adjacency cached(Long userId) {
+        Adjacency cached = graph.get(userId);
+        if (cached != null && clock.millis() - cached.loadedAt >= ttlMillis) {
+            graph.remove(userId, cached);
+            return null;
+        }
+        return cached;
+    }
+
+    private Adjacency adjacency(Long userId) {
+        Adjacency cached = cached(userId);
+        if (cached != null) {
+            hits.increment();
+            return cached;
+        }
+        misses.increment();
+
+        long loadedAt = generation.get();
+        Adjacency loaded = load(userId);
+        // An invalidation raced with the load: serve the result but don't keep it.
+        if (generation.get() == loadedAt) {
+            makeRoom();
+            graph.putIfAbsent(userId, loaded);
+        }
+        return loaded;
+    }
+
+    private void makeRoom() {
+        Iterator<Long> keys = graph.keySet().iterator();
+        while (graph.size() >= maxUsers && keys.hasNext()) {
+            keys.next();
+            keys.remove();
+        }
+    }
+
+    private Adjacency load(Long userId) {
+        return toAdjacency(userId, friendshipRepository.findEdgesOf(userId));
+    }
+
+    private Adjacency toAdjacency(Long userId, List<Object[]> edges) {
+        Adjacency adjacency = new Adjacency(edges.size(), clock.millis());
+        for (Object[] edge : edges) {
+            long requesterId = ((Number) edge[0]).longValue();
+            long receiverId = ((Number) edge[1]).longValue();
+            FriendshipStatus status = (FriendshipStatus) edge[2];
+            boolean outgoing = requesterId == userId;
+            long otherId = outgoing ? receiverId : requesterId;
+
+            if (status == FriendshipStatus.ACCEPTED) {
+                adjacency.friends.add(otherId);
+            } else if (status == FriendshipStatus.PENDING) {
+                (outgoing ? adjacency.sent : adjacency.received).add(otherId);
+            }
+        }
+        return adjacency;
+    }
+
+    private static final class Adjacency {
+        final LongHashSet friends;
+        final LongHashSet sent = new LongHashSet();
+        final LongHashSet received = new LongHashSet();
+        final long loadedAt;
+
+        Adjacency(int expectedFriends, long loadedAt) {
+            this.friends = new LongHashSet(expectedFriends);
+            this.loadedAt = loadedAt;
+        }
+
+        boolean mentions(long userId) {
+            return friends.contains(userId) || sent.contains(userId) || received.contains(userId);
+        }
+
+        long footprintBytes() {
+            return friends.footprintBytes() + sent.footprintBytes() + received.footprintBytes();
+        }
+    }
+
+    public static final class Stats {
+        private final int users;
+        private final long hits;
+        private final long misses;
+        private final long footprintBytes;
+
+        Stats(int users, long hits, long misses, long footprintBytes) {
+            this.users = users;
+            this.hits = hits;
+            this.misses = misses;
+            this.footprintBytes = footprintBytes;
+        }
+
+        public int getUsers() { return users; }
+        public long getHits() { return hits; }
+        public long getMisses() { return misses; }
+        public long getFootprintBytes() { return footprintBytes; }
+
+        public double getHitRatio() {
+            long total = hits + misses;
+            return total == 0 ? 0.0 : (double) hits / total;
+        }
+    }
+}
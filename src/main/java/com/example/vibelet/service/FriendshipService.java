@@ -1,10 +1,13 @@
 package com.example.vibelet.service;
 
+import com.example.vibelet.dto.FriendRequestResponse;
+import com.example.vibelet.dto.FriendResponse;
 import com.example.vibelet.model.Friendship;
 import com.example.vibelet.model.FriendshipStatus;
 import com.example.vibelet.model.User;
 import com.example.vibelet.repository.FriendshipRepository;
 import com.example.vibelet.repository.UserRepository;
+import com.example.vibelet.security.CurrentUser;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import java.util.List;
@@ -14,15 +17,19 @@ import java.util.Optional;
 public class FriendshipService {
     private final FriendshipRepository friendshipRepository;
     private final UserRepository userRepository;
+    private final TimelineService timelineService;
+    private final FriendGraphCache friendGraph;
 
-    public FriendshipService(FriendshipRepository friendshipRepository, UserRepository userRepository) {
+    public FriendshipService(FriendshipRepository friendshipRepository, UserRepository userRepository, TimelineService timelineService, FriendGraphCache friendGraph) {
         this.friendshipRepository = friendshipRepository;
         this.userRepository = userRepository;
+        this.timelineService = timelineService;
+        this.friendGraph = friendGraph;
     }
 
     @Transactional
-    public void sendFriendRequest(String requesterUsername, Long receiverId) {
-        User requester = userRepository.findByUsername(requesterUsername)
+    public void sendFriendRequest(CurrentUser me, Long receiverId) {
+        User requester = userRepository.findById(me.getId())
                 .orElseThrow(() -> new RuntimeException("Requester not found"));
 
         User receiver = userRepository.findById(receiverId)
@@ -42,58 +49,78 @@ public class FriendshipService {
         friendship.setStatus(FriendshipStatus.PENDING);
 
         friendshipRepository.save(friendship);
+        friendGraph.invalidate(requester.getId(), receiver.getId());
     }
 
     @Transactional
-    public void acceptFriendRequest(String currentUsername, Long friendshipId) {
+    public void acceptFriendRequest(CurrentUser me, Long friendshipId) {
         Friendship friendship = friendshipRepository.findById(friendshipId)
                 .orElseThrow(() -> new RuntimeException("Friendship request not found"));
 
-        if (!friendship.getReceiver().getUsername().equals(currentUsername)) {
+        if (!friendship.getReceiver().getId().equals(me.getId())) {
             throw new RuntimeException("You are not authorized to accept this request.");
         }
 
         friendship.setStatus(FriendshipStatus.ACCEPTED);
         friendshipRepository.save(friendship);
+        friendGraph.invalidate(friendship.getRequester().getId(), friendship.getReceiver().getId());
+        timelineService.scheduleRebuild(friendship.getRequester().getId(), friendship.getReceiver().getId());
     }
 
     @Transactional
-    public void removeFriendOrRejectRequest(String currentUsername, Long friendshipId) {
+    public void removeFriendOrRejectRequest(CurrentUser me, Long friendshipId) {
         Friendship friendship = friendshipRepository.findById(friendshipId)
                 .orElseThrow(() -> new RuntimeException("Relationship not found"));
 
-        if (!friendship.getRequester().getUsername().equals(currentUsername) &&
-                !friendship.getReceiver().getUsername().equals(currentUsername)) {
+        if (!friendship.getRequester().getId().equals(me.getId()) &&
+                !friendship.getReceiver().getId().equals(me.getId())) {
             throw new RuntimeException("You are not authorized to remove this relationship.");
         }
 
         friendshipRepository.delete(friendship);
+        friendGraph.invalidate(friendship.getRequester().getId(), friendship.getReceiver().getId());
+        if (friendship.getStatus() == FriendshipStatus.ACCEPTED) {
+            timelineService.unlink(friendship.getRequester().getId(), friendship.getReceiver().getId());
+        }
     }
 
-    public List<Friendship> getPendingRequests(String username) {
-        User user = userRepository.findByUsername(username)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-        return friendshipRepository.findByReceiverAndStatus(user, FriendshipStatus.PENDING);
+    @Transactional(readOnly = true)
+    public List<Friendship> getPendingRequests(CurrentUser me) {
+        return friendshipRepository.findByReceiverAndStatus(userRepository.getReferenceById(me.getId()), FriendshipStatus.PENDING);
     }
 
-    public List<Friendship> getAcceptedFriendships(String username) {
-        User user = userRepository.findByUsername(username)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-        return friendshipRepository.findAllFriendsOfUser(user);
+    @Transactional(readOnly = true)
+    public List<Friendship> getAcceptedFriendships(CurrentUser me) {
+        return friendshipRepository.findAllFriendsOfUser(userRepository.getReferenceById(me.getId()));
     }
 
-    public boolean areFriends(User user1, User user2) {
-        Optional<Friendship> f1 = friendshipRepository.findByRequesterAndReceiver(user1, user2);
-        if (f1.isPresent() && f1.get().getStatus() == FriendshipStatus.ACCEPTED) return true;
+    @Transactional(readOnly = true)
+    public List<FriendResponse> getFriends(CurrentUser me) {
+        return friendshipRepository.findFriendResponses(me.getId());
+    }
 
-        Optional<Friendship> f2 = friendshipRepository.findByRequesterAndReceiver(user2, user1);
-        return f2.isPresent() && f2.get().getStatus() == FriendshipStatus.ACCEPTED;
+    @Transactional(readOnly = true)
+    public List<FriendRequestResponse> getIncomingRequests(CurrentUser me) {
+        return friendshipRepository.findPendingRequestResponses(me.getId());
+    }
+
+    public boolean areFriends(User user1, User user2) {
+        return friendGraph.areFriends(user1.getId(), user2.getId());
     }
 
     public boolean isPending(User sender, User receiver) {
-        return friendshipRepository.findByRequesterAndReceiver(sender, receiver)
-                .map(f -> f.getStatus() == FriendshipStatus.PENDING)
-                .orElse(false);
+        return friendGraph.hasPendingRequest(sender.getId(), receiver.getId());
+    }
+
+    public int countFriends(User user) {
+        return friendGraph.friendCount(user.getId());
+    }
+
+    public Optional<Friendship> findRelationship(User user1, User user2) {
+        if (!friendGraph.isConnected(user1.getId(), user2.getId())) {
+            return Optional.empty();
+        }
+        return friendshipRepository.findBetween(user1, user2);
     }
 
     public FriendshipRepository getFriendshipRepository() {
@@ -0,0 +1,419 @@
+package com.example.vibelet.service;
+
+import com.example.vibelet.repository.UserRepository;
+import com.example.vibelet.repository.VibeRepository;
+import com.example.vibelet.storage.MediaStorage;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.metadata.IIOMetadata;
+import javax.imageio.metadata.IIOMetadataNode;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Generates downscaled JPEG variants of uploaded images off the request thread. Each upload
+ * is decoded once, subsampled while reading so the decoded raster stays under
+ * vibelet.images.max-decoded-pixels, turned upright per its EXIF orientation and re-encoded
+ * without metadata. Originals stay in place; until the variants are recorded, templates
+ * fall back to them.
+ */
+@Service
+public class ImageProcessingService {
+    private static final Logger log = LoggerFactory.getLogger(ImageProcessingService.class);
+    static final int[] VIBE_WIDTHS = {320, 640, 1080};
+    static final int[] AVATAR_THUMBS = {80, 192};
+    private static final float JPEG_QUALITY = 0.82f;
+    // Taller images are cropped from the top so a width variant is at most this many widths high.
+    static final int MAX_VARIANT_ASPECT = 3;
+    private static final String JPEG_METADATA = "javax_imageio_jpeg_image_1.0";
+    private static final int APP1 = 0xE1;
+    private static final int ORIENTATION_TAG = 0x0112;
+
+    private final VibeRepository vibeRepository;
+    private final UserRepository userRepository;
+    private final MediaStorage storage;
+    private final TransactionTemplate transactionTemplate;
+    private final Path staging;
+    private final long maxPixels;
+    private final long maxDecodedPixels;
+    private final ThreadPoolExecutor executor;
+
+    public ImageProcessingService(VibeRepository vibeRepository,
+                                  UserRepository userRepository,
+                                  MediaStorage storage,
+                                  PlatformTransactionManager transactionManager,
+                                  @Value("${vibelet.media.root:uploads}") String rootLocation,
+                                  @Value("${vibelet.images.threads:2}") int threads,
+                                  @Value("${vibelet.images.queue-capacity:100}") int queueCapacity,
+                                  @Value("${vibelet.images.max-pixels:40000000}") long maxPixels,
+                                  @Value("${vibelet.images.max-decoded-pixels:8000000}") long maxDecodedPixels) {
+        this.vibeRepository = vibeRepository;
+        this.userRepository = userRepository;
+        this.storage = storage;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.staging = Paths.get(rootLocation).resolve(".incoming");
+        this.maxPixels = maxPixels;
+        this.maxDecodedPixels = maxDecodedPixels;
+        AtomicInteger workers = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                task -> {
+                    Thread thread = new Thread(task, "image-worker-" + workers.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        ImageIO.setUseCache(false);
+    }
+
+    public void processVibeImage(Long vibeId, String imageKey) {
+        submit(imageKey, () -> {
+            String variants = generate(imageKey, VIBE_WIDTHS, new int[0]);
+            if (variants != null) {
+                transactionTemplate.executeWithoutResult(status -> vibeRepository.updateImageVariants(vibeId, imageKey, variants));
+                vibeRepository.evictFromCache(vibeId);
+            }
+        });
+    }
+
+    public void processAvatar(Long userId, String avatarKey) {
+        submit(avatarKey, () -> {
+            String variants = generate(avatarKey, new int[0], AVATAR_THUMBS);
+            if (variants != null) {
+                transactionTemplate.executeWithoutResult(status -> userRepository.updateAvatarVariants(userId, avatarKey, variants));
+                userRepository.evictFromCache(userId);
+            }
+        });
+    }
+
+    private void submit(String key, Runnable task) {
+        Runnable guarded = () -> {
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                log.warn("Image processing for {} failed", key, e);
+            }
+        };
+        afterCommit(() -> {
+            try {
+                executor.execute(guarded);
+            } catch (RejectedExecutionException e) {
+                log.warn("Image queue full, serving original for {}", key);
+            }
+        });
+    }
+
+    /**
+     * Writes the variants for one stored image and returns their tokens, or null if the
+     * file could not be decoded or is too small to need any.
+     */
+    String generate(String key, int[] widths, int[] thumbs) {
+        Decoded decoded;
+        try {
+            String existing = existingVariants(key, widths, thumbs);
+            if (existing != null) {
+                return existing;
+            }
+            decoded = decode(key, widths, thumbs);
+        } catch (IOException e) {
+            log.info("Skipping variants for {}: {}", key, e.getMessage());
+            return null;
+        }
+        BufferedImage image = decoded.image;
+        // Which variants exist is decided by the original size, but none is upscaled from a
+        // raster the decode budget subsampled below the target.
+        int fullWidth = decoded.fullWidth;
+        int fullSide = Math.min(decoded.fullWidth, decoded.fullHeight);
+        int side = Math.min(image.getWidth(), image.getHeight());
+
+        List<String> tokens = new ArrayList<>();
+        try {
+            for (int size : thumbs) {
+                if (fullSide >= size && side >= size) {
+                    write(squareThumbnail(image, size), MediaUrls.variantKey(key, "s" + size));
+                    tokens.add("s" + size);
+                }
+            }
+            int sourceHeight = (int) Math.min(image.getHeight(), (long) image.getWidth() * MAX_VARIANT_ASPECT);
+            for (int width : widths) {
+                if (fullWidth > width && image.getWidth() >= width) {
+                    int height = Math.max(1, (int) Math.round((double) sourceHeight * width / image.getWidth()));
+                    write(scale(image, 0, 0, image.getWidth(), sourceHeight, width, height), MediaUrls.variantKey(key, "w" + width));
+                    tokens.add("w" + width);
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Could not write variants for {}", key, e);
+            return null;
+        }
+        return tokens.isEmpty() ? null : String.join(",", tokens);
+    }
+
+    // Identical uploads share one stored blob, so a repost finds its variants already written.
+    private String existingVariants(String key, int[] widths, int[] thumbs) throws IOException {
+        List<String> tokens = new ArrayList<>();
+        for (int size : thumbs) {
+            if (storage.exists(MediaUrls.variantKey(key, "s" + size))) {
+                tokens.add("s" + size);
+            }
+        }
+        for (int width : widths) {
+            if (storage.exists(MediaUrls.variantKey(key, "w" + width))) {
+                tokens.add("w" + width);
+            }
+        }
+        return tokens.isEmpty() ? null : String.join(",", tokens);
+    }
+
+    private Decoded decode(String key, int[] widths, int[] thumbs) throws IOException {
+        // Local files are read in place; remote objects are streamed.
+        Path local = storage.localPath(key);
+        try (InputStream remote = local == null ? storage.open(key) : null;
+             ImageInputStream in = ImageIO.createImageInputStream(local != null ? local.toFile() : remote)) {
+            if (in == null) {
+                throw new IOException("unreadable file");
+            }
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+            if (!readers.hasNext()) {
+                throw new IOException("unsupported format");
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, false);
+                int storedWidth = reader.getWidth(0);
+                int storedHeight = reader.getHeight(0);
+                if ((long) storedWidth * storedHeight > maxPixels) {
+                    throw new IOException("image too large (" + storedWidth + "x" + storedHeight + ")");
+                }
+                int orientation = orientation(reader);
+                boolean transposed = orientation >= 5;
+                int width = transposed ? storedHeight : storedWidth;
+                int height = transposed ? storedWidth : storedHeight;
+
+                // Keep at least twice the largest target for a clean downscale, but never
+                // decode more pixels than the configured budget. Subsampling rounds up.
+                int step = Math.max(1, Math.min(width / (2 * max(widths, 1)), Math.min(width, height) / (2 * max(thumbs, 1))));
+                while ((long) ceilDiv(width, step) * ceilDiv(height, step) > maxDecodedPixels) {
+                    step++;
+                }
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(step, step, 0, 0);
+                BufferedImage decoded = reader.read(0, param);
+                return new Decoded(upright(decoded, orientation), width, height);
+            } finally {
+                reader.dispose();
+            }
+        } catch (RuntimeException e) {
+            throw new IOException("corrupt image", e);
+        }
+    }
+
+    private static int ceilDiv(int value, int divisor) {
+        return (value + divisor - 1) / divisor;
+    }
+
+    /**
+     * Draws the decoded raster upright and flattened onto white (JPEG has no alpha channel).
+     * Orientation is the EXIF value: 2-4 mirror or turn in place, 5-8 swap the sides.
+     */
+    private static BufferedImage upright(BufferedImage decoded, int orientation) {
+        int w = decoded.getWidth();
+        int h = decoded.getHeight();
+        AffineTransform transform = switch (orientation) {
+            case 2 -> new AffineTransform(-1, 0, 0, 1, w, 0);
+            case 3 -> new AffineTransform(-1, 0, 0, -1, w, h);
+            case 4 -> new AffineTransform(1, 0, 0, -1, 0, h);
+            case 5 -> new AffineTransform(0, 1, 1, 0, 0, 0);
+            case 6 -> new AffineTransform(0, 1, -1, 0, h, 0);
+            case 7 -> new AffineTransform(0, -1, -1, 0, h, w);
+            case 8 -> new AffineTransform(0, -1, 1, 0, 0, w);
+            default -> new AffineTransform();
+        };
+        boolean transposed = orientation >= 5;
+        BufferedImage image = new BufferedImage(transposed ? h : w, transposed ? w : h, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        g.setColor(Color.WHITE);
+        g.fillRect(0, 0, image.getWidth(), image.getHeight());
+        g.drawImage(decoded, transform, null);
+        g.dispose();
+        return image;
+    }
+
+    // Unreadable metadata only costs the orientation, not the variants.
+    private static int orientation(ImageReader reader) {
+        try {
+            return orientation(reader.getImageMetadata(0));
+        } catch (IOException | RuntimeException e) {
+            return 1;
+        }
+    }
+
+    /** EXIF Orientation (1-8) from a JPEG's APP1 segment; 1 when absent or not a JPEG. */
+    static int orientation(IIOMetadata metadata) {
+        if (metadata == null || !JPEG_METADATA.equals(metadata.getNativeMetadataFormatName())) {
+            return 1;
+        }
+        Node markers = ((Element) metadata.getAsTree(JPEG_METADATA)).getElementsByTagName("markerSequence").item(0);
+        for (Node node = markers == null ? null : markers.getFirstChild(); node != null; node = node.getNextSibling()) {
+            if (node instanceof IIOMetadataNode segment && "unknown".equals(segment.getNodeName())
+                    && String.valueOf(APP1).equals(segment.getAttribute("MarkerTag"))
+                    && segment.getUserObject() instanceof byte[] data) {
+                int orientation = exifOrientation(data);
+                if (orientation != 0) {
+                    return orientation;
+                }
+            }
+        }
+        return 1;
+    }
+
+    // "Exif\0\0", then a TIFF header and IFD0; Orientation is a SHORT stored inline.
+    private static int exifOrientation(byte[] data) {
+        if (data.length < 14 || data[0] != 'E' || data[1] != 'x' || data[2] != 'i' || data[3] != 'f') {
+            return 0;
+        }
+        ByteBuffer tiff = ByteBuffer.wrap(data, 6, data.length - 6).slice();
+        tiff.order(tiff.get(0) == 'I' ? ByteOrder.LITTLE_ENDIAN : ByteOrder.BIG_ENDIAN);
+        try {
+            int ifd = tiff.getInt(4);
+            int entries = tiff.getShort(ifd) & 0xFFFF;
+            for (int i = 0; i < entries; i++) {
+                int entry = ifd + 2 + i * 12;
+                if ((tiff.getShort(entry) & 0xFFFF) == ORIENTATION_TAG) {
+                    int value = tiff.getShort(entry + 8) & 0xFFFF;
+                    return value >= 1 && value <= 8 ? value : 0;
+                }
+            }
+        } catch (IndexOutOfBoundsException e) {
+            return 0;
+        }
+        return 0;
+    }
+
+    private static int max(int[] values, int fallback) {
+        int max = 0;
+        for (int value : values) {
+            max = Math.max(max, value);
+        }
+        return max == 0 ? fallback : max;
+    }
+
+    private static BufferedImage squareThumbnail(BufferedImage image, int size) {
+        int side = Math.min(image.getWidth(), image.getHeight());
+        int x = (image.getWidth() - side) / 2;
+        int y = (image.getHeight() - side) / 2;
+        return scale(image, x, y, side, side, size, size);
+    }
+
+    // Halves repeatedly before the final bilinear pass; a single large-ratio step aliases badly.
+    private static BufferedImage scale(BufferedImage image, int x, int y, int w, int h, int targetW, int targetH) {
+        BufferedImage current = image.getSubimage(x, y, w, h);
+        int currentW = w;
+        int currentH = h;
+        do {
+            int nextW = Math.max(targetW, currentW / 2);
+            int nextH = Math.max(targetH, currentH / 2);
+            BufferedImage next = new BufferedImage(nextW, nextH, BufferedImage.TYPE_INT_RGB);
+            Graphics2D g = next.createGraphics();
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.drawImage(current, 0, 0, nextW, nextH, null);
+            g.dispose();
+            current = next;
+            currentW = nextW;
+            currentH = nextH;
+        } while (currentW != targetW || currentH != targetH);
+        return current;
+    }
+
+    private void write(BufferedImage image, String key) throws IOException {
+        Files.createDirectories(staging);
+        Path temp = Files.createTempFile(staging, "variant", ".tmp");
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        try (ImageOutputStream out = ImageIO.createImageOutputStream(temp.toFile())) {
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(JPEG_QUALITY);
+            writer.setOutput(out);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        } finally {
+            writer.dispose();
+        }
+        try {
+            storage.put(key, temp);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private static final class Decoded {
+        final BufferedImage image;
+        final int fullWidth;
+        final int fullHeight;
+
+        Decoded(BufferedImage image, int fullWidth, int fullHeight) {
+            this.image = image;
+            this.fullWidth = fullWidth;
+            this.fullHeight = fullHeight;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        executor.shutdown();
+        if (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+            executor.shutdownNow();
+        }
+    }
+}
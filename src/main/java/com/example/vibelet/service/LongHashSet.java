@@ -0,0 +1,158 @@
+package com.example.vibelet.service;
+
+import java.util.function.LongConsumer;
+
+/**
+ * Open-addressing set of primitive longs (linear probing, load factor 0.5).
+ * Zero is the empty-slot marker and is tracked separately.
+ */
+final class LongHashSet {
+    private static final int MIN_CAPACITY = 4;
+
+    private long[] slots;
+    private int size;
+    private boolean containsZero;
+
+    LongHashSet() {
+        this(MIN_CAPACITY);
+    }
+
+    LongHashSet(int expectedSize) {
+        this.slots = new long[capacityFor(expectedSize)];
+    }
+
+    boolean add(long value) {
+        if (value == 0) {
+            if (containsZero) {
+                return false;
+            }
+            containsZero = true;
+            size++;
+            return true;
+        }
+        if ((size + 1) * 2 > slots.length) {
+            rehash(slots.length * 2);
+        }
+        int mask = slots.length - 1;
+        int i = mix(value) & mask;
+        while (slots[i] != 0) {
+            if (slots[i] == value) {
+                return false;
+            }
+            i = (i + 1) & mask;
+        }
+        slots[i] = value;
+        size++;
+        return true;
+    }
+
+    boolean contains(long value) {
+        if (value == 0) {
+            return containsZero;
+        }
+        int mask = slots.length - 1;
+        int i = mix(value) & mask;
+        while (slots[i] != 0) {
+            if (slots[i] == value) {
+                return true;
+            }
+            i = (i + 1) & mask;
+        }
+        return false;
+    }
+
+    boolean remove(long value) {
+        if (value == 0) {
+            if (!containsZero) {
+                return false;
+            }
+            containsZero = false;
+            size--;
+            return true;
+        }
+        int mask = slots.length - 1;
+        int i = mix(value) & mask;
+        while (slots[i] != 0) {
+            if (slots[i] == value) {
+                closeGap(i);
+                size--;
+                return true;
+            }
+            i = (i + 1) & mask;
+        }
+        return false;
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    void forEach(LongConsumer action) {
+        if (containsZero) {
+            action.accept(0);
+        }
+        for (long slot : slots) {
+            if (slot != 0) {
+                action.accept(slot);
+            }
+        }
+    }
+
+    // Object header + fields + the backing array (header + 8 bytes per slot).
+    long footprintBytes() {
+        return 24 + 16 + 8L * slots.length;
+    }
+
+    private void rehash(int capacity) {
+        long[] old = slots;
+        slots = new long[capacity];
+        int mask = capacity - 1;
+        for (long value : old) {
+            if (value != 0) {
+                int i = mix(value) & mask;
+                while (slots[i] != 0) {
+                    i = (i + 1) & mask;
+                }
+                slots[i] = value;
+            }
+        }
+    }
+
+    // Backward-shift deletion: pull later entries of the probe run into the gap so
+    // lookups never stop early at a hole.
+    private void closeGap(int gap) {
+        int mask = slots.length - 1;
+        int i = gap;
+        while (true) {
+            i = (i + 1) & mask;
+            long value = slots[i];
+            if (value == 0) {
+                slots[gap] = 0;
+                return;
+            }
+            int home = mix(value) & mask;
+            boolean movable = gap <= i ? (home <= gap || home > i) : (home <= gap && home > i);
+            if (movable) {
+                slots[gap] = value;
+                gap = i;
+            }
+        }
+    }
+
+    private static int capacityFor(int expectedSize) {
+        int capacity = MIN_CAPACITY;
+        while (capacity < expectedSize * 2) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    private static int mix(long value) {
+        long h = value * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
@@ -0,0 +1,283 @@
+package com.example.vibelet.service;
+
+import com.example.vibelet.repository.MediaGcRepository;
+import com.example.vibelet.storage.MediaStorage;
+import com.example.vibelet.storage.MediaStorage.StoredObject;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Deletes media nothing points at any more. A pass streams every referenced key
+ * (vibes.image_url, users.avatar_url, media_blobs) into a Bloom filter capped at
+ * vibelet.media.gc.max-filter-size, then walks the store. Objects older than the grace
+ * period that miss the filter are re-checked one by one against the database before being
+ * deleted, in batches with a pause in between. A false positive only keeps a file around.
+ */
+@Service
+public class MediaGcService {
+    private static final Logger log = LoggerFactory.getLogger(MediaGcService.class);
+    // ~1% false positives at 10 bits per key with 7 probes.
+    private static final int BITS_PER_KEY = 10;
+    private static final int PROBES = 7;
+
+    private final MediaStore mediaStore;
+    private final MediaStorage storage;
+    private final MediaGcRepository mediaGcRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final boolean enabled;
+    private final Duration gracePeriod;
+    private final int batchSize;
+    private final long batchPauseMs;
+    private final long maxFilterBits;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(task -> {
+        Thread thread = new Thread(task, "media-gc");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final LongAdder totalBytesReclaimed = new LongAdder();
+    private final LongAdder totalFilesDeleted = new LongAdder();
+    private volatile Stats lastRun;
+
+    public MediaGcService(MediaStore mediaStore,
+                          MediaStorage storage,
+                          MediaGcRepository mediaGcRepository,
+                          PlatformTransactionManager transactionManager,
+                          @Value("${vibelet.media.gc.enabled:true}") boolean enabled,
+                          @Value("${vibelet.media.gc.grace-period:24h}") Duration gracePeriod,
+                          @Value("${vibelet.media.gc.batch-size:200}") int batchSize,
+                          @Value("${vibelet.media.gc.batch-pause-ms:1000}") long batchPauseMs,
+                          @Value("${vibelet.media.gc.max-filter-size:64MB}") DataSize maxFilterSize) {
+        this.mediaStore = mediaStore;
+        this.storage = storage;
+        this.mediaGcRepository = mediaGcRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.enabled = enabled;
+        this.gracePeriod = gracePeriod;
+        this.batchSize = batchSize;
+        this.batchPauseMs = batchPauseMs;
+        this.maxFilterBits = maxFilterSize.toBytes() * 8;
+    }
+
+    @Scheduled(initialDelayString = "${vibelet.media.gc.initial-delay-ms:600000}",
+            fixedDelayString = "${vibelet.media.gc.interval-ms:21600000}")
+    public void scheduleCollection() {
+        if (!enabled || !running.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    collect();
+                } catch (RuntimeException e) {
+                    log.error("Media GC pass failed", e);
+                } finally {
+                    running.set(false);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            running.set(false);
+        }
+    }
+
+    /** Runs one full pass on the calling thread. */
+    public Stats collect() {
+        long started = System.nanoTime();
+        Instant cutoff = Instant.now().minus(gracePeriod);
+        Pass pass = new Pass();
+        try {
+            mediaStore.cleanStaging(cutoff);
+            BloomFilter references = loadReferences();
+            storage.list("", object -> inspect(object, cutoff, references, pass));
+            flush(pass);
+        } catch (IOException e) {
+            log.error("Media GC could not walk the store", e);
+        } catch (CancellationException e) {
+            log.info("Media GC pass interrupted");
+        }
+
+        Stats stats = new Stats(pass.scanned, pass.deleted, pass.bytesReclaimed,
+                (System.nanoTime() - started) / 1_000_000, totalBytesReclaimed.sum(), totalFilesDeleted.sum());
+        lastRun = stats;
+        log.info("Media GC: scanned {} objects, deleted {} ({} KiB) in {} ms",
+                stats.getScanned(), stats.getDeleted(), stats.getBytesReclaimed() / 1024, stats.getScanDurationMs());
+        return stats;
+    }
+
+    public Stats getStats() {
+        Stats stats = lastRun;
+        return stats != null ? stats : new Stats(0, 0, 0, 0, totalBytesReclaimed.sum(), totalFilesDeleted.sum());
+    }
+
+    private BloomFilter loadReferences() {
+        long expected = Math.max(1, mediaGcRepository.countReferences());
+        BloomFilter filter = new BloomFilter(Math.min(maxFilterBits, Math.max(1 << 16, expected * BITS_PER_KEY)));
+        readOnlyTransaction.executeWithoutResult(status ->
+                mediaGcRepository.streamReferencedKeys(key -> filter.add(MediaStore.stem(key))));
+        return filter;
+    }
+
+    private void inspect(StoredObject object, Instant cutoff, BloomFilter references, Pass pass) {
+        pass.scanned++;
+        String key = object.getKey();
+        if (object.getLastModified().isAfter(cutoff) || references.mightContain(MediaStore.stem(key))) {
+            return;
+        }
+        String base = MediaStore.variantBase(key);
+        if (base != null && references.mightContain(base)) {
+            return;
+        }
+        pass.pending.add(object);
+        if (pass.pending.size() >= batchSize) {
+            flush(pass);
+        }
+    }
+
+    private void flush(Pass pass) {
+        if (pass.pending.isEmpty()) {
+            return;
+        }
+        for (StoredObject object : pass.pending) {
+            String key = object.getKey();
+            try {
+                // A variant whose original is still there goes together with it.
+                String base = MediaStore.variantBase(key);
+                if (base != null && hasObjects(base + ".")) {
+                    continue;
+                }
+                long freed = mediaStore.purge(key, object.getSize(), mediaGcRepository::isReferenced);
+                if (freed >= 0) {
+                    pass.deleted++;
+                    pass.bytesReclaimed += freed;
+                    totalFilesDeleted.increment();
+                    totalBytesReclaimed.add(freed);
+                }
+            } catch (IOException | RuntimeException e) {
+                log.warn("Media GC could not delete {}", key, e);
+            }
+        }
+        pass.pending.clear();
+        try {
+            Thread.sleep(batchPauseMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException();
+        }
+    }
+
+    private boolean hasObjects(String prefix) throws IOException {
+        boolean[] found = {false};
+        storage.list(prefix, object -> found[0] = true);
+        return found[0];
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+        try {
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static final class Pass {
+        final List<StoredObject> pending = new ArrayList<>();
+        long scanned;
+        long deleted;
+        long bytesReclaimed;
+    }
+
+    private static final class BloomFilter {
+        private final long[] words;
+        private final long bits;
+
+        BloomFilter(long bits) {
+            this.words = new long[(int) Math.min(Integer.MAX_VALUE - 8, (bits + 63) / 64)];
+            this.bits = (long) words.length * 64;
+        }
+
+        void add(String value) {
+            long hash = hash(value);
+            long step = mix(hash) | 1;
+            for (int i = 0; i < PROBES; i++) {
+                long bit = Math.floorMod(hash + i * step, bits);
+                words[(int) (bit >>> 6)] |= 1L << bit;
+            }
+        }
+
+        boolean mightContain(String value) {
+            long hash = hash(value);
+            long step = mix(hash) | 1;
+            for (int i = 0; i < PROBES; i++) {
+                long bit = Math.floorMod(hash + i * step, bits);
+                if ((words[(int) (bit >>> 6)] & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        // FNV-1a over UTF-16 units.
+        private static long hash(String value) {
+            long hash = 0xcbf29ce484222325L;
+            for (int i = 0; i < value.length(); i++) {
+                hash ^= value.charAt(i);
+                hash *= 0x100000001b3L;
+            }
+            return hash;
+        }
+
+        private static long mix(long z) {
+            z = (z ^ (z >>> 33)) * 0xff51afd7ed558ccdL;
+            z = (z ^ (z >>> 33)) * 0xc4ceb9fe1a85ec53L;
+            return z ^ (z >>> 33);
+        }
+    }
+
+    public static final class Stats {
+        private final long scanned;
+        private final long deleted;
+        private final long bytesReclaimed;
+        private final long scanDurationMs;
+        private final long totalBytesReclaimed;
+        private final long totalFilesDeleted;
+
+        Stats(long scanned, long deleted, long bytesReclaimed, long scanDurationMs, long totalBytesReclaimed, long totalFilesDeleted) {
+            this.scanned = scanned;
+            this.deleted = deleted;
+            this.bytesReclaimed = bytesReclaimed;
+            this.scanDurationMs = scanDurationMs;
+            this.totalBytesReclaimed = totalBytesReclaimed;
+            this.totalFilesDeleted = totalFilesDeleted;
+        }
+
+        public long getScanned() { return scanned; }
+        public long getDeleted() { return deleted; }
+        public long getBytesReclaimed() { return bytesReclaimed; }
+        public long getScanDurationMs() { return scanDurationMs; }
+        public long getTotalBytesReclaimed() { return totalBytesReclaimed; }
+        public long getTotalFilesDeleted() { return totalFilesDeleted; }
+    }
+}
@@ -0,0 +1,309 @@
+package com.example.vibelet.service;
+
+import com.example.vibelet.model.MediaBlob;
+import com.example.vibelet.repository.MediaBlobRepository;
+import com.example.vibelet.storage.MediaStorage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Content-addressed upload store. A blob is named after the SHA-256 of its bytes and kept
+ * once in {@link MediaStorage} as {@code ab/cd/abcd….ext}, however many vibes or avatars point at it;
+ * media_blobs counts the references; the garbage collector removes a blob once none are left.
+ * Keys without a directory are legacy {@code UUID_name} uploads, which are not counted.
+ */
+@Component
+public class MediaStore {
+    private static final Logger log = LoggerFactory.getLogger(MediaStore.class);
+    private static final int STRIPES = 64;
+    private static final int SNIFF_BYTES = 12;
+    private static final Pattern VARIANT = Pattern.compile("(.+)_[a-z][0-9]+\\.jpg");
+    private static final Pattern FINGERPRINTED = Pattern.compile("[0-9a-f]{2}/[0-9a-f]{2}/[0-9a-f]{64}(_[a-z][0-9]+)?\\.[a-z]+");
+
+    private final MediaBlobRepository mediaBlobRepository;
+    private final MediaStorage storage;
+    private final TransactionTemplate transactionTemplate;
+    private final Path incoming;
+    private final long maxBytes;
+    // Serializes reference changes and purge() of the same blob so a file is never removed under a new reference.
+    private final Object[] stripes = new Object[STRIPES];
+    private final LongAdder uploads = new LongAdder();
+    private final LongAdder uploadedBytes = new LongAdder();
+
+    public MediaStore(MediaBlobRepository mediaBlobRepository,
+                      MediaStorage storage,
+                      PlatformTransactionManager transactionManager,
+                      @Value("${vibelet.media.root:uploads}") String rootLocation,
+                      @Value("${vibelet.uploads.max-size:50MB}") DataSize maxSize) {
+        this.mediaBlobRepository = mediaBlobRepository;
+        this.storage = storage;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.incoming = Paths.get(rootLocation).resolve(".incoming");
+        this.maxBytes = maxSize.toBytes();
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Object();
+        }
+        try {
+            Files.createDirectories(incoming);
+        } catch (IOException e) {
+            log.error("Could not initialize storage", e);
+            throw new RuntimeException("Could not initialize storage", e);
+        }
+    }
+
+    /** Content-addressed keys never change meaning, so clients may cache them forever. */
+    public static boolean isFingerprinted(String key) {
+        return FINGERPRINTED.matcher(key).matches();
+    }
+
+    /**
+     * Streams the upload in a single pass into the staging directory (with local storage the
+     * same file system as the final location, so placing it is a rename), hashing as it goes. The type is checked
+     * from the first bytes before anything is written and the size cap while copying, so a
+     * bad upload is rejected without being read to the end. If the same bytes are already
+     * stored, the staged copy is dropped and a reference added instead.
+     * <p>
+     * The reference is committed before the owner row exists (purge() must see it). If the
+     * caller's transaction rolls back it is dropped again; callers without a transaction
+     * hand the key to {@link #discard} when saving the owner fails.
+     */
+    public String store(InputStream content) throws IOException {
+        byte[] head = content.readNBytes(SNIFF_BYTES);
+        String extension = extension(head);
+        if (extension == null) {
+            throw new IllegalArgumentException("Unsupported image type");
+        }
+        MessageDigest sha256 = sha256();
+        Path temp = Files.createTempFile(incoming, "upload", ".tmp");
+        try {
+            long size = head.length;
+            sha256.update(head);
+            try (OutputStream out = Files.newOutputStream(temp)) {
+                out.write(head);
+                byte[] buffer = new byte[64 * 1024];
+                int read;
+                while ((read = content.read(buffer)) != -1) {
+                    size += read;
+                    if (size > maxBytes) {
+                        throw new IllegalArgumentException("Upload exceeds the " + maxBytes + " byte limit");
+                    }
+                    sha256.update(buffer, 0, read);
+                    out.write(buffer, 0, read);
+                }
+            }
+            long storedSize = size;
+            uploads.increment();
+            uploadedBytes.add(storedSize);
+            String hash = HexFormat.of().formatHex(sha256.digest());
+            String key = hash.substring(0, 2) + "/" + hash.substring(2, 4) + "/" + hash + "." + extension;
+
+            synchronized (stripe(key)) {
+                transactionTemplate.executeWithoutResult(status -> {
+                    boolean known = mediaBlobRepository.incrementRefCount(key) > 0;
+                    if (!known) {
+                        mediaBlobRepository.save(new MediaBlob(key, storedSize));
+                    }
+                });
+            }
+            // Outside the stripe: with S3 this is a network upload. The committed reference
+            // already keeps purge() away from the key, so the lock is not needed here.
+            try {
+                if (!storage.exists(key)) {
+                    storage.put(key, temp);
+                }
+            } catch (IOException | RuntimeException e) {
+                drop(key);
+                throw e;
+            }
+            if (TransactionSynchronizationManager.isSynchronizationActive()) {
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void afterCompletion(int status) {
+                        if (status != STATUS_COMMITTED) {
+                            drop(key);
+                        }
+                    }
+                });
+            }
+            return key;
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /** Uploads received in full (deduplicated or not) since startup. */
+    public long getUploads() {
+        return uploads.sum();
+    }
+
+    public long getUploadedBytes() {
+        return uploadedBytes.sum();
+    }
+
+    /**
+     * Drops one reference once the surrounding transaction commits. Files are never deleted
+     * here: once nothing points at a blob, MediaGcService removes it (and its variants) after
+     * the grace period, off the request thread.
+     */
+    public void release(String key) {
+        if (key == null || key.isBlank() || key.startsWith("http") || key.indexOf('/') < 0) {
+            return;
+        }
+        afterCommit(() -> drop(key));
+    }
+
+    /**
+     * Gives back a reference from {@link #store} whose owner was never saved. Inside a
+     * transaction this is left to the rollback hook store() registered.
+     */
+    public void discard(String key) {
+        if (key != null && !TransactionSynchronizationManager.isSynchronizationActive()) {
+            drop(key);
+        }
+    }
+
+    private void drop(String key) {
+        try {
+            synchronized (stripe(key)) {
+                transactionTemplate.executeWithoutResult(status -> {
+                    if (mediaBlobRepository.decrementRefCount(key) > 0) {
+                        mediaBlobRepository.deleteIfUnreferenced(key);
+                    }
+                });
+            }
+        } catch (RuntimeException e) {
+            log.error("Could not release media {}", key, e);
+        }
+    }
+
+    /**
+     * Deletes an object and its variants unless it is referenced. The check and the delete
+     * happen under the key's stripe, so a concurrent store() of the same bytes cannot add a
+     * reference in between. Returns the bytes freed, or -1 if the key was kept or already gone.
+     */
+    public long purge(String key, long size, Predicate<String> referenced) throws IOException {
+        synchronized (stripe(key)) {
+            if (!storage.exists(key) || referenced.test(key)) {
+                return -1;
+            }
+            storage.delete(key);
+            return size + deleteVariants(key);
+        }
+    }
+
+    /** Removes staged uploads left behind by a crash or an aborted request. */
+    public int cleanStaging(Instant olderThan) throws IOException {
+        int removed = 0;
+        try (DirectoryStream<Path> staged = Files.newDirectoryStream(incoming)) {
+            for (Path file : staged) {
+                try {
+                    if (Files.getLastModifiedTime(file).toInstant().isBefore(olderThan) && Files.deleteIfExists(file)) {
+                        removed++;
+                    }
+                } catch (NoSuchFileException e) {
+                    // finished or cleaned up concurrently
+                }
+            }
+        }
+        return removed;
+    }
+
+    /** The key of the image a generated variant was made from, without extension; null for other keys. */
+    public static String variantBase(String key) {
+        Matcher matcher = VARIANT.matcher(key);
+        return matcher.matches() ? matcher.group(1) : null;
+    }
+
+    public static String stem(String key) {
+        int dot = key.lastIndexOf('.');
+        return dot > key.lastIndexOf('/') ? key.substring(0, dot) : key;
+    }
+
+    private long deleteVariants(String key) throws IOException {
+        String stem = stem(key);
+        List<MediaStorage.StoredObject> variants = new ArrayList<>();
+        storage.list(stem + "_", object -> {
+            if (stem.equals(variantBase(object.getKey()))) {
+                variants.add(object);
+            }
+        });
+        long freed = 0;
+        for (MediaStorage.StoredObject variant : variants) {
+            storage.delete(variant.getKey());
+            freed += variant.getSize();
+        }
+        return freed;
+    }
+
+    private Object stripe(String key) {
+        return stripes[Math.floorMod(key.hashCode(), STRIPES)];
+    }
+
+    // The name comes from the bytes, not the uploaded file name; null for anything but an image.
+    private static String extension(byte[] head) {
+        int read = head.length;
+        if (read >= 3 && (head[0] & 0xFF) == 0xFF && (head[1] & 0xFF) == 0xD8 && (head[2] & 0xFF) == 0xFF) {
+            return "jpg";
+        }
+        if (read >= 8 && (head[0] & 0xFF) == 0x89 && head[1] == 'P' && head[2] == 'N' && head[3] == 'G') {
+            return "png";
+        }
+        if (read >= 6 && head[0] == 'G' && head[1] == 'I' && head[2] == 'F' && head[3] == '8') {
+            return "gif";
+        }
+        if (read >= 12 && head[0] == 'R' && head[1] == 'I' && head[2] == 'F' && head[3] == 'F'
+                && head[8] == 'W' && head[9] == 'E' && head[10] == 'B' && head[11] == 'P') {
+            return "webp";
+        }
+        return null;
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
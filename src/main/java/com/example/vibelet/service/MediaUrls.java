@@ -0,0 +1,97 @@
+package com.example.vibelet.service;
+
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Naming of generated image variants and the URLs templates use for them (as {@code @media}).
+ * A variant list is a comma-separated set of tokens: {@code w640} is a 640px-wide copy,
+ * {@code s64} a 64px square thumbnail. Each lives next to the original as
+ * {@code <original-stem>_<token>.jpg}.
+ */
+@Component("media")
+public class MediaUrls {
+    static final String PREFIX = "/uploads/";
+
+    public static String variantKey(String key, String token) {
+        int slash = key.lastIndexOf('/');
+        int dot = key.lastIndexOf('.');
+        String stem = dot > slash + 1 ? key.substring(0, dot) : key;
+        return stem + "_" + token + ".jpg";
+    }
+
+    public String url(String key) {
+        if (key == null) {
+            return null;
+        }
+        return isExternal(key) ? key : PREFIX + key;
+    }
+
+    public String thumb(String key, String variants, int size) {
+        if (key == null || isExternal(key)) {
+            return url(key);
+        }
+        Integer best = closest(sizes(variants, 's'), size);
+        return best == null ? url(key) : PREFIX + variantKey(key, "s" + best);
+    }
+
+    public String preview(String key, String variants, int width) {
+        if (key == null || isExternal(key)) {
+            return url(key);
+        }
+        Integer best = closest(sizes(variants, 'w'), width);
+        return best == null ? url(key) : PREFIX + variantKey(key, "w" + best);
+    }
+
+    public String srcset(String key, String variants) {
+        if (key == null || isExternal(key)) {
+            return null;
+        }
+        List<Integer> widths = sizes(variants, 'w');
+        if (widths.isEmpty()) {
+            return null;
+        }
+        StringBuilder srcset = new StringBuilder();
+        for (int width : widths) {
+            if (!srcset.isEmpty()) {
+                srcset.append(", ");
+            }
+            srcset.append(PREFIX).append(variantKey(key, "w" + width)).append(' ').append(width).append('w');
+        }
+        return srcset.toString();
+    }
+
+    // Smallest variant at least as large as wanted, else the largest there is.
+    private static Integer closest(List<Integer> sizes, int wanted) {
+        Integer best = null;
+        for (int candidate : sizes) {
+            if (best == null || (best < wanted ? candidate > best : candidate >= wanted && candidate < best)) {
+                best = candidate;
+            }
+        }
+        return best;
+    }
+
+    private static boolean isExternal(String key) {
+        return key.startsWith("http");
+    }
+
+    private static List<Integer> sizes(String variants, char kind) {
+        List<Integer> sizes = new ArrayList<>();
+        if (variants == null || variants.isEmpty()) {
+            return sizes;
+        }
+        for (String token : variants.split(",")) {
+            if (token.length() > 1 && token.charAt(0) == kind) {
+                try {
+                    sizes.add(Integer.parseInt(token.substring(1)));
+                } catch (NumberFormatException ignored) {
+                    // unknown token from a newer format; skip it
+                }
+            }
+        }
+        return sizes;
+    }
+}
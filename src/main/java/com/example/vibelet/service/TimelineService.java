@@ -0,0 +1,168 @@
+package com.example.vibelet.service;
+
+import com.example.vibelet.dto.CursorSlice;
+import com.example.vibelet.dto.FeedCursor;
+import com.example.vibelet.model.PrivacyStatus;
+import com.example.vibelet.model.Vibe;
+import com.example.vibelet.repository.TimelineRepository;
+import com.example.vibelet.repository.VibeRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Materialized home timeline. Non-public vibes are pushed at write time into a
+ * per-owner row set (the author plus, for FRIENDS_ONLY, every accepted friend),
+ * while PUBLIC vibes are read from a single global stream. The two sources are
+ * disjoint, so a feed page is a merge of two index-ordered slices.
+ */
+@Service
+public class TimelineService {
+    private static final Logger log = LoggerFactory.getLogger(TimelineService.class);
+    private static final int REBUILD_BATCH = 100;
+
+    static final Comparator<Vibe> NEWEST_FIRST = Comparator
+            .comparing(Vibe::getCreatedAt)
+            .thenComparing(Vibe::getId)
+            .reversed();
+
+    private final TimelineRepository timelineRepository;
+    private final VibeRepository vibeRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    public TimelineService(TimelineRepository timelineRepository, VibeRepository vibeRepository, PlatformTransactionManager transactionManager) {
+        this.timelineRepository = timelineRepository;
+        this.vibeRepository = vibeRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Transactional
+    public void fanOut(Vibe vibe) {
+        if (vibe.getPrivacyStatus() == PrivacyStatus.PUBLIC) {
+            return;
+        }
+        Long authorId = vibe.getUser().getId();
+        timelineRepository.insertEntry(authorId, vibe.getId(), authorId, vibe.getCreatedAt());
+
+        if (vibe.getPrivacyStatus() == PrivacyStatus.FRIENDS_ONLY) {
+            int delivered = timelineRepository.fanOutToFriends(vibe.getId(), authorId, vibe.getCreatedAt());
+            log.debug("Vibe {} fanned out to {} friends of user {}", vibe.getId(), delivered, authorId);
+        }
+    }
+
+    @Transactional
+    public void reconcile(Vibe vibe) {
+        timelineRepository.deleteByVibeId(vibe.getId());
+        fanOut(vibe);
+    }
+
+    @Transactional
+    public void unlink(Long userA, Long userB) {
+        timelineRepository.deleteBetween(userA, userB);
+    }
+
+    /**
+     * Queues a rebuild in the caller's transaction: the worker only sees it once that commits,
+     * and a restart or another node does not lose it.
+     */
+    @Transactional
+    public void scheduleRebuild(Long... userIds) {
+        for (Long userId : userIds) {
+            if (userId != null) {
+                timelineRepository.requestRebuild(userId);
+            }
+        }
+    }
+
+    public void rebuild(Long ownerId) {
+        transactionTemplate.executeWithoutResult(status -> {
+            timelineRepository.deleteByOwnerId(ownerId);
+            timelineRepository.backfillOwner(ownerId);
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${vibelet.timeline.rebuild-delay-ms:5000}")
+    public void processPendingRebuilds() {
+        for (Object[] row : timelineRepository.findPendingRebuilds(REBUILD_BATCH)) {
+            Long ownerId = ((Number) row[0]).longValue();
+            Long upTo = ((Number) row[1]).longValue();
+            try {
+                // Requests queued while this runs have a higher id and stay for the next round.
+                transactionTemplate.executeWithoutResult(status -> {
+                    rebuild(ownerId);
+                    timelineRepository.completeRebuilds(ownerId, upTo);
+                });
+            } catch (RuntimeException e) {
+                log.warn("Timeline rebuild for user {} failed, retrying later", ownerId, e);
+            }
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public Page<Vibe> getFeed(Long ownerId, int page, int size) {
+        Pageable pageable = PageRequest.of(page, size);
+        int window = (int) Math.min(Integer.MAX_VALUE, pageable.getOffset() + size);
+
+        List<Vibe> personal = timelineRepository.findVibesForOwner(ownerId, PageRequest.of(0, window));
+        List<Vibe> shared = vibeRepository.findStreamByPrivacy(PrivacyStatus.PUBLIC, PageRequest.of(0, window));
+        List<Vibe> merged = merge(personal, shared, window);
+
+        int from = (int) Math.min(pageable.getOffset(), merged.size());
+        long total = timelineRepository.countForOwner(ownerId)
+                + vibeRepository.countByPrivacyStatus(PrivacyStatus.PUBLIC);
+
+        return new PageImpl<>(new ArrayList<>(merged.subList(from, merged.size())), pageable, total);
+    }
+
+    @Transactional(readOnly = true)
+    public CursorSlice<Vibe> getFeedSlice(Long ownerId, FeedCursor cursor, int size) {
+        Pageable window = PageRequest.of(0, size + 1);
+
+        List<Vibe> personal;
+        List<Vibe> shared;
+        if (cursor == null) {
+            personal = timelineRepository.findVibesForOwner(ownerId, window);
+            shared = vibeRepository.findStreamByPrivacy(PrivacyStatus.PUBLIC, window);
+        } else {
+            personal = timelineRepository.findVibesForOwnerBefore(ownerId, cursor.getCreatedAt(), cursor.getId(), window);
+            shared = vibeRepository.findStreamByPrivacyBefore(PrivacyStatus.PUBLIC, cursor.getCreatedAt(), cursor.getId(), window);
+        }
+
+        return toSlice(merge(personal, shared, size + 1), size);
+    }
+
+    static CursorSlice<Vibe> toSlice(List<Vibe> window, int size) {
+        if (window.size() <= size) {
+            return new CursorSlice<>(window, null);
+        }
+        List<Vibe> content = new ArrayList<>(window.subList(0, size));
+        Vibe last = content.get(content.size() - 1);
+        return new CursorSlice<>(content, new FeedCursor(last.getCreatedAt(), last.getId()).encode());
+    }
+
+    static List<Vibe> merge(List<Vibe> left, List<Vibe> right, int limit) {
+        List<Vibe> merged = new ArrayList<>(Math.min(limit, left.size() + right.size()));
+        int i = 0;
+        int j = 0;
+        while (merged.size() < limit && (i < left.size() || j < right.size())) {
+            if (j >= right.size() || (i < left.size() && NEWEST_FIRST.compare(left.get(i), right.get(j)) <= 0)) {
+                merged.add(left.get(i++));
+            } else {
+                merged.add(right.get(j++));
+            }
+        }
+        return merged;
+    }
+}
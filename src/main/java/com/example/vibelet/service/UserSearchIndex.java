@@ -0,0 +1,283 @@
+package com.example.vibelet.service;
+
+import com.example.vibelet.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory username index. Queries of three or more characters are answered from
+ * trigram posting lists (the rarest trigram's ids are verified with a substring check),
+ * shorter ones by a range scan over the sorted names, i.e. prefix matches only. Updates
+ * from register, rename and delete are applied after the surrounding transaction commits,
+ * on the node that made them; every node also rebuilds from the database every
+ * vibelet.search.rebuild-interval-ms, so changes made elsewhere show up within that time.
+ */
+@Component
+public class UserSearchIndex {
+    private static final Logger log = LoggerFactory.getLogger(UserSearchIndex.class);
+    private static final int GRAM = 3;
+    private static final int BUILD_BATCH = 10_000;
+
+    private static final Comparator<Match> RANKING = Comparator
+            .comparingInt(Match::score)
+            .thenComparingInt(m -> m.name().length())
+            .thenComparing(Match::name)
+            .thenComparingLong(Match::id);
+
+    private final UserRepository userRepository;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, String> names = new HashMap<>();
+    private final NavigableMap<String, Long> sortedNames = new TreeMap<>();
+    private final Map<Long, LongHashSet> postings = new HashMap<>();
+    // Ids read or put during a running rebuild; whatever else is indexed has been deleted.
+    private LongHashSet seen;
+    private volatile boolean ready;
+
+    public UserSearchIndex(UserRepository userRepository) {
+        this.userRepository = userRepository;
+    }
+
+    /** Whether a query is answered by prefix rather than substring; the database fallback must agree. */
+    public static boolean isPrefixQuery(String query) {
+        return query.trim().length() < GRAM;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${vibelet.search.rebuild-interval-ms:600000}",
+            fixedDelayString = "${vibelet.search.rebuild-interval-ms:600000}")
+    public synchronized void rebuild() {
+        long start = System.nanoTime();
+        long lastId = 0;
+        int indexed = 0;
+        int dropped = 0;
+        lock.writeLock().lock();
+        try {
+            seen = new LongHashSet();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        try {
+            while (true) {
+                List<Object[]> batch = userRepository.findIdAndUsernameAfter(lastId, PageRequest.of(0, BUILD_BATCH));
+                if (batch.isEmpty()) {
+                    break;
+                }
+                lock.writeLock().lock();
+                try {
+                    for (Object[] row : batch) {
+                        // Already seen means put() committed a newer name after this batch was read.
+                        if (seen.add((Long) row[0])) {
+                            index((Long) row[0], (String) row[1]);
+                        }
+                    }
+                } finally {
+                    lock.writeLock().unlock();
+                }
+                lastId = (Long) batch.get(batch.size() - 1)[0];
+                indexed += batch.size();
+            }
+            lock.writeLock().lock();
+            try {
+                for (Long id : new ArrayList<>(names.keySet())) {
+                    if (!seen.contains(id)) {
+                        unindex(id);
+                        dropped++;
+                    }
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        } finally {
+            lock.writeLock().lock();
+            try {
+                seen = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+        if (!ready) {
+            ready = true;
+            log.info("User search index built: {} users, {} trigrams in {} ms",
+                    indexed, postings.size(), (System.nanoTime() - start) / 1_000_000);
+        } else {
+            log.debug("User search index refreshed: {} users, {} dropped in {} ms",
+                    indexed, dropped, (System.nanoTime() - start) / 1_000_000);
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public void put(Long userId, String username) {
+        afterCommit(() -> {
+            lock.writeLock().lock();
+            try {
+                index(userId, username);
+                if (seen != null) {
+                    seen.add(userId);
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    public void remove(Long userId) {
+        afterCommit(() -> {
+            lock.writeLock().lock();
+            try {
+                unindex(userId);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    public List<Long> search(String query, int offset, int limit) {
+        String q = query == null ? "" : query.trim().toLowerCase(Locale.ROOT);
+        if (q.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        lock.readLock().lock();
+        try {
+            return isPrefixQuery(q) ? searchPrefix(q, offset, limit) : searchTrigrams(q, offset, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Keys are "name\0id", so an exact match sorts ahead of longer names sharing the prefix.
+    private List<Long> searchPrefix(String q, int offset, int limit) {
+        List<Long> ids = new ArrayList<>(limit);
+        int skipped = 0;
+        for (Long id : sortedNames.subMap(q, true, q + Character.MAX_VALUE, false).values()) {
+            if (skipped++ < offset) {
+                continue;
+            }
+            ids.add(id);
+            if (ids.size() == limit) {
+                break;
+            }
+        }
+        return ids;
+    }
+
+    private List<Long> searchTrigrams(String q, int offset, int limit) {
+        LongHashSet rarest = null;
+        for (long gram : trigrams(q)) {
+            LongHashSet posting = postings.get(gram);
+            if (posting == null) {
+                return List.of();
+            }
+            if (rarest == null || posting.size() < rarest.size()) {
+                rarest = posting;
+            }
+        }
+
+        int window = offset + limit;
+        PriorityQueue<Match> best = new PriorityQueue<>(window + 1, RANKING.reversed());
+        rarest.forEach(id -> {
+            String name = names.get(id);
+            int at = name.indexOf(q);
+            if (at < 0) {
+                return;
+            }
+            best.offer(new Match(id, name, name.length() == q.length() ? 0 : at == 0 ? 1 : 2));
+            if (best.size() > window) {
+                best.poll();
+            }
+        });
+
+        List<Match> ranked = new ArrayList<>(best);
+        ranked.sort(RANKING);
+        List<Long> ids = new ArrayList<>(limit);
+        for (int i = offset; i < ranked.size(); i++) {
+            ids.add(ranked.get(i).id());
+        }
+        return ids;
+    }
+
+    private void index(Long id, String username) {
+        unindex(id);
+        String name = username.toLowerCase(Locale.ROOT);
+        names.put(id, name);
+        sortedNames.put(name + '\0' + id, id);
+        for (long gram : trigrams(name)) {
+            postings.computeIfAbsent(gram, g -> new LongHashSet()).add(id);
+        }
+    }
+
+    private void unindex(Long id) {
+        String name = names.remove(id);
+        if (name == null) {
+            return;
+        }
+        sortedNames.remove(name + '\0' + id);
+        for (long gram : trigrams(name)) {
+            LongHashSet posting = postings.get(gram);
+            if (posting != null && posting.remove(id) && posting.isEmpty()) {
+                postings.remove(gram);
+            }
+        }
+    }
+
+    private static long[] trigrams(String s) {
+        if (s.length() < GRAM) {
+            return new long[0];
+        }
+        long[] grams = new long[s.length() - GRAM + 1];
+        for (int i = 0; i < grams.length; i++) {
+            grams[i] = ((long) s.charAt(i) << 32) | ((long) s.charAt(i + 1) << 16) | s.charAt(i + 2);
+        }
+        return grams;
+    }
+
+    private static void afterCommit(Runnable update) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    update.run();
+                }
+            });
+        } else {
+            update.run();
+        }
+    }
+
+    private static final class Match {
+        private final long id;
+        private final String name;
+        private final int score;
+
+        Match(long id, String name, int score) {
+            this.id = id;
+            this.name = name;
+            this.score = score;
+        }
+
+        long id() { return id; }
+        String name() { return name; }
+        int score() { return score; }
+    }
+}
@@ -3,108 +3,201 @@ package com.example.vibelet.service;
 import com.example.vibelet.dto.UserProfileUpdateDto;
 import com.example.vibelet.dto.UserSearchDto;
 import com.example.vibelet.dto.UserSecurityUpdateDto;
-import com.example.vibelet.model.Friendship;
-import com.example.vibelet.model.FriendshipStatus;
+import com.example.vibelet.model.RelationshipStatus;
 import com.example.vibelet.model.User;
-import com.example.vibelet.repository.FriendshipRepository;
 import com.example.vibelet.repository.UserRepository;
+import com.example.vibelet.repository.VibeRepository;
+import com.example.vibelet.security.CurrentUser;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
+import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Optional;
-import java.util.UUID;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
 public class UserService {
+    private static final int MAX_SEARCH_RESULTS = 50;
     private final UserRepository userRepository;
-    private final FriendshipRepository friendshipRepository;
+    private final VibeRepository vibeRepository;
+    private final FriendGraphCache friendGraph;
     private final PasswordEncoder passwordEncoder;
-    private final Path rootLocation = Paths.get("uploads");
+    private final UserSearchIndex userSearchIndex;
+    private final ImageProcessingService imageProcessingService;
+    private final MediaStore mediaStore;
 
-    public UserService(UserRepository userRepository, FriendshipRepository friendshipRepository, PasswordEncoder passwordEncoder) {
+    public UserService(UserRepository userRepository, VibeRepository vibeRepository, FriendGraphCache friendGraph, PasswordEncoder passwordEncoder, UserSearchIndex userSearchIndex, ImageProcessingService imageProcessingService, MediaStore mediaStore) {
         this.userRepository = userRepository;
-        this.friendshipRepository = friendshipRepository;
+        this.vibeRepository = vibeRepository;
+        this.friendGraph = friendGraph;
         this.passwordEncoder = passwordEncoder;
+        this.userSearchIndex = userSearchIndex;
+        this.imageProcessingService = imageProcessingService;
+        this.mediaStore = mediaStore;
     }
 
     @Transactional
-    public void deleteUser(String username) {
-        User user = userRepository.findByUsername(username)
+    public void deleteUser(CurrentUser me) {
+        User user = userRepository.findById(me.getId())
                 .orElseThrow(() -> new RuntimeException("User not found"));
+        List<String> media = new ArrayList<>();
+        media.add(user.getAvatarUrl());
+        user.getVibes().forEach(vibe -> media.add(vibe.getImageUrl()));
+        // The cascade removes this user's likes and comments on other people's vibes too.
+        vibeRepository.discountLikesBy(user.getId());
+        vibeRepository.discountCommentsBy(user.getId());
         userRepository.delete(user);
+        userSearchIndex.remove(user.getId());
+        friendGraph.invalidateUser(user.getId());
+        media.forEach(mediaStore::release);
     }
 
-    public List<UserSearchDto> searchUsers(String query, String currentUsername) {
-        User currentUser = userRepository.findByUsername(currentUsername)
-                .orElseThrow(() -> new RuntimeException("Current user not found"));
+    @Transactional(readOnly = true)
+    public List<UserSearchDto> searchUsers(String query, CurrentUser me, int page, int size) {
+        int limit = Math.max(1, Math.min(size, MAX_SEARCH_RESULTS));
+        int offset = (int) Math.min((long) Math.max(page, 0) * limit, Integer.MAX_VALUE - limit);
+
+        List<User> foundUsers;
+        if (userSearchIndex.isReady()) {
+            foundUsers = findInOrder(userSearchIndex.search(query, offset, limit));
+        } else if (UserSearchIndex.isPrefixQuery(query)) {
+            foundUsers = userRepository.findByUsernameStartingWithIgnoreCase(query.trim(),
+                    PageRequest.of(offset / limit, limit, Sort.by("username")));
+        } else {
+            foundUsers = userRepository.findByUsernameContainingIgnoreCase(query.trim(),
+                    PageRequest.of(offset / limit, limit, Sort.by("username")));
+        }
+        return mapToSearchDtos(foundUsers, me.getId());
+    }
+
+    private List<User> findInOrder(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, User> byId = userRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
+        return ids.stream()
+                .map(byId::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
 
-        List<User> foundUsers = userRepository.findByUsernameContainingIgnoreCase(query);
+    public List<UserSearchDto> mapToSearchDtos(List<User> users, Long viewerId) {
+        List<Long> ids = users.stream().map(User::getId).collect(Collectors.toList());
+        Map<Long, RelationshipStatus> statuses = friendGraph.relationships(viewerId, ids);
 
-        return foundUsers.stream()
-                .map(user -> mapToSearchDto(user, currentUser))
+        return users.stream()
+                .map(user -> toSearchDto(user, statuses.getOrDefault(user.getId(), RelationshipStatus.NONE)))
                 .collect(Collectors.toList());
     }
 
     public UserSearchDto mapToSearchDto(User user, User currentUser) {
-        String status = "NONE";
-
-        if (user.getId().equals(currentUser.getId())) {
-            status = "SELF";
-        } else {
-            Optional<Friendship> friendship = friendshipRepository.findByRequesterAndReceiver(currentUser, user);
-            if (friendship.isEmpty()) {
-                friendship = friendshipRepository.findByRequesterAndReceiver(user, currentUser);
-            }
+        return toSearchDto(user, friendGraph.relationship(currentUser.getId(), user.getId()));
+    }
 
-            if (friendship.isPresent()) {
-                Friendship f = friendship.get();
-                if (f.getStatus() == FriendshipStatus.ACCEPTED) {
-                    status = "FRIEND";
-                } else if (f.getStatus() == FriendshipStatus.PENDING) {
-                    status = "PENDING";
-                }
-            }
-        }
-        return new UserSearchDto(user.getId(), user.getUsername(), user.getAvatarUrl(), status);
+    private UserSearchDto toSearchDto(User user, RelationshipStatus relationship) {
+        String status = switch (relationship) {
+            case SELF -> "SELF";
+            case FRIEND -> "FRIEND";
+            case PENDING_SENT, PENDING_RECEIVED -> "PENDING";
+            case NONE -> "NONE";
+        };
+        return new UserSearchDto(user.getId(), user.getUsername(), user.getAvatarUrl(), user.getAvatarVariants(), status);
     }
 
-    public User updateUserProfile(String username, UserProfileUpdateDto dto, MultipartFile file) {
-        User user = userRepository.findByUsername(username)
+    public User updateUserProfile(CurrentUser me, UserProfileUpdateDto dto, MultipartFile file) {
+        User user = userRepository.findById(me.getId())
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
         if (dto.getBio() != null) user.setBio(dto.getBio());
         if (dto.getStatus() != null) user.setStatus(dto.getStatus());
+        String previousAvatar = user.getAvatarUrl();
+        boolean uploaded = false;
         if (file != null && !file.isEmpty()) {
-            try {
-                String fileName = "avatar_" + UUID.randomUUID().toString() + "_" + file.getOriginalFilename();
-                Files.copy(file.getInputStream(), this.rootLocation.resolve(fileName));
-                user.setAvatarUrl(fileName);
+            try (InputStream in = file.getInputStream()) {
+                user.setAvatarUrl(mediaStore.store(in));
+                user.setAvatarVariants(null);
+                uploaded = true;
             } catch (IOException e) {
                 throw new RuntimeException("Failed to store avatar", e);
             }
-        } else if (dto.getAvatarUrl() != null && !dto.getAvatarUrl().isBlank()) {
+        } else if (isExternalUrl(dto.getAvatarUrl()) && !dto.getAvatarUrl().equals(previousAvatar)) {
+            // Stored media keys only come from uploads; a typed-in one could release someone else's file.
             user.setAvatarUrl(dto.getAvatarUrl());
+            user.setAvatarVariants(null);
+        }
+
+        User saved;
+        try {
+            saved = userRepository.save(user);
+        } catch (RuntimeException e) {
+            if (uploaded) {
+                mediaStore.discard(user.getAvatarUrl());
+            }
+            throw e;
+        }
+        if (uploaded) {
+            imageProcessingService.processAvatar(saved.getId(), saved.getAvatarUrl());
+        }
+        // A re-upload of the same bytes added a reference to the same key, so release it either way.
+        if (previousAvatar != null && (uploaded || !previousAvatar.equals(saved.getAvatarUrl()))) {
+            mediaStore.release(previousAvatar);
+        }
+        return saved;
+    }
+
+    /** Replaces the avatar with an image read straight from the given stream (e.g. a raw request body). */
+    public User updateAvatar(CurrentUser me, InputStream image) {
+        User user = userRepository.findById(me.getId())
+                .orElseThrow(() -> new RuntimeException("User not found"));
+
+        String previousAvatar = user.getAvatarUrl();
+        try {
+            user.setAvatarUrl(mediaStore.store(image));
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to store avatar", e);
+        }
+        user.setAvatarVariants(null);
+
+        User saved;
+        try {
+            saved = userRepository.save(user);
+        } catch (RuntimeException e) {
+            mediaStore.discard(user.getAvatarUrl());
+            throw e;
+        }
+        imageProcessingService.processAvatar(saved.getId(), saved.getAvatarUrl());
+        if (previousAvatar != null) {
+            mediaStore.release(previousAvatar);
         }
+        return saved;
+    }
 
-        return userRepository.save(user);
+    private static boolean isExternalUrl(String url) {
+        return url != null && (url.startsWith("http://") || url.startsWith("https://"));
     }
 
-    public void updateSecurityDetails(String username, UserSecurityUpdateDto dto) {
-        User user = userRepository.findByUsername(username).orElseThrow();
+    /** Returns the saved user; the caller refreshes its principal when the username changed. */
+    public User updateSecurityDetails(CurrentUser me, UserSecurityUpdateDto dto) {
+        User user = userRepository.findById(me.getId())
+                .orElseThrow(() -> new RuntimeException("User not found"));
         if (!passwordEncoder.matches(dto.getCurrentPassword(), user.getPassword())) {
             throw new RuntimeException("INVALID PASSWORD");
         }
+        boolean renamed = false;
         if (dto.getNewUsername() != null && !dto.getNewUsername().isBlank()) {
             if (userRepository.existsByUsername(dto.getNewUsername())) throw new RuntimeException("USERNAME TAKEN");
             user.setUsername(dto.getNewUsername());
+            renamed = true;
         }
         if (dto.getNewEmail() != null && !dto.getNewEmail().isBlank()) {
             if (userRepository.existsByEmail(dto.getNewEmail())) throw new RuntimeException("EMAIL TAKEN");
@@ -114,7 +207,11 @@ public class UserService {
             user.setPassword(passwordEncoder.encode(dto.getNewPassword()));
         }
 
-        userRepository.save(user);
+        User saved = userRepository.save(user);
+        if (renamed) {
+            userSearchIndex.put(saved.getId(), saved.getUsername());
+        }
+        return saved;
     }
 
     public User getCurrentUser(String username) {
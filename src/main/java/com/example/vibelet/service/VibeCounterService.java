@@ -0,0 +1,108 @@
+package com.example.vibelet.service;
+
+import com.example.vibelet.repository.VibeRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Keeps vibes.like_count / vibes.comment_count in sync with atomic SQL increments.
+ * With vibelet.counters.buffered=true, deltas are accumulated per vibe in memory and
+ * flushed periodically, so a burst on one hot vibe costs one UPDATE per interval
+ * instead of one row lock per request.
+ */
+@Service
+public class VibeCounterService {
+    private static final Logger log = LoggerFactory.getLogger(VibeCounterService.class);
+
+    private final VibeRepository vibeRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean buffered;
+    private final ConcurrentMap<Long, Long> pendingLikes = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Long, Long> pendingComments = new ConcurrentHashMap<>();
+
+    public VibeCounterService(VibeRepository vibeRepository,
+                              PlatformTransactionManager transactionManager,
+                              @Value("${vibelet.counters.buffered:false}") boolean buffered) {
+        this.vibeRepository = vibeRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.buffered = buffered;
+    }
+
+    public void adjustLikes(Long vibeId, long delta) {
+        if (buffered) {
+            pendingLikes.merge(vibeId, delta, Long::sum);
+        } else {
+            transactionTemplate.executeWithoutResult(status -> vibeRepository.adjustLikeCount(vibeId, delta));
+            vibeRepository.evictFromCache(vibeId);
+        }
+    }
+
+    public void adjustComments(Long vibeId, long delta) {
+        if (buffered) {
+            pendingComments.merge(vibeId, delta, Long::sum);
+        } else {
+            transactionTemplate.executeWithoutResult(status -> vibeRepository.adjustCommentCount(vibeId, delta));
+            vibeRepository.evictFromCache(vibeId);
+        }
+    }
+
+    public long currentLikes(Long vibeId) {
+        long stored = vibeRepository.findLikeCount(vibeId)
+                .orElseThrow(() -> new RuntimeException("Vibe not found"));
+        return Math.max(0, stored + pendingLikes.getOrDefault(vibeId, 0L));
+    }
+
+    @Scheduled(fixedDelayString = "${vibelet.counters.flush-interval-ms:1000}")
+    @PreDestroy
+    public void flush() {
+        drain(pendingLikes, true);
+        drain(pendingComments, false);
+    }
+
+    private void drain(ConcurrentMap<Long, Long> pending, boolean likes) {
+        for (Long vibeId : pending.keySet()) {
+            Long delta = pending.remove(vibeId);
+            if (delta == null || delta == 0) {
+                continue;
+            }
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    if (likes) {
+                        vibeRepository.adjustLikeCount(vibeId, delta);
+                    } else {
+                        vibeRepository.adjustCommentCount(vibeId, delta);
+                    }
+                });
+                vibeRepository.evictFromCache(vibeId);
+            } catch (RuntimeException e) {
+                log.warn("Counter flush for vibe {} failed, keeping delta {}", vibeId, delta, e);
+                pending.merge(vibeId, delta, Long::sum);
+            }
+        }
+    }
+
+    /**
+     * Maintenance operation (see VibeCounterEndpoint): resets counts that drifted from the
+     * like and comment rows. Buffered deltas are flushed first so they are not applied on top
+     * of the recount; likes or comments written while it runs can still be counted twice, so
+     * run it when traffic is low. Existing databases got their initial counts from migration V5.
+     */
+    public int recount() {
+        flush();
+        if (vibeRepository.hasMiscountedInteractions() == 0) {
+            return 0;
+        }
+        Integer updated = transactionTemplate.execute(status -> vibeRepository.recountInteractions());
+        log.info("Recounted interactions for {} vibes", updated);
+        return updated == null ? 0 : updated;
+    }
+}
@@ -1,166 +1,235 @@
 package com.example.vibelet.service;
 
+import com.example.vibelet.dto.CursorSlice;
+import com.example.vibelet.dto.FeedCursor;
+import com.example.vibelet.dto.LikeState;
+import com.example.vibelet.dto.VibeResponse;
 import com.example.vibelet.model.*;
 import com.example.vibelet.repository.*;
+import com.example.vibelet.security.CurrentUser;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.util.Optional;
-import java.util.UUID;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
 
 @Service
 public class VibeService {
     private static final Logger log = LoggerFactory.getLogger(VibeService.class);
+    private static final int MAX_SLICE_SIZE = 100;
     private final VibeRepository vibeRepository;
     private final UserRepository userRepository;
-    private final Path rootLocation = Paths.get("uploads");
     private final CommentRepository commentRepository;
     private final PostLikeRepository postLikeRepository;
-    private final FriendshipRepository friendshipRepository;
+    private final FriendGraphCache friendGraph;
+    private final TimelineService timelineService;
+    private final VibeCounterService vibeCounterService;
+    private final ImageProcessingService imageProcessingService;
+    private final MediaStore mediaStore;
 
-    public VibeService(VibeRepository vibeRepository, UserRepository userRepository, CommentRepository commentRepository, PostLikeRepository postLikeRepository, FriendshipRepository friendshipRepository) {
+    public VibeService(VibeRepository vibeRepository, UserRepository userRepository, CommentRepository commentRepository, PostLikeRepository postLikeRepository, FriendGraphCache friendGraph, TimelineService timelineService, VibeCounterService vibeCounterService, ImageProcessingService imageProcessingService, MediaStore mediaStore) {
         this.vibeRepository = vibeRepository;
         this.userRepository = userRepository;
         this.commentRepository = commentRepository;
         this.postLikeRepository = postLikeRepository;
-        this.friendshipRepository = friendshipRepository;
-        init();
+        this.friendGraph = friendGraph;
+        this.timelineService = timelineService;
+        this.vibeCounterService = vibeCounterService;
+        this.imageProcessingService = imageProcessingService;
+        this.mediaStore = mediaStore;
     }
 
-    private void init() {
-        try {
-            Files.createDirectories(rootLocation);
+    public Vibe createVibe(CurrentUser me, String content, MultipartFile file, PrivacyStatus privacyStatus) {
+        User user = userRepository.findById(me.getId())
+                .orElseThrow(() -> new RuntimeException("User not found"));
+
+        if (file == null || file.isEmpty()) {
+            return create(user, content, null, privacyStatus);
+        }
+        try (InputStream in = file.getInputStream()) {
+            return create(user, content, in, privacyStatus);
         } catch (IOException e) {
-            log.error("Could not initialize storage", e);
-            throw new RuntimeException("Could not initialize storage", e);
+            log.error("Failed to store file for user {}", me, e);
+            throw new RuntimeException("Failed to store file", e);
         }
     }
 
-    public Vibe createVibe(String username, String content, MultipartFile file, PrivacyStatus privacyStatus) {
-        User user = userRepository.findByUsername(username)
+    /** Creates a vibe whose image is read straight from the given stream (e.g. a raw request body). */
+    public Vibe createVibeWithImage(CurrentUser me, String content, InputStream image, PrivacyStatus privacyStatus) {
+        User user = userRepository.findById(me.getId())
                 .orElseThrow(() -> new RuntimeException("User not found"));
+        try {
+            return create(user, content, image, privacyStatus);
+        } catch (IOException e) {
+            log.error("Failed to store file for user {}", me, e);
+            throw new RuntimeException("Failed to store file", e);
+        }
+    }
 
+    private Vibe create(User user, String content, InputStream image, PrivacyStatus privacyStatus) throws IOException {
         Vibe vibe = new Vibe();
         vibe.setContent(content);
         vibe.setPrivacyStatus(privacyStatus);
         vibe.setUser(user);
-
-        if (file != null && !file.isEmpty()) {
-            try {
-                String fileName = UUID.randomUUID().toString() + "_" + file.getOriginalFilename();
-                Files.copy(file.getInputStream(), this.rootLocation.resolve(fileName));
-                vibe.setImageUrl(fileName);
-            } catch (IOException e) {
-                log.error("Failed to store file for user {}", username, e);
-                throw new RuntimeException("Failed to store file", e);
-            }
+        if (image != null) {
+            vibe.setImageUrl(mediaStore.store(image));
         }
 
-        return vibeRepository.save(vibe);
+        Vibe saved;
+        try {
+            saved = vibeRepository.save(vibe);
+        } catch (RuntimeException e) {
+            mediaStore.discard(vibe.getImageUrl());
+            throw e;
+        }
+        timelineService.fanOut(saved);
+        if (saved.getImageUrl() != null) {
+            imageProcessingService.processVibeImage(saved.getId(), saved.getImageUrl());
+        }
+        return saved;
     }
 
-    public void deleteVibe(Long vibeId, String username) {
+    public void deleteVibe(Long vibeId, CurrentUser me) {
         Vibe vibe = vibeRepository.findById(vibeId)
                 .orElseThrow(() -> new RuntimeException("Vibe not found"));
 
-        if (!vibe.getUser().getUsername().equals(username)) {
-            log.warn("Security Event: User {} tried to delete vibe {} belonging to {}", username, vibeId, vibe.getUser().getUsername());
+        if (!vibe.getUser().getId().equals(me.getId())) {
+            log.warn("Security Event: User {} tried to delete vibe {} belonging to user {}", me, vibeId, vibe.getUser().getId());
             throw new RuntimeException("Access denied: You are not the owner of this vibe.");
         }
-        if (vibe.getImageUrl() != null) {
-            try {
-                Files.deleteIfExists(this.rootLocation.resolve(vibe.getImageUrl()));
-            } catch (IOException e) {
-                log.error("Could not delete file: {}", vibe.getImageUrl(), e);
-            }
-        }
-
         vibeRepository.delete(vibe);
-        log.info("Vibe {} deleted by user {}", vibeId, username);
+        mediaStore.release(vibe.getImageUrl());
+        log.info("Vibe {} deleted by user {}", vibeId, me);
     }
 
-    public Vibe updateVibe(Long vibeId, String username, String newContent, PrivacyStatus newPrivacy) {
+    public Vibe updateVibe(Long vibeId, CurrentUser me, String newContent, PrivacyStatus newPrivacy) {
         Vibe vibe = vibeRepository.findById(vibeId)
                 .orElseThrow(() -> new RuntimeException("Vibe not found"));
 
-        if (!vibe.getUser().getUsername().equals(username)) {
+        if (!vibe.getUser().getId().equals(me.getId())) {
             throw new RuntimeException("Access denied: You are not the owner.");
         }
         if (newContent != null && !newContent.isBlank()) {
             vibe.setContent(newContent);
         }
+        boolean privacyChanged = newPrivacy != null && newPrivacy != vibe.getPrivacyStatus();
         if (newPrivacy != null) {
             vibe.setPrivacyStatus(newPrivacy);
         }
 
-        return vibeRepository.save(vibe);
+        Vibe saved = vibeRepository.save(vibe);
+        if (privacyChanged) {
+            timelineService.reconcile(saved);
+        }
+        return saved;
     }
 
-    public Page<Vibe> getFeed(String username, int page, int size) {
-        User user = userRepository.findByUsername(username)
-                .orElseThrow(() -> new RuntimeException("User not found"));
+    public Page<Vibe> getFeed(CurrentUser me, int page, int size) {
+        return timelineService.getFeed(me.getId(), page, size);
+    }
 
-        Pageable pageable = PageRequest.of(page, size);
+    @Transactional(readOnly = true)
+    public Page<VibeResponse> getUserVibes(Long userId, int page, int size) {
+        if (!userRepository.existsById(userId)) {
+            throw new RuntimeException("User not found");
+        }
+        return vibeRepository.findResponsesByUserId(userId, PageRequest.of(page, size));
+    }
 
-        return vibeRepository.findFeedForUser(
-                user,
-                FriendshipStatus.ACCEPTED,
-                PrivacyStatus.PRIVATE,
-                pageable
-        );
+    public CursorSlice<Vibe> getFeedSlice(CurrentUser me, String cursor, int size) {
+        return timelineService.getFeedSlice(me.getId(), FeedCursor.decode(cursor), clampSliceSize(size));
     }
 
-    public Page<Vibe> getUserVibes(Long userId, int page, int size) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-        return vibeRepository.findByUserOrderByCreatedAtDesc(user, PageRequest.of(page, size));
+    @Transactional(readOnly = true)
+    public CursorSlice<VibeResponse> getUserVibesSlice(Long userId, String cursor, int size) {
+        if (!userRepository.existsById(userId)) {
+            throw new RuntimeException("User not found");
+        }
+        FeedCursor after = FeedCursor.decode(cursor);
+        int limit = clampSliceSize(size);
+        PageRequest window = PageRequest.of(0, limit + 1);
+
+        List<VibeResponse> vibes = after == null
+                ? vibeRepository.findLatestByUserId(userId, window)
+                : vibeRepository.findByUserIdBefore(userId, after.getCreatedAt(), after.getId(), window);
+        if (vibes.size() <= limit) {
+            return new CursorSlice<>(vibes, null);
+        }
+        List<VibeResponse> content = new ArrayList<>(vibes.subList(0, limit));
+        VibeResponse last = content.get(content.size() - 1);
+        return new CursorSlice<>(content, new FeedCursor(last.getCreatedAt(), last.getId()).encode());
     }
 
-    public Comment addComment(Long vibeId, String username, String content) {
-        User user = userRepository.findByUsername(username)
-                .orElseThrow(() -> new RuntimeException("User not found"));
+    private int clampSliceSize(int size) {
+        return Math.max(1, Math.min(size, MAX_SLICE_SIZE));
+    }
+
+    public Comment addComment(Long vibeId, CurrentUser me, String content) {
         Vibe vibe = vibeRepository.findById(vibeId)
                 .orElseThrow(() -> new RuntimeException("Vibe not found"));
 
-        checkAccess(vibe, user);
+        checkAccess(vibe, me.getId());
 
         Comment comment = new Comment();
-        comment.setUser(user);
+        comment.setUser(userRepository.getReferenceById(me.getId()));
         comment.setVibe(vibe);
         comment.setContent(content);
-        return commentRepository.save(comment);
+        Comment saved = commentRepository.save(comment);
+        vibeCounterService.adjustComments(vibeId, 1);
+        return saved;
     }
 
-    public void toggleLike(Long vibeId, String username) {
-        User user = userRepository.findByUsername(username)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-        Vibe vibe = vibeRepository.findById(vibeId)
-                .orElseThrow(() -> new RuntimeException("Vibe not found"));
+    public LikeState like(Long vibeId, CurrentUser me) {
+        if (insertLike(vibeId, me)) {
+            vibeCounterService.adjustLikes(vibeId, 1);
+        } else {
+            requireLikeAccess(vibeId, me);
+        }
+        return new LikeState(true, vibeCounterService.currentLikes(vibeId));
+    }
+
+    public LikeState unlike(Long vibeId, CurrentUser me) {
+        if (postLikeRepository.deleteByVibeIdAndUserId(vibeId, me.getId()) > 0) {
+            vibeCounterService.adjustLikes(vibeId, -1);
+        }
+        return new LikeState(false, vibeCounterService.currentLikes(vibeId));
+    }
 
-        checkAccess(vibe, user);
+    public LikeState toggleLike(Long vibeId, CurrentUser me) {
+        if (postLikeRepository.deleteByVibeIdAndUserId(vibeId, me.getId()) > 0) {
+            vibeCounterService.adjustLikes(vibeId, -1);
+            return new LikeState(false, vibeCounterService.currentLikes(vibeId));
+        }
+        return like(vibeId, me);
+    }
 
-        Optional<PostLike> existingLike = postLikeRepository.findByUserAndVibe(user, vibe);
-        if (existingLike.isPresent()) {
-            postLikeRepository.delete(existingLike.get());
-        } else {
-            PostLike like = new PostLike();
-            like.setUser(user);
-            like.setVibe(vibe);
-            postLikeRepository.save(like);
+    private boolean insertLike(Long vibeId, CurrentUser me) {
+        try {
+            return postLikeRepository.insertIfPermitted(vibeId, me.getId()) > 0;
+        } catch (DataIntegrityViolationException e) {
+            log.debug("Concurrent like on vibe {} by {} already recorded", vibeId, me.getUsername());
+            return false;
         }
     }
 
-    private void checkAccess(Vibe vibe, User currentUser) {
-        if (vibe.getUser().getId().equals(currentUser.getId())) {return;}
+    // Only reached when the insert wrote nothing: either the like already exists or access is denied.
+    private void requireLikeAccess(Long vibeId, CurrentUser me) {
+        Vibe vibe = vibeRepository.findById(vibeId)
+                .orElseThrow(() -> new RuntimeException("Vibe not found"));
+
+        checkAccess(vibe, me.getId());
+    }
+
+    private void checkAccess(Vibe vibe, Long viewerId) {
+        if (vibe.getUser().getId().equals(viewerId)) {return;}
         if (vibe.getPrivacyStatus() == PrivacyStatus.PUBLIC) {return;}
 
         if (vibe.getPrivacyStatus() == PrivacyStatus.PRIVATE) {
@@ -168,7 +237,7 @@ public class VibeService {
         }
 
         if (vibe.getPrivacyStatus() == PrivacyStatus.FRIENDS_ONLY) {
-            boolean isFriend = friendshipRepository.existsByUsers(vibe.getUser(), currentUser);
+            boolean isFriend = friendGraph.isConnected(vibe.getUser().getId(), viewerId);
             if (!isFriend) {
                 throw new RuntimeException("Access denied: Friends only.");
             }
@@ -0,0 +1,144 @@
+package com.example.vibelet.storage;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Media on the local file system under vibelet.media.root. Names starting with a dot (the
+ * upload staging directory, editor and OS droppings) are never resolved or listed.
+ */
+public class LocalMediaStorage implements MediaStorage {
+    private static final Logger log = LoggerFactory.getLogger(LocalMediaStorage.class);
+
+    private final Path root;
+
+    public LocalMediaStorage(Path root) {
+        this.root = root.toAbsolutePath().normalize();
+    }
+
+    @Override
+    public boolean exists(String key) {
+        Path file = localPath(key);
+        return file != null && Files.isRegularFile(file);
+    }
+
+    @Override
+    public void put(String key, Path source) throws IOException {
+        Path target = require(key);
+        Files.createDirectories(target.getParent());
+        try {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    @Override
+    public InputStream open(String key) throws IOException {
+        return Files.newInputStream(require(key));
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        Path file = localPath(key);
+        if (file == null) {
+            log.warn("Refusing to delete {} outside the media root", key);
+            return;
+        }
+        Files.deleteIfExists(file);
+    }
+
+    @Override
+    public void list(String prefix, Consumer<StoredObject> visitor) throws IOException {
+        int slash = prefix.lastIndexOf('/');
+        Path dir = slash < 0 ? root : localPath(prefix.substring(0, slash));
+        if (dir == null || !Files.isDirectory(dir)) {
+            return;
+        }
+        String namePrefix = prefix.substring(slash + 1);
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(dir, entry -> {
+            String name = entry.getFileName().toString();
+            return name.startsWith(namePrefix) && !name.startsWith(".");
+        })) {
+            for (Path entry : entries) {
+                if (Files.isDirectory(entry)) {
+                    walk(entry, visitor);
+                } else {
+                    visit(entry, visitor);
+                }
+            }
+        }
+    }
+
+    @Override
+    public Path localPath(String key) {
+        if (key == null || key.isEmpty()) {
+            return null;
+        }
+        Path file = root.resolve(key).normalize();
+        if (!file.startsWith(root) || file.equals(root)) {
+            return null;
+        }
+        for (Path part : root.relativize(file)) {
+            if (part.toString().startsWith(".")) {
+                return null;
+            }
+        }
+        return file;
+    }
+
+    @Override
+    public String presignedUrl(String key, Duration ttl) {
+        return null;
+    }
+
+    private void walk(Path dir, Consumer<StoredObject> visitor) throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            Iterator<Path> it = files.iterator();
+            while (it.hasNext()) {
+                Path file = it.next();
+                if (!Files.isDirectory(file) && localPath(root.relativize(file).toString()) != null) {
+                    visit(file, visitor);
+                }
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private void visit(Path file, Consumer<StoredObject> visitor) throws IOException {
+        BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        } catch (NoSuchFileException e) {
+            return;
+        }
+        if (attributes.isRegularFile()) {
+            String key = root.relativize(file).toString().replace(file.getFileSystem().getSeparator(), "/");
+            visitor.accept(new StoredObject(key, attributes.size(), attributes.lastModifiedTime().toInstant()));
+        }
+    }
+
+    private Path require(String key) throws IOException {
+        Path file = localPath(key);
+        if (file == null) {
+            throw new NoSuchFileException(key);
+        }
+        return file;
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.vibelet.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.function.Consumer;
+
+/**
+ * Where media bytes live. Keys are '/'-separated relative names ({@code ab/cd/<sha256>.png},
+ * generated variants beside them, legacy flat {@code UUID_name} uploads at the top level).
+ * Objects are written once and never modified in place.
+ */
+public interface MediaStorage {
+
+    boolean exists(String key) throws IOException;
+
+    /** Stores the file under the key, taking ownership of it: the source is gone once this returns. */
+    void put(String key, Path source) throws IOException;
+
+    InputStream open(String key) throws IOException;
+
+    void delete(String key) throws IOException;
+
+    /** Visits every object whose key starts with the prefix, without holding the listing in memory. */
+    void list(String prefix, Consumer<StoredObject> visitor) throws IOException;
+
+    /** The file behind the key when it is on local disk (and can be sent zero-copy), otherwise null. */
+    Path localPath(String key);
+
+    /** A time-limited URL clients can fetch the key from directly, or null if the app serves it. */
+    String presignedUrl(String key, Duration ttl);
+
+    final class StoredObject {
+        private final String key;
+        private final long size;
+        private final Instant lastModified;
+
+        public StoredObject(String key, long size, Instant lastModified) {
+            this.key = key;
+            this.size = size;
+            this.lastModified = lastModified;
+        }
+
+        public String getKey() { return key; }
+        public long getSize() { return size; }
+        public Instant getLastModified() { return lastModified; }
+    }
+}
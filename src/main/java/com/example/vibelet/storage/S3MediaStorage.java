@@ -0,0 +1,202 @@
+package com.example.vibelet.storage;
+
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import software.amazon.awssdk.core.exception.SdkException;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+import software.amazon.awssdk.services.s3.model.S3Object;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Media in an S3-compatible bucket (AWS, MinIO, ...). Files above the part size go up as a
+ * multipart upload whose parts are sent in parallel, each read from the staged file only
+ * when its turn comes, so memory stays at threads x part size. Reads are meant to bypass
+ * the app entirely through presigned URLs.
+ */
+public class S3MediaStorage implements MediaStorage, AutoCloseable {
+    // Keys are content hashes or derived from them, so an object never changes.
+    private static final String IMMUTABLE = "public, max-age=31536000, immutable";
+
+    private final S3Client s3;
+    private final S3Presigner presigner;
+    private final String bucket;
+    private final long partSize;
+    private final ExecutorService partUploads;
+
+    public S3MediaStorage(S3Client s3, S3Presigner presigner, String bucket, long partSize, int uploadThreads) {
+        this.s3 = s3;
+        this.presigner = presigner;
+        this.bucket = bucket;
+        this.partSize = partSize;
+        AtomicInteger workers = new AtomicInteger();
+        this.partUploads = Executors.newFixedThreadPool(uploadThreads, task -> {
+            Thread thread = new Thread(task, "s3-part-upload-" + workers.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public boolean exists(String key) throws IOException {
+        try {
+            s3.headObject(b -> b.bucket(bucket).key(key));
+            return true;
+        } catch (NoSuchKeyException e) {
+            return false;
+        } catch (S3Exception e) {
+            if (e.statusCode() == 404) {
+                return false;
+            }
+            throw new IOException("Could not check " + key, e);
+        } catch (SdkException e) {
+            throw new IOException("Could not check " + key, e);
+        }
+    }
+
+    @Override
+    public void put(String key, Path source) throws IOException {
+        String contentType = MediaTypeFactory.getMediaType(key).orElse(MediaType.APPLICATION_OCTET_STREAM).toString();
+        try {
+            long size = Files.size(source);
+            if (size <= partSize) {
+                s3.putObject(PutObjectRequest.builder()
+                        .bucket(bucket).key(key).contentType(contentType).cacheControl(IMMUTABLE)
+                        .build(), RequestBody.fromFile(source));
+            } else {
+                putMultipart(key, source, size, contentType);
+            }
+        } catch (SdkException e) {
+            throw new IOException("Could not upload " + key, e);
+        } finally {
+            Files.deleteIfExists(source);
+        }
+    }
+
+    private void putMultipart(String key, Path source, long size, String contentType) throws IOException {
+        String uploadId = s3.createMultipartUpload(b -> b.bucket(bucket).key(key)
+                .contentType(contentType).cacheControl(IMMUTABLE)).uploadId();
+        int partCount = (int) ((size + partSize - 1) / partSize);
+        List<Future<CompletedPart>> parts = new ArrayList<>(partCount);
+        try {
+            for (int i = 0; i < partCount; i++) {
+                int partNumber = i + 1;
+                long offset = i * partSize;
+                int length = (int) Math.min(partSize, size - offset);
+                parts.add(partUploads.submit(() -> uploadPart(key, uploadId, partNumber, source, offset, length)));
+            }
+            List<CompletedPart> completed = new ArrayList<>(partCount);
+            for (Future<CompletedPart> part : parts) {
+                completed.add(part.get());
+            }
+            s3.completeMultipartUpload(b -> b.bucket(bucket).key(key).uploadId(uploadId)
+                    .multipartUpload(m -> m.parts(completed)));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            abort(key, uploadId, parts);
+            throw new IOException("Interrupted while uploading " + key, e);
+        } catch (ExecutionException e) {
+            abort(key, uploadId, parts);
+            throw new IOException("Could not upload " + key, e.getCause());
+        } catch (RuntimeException e) {
+            abort(key, uploadId, parts);
+            throw e;
+        }
+    }
+
+    private CompletedPart uploadPart(String key, String uploadId, int partNumber, Path source, long offset, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        try (FileChannel channel = FileChannel.open(source, StandardOpenOption.READ)) {
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, offset + buffer.position()) < 0) {
+                    throw new EOFException("Staged upload shrank while sending " + key);
+                }
+            }
+        }
+        String eTag = s3.uploadPart(b -> b.bucket(bucket).key(key).uploadId(uploadId)
+                        .partNumber(partNumber).contentLength((long) length),
+                RequestBody.fromBytes(buffer.array())).eTag();
+        return CompletedPart.builder().partNumber(partNumber).eTag(eTag).build();
+    }
+
+    private void abort(String key, String uploadId, List<Future<CompletedPart>> parts) {
+        parts.forEach(part -> part.cancel(true));
+        try {
+            s3.abortMultipartUpload(b -> b.bucket(bucket).key(key).uploadId(uploadId));
+        } catch (SdkException ignored) {
+            // The bucket's lifecycle rule for incomplete uploads cleans up what this could not.
+        }
+    }
+
+    @Override
+    public InputStream open(String key) throws IOException {
+        try {
+            return s3.getObject(b -> b.bucket(bucket).key(key));
+        } catch (NoSuchKeyException e) {
+            throw new NoSuchFileException(key);
+        } catch (SdkException e) {
+            throw new IOException("Could not read " + key, e);
+        }
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        try {
+            s3.deleteObject(b -> b.bucket(bucket).key(key));
+        } catch (SdkException e) {
+            throw new IOException("Could not delete " + key, e);
+        }
+    }
+
+    @Override
+    public void list(String prefix, Consumer<StoredObject> visitor) throws IOException {
+        try {
+            for (S3Object object : s3.listObjectsV2Paginator(b -> b.bucket(bucket).prefix(prefix)).contents()) {
+                visitor.accept(new StoredObject(object.key(), object.size(), object.lastModified()));
+            }
+        } catch (SdkException e) {
+            throw new IOException("Could not list " + prefix, e);
+        }
+    }
+
+    @Override
+    public Path localPath(String key) {
+        return null;
+    }
+
+    @Override
+    public String presignedUrl(String key, Duration ttl) {
+        return presigner.presignGetObject(p -> p.signatureDuration(ttl)
+                .getObjectRequest(g -> g.bucket(bucket).key(key))).url().toString();
+    }
+
+    @Override
+    public void close() {
+        partUploads.shutdownNow();
+        presigner.close();
+        s3.close();
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.vibelet.storage;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.AwsCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.S3Configuration;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+
+import java.net.URI;
+import java.nio.file.Paths;
+
+/**
+ * Picks the media backend: vibelet.media.backend=local (default) keeps files under
+ * vibelet.media.root, s3 stores them in vibelet.media.s3.bucket. Uploads are staged under
+ * vibelet.media.root either way.
+ */
+@Configuration
+public class StorageConfig {
+
+    @Bean
+    @ConditionalOnProperty(name = "vibelet.media.backend", havingValue = "local", matchIfMissing = true)
+    public MediaStorage localMediaStorage(@Value("${vibelet.media.root:uploads}") String root) {
+        return new LocalMediaStorage(Paths.get(root));
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "vibelet.media.backend", havingValue = "s3")
+    public MediaStorage s3MediaStorage(@Value("${vibelet.media.s3.bucket}") String bucket,
+                                       @Value("${vibelet.media.s3.region:us-east-1}") String region,
+                                       @Value("${vibelet.media.s3.endpoint:}") String endpoint,
+                                       @Value("${vibelet.media.s3.public-endpoint:}") String publicEndpoint,
+                                       @Value("${vibelet.media.s3.path-style:false}") boolean pathStyle,
+                                       @Value("${vibelet.media.s3.access-key:}") String accessKey,
+                                       @Value("${vibelet.media.s3.secret-key:}") String secretKey,
+                                       @Value("${vibelet.media.s3.part-size:8MB}") DataSize partSize,
+                                       @Value("${vibelet.media.s3.upload-threads:4}") int uploadThreads) {
+        AwsCredentialsProvider credentials = accessKey.isBlank()
+                ? DefaultCredentialsProvider.create()
+                : StaticCredentialsProvider.create(AwsBasicCredentials.create(accessKey, secretKey));
+        // MinIO and most self-hosted stand-ins only understand path-style addressing.
+        S3Configuration s3Configuration = S3Configuration.builder().pathStyleAccessEnabled(pathStyle).build();
+
+        S3Client.Builder client = S3Client.builder()
+                .region(Region.of(region))
+                .credentialsProvider(credentials)
+                .serviceConfiguration(s3Configuration);
+        S3Presigner.Builder presigner = S3Presigner.builder()
+                .region(Region.of(region))
+                .credentialsProvider(credentials)
+                .serviceConfiguration(s3Configuration);
+        if (!endpoint.isBlank()) {
+            client.endpointOverride(URI.create(endpoint));
+        }
+        // Presigned URLs are fetched by browsers, which may reach the store under another name.
+        String urlEndpoint = publicEndpoint.isBlank() ? endpoint : publicEndpoint;
+        if (!urlEndpoint.isBlank()) {
+            presigner.endpointOverride(URI.create(urlEndpoint));
+        }
+        return new S3MediaStorage(client.build(), presigner.build(), bucket, partSize.toBytes(), uploadThreads);
+    }
+}
@@ -0,0 +1,57 @@
+-- Schema as previously generated by Hibernate (ddl-auto=update). Databases created that way
+-- are baselined at this version and only receive the migrations after it.
+
+CREATE TABLE users (
+    id               BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    username         VARCHAR(255) NOT NULL,
+    email            VARCHAR(255) NOT NULL,
+    password         VARCHAR(255) NOT NULL,
+    avatar_url       VARCHAR(255),
+    bio              VARCHAR(255),
+    status           VARCHAR(255),
+    created_at       TIMESTAMP(6),
+    CONSTRAINT uk_users_username UNIQUE (username),
+    CONSTRAINT uk_users_email UNIQUE (email)
+);
+
+CREATE TABLE vibes (
+    id              BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    content         TEXT,
+    image_url       VARCHAR(255),
+    privacy_status  VARCHAR(255) NOT NULL,
+    user_id         BIGINT NOT NULL,
+    created_at      TIMESTAMP(6),
+    CONSTRAINT ck_vibes_privacy_status CHECK (privacy_status IN ('PUBLIC', 'FRIENDS_ONLY', 'PRIVATE')),
+    CONSTRAINT fk_vibes_user FOREIGN KEY (user_id) REFERENCES users (id)
+);
+
+CREATE TABLE comments (
+    id          BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    content     VARCHAR(255) NOT NULL,
+    vibe_id     BIGINT NOT NULL,
+    user_id     BIGINT NOT NULL,
+    created_at  TIMESTAMP(6),
+    CONSTRAINT fk_comments_vibe FOREIGN KEY (vibe_id) REFERENCES vibes (id),
+    CONSTRAINT fk_comments_user FOREIGN KEY (user_id) REFERENCES users (id)
+);
+
+CREATE TABLE post_likes (
+    id       BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    vibe_id  BIGINT NOT NULL,
+    user_id  BIGINT NOT NULL,
+    CONSTRAINT uk_post_likes_vibe_user UNIQUE (vibe_id, user_id),
+    CONSTRAINT fk_post_likes_vibe FOREIGN KEY (vibe_id) REFERENCES vibes (id),
+    CONSTRAINT fk_post_likes_user FOREIGN KEY (user_id) REFERENCES users (id)
+);
+
+CREATE TABLE friendships (
+    id            BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    requester_id  BIGINT NOT NULL,
+    receiver_id   BIGINT NOT NULL,
+    status        VARCHAR(255) NOT NULL,
+    created_at    TIMESTAMP(6),
+    CONSTRAINT ck_friendships_status CHECK (status IN ('PENDING', 'ACCEPTED', 'REJECTED', 'BLOCKED')),
+    CONSTRAINT uk_friendships_requester_receiver UNIQUE (requester_id, receiver_id),
+    CONSTRAINT fk_friendships_requester FOREIGN KEY (requester_id) REFERENCES users (id),
+    CONSTRAINT fk_friendships_receiver FOREIGN KEY (receiver_id) REFERENCES users (id)
+);
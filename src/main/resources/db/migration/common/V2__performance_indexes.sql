@@ -0,0 +1,18 @@
+-- Profile pages and the timeline fan-out: a user's vibes, newest first (findByUserOrderByCreatedAtDesc,
+-- findLatestByUserId, findByUserIdBefore).
+CREATE INDEX IF NOT EXISTS idx_vibes_user_created ON vibes (user_id, created_at DESC, id DESC);
+
+-- Comments of a vibe in display order; also serves the vibe_id foreign key.
+CREATE INDEX IF NOT EXISTS idx_comments_vibe_created ON comments (vibe_id, created_at, id);
+CREATE INDEX IF NOT EXISTS idx_comments_user ON comments (user_id);
+
+-- The unique (vibe_id, user_id) constraint covers lookups by vibe; this one covers a user's likes.
+CREATE INDEX IF NOT EXISTS idx_post_likes_user ON post_likes (user_id);
+
+-- Incoming requests (findByReceiverAndStatus) and the receiver half of every friends-of lookup.
+-- The unique (requester_id, receiver_id) constraint already leads with the requester.
+CREATE INDEX IF NOT EXISTS idx_friendships_receiver_status ON friendships (receiver_id, status);
+
+-- Reference checks of the media garbage collector.
+CREATE INDEX IF NOT EXISTS idx_vibes_image_url ON vibes (image_url);
+CREATE INDEX IF NOT EXISTS idx_users_avatar_url ON users (avatar_url);
@@ -0,0 +1,11 @@
+-- Pending timeline rebuilds (accepted friendships, imports). A request is written by the
+-- transaction that makes it necessary, so it only exists once that commits, survives a
+-- restart and is picked up by whichever node runs the worker next. Duplicates are harmless.
+CREATE TABLE timeline_rebuilds (
+    id           BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    owner_id     BIGINT NOT NULL,
+    requested_at TIMESTAMP(6) NOT NULL,
+    CONSTRAINT fk_timeline_rebuilds_owner FOREIGN KEY (owner_id) REFERENCES users (id) ON DELETE CASCADE
+);
+
+CREATE INDEX idx_timeline_rebuilds_owner ON timeline_rebuilds (owner_id, id);
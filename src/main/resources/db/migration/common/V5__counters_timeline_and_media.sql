@@ -0,0 +1,34 @@
+-- Schema added on top of the ddl-auto baseline: denormalised interaction counters, image
+-- variant tokens, the materialised home timeline and the media reference counts.
+
+ALTER TABLE users ADD COLUMN avatar_variants VARCHAR(255);
+
+ALTER TABLE vibes ADD COLUMN image_variants VARCHAR(255);
+ALTER TABLE vibes ADD COLUMN like_count BIGINT DEFAULT 0 NOT NULL;
+ALTER TABLE vibes ADD COLUMN comment_count BIGINT DEFAULT 0 NOT NULL;
+
+-- One-time backfill; from here on the counters are kept by VibeCounterService.
+UPDATE vibes SET
+    like_count = (SELECT COUNT(*) FROM post_likes pl WHERE pl.vibe_id = vibes.id),
+    comment_count = (SELECT COUNT(*) FROM comments c WHERE c.vibe_id = vibes.id);
+
+CREATE TABLE timeline_entries (
+    id          BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    owner_id    BIGINT NOT NULL,
+    vibe_id     BIGINT NOT NULL,
+    author_id   BIGINT NOT NULL,
+    created_at  TIMESTAMP(6) NOT NULL,
+    CONSTRAINT uk_timeline_entries_owner_vibe UNIQUE (owner_id, vibe_id),
+    CONSTRAINT fk_timeline_entries_owner FOREIGN KEY (owner_id) REFERENCES users (id) ON DELETE CASCADE,
+    CONSTRAINT fk_timeline_entries_vibe FOREIGN KEY (vibe_id) REFERENCES vibes (id) ON DELETE CASCADE
+);
+
+CREATE INDEX idx_timeline_owner_created ON timeline_entries (owner_id, created_at DESC, vibe_id DESC);
+CREATE INDEX idx_timeline_vibe ON timeline_entries (vibe_id);
+
+CREATE TABLE media_blobs (
+    path        VARCHAR(100) PRIMARY KEY,
+    size        BIGINT NOT NULL,
+    ref_count   INTEGER NOT NULL,
+    created_at  TIMESTAMP(6)
+);
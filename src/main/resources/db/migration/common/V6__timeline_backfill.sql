@@ -0,0 +1,18 @@
+-- Fills the home timeline for every existing user in one statement, so feeds are complete
+-- as soon as the upgraded application starts: each author's own non-public vibes plus the
+-- FRIENDS_ONLY vibes of accepted friends, the same rows TimelineRepository.backfillOwner
+-- writes for a single owner. UNION drops duplicates from friendships recorded both ways.
+INSERT INTO timeline_entries (owner_id, vibe_id, author_id, created_at)
+SELECT v.user_id, v.id, v.user_id, v.created_at
+FROM vibes v
+WHERE v.privacy_status <> 'PUBLIC'
+UNION
+SELECT f.receiver_id, v.id, v.user_id, v.created_at
+FROM vibes v
+JOIN friendships f ON f.requester_id = v.user_id AND f.status = 'ACCEPTED'
+WHERE v.privacy_status = 'FRIENDS_ONLY'
+UNION
+SELECT f.requester_id, v.id, v.user_id, v.created_at
+FROM vibes v
+JOIN friendships f ON f.receiver_id = v.user_id AND f.status = 'ACCEPTED'
+WHERE v.privacy_status = 'FRIENDS_ONLY';
@@ -0,0 +1,3 @@
+-- H2 has no partial indexes; lead with the privacy status instead so the same stream
+-- queries still get an index range scan in tests.
+CREATE INDEX IF NOT EXISTS idx_vibes_public_created ON vibes (privacy_status, created_at DESC, id DESC);
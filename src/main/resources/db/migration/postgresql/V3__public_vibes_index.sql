@@ -0,0 +1,4 @@
+-- The public stream (findStreamByPrivacy / findStreamByPrivacyBefore) and the PUBLIC branch of
+-- the feed only ever read public vibes, so a partial index keeps the other rows out of it.
+CREATE INDEX IF NOT EXISTS idx_vibes_public_created ON vibes (created_at DESC, id DESC)
+    WHERE privacy_status = 'PUBLIC';
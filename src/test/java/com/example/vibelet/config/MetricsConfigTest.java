@@ -0,0 +1,28 @@
+package com.example.vibelet.config;
+
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.config.MeterFilter;
+import io.micrometer.core.instrument.distribution.DistributionStatisticConfig;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MetricsConfigTest {
+    private final MeterFilter filter = new MetricsConfig().hotPathHistograms();
+
+    @Test
+    void histograms_ShouldOnlyBePublishedForHotEndpointsAndPoolWaits() {
+        assertThat(histogram("http.server.requests", "uri", "/api/v1/vibes/feed")).isTrue();
+        assertThat(histogram("http.server.requests", "uri", "/api/v1/interactions/vibe/{vibeId}/like")).isTrue();
+        assertThat(histogram("hikaricp.connections.acquire", "pool", "primary")).isTrue();
+        assertThat(histogram("http.server.requests", "uri", "/profile")).isFalse();
+        assertThat(histogram("hikaricp.connections.usage", "pool", "primary")).isFalse();
+    }
+
+    private boolean histogram(String name, String tag, String value) {
+        Meter.Id id = new Meter.Id(name, Tags.of(tag, value), null, null, Meter.Type.TIMER);
+        DistributionStatisticConfig config = filter.configure(id, DistributionStatisticConfig.DEFAULT);
+        return Boolean.TRUE.equals(config.isPercentileHistogram());
+    }
+}
@@ -0,0 +1,171 @@
+package com.example.vibelet.config;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+/** Two in-memory H2 databases stand in for the primary and its replica. */
+class ReadWriteRoutingDataSourceTest {
+    private DriverManagerDataSource primary;
+    private DriverManagerDataSource replica;
+    private final MutableClock clock = new MutableClock();
+    private ReadWriteRoutingDataSource routing;
+    private JdbcTemplate jdbc;
+    private TransactionTemplate reads;
+    private TransactionTemplate writes;
+
+    @BeforeEach
+    void setUp() {
+        primary = database("primary");
+        replica = database("replica");
+        routing = new ReadWriteRoutingDataSource(primary, Map.of("replica-1", replica),
+                "SELECT ms FROM replica_lag", Duration.ofSeconds(1), Duration.ofSeconds(10), Duration.ofSeconds(2), clock);
+        routing.checkReplicas();
+
+        DataSource dataSource = new LazyConnectionDataSourceProxy(routing);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        jdbc = new JdbcTemplate(dataSource);
+        reads = new TransactionTemplate(transactionManager);
+        reads.setReadOnly(true);
+        writes = new TransactionTemplate(transactionManager);
+    }
+
+    @Test
+    void readOnlyTransaction_ShouldUseReplica() {
+        assertThat(readRole(reads)).isEqualTo("replica");
+    }
+
+    @Test
+    void readWriteTransaction_ShouldUsePrimary() {
+        assertThat(readRole(writes)).isEqualTo("primary");
+    }
+
+    @Test
+    void laggingReplica_ShouldFallBackToPrimary() {
+        new JdbcTemplate(replica).update("UPDATE replica_lag SET ms = 5000");
+        routing.checkReplicas();
+
+        assertThat(readRole(reads)).isEqualTo("primary");
+        assertThat(routing.getFallbacks()).isEqualTo(1);
+
+        new JdbcTemplate(replica).update("UPDATE replica_lag SET ms = 10");
+        routing.checkReplicas();
+
+        assertThat(readRole(reads)).isEqualTo("replica");
+    }
+
+    @Test
+    void staleProbe_ShouldTakeReplicaOutOfRotation() {
+        // The probe stopped running (e.g. its thread is stuck): its last verdict expires.
+        clock.advance(Duration.ofSeconds(4));
+        assertThat(readRole(reads)).isEqualTo("replica");
+
+        clock.advance(Duration.ofMillis(1));
+        assertThat(readRole(reads)).isEqualTo("primary");
+        assertThat(routing.getStats())
+                .extracting(ReadWriteRoutingDataSource.RouteStats::getName, ReadWriteRoutingDataSource.RouteStats::isHealthy)
+                .contains(tuple("replica-1", false));
+
+        routing.checkReplicas();
+        assertThat(readRole(reads)).isEqualTo("replica");
+    }
+
+    @Test
+    void readsAfterWriteInSameRequest_ShouldStayOnPrimary() {
+        routing.beginRequest(false);
+        assertThat(readRole(reads)).isEqualTo("replica");
+
+        writes.executeWithoutResult(status -> jdbc.update("UPDATE role SET name = name"));
+
+        assertThat(readRole(reads)).isEqualTo("primary");
+        assertThat(routing.endRequest()).isTrue();
+        assertThat(readRole(reads)).isEqualTo("replica");
+    }
+
+    @Test
+    void recentWriter_ShouldBePinnedToPrimary() {
+        routing.recordWrite("alice");
+        routing.beginRequest(routing.wroteRecently("alice"));
+
+        assertThat(readRole(reads)).isEqualTo("primary");
+        assertThat(routing.endRequest()).isFalse();
+        assertThat(routing.wroteRecently("bob")).isFalse();
+    }
+
+    @Test
+    void propagatedTask_ShouldKeepRequestPinnedOnAnotherThread() throws Exception {
+        routing.beginRequest(true);
+        AtomicReference<String> role = new AtomicReference<>();
+        Runnable task = routing.propagateRequest(() -> role.set(readRole(reads)));
+        routing.endRequest();
+
+        Thread worker = new Thread(task);
+        worker.start();
+        worker.join();
+
+        assertThat(role.get()).isEqualTo("primary");
+        assertThat(readRole(reads)).isEqualTo("replica");
+    }
+
+    @Test
+    void springDataReadOnlyTransactions_ShouldStayOnPrimary() {
+        reads.setName("org.springframework.data.jpa.repository.support.SimpleJpaRepository.findById");
+
+        assertThat(readRole(reads)).isEqualTo("primary");
+    }
+
+    @Test
+    void stats_ShouldCountRoutesPerTarget() {
+        readRole(reads);
+        readRole(reads);
+        readRole(writes);
+
+        assertThat(routing.getStats())
+                .extracting(ReadWriteRoutingDataSource.RouteStats::getName, ReadWriteRoutingDataSource.RouteStats::getRouted)
+                .contains(tuple("replica-1", 2L));
+    }
+
+    private static final class MutableClock extends Clock {
+        private Instant now = Instant.parse("2026-01-01T12:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override public ZoneId getZone() { return ZoneOffset.UTC; }
+        @Override public Clock withZone(ZoneId zone) { return this; }
+        @Override public Instant instant() { return now; }
+    }
+
+    private String readRole(TransactionTemplate template) {
+        return template.execute(status -> jdbc.queryForObject("SELECT name FROM role", String.class));
+    }
+
+    private static DriverManagerDataSource database(String role) {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:" + role + "-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", "sa", "");
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        jdbc.execute("CREATE TABLE role (name VARCHAR(20))");
+        jdbc.update("INSERT INTO role (name) VALUES (?)", role);
+        jdbc.execute("CREATE TABLE replica_lag (ms BIGINT)");
+        jdbc.update("INSERT INTO replica_lag (ms) VALUES (0)");
+        return dataSource;
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.vibelet.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SqlStatementMetricsFilterTest {
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final SqlStatementMetricsFilter filter = new SqlStatementMetricsFilter(registry);
+    private final SqlStatementCounter counter = new SqlStatementCounter();
+
+    @Test
+    void statementsDuringRequest_ShouldBeRecordedPerHandlerPattern() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/vibes/feed");
+
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain(new HttpServlet() {
+            @Override
+            protected void service(HttpServletRequest req, HttpServletResponse res) {
+                counter.inspect("select 1");
+                counter.inspect("select 2");
+                counter.inspect("select 3");
+                req.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/api/v1/vibes/feed");
+            }
+        }));
+
+        DistributionSummary summary = registry.get(SqlStatementMetricsFilter.METRIC)
+                .tags("method", "GET", "uri", "/api/v1/vibes/feed").summary();
+        assertThat(summary.count()).isEqualTo(1);
+        assertThat(summary.totalAmount()).isEqualTo(3);
+    }
+
+    @Test
+    void requestsWithoutHandler_ShouldNotBeRecorded() throws Exception {
+        filter.doFilter(new MockHttpServletRequest("GET", "/missing"), new MockHttpServletResponse(), new MockFilterChain());
+
+        assertThat(registry.find(SqlStatementMetricsFilter.METRIC).meters()).isEmpty();
+    }
+
+    @Test
+    void statementsOutsideRequests_ShouldNotBeCounted() throws Exception {
+        counter.inspect("select 1");
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/vibes");
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/vibes");
+
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+
+        assertThat(registry.get(SqlStatementMetricsFilter.METRIC).summary().totalAmount()).isZero();
+    }
+}
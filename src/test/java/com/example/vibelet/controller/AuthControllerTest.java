@@ -1,19 +1,30 @@
 package com.example.vibelet.controller;
 
 import com.example.vibelet.dto.LoginRequest;
+import com.example.vibelet.dto.RefreshRequest;
 import com.example.vibelet.dto.RegisterRequest;
+import com.example.vibelet.dto.TokenResponse;
+import com.example.vibelet.security.CurrentUser;
+import com.example.vibelet.security.TokenService;
+import com.example.vibelet.security.VibeletUserDetails;
 import com.example.vibelet.service.AuthService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
 
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(AuthController.class)
@@ -30,6 +41,9 @@ class AuthControllerTest {
     @MockitoBean
     private AuthenticationManager authenticationManager;
 
+    @MockitoBean
+    private TokenService tokenService;
+
     @Test
     @WithMockUser
     void register_ShouldReturnCreated() throws Exception {
@@ -51,11 +65,32 @@ class AuthControllerTest {
         LoginRequest request = new LoginRequest();
         request.setUsername("user");
         request.setPassword("pass");
+        CurrentUser me = new CurrentUser(1L, "user");
+        VibeletUserDetails principal = new VibeletUserDetails(me, "pass", AuthorityUtils.createAuthorityList("ROLE_USER"));
+        when(authenticationManager.authenticate(any()))
+                .thenReturn(UsernamePasswordAuthenticationToken.authenticated(principal, null, principal.getAuthorities()));
+        when(tokenService.issue(me)).thenReturn(new TokenResponse("access", "refresh", 900));
 
         mockMvc.perform(post("/api/v1/auth/login")
                         .contentType("application/json")
                         .content(objectMapper.writeValueAsString(request))
                         .with(csrf()))
-                .andExpect(status().isOk());
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.accessToken").value("access"))
+                .andExpect(jsonPath("$.tokenType").value("Bearer"));
+    }
+
+    @Test
+    @WithMockUser
+    void refresh_ShouldReturnUnauthorizedForRevokedToken() throws Exception {
+        RefreshRequest request = new RefreshRequest();
+        request.setRefreshToken("stale");
+        when(tokenService.refresh("stale")).thenThrow(new BadCredentialsException("Invalid refresh token"));
+
+        mockMvc.perform(post("/api/v1/auth/refresh")
+                        .contentType("application/json")
+                        .content(objectMapper.writeValueAsString(request))
+                        .with(csrf()))
+                .andExpect(status().isUnauthorized());
     }
 }
\ No newline at end of file
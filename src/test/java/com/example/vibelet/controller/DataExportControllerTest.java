@@ -1,275 +1,182 @@
 package com.example.vibelet.controller;
 
 import com.example.vibelet.dto.DataExportDto;
-import com.example.vibelet.dto.VibeExportDto;
-import com.example.vibelet.model.Friendship;
+import com.example.vibelet.dto.ImportProgress;
 import com.example.vibelet.model.User;
-import com.example.vibelet.model.Vibe;
-import com.example.vibelet.repository.FriendshipRepository;
 import com.example.vibelet.repository.UserRepository;
-import com.example.vibelet.repository.VibeRepository;
+import com.example.vibelet.security.CurrentUser;
+import com.example.vibelet.service.DataExportService;
+import com.example.vibelet.service.DataImportService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
-import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
-import java.time.LocalDateTime;
-import java.util.Collections;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Optional;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
 
+import static com.example.vibelet.security.TestPrincipals.signedIn;
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willAnswer;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
-import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @WebMvcTest(DataExportController.class)
 class DataExportControllerTest {
+    private static final CurrentUser EXPORTER = new CurrentUser(7L, "exporter");
+    private static final CurrentUser IMPORTER = new CurrentUser(7L, "importer");
+
     @Autowired private MockMvc mockMvc;
     @Autowired private ObjectMapper objectMapper;
 
     @MockitoBean private UserRepository userRepository;
-    @MockitoBean private VibeRepository vibeRepository;
-    @MockitoBean private FriendshipRepository friendshipRepository;
+    @MockitoBean private DataExportService dataExportService;
+    @MockitoBean private DataImportService dataImportService;
 
     @Test
-    @WithMockUser(username = "exporter")
-    void exportData_ShouldReturnJson() throws Exception {
+    void exportData_ShouldStreamJson() throws Exception {
         User user = new User();
         user.setUsername("exporter");
         user.setEmail("ex@test.com");
 
-        given(userRepository.findByUsername("exporter")).willReturn(Optional.of(user));
-        given(friendshipRepository.findAllFriendsOfUser(user)).willReturn(Collections.emptyList());
+        given(userRepository.findById(7L)).willReturn(Optional.of(user));
+        willAnswer(inv -> {
+            inv.getArgument(1, OutputStream.class).write("{\"username\":\"exporter\"}".getBytes(StandardCharsets.UTF_8));
+            return null;
+        }).given(dataExportService).writeExport(eq(user), any());
 
-        mockMvc.perform(get("/api/v1/data/export"))
-                .andExpect(status().isOk());
+        MvcResult result = mockMvc.perform(get("/api/v1/data/export").with(signedIn(EXPORTER)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"vibelet_backup.json\""))
+                .andExpect(jsonPath("$.username").value("exporter"));
     }
 
     @Test
-    @WithMockUser(username = "ghost")
     void exportData_WhenUserNotFound_ShouldThrow() throws Exception {
-        given(userRepository.findByUsername("ghost"))
+        given(userRepository.findById(7L))
                 .willReturn(Optional.empty());
 
-        mockMvc.perform(get("/api/v1/data/export"))
+        mockMvc.perform(get("/api/v1/data/export").with(signedIn(EXPORTER)))
                 .andExpect(status().isNotFound());
     }
 
     @Test
-    @WithMockUser(username = "exporter")
-    void exportData_ShouldMapVibesAndFriends() throws Exception {
-        User user = new User();
-        user.setId(1L);
-        user.setUsername("exporter");
-        user.setEmail("ex@test.com");
-
-        Vibe vibe = new Vibe();
-        vibe.setContent("hello");
-        vibe.setCreatedAt(LocalDateTime.now());
-        vibe.setUser(user);
-
-        user.setVibes(List.of(vibe));
-
-        User friend = new User();
-        friend.setId(2L);
-        friend.setUsername("friend");
-
-        Friendship friendship = new Friendship();
-        friendship.setRequester(user);
-        friendship.setReceiver(friend);
-
-        given(userRepository.findByUsername("exporter")).willReturn(Optional.of(user));
-        given(friendshipRepository.findAllFriendsOfUser(user)).willReturn(List.of(friendship));
-        mockMvc.perform(get("/api/v1/data/export"))
-                .andExpect(status().isOk());
-    }
-
-    @Test
-    @WithMockUser(username = "exporter")
-    void exportData_ShouldMapFriend_WhenUserIsReceiver() throws Exception {
+    void exportData_WithGzip_ShouldCompressBody() throws Exception {
         User user = new User();
-        user.setId(2L);
         user.setUsername("exporter");
 
-        User requester = new User();
-        requester.setId(1L);
-        requester.setUsername("requesterUser");
-
-        Friendship friendship = new Friendship();
-        friendship.setRequester(requester);
-        friendship.setReceiver(user);
-
-        given(userRepository.findByUsername("exporter"))
-                .willReturn(Optional.of(user));
-        given(friendshipRepository.findAllFriendsOfUser(user))
-                .willReturn(List.of(friendship));
-        mockMvc.perform(get("/api/v1/data/export"))
-                .andExpect(status().isOk());
+        given(userRepository.findById(7L)).willReturn(Optional.of(user));
+        willAnswer(inv -> {
+            inv.getArgument(1, OutputStream.class).write("{}".getBytes(StandardCharsets.UTF_8));
+            return null;
+        }).given(dataExportService).writeExport(eq(user), any());
+
+        MvcResult result = mockMvc.perform(get("/api/v1/data/export").param("gzip", "true").with(signedIn(EXPORTER)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        byte[] body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"vibelet_backup.json.gz\""))
+                .andExpect(content().contentType("application/gzip"))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(body))) {
+            assertThat(new String(in.readAllBytes(), StandardCharsets.UTF_8)).isEqualTo("{}");
+        }
     }
 
     @Test
-    @WithMockUser(username = "importer")
     void importData_ShouldProcessJson() throws Exception {
-        User user = new User();
-        user.setUsername("importer");
-
         DataExportDto dto = new DataExportDto();
         dto.setBio("New Bio");
         dto.setFriends(List.of("friend1"));
 
-        given(userRepository.findByUsername("importer")).willReturn(Optional.of(user));
-        given(userRepository.findByUsername("friend1")).willReturn(Optional.of(new User()));
+        ImportProgress progress = new ImportProgress();
+        progress.addVibesImported(3);
+        progress.addFriendsRestored(1);
 
-        mockMvc.perform(post("/api/v1/data/import")
-                        .contentType(MediaType.APPLICATION_JSON)
-                        .content(objectMapper.writeValueAsString(dto))
-                        .with(csrf()))
-                .andExpect(status().isOk());
-    }
-
-    @Test
-    @WithMockUser(username = "importer")
-    void importData_WithNullFields_ShouldSucceed() throws Exception {
-        User user = new User();
-        user.setUsername("importer");
-
-        DataExportDto dto = new DataExportDto();
-
-        given(userRepository.findByUsername("importer"))
-                .willReturn(Optional.of(user));
+        given(dataImportService.importData(eq(IMPORTER), any())).willReturn(progress);
 
         mockMvc.perform(post("/api/v1/data/import")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(dto))
-                        .with(csrf()))
-                .andExpect(status().isOk());
+                        .with(csrf()).with(signedIn(IMPORTER)))
+                .andExpect(status().isOk())
+                .andExpect(content().string("Data imported. Vibes: 3, Friends restored: 1"));
     }
 
     @Test
-    @WithMockUser(username = "importer")
-    void importData_WithEmptyFields_ShouldSucceed() throws Exception {
-        User user = new User();
-        user.setUsername("importer");
-
-        DataExportDto dto = new DataExportDto();
-        dto.setFriends(Collections.emptyList());
-        dto.setVibes(Collections.emptyList());
-
-        given(userRepository.findByUsername("importer"))
-                .willReturn(Optional.of(user));
+    void importData_WithGzippedBody_ShouldDecompress() throws Exception {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+            gzip.write("{\"bio\":\"zipped\"}".getBytes(StandardCharsets.UTF_8));
+        }
+
+        willAnswer(inv -> {
+            String body = new String(inv.getArgument(1, InputStream.class).readAllBytes(), StandardCharsets.UTF_8);
+            assertThat(body).isEqualTo("{\"bio\":\"zipped\"}");
+            return new ImportProgress();
+        }).given(dataImportService).importData(eq(IMPORTER), any());
 
         mockMvc.perform(post("/api/v1/data/import")
-                        .contentType(MediaType.APPLICATION_JSON)
-                        .content(objectMapper.writeValueAsString(dto))
-                        .with(csrf()))
+                        .contentType("application/gzip")
+                        .content(compressed.toByteArray())
+                        .with(csrf()).with(signedIn(IMPORTER)))
                 .andExpect(status().isOk());
     }
 
     @Test
-    @WithMockUser(username = "importer")
-    void importData_WhenVibeAlreadyExists_ShouldSkip() throws Exception {
-        User user = new User();
-        user.setUsername("importer");
-
-        VibeExportDto vibeDto = new VibeExportDto("dup", LocalDateTime.now().toString());
-
-        DataExportDto dto = new DataExportDto();
-        dto.setVibes(List.of(vibeDto));
-
-        given(userRepository.findByUsername("importer")).willReturn(Optional.of(user));
-        given(vibeRepository.existsByUserAndContentAndCreatedAt(any(), any(), any()))
-                .willReturn(true);
+    void importData_WhenFileIsMalformed_ShouldReturnBadRequest() throws Exception {
+        given(dataImportService.importData(eq(IMPORTER), any()))
+                .willThrow(new IllegalArgumentException("Malformed import file: unexpected end-of-input"));
 
         mockMvc.perform(post("/api/v1/data/import")
                         .contentType(MediaType.APPLICATION_JSON)
-                        .content(objectMapper.writeValueAsString(dto))
-                        .with(csrf()))
-                .andExpect(status().isOk());
-    }
-
-    @Test
-    @WithMockUser(username = "importer")
-    void importData_WhenDateParseFails_ShouldUseNow() throws Exception {
-        User user = new User();
-        user.setUsername("importer");
-
-        VibeExportDto vibeDto = new VibeExportDto("bad-date", "NOT_A_DATE");
-
-        DataExportDto dto = new DataExportDto();
-        dto.setVibes(List.of(vibeDto));
-
-        given(userRepository.findByUsername("importer")).willReturn(Optional.of(user));
-        given(vibeRepository.existsByUserAndContentAndCreatedAt(any(), any(), any()))
-                .willReturn(false);
-
-        mockMvc.perform(post("/api/v1/data/import")
-                        .contentType(MediaType.APPLICATION_JSON)
-                        .content(objectMapper.writeValueAsString(dto))
-                        .with(csrf()))
-                .andExpect(status().isOk());
-    }
-
-    @Test
-    @WithMockUser(username = "importer")
-    void importData_WhenFriendDoesNotExist_ShouldSkip() throws Exception {
-        User user = new User();
-        user.setUsername("importer");
-
-        DataExportDto dto = new DataExportDto();
-        dto.setFriends(List.of("ghost"));
-
-        given(userRepository.findByUsername("importer")).willReturn(Optional.of(user));
-        given(userRepository.findByUsername("ghost")).willReturn(Optional.empty());
-
-        mockMvc.perform(post("/api/v1/data/import")
-                        .contentType(MediaType.APPLICATION_JSON)
-                        .content(objectMapper.writeValueAsString(dto))
-                        .with(csrf()))
-                .andExpect(status().isOk());
+                        .content("{\"vibes\": [")
+                        .with(csrf()).with(signedIn(IMPORTER)))
+                .andExpect(status().isBadRequest());
     }
 
     @Test
-    @WithMockUser(username = "importer")
-    void importData_WhenFriendshipAlreadyExists_ShouldSkip() throws Exception {
-        User user = new User();
-        user.setUsername("importer");
-
-        User friend = new User();
-        friend.setUsername("friend");
+    void importProgress_ShouldReportRunningImport() throws Exception {
+        ImportProgress progress = new ImportProgress();
+        progress.addVibesImported(500);
 
-        DataExportDto dto = new DataExportDto();
-        dto.setFriends(List.of("friend"));
+        given(dataImportService.getProgress(7L)).willReturn(Optional.of(progress));
 
-        given(userRepository.findByUsername("importer")).willReturn(Optional.of(user));
-        given(userRepository.findByUsername("friend")).willReturn(Optional.of(friend));
-        given(friendshipRepository.existsByUsers(user, friend)).willReturn(true);
-
-        mockMvc.perform(post("/api/v1/data/import")
-                        .contentType(MediaType.APPLICATION_JSON)
-                        .content(objectMapper.writeValueAsString(dto))
-                        .with(csrf()))
-                .andExpect(status().isOk());
+        mockMvc.perform(get("/api/v1/data/import/progress").with(signedIn(IMPORTER)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.vibesImported").value(500));
     }
 
     @Test
-    @WithMockUser(username = "importer")
-    void importData_WhenUsernameDoesNotExist_ShouldReturnNotFound() throws Exception {
-        given(userRepository.findByUsername("importer"))
-                .willReturn(Optional.empty());
-
-        DataExportDto dto = new DataExportDto();
+    void importProgress_WhenNothingRunning_ShouldReturnNoContent() throws Exception {
+        given(dataImportService.getProgress(7L)).willReturn(Optional.empty());
 
-        mockMvc.perform(post("/api/v1/data/import")
-                        .contentType(MediaType.APPLICATION_JSON)
-                        .content(objectMapper.writeValueAsString(dto))
-                        .with(csrf()))
-                .andExpect(status().isNotFound());
+        mockMvc.perform(get("/api/v1/data/import/progress").with(signedIn(IMPORTER)))
+                .andExpect(status().isNoContent());
     }
-}
\ No newline at end of file
+}
@@ -1,20 +1,22 @@
 package com.example.vibelet.controller;
 
-import com.example.vibelet.model.Friendship;
-import com.example.vibelet.model.FriendshipStatus;
-import com.example.vibelet.model.User;
+import com.example.vibelet.dto.FriendRequestResponse;
+import com.example.vibelet.dto.FriendResponse;
+import com.example.vibelet.security.CurrentUser;
 import com.example.vibelet.service.FriendshipService;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
-import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.time.LocalDateTime;
 import java.util.Collections;
 import java.util.List;
 
+import static com.example.vibelet.security.TestPrincipals.signedIn;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.verify;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
@@ -22,6 +24,8 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 
 @WebMvcTest(FriendshipController.class)
 class FriendshipControllerTest {
+    private static final CurrentUser ME = new CurrentUser(1L, "me");
+
     @Autowired
     private MockMvc mockMvc;
 
@@ -29,75 +33,60 @@ class FriendshipControllerTest {
     private FriendshipService friendshipService;
 
     @Test
-    @WithMockUser(username = "me")
     void sendRequest_ShouldReturnOk() throws Exception {
         mockMvc.perform(post("/api/v1/friends/request/2")
-                        .with(csrf()))
+                        .with(csrf()).with(signedIn(ME)))
                 .andExpect(status().isOk());
+
+        verify(friendshipService).sendFriendRequest(ME, 2L);
     }
 
     @Test
-    @WithMockUser(username = "me")
     void getFriends_ShouldReturnList() throws Exception {
-        User me = new User();
-        me.setUsername("me");
-
-        User friendUser = new User();
-        friendUser.setUsername("friend");
-
-        Friendship friendship = new Friendship();
-        friendship.setRequester(me);
-        friendship.setReceiver(friendUser);
-        friendship.setStatus(FriendshipStatus.ACCEPTED);
+        given(friendshipService.getFriends(ME))
+                .willReturn(List.of(new FriendResponse(10L, 2L, "friend", null, null, LocalDateTime.of(2024, 1, 1, 10, 0))));
 
-        given(friendshipService.getAcceptedFriendships("me"))
-                .willReturn(List.of(friendship));
-
-        mockMvc.perform(get("/api/v1/friends"))
+        mockMvc.perform(get("/api/v1/friends").with(signedIn(ME)))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$[0].username").value("friend"));
+                .andExpect(jsonPath("$[0].username").value("friend"))
+                .andExpect(jsonPath("$[0].friendshipId").value(10))
+                .andExpect(jsonPath("$[0].password").doesNotExist());
     }
 
     @Test
-    @WithMockUser(username = "me")
     void acceptRequest_ShouldReturnOk() throws Exception {
         mockMvc.perform(put("/api/v1/friends/accept/10")
-                        .with(csrf()))
+                        .with(csrf()).with(signedIn(ME)))
                 .andExpect(status().isOk());
+
+        verify(friendshipService).acceptFriendRequest(ME, 10L);
     }
 
     @Test
-    @WithMockUser
     void removeFriend_ShouldReturnOk() throws Exception {
         mockMvc.perform(delete("/api/v1/friends/5")
-                        .with(csrf()))
+                        .with(csrf()).with(signedIn(ME)))
                 .andExpect(status().isOk());
     }
 
     @Test
-    @WithMockUser
     void getPendingRequests_ShouldReturnOk() throws Exception {
-        given(friendshipService.getPendingRequests("me"))
+        given(friendshipService.getIncomingRequests(ME))
                 .willReturn(Collections.emptyList());
 
-        mockMvc.perform(get("/api/v1/friends/requests"))
+        mockMvc.perform(get("/api/v1/friends/requests").with(signedIn(ME)))
                 .andExpect(status().isOk());
     }
 
     @Test
-    @WithMockUser(username = "me")
     void getPendingRequests_ShouldReturnOk_AndMapRequesterUsername() throws Exception {
-        User requester = new User();
-        requester.setUsername("john");
-
-        Friendship friendship = new Friendship();
-        friendship.setRequester(requester);
-
-        given(friendshipService.getPendingRequests("me"))
-                .willReturn(List.of(friendship));
+        given(friendshipService.getIncomingRequests(ME))
+                .willReturn(List.of(new FriendRequestResponse(7L, 3L, "john", null, null, LocalDateTime.of(2024, 1, 1, 10, 0))));
 
-        mockMvc.perform(get("/api/v1/friends/requests"))
+        mockMvc.perform(get("/api/v1/friends/requests").with(signedIn(ME)))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$[0].requester.username").value("john"));
+                .andExpect(jsonPath("$[0].id").value(7))
+                .andExpect(jsonPath("$[0].requester.username").value("john"))
+                .andExpect(jsonPath("$[0].receiver").doesNotExist());
     }
 }
\ No newline at end of file
@@ -1,18 +1,19 @@
 package com.example.vibelet.controller;
 
+import com.example.vibelet.dto.LikeState;
 import com.example.vibelet.model.Comment;
-import com.example.vibelet.model.User;
+import com.example.vibelet.security.CurrentUser;
 import com.example.vibelet.service.CommentService;
 import com.example.vibelet.service.VibeService;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
-import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
 
 import java.time.LocalDateTime;
 
+import static com.example.vibelet.security.TestPrincipals.signedIn;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.Mockito.doNothing;
@@ -20,10 +21,13 @@ import static org.springframework.security.test.web.servlet.request.SecurityMock
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(InteractionController.class)
 class InteractionControllerTest {
+    private static final CurrentUser ME = new CurrentUser(1L, "me");
+
     @Autowired
     private MockMvc mockMvc;
 
@@ -34,32 +38,52 @@ class InteractionControllerTest {
     private CommentService commentService;
 
     @Test
-    @WithMockUser(username = "me")
     void toggleLike_ShouldReturnOk() throws Exception {
-        doNothing().when(vibeService).toggleLike(1L, "me");
+        given(vibeService.toggleLike(1L, ME)).willReturn(new LikeState(true, 4));
 
         mockMvc.perform(post("/api/v1/interactions/vibe/1/like")
+                        .with(signedIn(ME))
                         .with(csrf()))
-                .andExpect(status().isOk());
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.liked").value(true))
+                .andExpect(jsonPath("$.likeCount").value(4));
     }
 
     @Test
-    @WithMockUser(username = "me")
-    void addComment_ShouldReturnOk() throws Exception {
-        User user = new User();
-        user.setId(1L);
-        user.setUsername("me");
+    void putLike_ShouldReturnState() throws Exception {
+        given(vibeService.like(1L, ME)).willReturn(new LikeState(true, 1));
+
+        mockMvc.perform(put("/api/v1/interactions/vibe/1/like")
+                        .with(signedIn(ME))
+                        .with(csrf()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.liked").value(true));
+    }
+
+    @Test
+    void deleteLike_ShouldReturnState() throws Exception {
+        given(vibeService.unlike(1L, ME)).willReturn(new LikeState(false, 0));
+
+        mockMvc.perform(delete("/api/v1/interactions/vibe/1/like")
+                        .with(signedIn(ME))
+                        .with(csrf()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.liked").value(false))
+                .andExpect(jsonPath("$.likeCount").value(0));
+    }
 
+    @Test
+    void addComment_ShouldReturnOk() throws Exception {
         Comment comment = new Comment();
         comment.setId(10L);
-        comment.setUser(user);
         comment.setContent("hello");
         comment.setCreatedAt(LocalDateTime.now());
 
-        given(vibeService.addComment(eq(1L), eq("me"), eq("hello")))
+        given(vibeService.addComment(eq(1L), eq(ME), eq("hello")))
                 .willReturn(comment);
 
         mockMvc.perform(post("/api/v1/interactions/vibe/1/comment")
+                        .with(signedIn(ME))
                         .with(csrf())
                         .contentType("application/json")
                         .content("""
@@ -67,13 +91,15 @@ class InteractionControllerTest {
                                   "content": "hello"
                                 }
                                 """))
-                .andExpect(status().isOk());
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.userId").value(1))
+                .andExpect(jsonPath("$.username").value("me"));
     }
 
     @Test
-    @WithMockUser(username = "me")
     void addBlankComment_ShouldReturnBadRequest() throws Exception {
         mockMvc.perform(post("/api/v1/interactions/vibe/1/comment")
+                        .with(signedIn(ME))
                         .with(csrf())
                         .contentType("application/json")
                         .content("""
@@ -85,9 +111,9 @@ class InteractionControllerTest {
     }
 
     @Test
-    @WithMockUser(username = "me")
     void addEmptyComment_ShouldReturnBadRequest() throws Exception {
         mockMvc.perform(post("/api/v1/interactions/vibe/1/comment")
+                        .with(signedIn(ME))
                         .with(csrf())
                         .contentType("application/json")
                         .content("{}"))
@@ -95,11 +121,11 @@ class InteractionControllerTest {
     }
 
     @Test
-    @WithMockUser(username = "me")
     void updateComment_ShouldReturnOk() throws Exception {
-        doNothing().when(commentService).updateComment(1L, "updated", "me");
+        doNothing().when(commentService).updateComment(1L, "updated", ME);
 
         mockMvc.perform(put("/api/v1/comments/1")
+                        .with(signedIn(ME))
                         .with(csrf())
                         .contentType("application/json")
                         .content("""
@@ -111,11 +137,11 @@ class InteractionControllerTest {
     }
 
     @Test
-    @WithMockUser(username = "me")
     void deleteComment_ShouldReturnOk() throws Exception {
-        doNothing().when(commentService).deleteComment(1L, "me");
+        doNothing().when(commentService).deleteComment(1L, ME);
 
         mockMvc.perform(delete("/api/v1/comments/1")
+                        .with(signedIn(ME))
                         .with(csrf()))
                 .andExpect(status().isOk());
     }
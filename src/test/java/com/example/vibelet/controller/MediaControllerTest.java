@@ -0,0 +1,138 @@
+package com.example.vibelet.controller;
+
+import com.example.vibelet.storage.MediaStorage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.head;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(MediaController.class)
+@WithMockUser
+class MediaControllerTest {
+    private static final String HASH = "ab".repeat(32);
+    private static final String KEY = "ab/ab/" + HASH + ".jpg";
+
+    @Autowired private MockMvc mockMvc;
+
+    @MockitoBean private MediaStorage storage;
+
+    @TempDir Path root;
+    private Path file;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        file = root.resolve("blob.jpg");
+        Files.write(file, "0123456789".getBytes(StandardCharsets.US_ASCII));
+    }
+
+    @Test
+    void serve_FingerprintedKey_ShouldBeImmutableWithHashEtag() throws Exception {
+        given(storage.localPath(KEY)).willReturn(root.resolve(HASH + ".jpg"));
+        Files.move(file, root.resolve(HASH + ".jpg"));
+
+        mockMvc.perform(get("/uploads/" + KEY))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"" + HASH + "\""))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, MediaController.IMMUTABLE))
+                .andExpect(header().string(HttpHeaders.ACCEPT_RANGES, "bytes"))
+                .andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, 10))
+                .andExpect(content().contentType("image/jpeg"))
+                .andExpect(content().string("0123456789"));
+    }
+
+    @Test
+    void serve_LegacyKey_ShouldRevalidate() throws Exception {
+        given(storage.localPath("uuid_cat.jpg")).willReturn(file);
+
+        mockMvc.perform(get("/uploads/uuid_cat.jpg"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, MediaController.REVALIDATE))
+                .andExpect(header().exists(HttpHeaders.ETAG));
+    }
+
+    @Test
+    void serve_MatchingEtag_ShouldReturnNotModified() throws Exception {
+        given(storage.localPath(KEY)).willReturn(file);
+
+        mockMvc.perform(get("/uploads/" + KEY).header(HttpHeaders.IF_NONE_MATCH, "\"blob\""))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    void serve_SingleRange_ShouldReturnPartialContent() throws Exception {
+        given(storage.localPath("uuid_cat.jpg")).willReturn(file);
+
+        mockMvc.perform(get("/uploads/uuid_cat.jpg").header(HttpHeaders.RANGE, "bytes=2-5"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 2-5/10"))
+                .andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, 4))
+                .andExpect(content().string("2345"));
+    }
+
+    @Test
+    void serve_StaleIfRange_ShouldReturnWholeFile() throws Exception {
+        given(storage.localPath("uuid_cat.jpg")).willReturn(file);
+
+        mockMvc.perform(get("/uploads/uuid_cat.jpg")
+                        .header(HttpHeaders.RANGE, "bytes=2-5")
+                        .header(HttpHeaders.IF_RANGE, "\"old\""))
+                .andExpect(status().isOk())
+                .andExpect(content().string("0123456789"));
+    }
+
+    @Test
+    void serve_UnsatisfiableRange_ShouldReturn416() throws Exception {
+        given(storage.localPath("uuid_cat.jpg")).willReturn(file);
+
+        mockMvc.perform(get("/uploads/uuid_cat.jpg").header(HttpHeaders.RANGE, "bytes=50-60"))
+                .andExpect(status().isRequestedRangeNotSatisfiable())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes */10"));
+    }
+
+    @Test
+    void serve_Head_ShouldSendHeadersOnly() throws Exception {
+        given(storage.localPath("uuid_cat.jpg")).willReturn(file);
+
+        mockMvc.perform(head("/uploads/uuid_cat.jpg"))
+                .andExpect(status().isOk())
+                .andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, 10))
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    void serve_RemoteStorage_ShouldRedirectToPresignedUrl() throws Exception {
+        given(storage.localPath(KEY)).willReturn(null);
+        given(storage.presignedUrl(eq(KEY), any(Duration.class))).willReturn("https://bucket.example/" + KEY + "?X-Amz-Signature=abc");
+
+        mockMvc.perform(get("/uploads/" + KEY))
+                .andExpect(status().isFound())
+                .andExpect(redirectedUrl("https://bucket.example/" + KEY + "?X-Amz-Signature=abc"))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "private, max-age=300"));
+    }
+
+    @Test
+    void serve_UnknownKey_ShouldReturn404() throws Exception {
+        given(storage.localPath(".incoming/upload.tmp")).willReturn(null);
+
+        mockMvc.perform(get("/uploads/.incoming/upload.tmp"))
+                .andExpect(status().isNotFound());
+    }
+}
@@ -1,27 +1,42 @@
 package com.example.vibelet.controller;
 
 import com.example.vibelet.dto.UserProfileUpdateDto;
+import com.example.vibelet.dto.UserSearchDto;
+import com.example.vibelet.dto.UserSecurityUpdateDto;
 import com.example.vibelet.model.User;
+import com.example.vibelet.security.CurrentUser;
+import com.example.vibelet.security.VibeletUserDetails;
 import com.example.vibelet.service.UserService;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.web.context.HttpSessionSecurityContextRepository;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
-import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
 import java.util.Collections;
+import java.util.List;
 
+import static com.example.vibelet.security.TestPrincipals.signedIn;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.verify;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(UserController.class)
 class UserControllerTest {
+    private static final CurrentUser ME = new CurrentUser(1L, "user");
+
     @Autowired
     private MockMvc mockMvc;
 
@@ -29,33 +44,107 @@ class UserControllerTest {
     private UserService userService;
 
     @Test
-    @WithMockUser
     void searchUsers_ShouldReturnOk() throws Exception {
-        given(userService.searchUsers("query", "user"))
+        given(userService.searchUsers("query", ME, 0, 20))
                 .willReturn(Collections.emptyList());
 
         mockMvc.perform(get("/api/v1/users/search")
-                        .param("query", "query"))
+                        .param("query", "query")
+                        .with(signedIn(ME)))
                 .andExpect(status().isOk());
     }
 
     @Test
-    @WithMockUser(username = "me")
+    void searchUsers_ShouldPassPaging() throws Exception {
+        given(userService.searchUsers("query", ME, 2, 10))
+                .willReturn(List.of(new UserSearchDto(5L, "query5", null, null, "NONE")));
+
+        mockMvc.perform(get("/api/v1/users/search")
+                        .param("query", "query")
+                        .param("page", "2")
+                        .param("size", "10")
+                        .with(signedIn(ME)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].username").value("query5"));
+    }
+
+    @Test
     void updateMyProfile_ShouldReturnOk() throws Exception {
-        given(userService.updateUserProfile(anyString(), any(UserProfileUpdateDto.class), any()))
+        given(userService.updateUserProfile(eq(ME), any(UserProfileUpdateDto.class), any()))
                 .willReturn(new User());
 
         mockMvc.perform(multipart(HttpMethod.PUT, "/api/v1/users/me")
                         .param("bio", "updated bio")
-                        .with(csrf()))
+                        .with(csrf()).with(signedIn(ME)))
                 .andExpect(status().isOk());
     }
 
     @Test
-    @WithMockUser
+    void updateMyProfile_ShouldNotExposeCredentialsOrAssociations() throws Exception {
+        User user = new User("me", "me@test.com", "$2a$10$secret-hash");
+        user.setId(1L);
+        user.setBio("updated bio");
+        given(userService.updateUserProfile(eq(ME), any(UserProfileUpdateDto.class), any())).willReturn(user);
+
+        String json = mockMvc.perform(multipart(HttpMethod.PUT, "/api/v1/users/me")
+                        .param("bio", "updated bio")
+                        .with(csrf()).with(signedIn(ME)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.username").value("me"))
+                .andExpect(jsonPath("$.bio").value("updated bio"))
+                .andReturn().getResponse().getContentAsString();
+
+        assertThat(json).doesNotContain("password", "secret-hash", "me@test.com",
+                "vibes", "sentFriendships", "receivedFriendships", "comments", "likes");
+    }
+
+    @Test
+    void updateMyAvatar_ShouldReturnProfileWithoutCredentials() throws Exception {
+        User user = new User("me", "me@test.com", "$2a$10$secret-hash");
+        user.setId(1L);
+        user.setAvatarUrl("aa/bb/avatar.png");
+        given(userService.updateAvatar(eq(ME), any())).willReturn(user);
+
+        String json = mockMvc.perform(put("/api/v1/users/me/avatar")
+                        .with(csrf()).with(signedIn(ME))
+                        .contentType(MediaType.IMAGE_PNG)
+                        .content(new byte[]{1, 2, 3}))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.avatarUrl").value("aa/bb/avatar.png"))
+                .andReturn().getResponse().getContentAsString();
+
+        assertThat(json).doesNotContain("password", "secret-hash", "me@test.com", "vibes", "likes");
+    }
+
+    @Test
     void deleteMyAccount_ShouldReturnOk() throws Exception {
         mockMvc.perform(delete("/api/v1/users/me")
-                        .with(csrf()))
+                        .with(csrf()).with(signedIn(ME)))
                 .andExpect(status().isOk());
+
+        verify(userService).deleteUser(ME);
+    }
+
+    @Test
+    void updateSecurity_Rename_ShouldRefreshPrincipal() throws Exception {
+        User renamed = new User();
+        renamed.setId(1L);
+        renamed.setUsername("renamed");
+        given(userService.updateSecurityDetails(eq(ME), any(UserSecurityUpdateDto.class))).willReturn(renamed);
+
+        MvcResult result = mockMvc.perform(put("/api/v1/users/me/security")
+                        .with(signedIn(ME))
+                        .with(csrf())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {"currentPassword": "pass", "newUsername": "renamed"}
+                                """))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        SecurityContext saved = (SecurityContext) result.getRequest().getSession()
+                .getAttribute(HttpSessionSecurityContextRepository.SPRING_SECURITY_CONTEXT_KEY);
+        VibeletUserDetails principal = (VibeletUserDetails) saved.getAuthentication().getPrincipal();
+        assertEquals(new CurrentUser(1L, "renamed"), principal.getCurrentUser());
     }
-}
\ No newline at end of file
+}
@@ -1,66 +1,148 @@
 package com.example.vibelet.controller;
 
+import com.example.vibelet.dto.CursorSlice;
+import com.example.vibelet.dto.VibeResponse;
+import com.example.vibelet.model.PrivacyStatus;
 import com.example.vibelet.model.Vibe;
 import com.example.vibelet.model.User;
+import com.example.vibelet.security.CurrentUser;
 import com.example.vibelet.service.VibeService;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.io.InputStream;
+import java.time.LocalDateTime;
 import java.util.List;
 
+import static com.example.vibelet.security.TestPrincipals.signedIn;
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.verify;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(VibeController.class)
 class VibeControllerTest {
+    private static final CurrentUser TESTER = new CurrentUser(1L, "tester");
+
     @Autowired
     private MockMvc mockMvc;
 
     @MockitoBean
     private VibeService vibeService;
 
-    @Test
-    @WithMockUser(username = "tester")
-    void getFeed_ShouldReturnOk() throws Exception {
+    private static Vibe vibe(Long id, String content) {
         User u = new User();
+        u.setId(1L);
         u.setUsername("tester");
+        u.setPassword("$2a$10$hash");
+        u.setEmail("tester@example.com");
         Vibe v = new Vibe();
+        v.setId(id);
         v.setUser(u);
-        v.setContent("Test content");
+        v.setContent(content);
+        return v;
+    }
+
+    @Test
+    void getFeed_ShouldReturnOk() throws Exception {
+        Vibe v = vibe(1L, "Test content");
 
-        given(vibeService.getFeed("tester", 0, 10))
+        given(vibeService.getFeed(TESTER, 0, 10))
                 .willReturn(new PageImpl<>(List.of(v)));
 
-        mockMvc.perform(get("/api/v1/vibes/feed"))
+        mockMvc.perform(get("/api/v1/vibes/feed").with(signedIn(TESTER)))
                 .andExpect(status().isOk());
     }
 
     @Test
-    @WithMockUser(username = "tester")
+    void getFeed_ShouldOnlyExposeResponseFields() throws Exception {
+        given(vibeService.getFeed(TESTER, 0, 10))
+                .willReturn(new PageImpl<>(List.of(vibe(1L, "Test content"))));
+
+        mockMvc.perform(get("/api/v1/vibes/feed").with(signedIn(TESTER)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].user.username").value("tester"))
+                .andExpect(jsonPath("$.content[0].user.password").doesNotExist())
+                .andExpect(jsonPath("$.content[0].user.email").doesNotExist())
+                .andExpect(jsonPath("$.content[0].comments").doesNotExist())
+                .andExpect(jsonPath("$.content[0].likes").doesNotExist());
+    }
+
+    @Test
+    void getFeed_WithCursor_ShouldReturnSlice() throws Exception {
+        Vibe v = vibe(1L, "Test content");
+
+        given(vibeService.getFeedSlice(TESTER, "", 10))
+                .willReturn(new CursorSlice<>(List.of(v), "next-token"));
+
+        mockMvc.perform(get("/api/v1/vibes/feed").param("cursor", "").with(signedIn(TESTER)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.nextCursor").value("next-token"))
+                .andExpect(jsonPath("$.hasNext").value(true))
+                .andExpect(jsonPath("$.content[0].content").value("Test content"));
+    }
+
+    @Test
+    @WithMockUser
+    void getUserVibes_WithCursor_ShouldReturnSlice() throws Exception {
+        given(vibeService.getUserVibesSlice(1L, "abc", 5))
+                .willReturn(new CursorSlice<>(List.of(), null));
+
+        mockMvc.perform(get("/api/v1/vibes/user/{userId}", 1L)
+                        .param("cursor", "abc")
+                        .param("size", "5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.hasNext").value(false));
+    }
+
+    @Test
     void createVibe_ShouldReturnCreated() throws Exception {
-        Vibe created = new Vibe();
-        created.setId(1L);
+        Vibe created = vibe(1L, "New Vibe");
 
-        given(vibeService.createVibe(eq("tester"), any(), any(), any()))
+        given(vibeService.createVibe(eq(TESTER), any(), any(), any()))
                 .willReturn(created);
 
         mockMvc.perform(multipart("/api/v1/vibes")
                         .param("content", "New Vibe")
                         .param("privacy", "PUBLIC")
-                        .with(csrf()))
+                        .with(csrf()).with(signedIn(TESTER)))
                 .andExpect(status().isCreated());
     }
 
+    @Test
+    void createVibeFromImage_ShouldStreamBodyToService() throws Exception {
+        Vibe created = vibe(2L, "Raw");
+        byte[] png = {(byte) 0x89, 'P', 'N', 'G', 0x0D, 0x0A, 0x1A, 0x0A};
+
+        given(vibeService.createVibeWithImage(eq(TESTER), eq("Raw"), any(InputStream.class), eq(PrivacyStatus.PUBLIC)))
+                .willAnswer(inv -> {
+                    assertThat(inv.getArgument(2, InputStream.class).readAllBytes()).isEqualTo(png);
+                    return created;
+                });
+
+        mockMvc.perform(post("/api/v1/vibes")
+                        .param("content", "Raw")
+                        .param("privacy", "PUBLIC")
+                        .contentType(MediaType.IMAGE_PNG)
+                        .content(png)
+                        .with(csrf()).with(signedIn(TESTER)))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.id").value(2));
+    }
+
     @Test
     void getFeed_WhenUnauthenticated_ShouldReturnUnauthorized() throws Exception {
         mockMvc.perform(get("/api/v1/vibes/feed"))
@@ -70,8 +152,8 @@ class VibeControllerTest {
     @Test
     @WithMockUser
     void getUserVibes_ShouldReturnOk() throws Exception {
-        Vibe vibe = new Vibe();
-        vibe.setContent("User vibe");
+        VibeResponse vibe = new VibeResponse(3L, "User vibe", null, null, PrivacyStatus.PUBLIC,
+                LocalDateTime.of(2024, 1, 1, 10, 0), 0, 0, 1L, "tester", null, null);
 
         given(vibeService.getUserVibes(1L, 0, 10))
                 .willReturn(new PageImpl<>(List.of(vibe)));
@@ -81,14 +163,15 @@ class VibeControllerTest {
     }
 
     @Test
-    @WithMockUser(username = "tester")
     void deleteVibe_ShouldReturnNoContent() throws Exception {
         mockMvc.perform(
                         org.springframework.test.web.servlet.request.MockMvcRequestBuilders
                                 .delete("/api/v1/vibes/{id}", 1L)
-                                .with(csrf())
+                                .with(csrf()).with(signedIn(TESTER))
                 )
                 .andExpect(status().isNoContent());
+
+        verify(vibeService).deleteVibe(1L, TESTER);
     }
 
     @Test
@@ -102,13 +185,10 @@ class VibeControllerTest {
     }
 
     @Test
-    @WithMockUser(username = "tester")
     void updateVibe_ShouldReturnOk() throws Exception {
-        Vibe updated = new Vibe();
-        updated.setId(1L);
-        updated.setContent("Updated content");
+        Vibe updated = vibe(1L, "Updated content");
 
-        given(vibeService.updateVibe(eq(1L), eq("tester"), any(), any()))
+        given(vibeService.updateVibe(eq(1L), eq(TESTER), any(), any()))
                 .willReturn(updated);
 
         mockMvc.perform(
@@ -116,7 +196,7 @@ class VibeControllerTest {
                                 .put("/api/v1/vibes/{id}", 1L)
                                 .param("content", "Updated content")
                                 .param("privacy", "PUBLIC")
-                                .with(csrf())
+                                .with(csrf()).with(signedIn(TESTER))
                 )
                 .andExpect(status().isOk());
     }
@@ -5,8 +5,11 @@ import com.example.vibelet.model.*;
 import com.example.vibelet.repository.FriendshipRepository;
 import com.example.vibelet.repository.UserRepository;
 import com.example.vibelet.repository.VibeRepository;
+import com.example.vibelet.security.CurrentUser;
 import com.example.vibelet.security.CustomUserDetailsService;
 import com.example.vibelet.security.SecurityConfig;
+import com.example.vibelet.security.TokenService;
+import com.example.vibelet.security.VibeletUserDetails;
 import com.example.vibelet.service.*;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
@@ -22,6 +25,7 @@ import org.springframework.core.annotation.Order;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.security.core.authority.AuthorityUtils;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
@@ -30,6 +34,7 @@ import org.springframework.web.servlet.ViewResolver;
 
 import java.util.*;
 
+import static org.hamcrest.Matchers.hasSize;
 import static org.junit.jupiter.api.Assertions.assertInstanceOf;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.BDDMockito.given;
@@ -39,7 +44,7 @@ import static org.springframework.test.web.servlet.request.MockMvcRequestBuilder
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @WebMvcTest(WebController.class)
-@Import(SecurityConfig.class)
+@Import({SecurityConfig.class, TokenService.class, MediaUrls.class})
 class WebControllerTest {
     @Autowired private MockMvc mockMvc;
 
@@ -47,6 +52,7 @@ class WebControllerTest {
     @MockitoBean private UserService userService;
     @MockitoBean private AuthService authService;
     @MockitoBean private FriendshipService friendshipService;
+    @MockitoBean private FeedViewService feedViewService;
     @MockitoBean private UserRepository userRepository;
     @MockitoBean private VibeRepository vibeRepository;
     @MockitoBean private CustomUserDetailsService customUserDetailsService;
@@ -87,6 +93,10 @@ class WebControllerTest {
         otherUser = new User();
         otherUser.setId(2L);
         otherUser.setUsername("other");
+
+        // @WithMockUser principals carry no id, so they go through the one-off lookup.
+        given(customUserDetailsService.loadUserByUsername("user")).willReturn(
+                new VibeletUserDetails(CurrentUser.of(currentUser), "pass", AuthorityUtils.createAuthorityList("ROLE_USER")));
     }
 
     @Test
@@ -157,9 +167,8 @@ class WebControllerTest {
     @Test
     @WithMockUser(username = "user")
     void feed_ReturnsFeedView() throws Exception {
-        given(userRepository.findByUsername("user")).willReturn(Optional.of(currentUser));
-        given(vibeRepository.findFeedForUser(any(), any(), any(), any()))
-                .willReturn(Page.empty());
+        given(userRepository.findById(1L)).willReturn(Optional.of(currentUser));
+        given(vibeService.getFeed(CurrentUser.of(currentUser), 0, 50)).willReturn(Page.empty());
 
         mockMvc.perform(get("/vibes"))
                 .andExpect(status().isOk())
@@ -191,7 +200,7 @@ class WebControllerTest {
     @Test
     @WithMockUser(username = "user")
     void profile_ReturnsProfileView() throws Exception {
-        given(userRepository.findByUsername("user")).willReturn(Optional.of(currentUser));
+        given(userRepository.findById(1L)).willReturn(Optional.of(currentUser));
 
         mockMvc.perform(get("/profile"))
                 .andExpect(status().isOk())
@@ -202,7 +211,7 @@ class WebControllerTest {
     @Test
     @WithMockUser(username = "user")
     void profile_UserNotFound_Throws() throws Exception {
-        given(userRepository.findByUsername("user")).willReturn(Optional.empty());
+        given(userRepository.findById(1L)).willReturn(Optional.empty());
 
         mockMvc.perform(get("/profile"))
                 .andExpect(result -> assertInstanceOf(RuntimeException.class, result.getResolvedException()));
@@ -211,9 +220,9 @@ class WebControllerTest {
     @Test
     @WithMockUser(username = "user")
     void explore_WithQuery_ReturnsResults() throws Exception {
-        given(userRepository.findByUsername("user")).willReturn(Optional.of(currentUser));
-        given(userService.searchUsers("query", "user"))
-                .willReturn(List.of(new UserSearchDto(otherUser.getId(), "other", null, "NONE")));
+        given(userRepository.findById(1L)).willReturn(Optional.of(currentUser));
+        given(userService.searchUsers("query", CurrentUser.of(currentUser), 0, 50))
+                .willReturn(List.of(new UserSearchDto(otherUser.getId(), "other", null, null, "NONE")));
 
         mockMvc.perform(get("/explore").param("query", "query"))
                 .andExpect(status().isOk())
@@ -224,27 +233,28 @@ class WebControllerTest {
     @Test
     @WithMockUser(username = "user")
     void explore_NoQuery_ReturnsAllUsersExceptCurrent() throws Exception {
-        given(userRepository.findByUsername("user")).willReturn(Optional.of(currentUser));
+        given(userRepository.findById(1L)).willReturn(Optional.of(currentUser));
         given(userRepository.findAll(any(PageRequest.class)))
                 .willReturn(new PageImpl<>(List.of(currentUser, otherUser)));
-        given(userService.mapToSearchDto(eq(currentUser), any())).willReturn(new UserSearchDto(currentUser.getId(), "user", null, "SELF"));
-        given(userService.mapToSearchDto(eq(otherUser), any())).willReturn(new UserSearchDto(otherUser.getId(), "other", null, "NONE"));
+        given(userService.mapToSearchDtos(List.of(otherUser), 1L))
+                .willReturn(List.of(new UserSearchDto(otherUser.getId(), "other", null, null, "NONE")));
 
         mockMvc.perform(get("/explore"))
                 .andExpect(status().isOk())
                 .andExpect(view().name("explore"))
-                .andExpect(model().attributeExists("searchResults"));
+                .andExpect(model().attribute("searchResults", hasSize(1)));
     }
 
     @Test
     @WithMockUser(username = "user")
     void friends_ReturnsFriendsAndRequests() throws Exception {
-        given(friendshipService.getAcceptedFriendships("user"))
+        given(userRepository.findById(1L)).willReturn(Optional.of(currentUser));
+        given(friendshipService.getAcceptedFriendships(CurrentUser.of(currentUser)))
                 .willReturn(List.of(new Friendship() {{
                     setRequester(currentUser);
                     setReceiver(otherUser);
                 }}));
-        given(friendshipService.getPendingRequests("user"))
+        given(friendshipService.getPendingRequests(CurrentUser.of(currentUser)))
                 .willReturn(List.of(new Friendship() {{
                     setRequester(otherUser);
                     setReceiver(currentUser);
@@ -261,7 +271,7 @@ class WebControllerTest {
     @WithMockUser(username = "user")
     void userProfile_ReturnsUserProfile() throws Exception {
         given(userRepository.findById(2L)).willReturn(Optional.of(otherUser));
-        given(userRepository.findByUsername("user")).willReturn(Optional.of(currentUser));
+        given(userRepository.findById(1L)).willReturn(Optional.of(currentUser));
 
         Friendship friendship = new Friendship();
         friendship.setId(99L);
@@ -269,11 +279,10 @@ class WebControllerTest {
         friendship.setReceiver(otherUser);
         friendship.setStatus(FriendshipStatus.ACCEPTED);
 
-        given(friendshipService.getFriendshipRepository()).willReturn(friendshipRepository);
-        given(friendshipRepository.findByRequesterAndReceiver(currentUser, otherUser))
+        given(friendshipService.findRelationship(currentUser, otherUser))
                 .willReturn(Optional.of(friendship));
 
-        given(friendshipService.getAcceptedFriendships("other")).willReturn(List.of());
+        given(friendshipService.countFriends(otherUser)).willReturn(1);
         given(vibeRepository.findByUserOrderByCreatedAtDesc(eq(otherUser), any(PageRequest.class)))
                 .willReturn(new PageImpl<>(List.of()));
         given(vibeRepository.countByUser(otherUser)).willReturn(0L);
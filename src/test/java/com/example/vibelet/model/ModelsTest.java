@@ -114,7 +114,7 @@ class ModelsTest {
 
     @Test
     void testUserSearchDto(){
-        UserSearchDto us = new UserSearchDto(1L, "u", "a", "s");
+        UserSearchDto us = new UserSearchDto(1L, "u", "a", null, "s");
         assertAll(
                 ()->assertEquals(1L, us.getId()),
                 ()->assertEquals("u", us.getUsername()),
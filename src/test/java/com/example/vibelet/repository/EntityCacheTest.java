@@ -0,0 +1,116 @@
+package com.example.vibelet.repository;
+
+import com.example.vibelet.model.PrivacyStatus;
+import com.example.vibelet.model.User;
+import com.example.vibelet.model.Vibe;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.cache.use_second_level_cache=true",
+        "spring.jpa.properties.hibernate.cache.region.factory_class=jcache",
+        "spring.jpa.properties.hibernate.javax.cache.provider=com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider",
+        "spring.jpa.properties.hibernate.javax.cache.missing_cache_strategy=create",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class EntityCacheTest {
+    @Autowired private UserRepository userRepository;
+    @Autowired private VibeRepository vibeRepository;
+    @Autowired private EntityManagerFactory entityManagerFactory;
+    @Autowired private PlatformTransactionManager transactionManager;
+    @Autowired private DataSource dataSource;
+
+    private Statistics statistics;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        String name = "cached-" + UUID.randomUUID().toString().substring(0, 8);
+        user = userRepository.save(new User(name, name + "@test.com", "pass"));
+        entityManagerFactory.getCache().evictAll();
+    }
+
+    @Test
+    void findById_ShouldBeServedFromCacheAfterFirstLoad() {
+        userRepository.findById(user.getId()).orElseThrow();
+        statistics.clear();
+
+        User again = userRepository.findById(user.getId()).orElseThrow();
+
+        assertThat(again.getUsername()).isEqualTo(user.getUsername());
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+        assertThat(statistics.getSecondLevelCacheHitCount()).isPositive();
+    }
+
+    @Test
+    void findByUsername_ShouldResolveThroughNaturalIdCache() {
+        userRepository.findByUsername(user.getUsername()).orElseThrow();
+        statistics.clear();
+
+        User again = userRepository.findByUsername(user.getUsername()).orElseThrow();
+
+        assertThat(again.getId()).isEqualTo(user.getId());
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+    }
+
+    @Test
+    void rename_ShouldMoveNaturalIdMapping() {
+        String oldName = user.getUsername();
+        userRepository.findByUsername(oldName).orElseThrow();
+
+        User loaded = userRepository.findById(user.getId()).orElseThrow();
+        loaded.setUsername(oldName + "-new");
+        userRepository.save(loaded);
+
+        assertThat(userRepository.findByUsername(oldName)).isEmpty();
+        assertThat(userRepository.findByUsername(oldName + "-new")).map(User::getId).contains(user.getId());
+    }
+
+    @Test
+    void uncachedLookups_ShouldSeeChangesMadeOnAnotherNode() {
+        String oldName = user.getUsername();
+        userRepository.findById(user.getId()).orElseThrow();
+        userRepository.findByUsername(oldName).orElseThrow();
+
+        // Another node changes the row; nothing evicts this node's cache.
+        new JdbcTemplate(dataSource).update("UPDATE users SET password = 'changed', username = ? WHERE id = ?",
+                oldName + "-x", user.getId());
+
+        assertThat(userRepository.findById(user.getId()).orElseThrow().getPassword()).isEqualTo("pass");
+        assertThat(userRepository.findUncachedById(user.getId()).orElseThrow().getPassword()).isEqualTo("changed");
+        assertThat(userRepository.findUncachedByUsername(oldName)).isEmpty();
+        assertThat(userRepository.findUncachedByUsername(oldName + "-x")).map(User::getId).contains(user.getId());
+    }
+
+    @Test
+    void counterUpdate_ShouldEvictCachedVibe() {
+        Vibe vibe = new Vibe();
+        vibe.setUser(user);
+        vibe.setContent("popular");
+        vibe.setPrivacyStatus(PrivacyStatus.PUBLIC);
+        Long vibeId = vibeRepository.save(vibe).getId();
+        assertThat(vibeRepository.findById(vibeId).orElseThrow().getLikeCount()).isZero();
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> vibeRepository.adjustLikeCount(vibeId, 1));
+        vibeRepository.evictFromCache(vibeId);
+
+        assertThat(vibeRepository.findById(vibeId).orElseThrow().getLikeCount()).isEqualTo(1);
+    }
+}
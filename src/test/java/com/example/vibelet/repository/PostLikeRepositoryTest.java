@@ -0,0 +1,79 @@
+package com.example.vibelet.repository;
+
+import com.example.vibelet.model.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+class PostLikeRepositoryTest {
+    @Autowired
+    private PostLikeRepository postLikeRepository;
+
+    @Autowired
+    private VibeRepository vibeRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private FriendshipRepository friendshipRepository;
+
+    private User me;
+    private User other;
+
+    @BeforeEach
+    void setUp() {
+        me = userRepository.save(new User("me", "me@test.com", "pass"));
+        other = userRepository.save(new User("other", "other@test.com", "pass"));
+    }
+
+    @Test
+    void insertIfPermitted_ShouldBeIdempotent() {
+        Vibe vibe = createVibe(other, PrivacyStatus.PUBLIC);
+
+        assertThat(postLikeRepository.insertIfPermitted(vibe.getId(), me.getId())).isEqualTo(1);
+        assertThat(postLikeRepository.insertIfPermitted(vibe.getId(), me.getId())).isZero();
+        assertThat(postLikeRepository.count()).isEqualTo(1);
+    }
+
+    @Test
+    void insertIfPermitted_ShouldRespectPrivacy() {
+        Vibe secret = createVibe(other, PrivacyStatus.PRIVATE);
+        Vibe friendsOnly = createVibe(other, PrivacyStatus.FRIENDS_ONLY);
+
+        assertThat(postLikeRepository.insertIfPermitted(secret.getId(), me.getId())).isZero();
+        assertThat(postLikeRepository.insertIfPermitted(friendsOnly.getId(), me.getId())).isZero();
+
+        Friendship f = new Friendship();
+        f.setRequester(me);
+        f.setReceiver(other);
+        f.setStatus(FriendshipStatus.ACCEPTED);
+        friendshipRepository.save(f);
+
+        assertThat(postLikeRepository.insertIfPermitted(friendsOnly.getId(), me.getId())).isEqualTo(1);
+        assertThat(postLikeRepository.insertIfPermitted(secret.getId(), other.getId())).isEqualTo(1);
+    }
+
+    @Test
+    void deleteByVibeIdAndUserId_ShouldOnlyRemoveOwnLike() {
+        Vibe vibe = createVibe(other, PrivacyStatus.PUBLIC);
+        postLikeRepository.insertIfPermitted(vibe.getId(), me.getId());
+        postLikeRepository.insertIfPermitted(vibe.getId(), other.getId());
+
+        assertThat(postLikeRepository.deleteByVibeIdAndUserId(vibe.getId(), me.getId())).isEqualTo(1);
+        assertThat(postLikeRepository.deleteByVibeIdAndUserId(vibe.getId(), me.getId())).isZero();
+        assertThat(postLikeRepository.count()).isEqualTo(1);
+    }
+
+    private Vibe createVibe(User user, PrivacyStatus privacy) {
+        Vibe v = new Vibe();
+        v.setUser(user);
+        v.setContent("vibe");
+        v.setPrivacyStatus(privacy);
+        return vibeRepository.saveAndFlush(v);
+    }
+}
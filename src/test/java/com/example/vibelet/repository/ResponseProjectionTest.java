@@ -0,0 +1,146 @@
+package com.example.vibelet.repository;
+
+import com.example.vibelet.dto.FriendRequestResponse;
+import com.example.vibelet.dto.FriendResponse;
+import com.example.vibelet.dto.VibeResponse;
+import com.example.vibelet.model.*;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class ResponseProjectionTest {
+    private static final int VIBES = 20;
+
+    @Autowired private VibeRepository vibeRepository;
+    @Autowired private UserRepository userRepository;
+    @Autowired private FriendshipRepository friendshipRepository;
+    @Autowired private PostLikeRepository postLikeRepository;
+    @Autowired private CommentRepository commentRepository;
+    @Autowired private EntityManager entityManager;
+    @Autowired private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void userVibes_ProjectionShouldUseConstantQueriesWhereEntitiesGrowWithPageSize() throws Exception {
+        User author = userRepository.save(new User("author", "author@test.com", "secret-hash"));
+        User fan = userRepository.save(new User("fan", "fan@test.com", "secret-hash"));
+        for (int i = 0; i < VIBES; i++) {
+            Vibe vibe = createVibe(author, "vibe " + i);
+            like(vibe, fan);
+            comment(vibe, fan, "nice " + i);
+        }
+        entityManager.flush();
+        entityManager.clear();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        // What serializing the entity page used to do: author, comments and likes per row.
+        statistics.clear();
+        Page<Vibe> entities = vibeRepository.findByUserOrderByCreatedAtDesc(author, PageRequest.of(0, VIBES));
+        entities.forEach(v -> {
+            v.getUser().getUsername();
+            v.getComments().forEach(c -> c.getUser().getUsername());
+            v.getLikes().size();
+        });
+        long entityStatements = statistics.getPrepareStatementCount();
+        entityManager.clear();
+
+        statistics.clear();
+        Page<VibeResponse> responses = vibeRepository.findResponsesByUserId(author.getId(), PageRequest.of(0, VIBES));
+        String json = new ObjectMapper().findAndRegisterModules().writeValueAsString(responses.getContent());
+
+        assertThat(responses.getContent()).hasSize(VIBES);
+        assertThat(responses.getTotalElements()).isEqualTo(VIBES);
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(2);
+        assertThat(statistics.getEntityLoadCount()).isZero();
+        assertThat(entityStatements).isGreaterThan(2L * VIBES);
+        assertThat(json).contains("\"username\":\"author\"", "\"likeCount\":1", "\"commentCount\":1")
+                .doesNotContain("secret-hash", "author@test.com", "comments", "likes");
+    }
+
+    @Test
+    void userVibes_CursorProjectionShouldSeekPastTheCursor() {
+        User author = userRepository.save(new User("author", "author@test.com", "pass"));
+        for (int i = 0; i < 3; i++) {
+            createVibe(author, "vibe " + i);
+        }
+        entityManager.flush();
+
+        List<VibeResponse> first = vibeRepository.findLatestByUserId(author.getId(), PageRequest.of(0, 2));
+        VibeResponse last = first.get(1);
+        List<VibeResponse> rest = vibeRepository.findByUserIdBefore(author.getId(), last.getCreatedAt(), last.getId(), PageRequest.of(0, 2));
+
+        assertThat(first).hasSize(2);
+        assertThat(rest).hasSize(1);
+        assertThat(rest.get(0).getId()).isLessThan(last.getId());
+        assertThat(rest.get(0).getUser().getUsername()).isEqualTo("author");
+    }
+
+    @Test
+    void friendProjections_ShouldReturnTheOtherSideWithoutLoadingEntities() {
+        User me = userRepository.save(new User("me", "me@test.com", "pass"));
+        User asked = userRepository.save(new User("asked", "asked@test.com", "pass"));
+        User askedMe = userRepository.save(new User("askedme", "askedme@test.com", "pass"));
+        User pending = userRepository.save(new User("pending", "pending@test.com", "pass"));
+        friendship(me, asked, FriendshipStatus.ACCEPTED);
+        friendship(askedMe, me, FriendshipStatus.ACCEPTED);
+        Friendship request = friendship(pending, me, FriendshipStatus.PENDING);
+        entityManager.flush();
+        entityManager.clear();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        List<FriendResponse> friends = friendshipRepository.findFriendResponses(me.getId());
+        List<FriendRequestResponse> requests = friendshipRepository.findPendingRequestResponses(me.getId());
+
+        assertThat(friends).extracting(FriendResponse::getUsername).containsExactly("asked", "askedme");
+        assertThat(requests).hasSize(1);
+        assertThat(requests.get(0).getId()).isEqualTo(request.getId());
+        assertThat(requests.get(0).getRequester().getUsername()).isEqualTo("pending");
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+        assertThat(statistics.getEntityLoadCount()).isZero();
+    }
+
+    private Friendship friendship(User requester, User receiver, FriendshipStatus status) {
+        Friendship f = new Friendship();
+        f.setRequester(requester);
+        f.setReceiver(receiver);
+        f.setStatus(status);
+        return friendshipRepository.save(f);
+    }
+
+    private Vibe createVibe(User user, String content) {
+        Vibe v = new Vibe();
+        v.setUser(user);
+        v.setContent(content);
+        v.setPrivacyStatus(PrivacyStatus.PUBLIC);
+        return vibeRepository.save(v);
+    }
+
+    private void like(Vibe vibe, User user) {
+        PostLike like = new PostLike();
+        like.setVibe(vibe);
+        like.setUser(user);
+        postLikeRepository.save(like);
+        vibeRepository.adjustLikeCount(vibe.getId(), 1);
+    }
+
+    private void comment(Vibe vibe, User user, String content) {
+        Comment comment = new Comment();
+        comment.setVibe(vibe);
+        comment.setUser(user);
+        comment.setContent(content);
+        commentRepository.save(comment);
+        vibeRepository.adjustCommentCount(vibe.getId(), 1);
+    }
+}
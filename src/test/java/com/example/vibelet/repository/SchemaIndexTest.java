@@ -0,0 +1,56 @@
+package com.example.vibelet.repository;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs the SQL shapes of the hot repository queries through H2's EXPLAIN against the
+ * Flyway-built schema, so dropping or reshaping one of the migration indexes fails here.
+ */
+@DataJpaTest
+class SchemaIndexTest {
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void findByReceiverAndStatus_ShouldUseReceiverStatusIndex() {
+        String plan = explain("SELECT * FROM friendships WHERE receiver_id = 1 AND status = 'PENDING'");
+
+        assertThat(plan).containsIgnoringCase("idx_friendships_receiver_status");
+    }
+
+    @Test
+    void findByUserOrderByCreatedAtDesc_ShouldUseUserCreatedIndex() {
+        String plan = explain("SELECT * FROM vibes WHERE user_id = 1 ORDER BY created_at DESC");
+
+        assertThat(plan).containsIgnoringCase("idx_vibes_user_created");
+    }
+
+    @Test
+    void findFeedForUser_ShouldResolveFriendsThroughIndexes() {
+        String plan = explain("SELECT v.id FROM vibes v WHERE v.user_id = 1 " +
+                "OR ((v.user_id IN (SELECT f.receiver_id FROM friendships f WHERE f.requester_id = 1 AND f.status = 'ACCEPTED') " +
+                "  OR v.user_id IN (SELECT f.requester_id FROM friendships f WHERE f.receiver_id = 1 AND f.status = 'ACCEPTED')) " +
+                "  AND v.privacy_status <> 'PRIVATE') " +
+                "OR v.privacy_status = 'PUBLIC' " +
+                "ORDER BY v.created_at DESC");
+
+        assertThat(plan).containsIgnoringCase("uk_friendships_requester_receiver");
+        assertThat(plan).containsIgnoringCase("idx_friendships_receiver_status");
+    }
+
+    @Test
+    void publicStream_ShouldUsePublicVibesIndex() {
+        String plan = explain("SELECT * FROM vibes WHERE privacy_status = 'PUBLIC' ORDER BY created_at DESC, id DESC");
+
+        assertThat(plan).containsIgnoringCase("idx_vibes_public_created");
+    }
+
+    private String explain(String sql) {
+        return jdbcTemplate.queryForObject("EXPLAIN " + sql, String.class);
+    }
+}
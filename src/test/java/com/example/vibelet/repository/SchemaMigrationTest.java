@@ -0,0 +1,71 @@
+package com.example.vibelet.repository;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Upgrades a database the way production ones were created before Flyway (ddl-auto=update
+ * from the original entities): it is baselined at V1 and must receive everything after it.
+ */
+class SchemaMigrationTest {
+    private static final String LEGACY_SCHEMA = """
+            CREATE TABLE users (id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+                username VARCHAR(255) NOT NULL UNIQUE, email VARCHAR(255) NOT NULL UNIQUE,
+                password VARCHAR(255) NOT NULL, avatar_url VARCHAR(255), bio VARCHAR(255),
+                status VARCHAR(255), created_at TIMESTAMP(6));
+            CREATE TABLE vibes (id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, content TEXT,
+                image_url VARCHAR(255), privacy_status VARCHAR(255) NOT NULL,
+                user_id BIGINT NOT NULL REFERENCES users (id), created_at TIMESTAMP(6));
+            CREATE TABLE comments (id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+                content VARCHAR(255) NOT NULL, vibe_id BIGINT NOT NULL REFERENCES vibes (id),
+                user_id BIGINT NOT NULL REFERENCES users (id), created_at TIMESTAMP(6));
+            CREATE TABLE post_likes (id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+                vibe_id BIGINT NOT NULL REFERENCES vibes (id), user_id BIGINT NOT NULL REFERENCES users (id),
+                UNIQUE (vibe_id, user_id));
+            CREATE TABLE friendships (id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+                requester_id BIGINT NOT NULL REFERENCES users (id), receiver_id BIGINT NOT NULL REFERENCES users (id),
+                status VARCHAR(255) NOT NULL, created_at TIMESTAMP(6), UNIQUE (requester_id, receiver_id));
+            """;
+
+    @Test
+    void migrate_LegacyDatabase_ShouldAddSeriesSchemaAndBackfill() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:legacy;DB_CLOSE_DELAY=-1;MODE=PostgreSQL", "sa", "");
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        for (String statement : LEGACY_SCHEMA.split(";")) {
+            if (!statement.isBlank()) {
+                jdbc.execute(statement);
+            }
+        }
+        jdbc.update("INSERT INTO users (id, username, email, password) VALUES (1, 'author', 'a@test.com', 'x'), (2, 'fan', 'f@test.com', 'x')");
+        jdbc.update("INSERT INTO vibes (id, content, privacy_status, user_id) VALUES (10, 'hello', 'PUBLIC', 1), (11, 'quiet', 'FRIENDS_ONLY', 1)");
+        jdbc.update("INSERT INTO friendships (requester_id, receiver_id, status) VALUES (1, 2, 'ACCEPTED')");
+        jdbc.update("INSERT INTO post_likes (vibe_id, user_id) VALUES (10, 1), (10, 2)");
+        jdbc.update("INSERT INTO comments (content, vibe_id, user_id) VALUES ('nice', 10, 2)");
+
+        Flyway.configure()
+                .dataSource(dataSource)
+                .locations("classpath:db/migration/common", "classpath:db/migration/h2")
+                .baselineOnMigrate(true)
+                .baselineVersion("1")
+                .load()
+                .migrate();
+
+        Map<String, Object> counted = jdbc.queryForMap("SELECT like_count, comment_count, image_variants FROM vibes WHERE id = 10");
+        assertThat(((Number) counted.get("like_count")).longValue()).isEqualTo(2);
+        assertThat(((Number) counted.get("comment_count")).longValue()).isEqualTo(1);
+        assertThat(jdbc.queryForObject("SELECT like_count FROM vibes WHERE id = 11", Long.class)).isZero();
+        assertThat(jdbc.queryForObject("SELECT COUNT(avatar_variants) FROM users", Long.class)).isZero();
+        assertThat(jdbc.queryForList("SELECT owner_id FROM timeline_entries WHERE vibe_id = 11 ORDER BY owner_id", Long.class))
+                .containsExactly(1L, 2L);
+        assertThat(jdbc.queryForObject("SELECT COUNT(*) FROM timeline_entries WHERE vibe_id = 10", Long.class)).isZero();
+        assertThat(jdbc.queryForObject("SELECT COUNT(*) FROM media_blobs", Long.class)).isZero();
+        assertThat(jdbc.queryForObject("SELECT COUNT(*) FROM timeline_rebuilds", Long.class)).isZero();
+    }
+}
@@ -1,6 +1,7 @@
 package com.example.vibelet.repository;
 
 import com.example.vibelet.model.*;
+import jakarta.persistence.EntityManager;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
@@ -20,6 +21,15 @@ class VibeRepositoryTest {
     @Autowired
     private FriendshipRepository friendshipRepository;
 
+    @Autowired
+    private PostLikeRepository postLikeRepository;
+
+    @Autowired
+    private CommentRepository commentRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
     @Test
     void findFeedForUser_ShouldReturnFriendsPostsAndMyPostsAndPublicPosts() {
         User me = userRepository.save(new User("me", "me@test.com", "pass"));
@@ -49,6 +59,42 @@ class VibeRepositoryTest {
                 .containsExactlyInAnyOrder("My vibe", "Friend vibe", "Stranger vibe");
     }
 
+    @Test
+    void discountBy_ShouldTakeOnlyThatUsersInteractionsOffOtherPeoplesVibes() {
+        User author = userRepository.save(new User("author", "author@test.com", "pass"));
+        User leaving = userRepository.save(new User("leaving", "leaving@test.com", "pass"));
+        User staying = userRepository.save(new User("staying", "staying@test.com", "pass"));
+        Vibe theirs = createVibe(author, "Author vibe", PrivacyStatus.PUBLIC);
+        Vibe own = createVibe(leaving, "Own vibe", PrivacyStatus.PUBLIC);
+        interact(theirs, leaving);
+        interact(theirs, staying);
+        interact(own, leaving);
+        entityManager.flush();
+
+        vibeRepository.discountLikesBy(leaving.getId());
+        vibeRepository.discountCommentsBy(leaving.getId());
+        entityManager.clear();
+
+        Vibe reloaded = vibeRepository.findById(theirs.getId()).orElseThrow();
+        assertThat(reloaded.getLikeCount()).isEqualTo(1);
+        assertThat(reloaded.getCommentCount()).isEqualTo(1);
+        assertThat(vibeRepository.findById(own.getId()).orElseThrow().getLikeCount()).isEqualTo(1);
+    }
+
+    private void interact(Vibe vibe, User user) {
+        PostLike like = new PostLike();
+        like.setVibe(vibe);
+        like.setUser(user);
+        postLikeRepository.save(like);
+        vibeRepository.adjustLikeCount(vibe.getId(), 1);
+        Comment comment = new Comment();
+        comment.setVibe(vibe);
+        comment.setUser(user);
+        comment.setContent("hi");
+        commentRepository.save(comment);
+        vibeRepository.adjustCommentCount(vibe.getId(), 1);
+    }
+
     private Vibe createVibe(User user, String content, PrivacyStatus privacy) {
         Vibe v = new Vibe();
         v.setUser(user);
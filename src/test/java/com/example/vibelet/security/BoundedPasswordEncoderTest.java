@@ -0,0 +1,118 @@
+package com.example.vibelet.security;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class BoundedPasswordEncoderTest {
+    private final CountDownLatch release = new CountDownLatch(1);
+    private BoundedPasswordEncoder encoder;
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        if (encoder != null) {
+            encoder.shutdown();
+        }
+    }
+
+    @Test
+    void encodeAndMatches_ShouldDelegate() {
+        encoder = new BoundedPasswordEncoder(new BCryptPasswordEncoder(4), 1, 4, Duration.ofSeconds(5));
+
+        String hash = encoder.encode("secret");
+
+        assertThat(encoder.matches("secret", hash)).isTrue();
+        assertThat(encoder.matches("wrong", hash)).isFalse();
+        assertThat(encoder.getStats().getCompleted()).isEqualTo(3);
+    }
+
+    @Test
+    void saturatedPool_ShouldShedInsteadOfQueueing() throws Exception {
+        encoder = new BoundedPasswordEncoder(blocking(), 1, 1, Duration.ofSeconds(5));
+
+        CompletableFuture<String> running = CompletableFuture.supplyAsync(() -> encoder.encode("a"));
+        await(() -> encoder.getStats().getActive() == 1);
+        CompletableFuture<String> queued = CompletableFuture.supplyAsync(() -> encoder.encode("b"));
+        await(() -> encoder.getStats().getQueued() == 1);
+
+        assertThrows(PasswordHashingBusyException.class, () -> encoder.encode("c"));
+        assertThat(encoder.getStats().getRejected()).isEqualTo(1);
+
+        release.countDown();
+        assertThat(running.get(5, TimeUnit.SECONDS)).isEqualTo("hash:a");
+        assertThat(queued.get(5, TimeUnit.SECONDS)).isEqualTo("hash:b");
+    }
+
+    @Test
+    void slowHash_ShouldGiveUpAfterMaxWait() {
+        encoder = new BoundedPasswordEncoder(blocking(), 1, 1, Duration.ofMillis(50));
+
+        assertThrows(PasswordHashingBusyException.class, () -> encoder.encode("a"));
+        assertThat(encoder.getStats().getTimedOut()).isEqualTo(1);
+    }
+
+    @Test
+    void upgradeEncoding_ShouldWaitForQuietPool() throws Exception {
+        encoder = new BoundedPasswordEncoder(new BCryptPasswordEncoder(6) {
+            @Override
+            public String encode(CharSequence rawPassword) {
+                awaitRelease();
+                return super.encode(rawPassword);
+            }
+        }, 1, 2, Duration.ofSeconds(5));
+        String weaker = new BCryptPasswordEncoder(4).encode("secret");
+
+        assertThat(encoder.upgradeEncoding(weaker)).isTrue();
+
+        CompletableFuture.runAsync(() -> encoder.encode("a"));
+        await(() -> encoder.getStats().getActive() == 1);
+        CompletableFuture.runAsync(() -> encoder.encode("b"));
+        await(() -> encoder.getStats().getQueued() == 1);
+
+        assertThat(encoder.upgradeEncoding(weaker)).isFalse();
+    }
+
+    private PasswordEncoder blocking() {
+        return new PasswordEncoder() {
+            @Override
+            public String encode(CharSequence rawPassword) {
+                awaitRelease();
+                return "hash:" + rawPassword;
+            }
+
+            @Override
+            public boolean matches(CharSequence rawPassword, String encodedPassword) {
+                return encode(rawPassword).equals(encodedPassword);
+            }
+        };
+    }
+
+    private void awaitRelease() {
+        try {
+            release.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) {
+                throw new AssertionError("condition not reached");
+            }
+            Thread.sleep(5);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.vibelet.security;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RateLimitFilterTest {
+
+    @Test
+    void requestsOverCapacity_ShouldBeRejectedWithRetryAfter() throws Exception {
+        RateLimitFilter filter = new RateLimitFilter("2/1h", "100/1m", "100/1m", "100/1m", 10);
+
+        assertThat(run(filter, post("/api/v1/vibes", "alice")).getStatus()).isEqualTo(200);
+        assertThat(run(filter, post("/api/v1/vibes", "alice")).getStatus()).isEqualTo(200);
+        MockHttpServletResponse rejected = run(filter, post("/api/v1/vibes", "alice"));
+
+        assertThat(rejected.getStatus()).isEqualTo(429);
+        assertThat(Long.parseLong(rejected.getHeader(HttpHeaders.RETRY_AFTER))).isBetween(1L, 1800L);
+        assertThat(filter.rejected("posts")).isEqualTo(1);
+    }
+
+    @Test
+    void buckets_ShouldBeSeparatePerUserAndGroup() throws Exception {
+        RateLimitFilter filter = new RateLimitFilter("1/1h", "1/1h", "1/1h", "1/1h", 10);
+
+        assertThat(run(filter, post("/api/v1/vibes", "alice")).getStatus()).isEqualTo(200);
+        assertThat(run(filter, post("/api/v1/vibes", "bob")).getStatus()).isEqualTo(200);
+        assertThat(run(filter, post("/api/v1/interactions/vibe/5/like", "alice")).getStatus()).isEqualTo(200);
+        assertThat(run(filter, post("/api/v1/interactions/vibe/5/comment", "alice")).getStatus()).isEqualTo(429);
+    }
+
+    @Test
+    void anonymousRequests_ShouldBeLimitedPerAddress() throws Exception {
+        RateLimitFilter filter = new RateLimitFilter("1/1h", "1/1h", "1/1h", "1/1h", 10);
+        MockHttpServletRequest first = new MockHttpServletRequest("GET", "/api/v1/users/search");
+        MockHttpServletRequest second = new MockHttpServletRequest("GET", "/api/v1/users/search");
+        second.setRemoteAddr("10.0.0.2");
+
+        assertThat(run(filter, first).getStatus()).isEqualTo(200);
+        assertThat(run(filter, second).getStatus()).isEqualTo(200);
+        assertThat(run(filter, new MockHttpServletRequest("GET", "/api/v1/users/search")).getStatus()).isEqualTo(429);
+    }
+
+    @Test
+    void signedInRequests_ShouldAlsoBeLimitedPerAddress() throws Exception {
+        RateLimitFilter filter = new RateLimitFilter("1/1h", "1/1h", "1/1h", "1/1h", 2);
+
+        assertThat(run(filter, post("/api/v1/vibes", "alice")).getStatus()).isEqualTo(200);
+        assertThat(run(filter, post("/api/v1/vibes", "bob")).getStatus()).isEqualTo(200);
+        assertThat(run(filter, post("/api/v1/vibes", "carol")).getStatus()).isEqualTo(429);
+
+        MockHttpServletRequest elsewhere = post("/api/v1/vibes", "carol");
+        elsewhere.setRemoteAddr("10.0.0.2");
+        assertThat(run(filter, elsewhere).getStatus()).isEqualTo(200);
+        assertThat(filter.rejected("posts")).isEqualTo(1);
+    }
+
+    @Test
+    void unlimitedEndpoints_ShouldPassThrough() throws Exception {
+        RateLimitFilter filter = new RateLimitFilter("1/1h", "1/1h", "1/1h", "1/1h", 10);
+
+        for (int i = 0; i < 3; i++) {
+            assertThat(run(filter, new MockHttpServletRequest("GET", "/api/v1/vibes/feed")).getStatus()).isEqualTo(200);
+        }
+    }
+
+    @Test
+    void sweep_ShouldKeepBucketsThatAreNotFull() throws Exception {
+        RateLimitFilter filter = new RateLimitFilter("1/1h", "1/1h", "1/1h", "1/1h", 10);
+        run(filter, post("/api/v1/friends/request/3", "alice"));
+
+        filter.sweep();
+
+        assertThat(run(filter, post("/api/v1/friends/request/4", "alice")).getStatus()).isEqualTo(429);
+    }
+
+    private static MockHttpServletRequest post(String path, String user) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", path);
+        request.setUserPrincipal(new TestingAuthenticationToken(user, null));
+        return request;
+    }
+
+    private static MockHttpServletResponse run(RateLimitFilter filter, MockHttpServletRequest request) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+}
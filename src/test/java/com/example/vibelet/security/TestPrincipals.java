@@ -0,0 +1,16 @@
+package com.example.vibelet.security;
+
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.test.web.servlet.request.RequestPostProcessor;
+
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+
+/** MockMvc principals shaped like the ones CustomUserDetailsService produces. */
+public final class TestPrincipals {
+    private TestPrincipals() {
+    }
+
+    public static RequestPostProcessor signedIn(CurrentUser me) {
+        return user(new VibeletUserDetails(me, "password", AuthorityUtils.createAuthorityList("ROLE_USER")));
+    }
+}
@@ -0,0 +1,126 @@
+package com.example.vibelet.security;
+
+import com.example.vibelet.dto.TokenResponse;
+import com.example.vibelet.model.User;
+import com.example.vibelet.repository.UserRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.core.Authentication;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class TokenServiceTest {
+    private static final String SECRET = "0123456789abcdef0123456789abcdef";
+    private static final Instant NOW = Instant.parse("2026-01-01T12:00:00Z");
+
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        user = new User("alice", "alice@test.com", "$2a$10$hash");
+        user.setId(7L);
+        when(userRepository.findUncachedById(7L)).thenReturn(Optional.of(user));
+    }
+
+    @Test
+    void issueThenAuthenticate_ShouldCarryIdNameAndRoles() {
+        TokenResponse tokens = service(NOW).issue(new CurrentUser(7L, "alice"));
+
+        Authentication auth = service(NOW).authenticate(tokens.getAccessToken());
+
+        VibeletUserDetails principal = (VibeletUserDetails) auth.getPrincipal();
+        assertThat(principal.getCurrentUser()).isEqualTo(new CurrentUser(7L, "alice"));
+        assertThat(auth.getAuthorities()).extracting("authority").containsExactly("ROLE_USER");
+        assertThat(tokens.getExpiresIn()).isEqualTo(900);
+    }
+
+    @Test
+    void authenticate_ShouldRejectExpiredToken() {
+        TokenResponse tokens = service(NOW).issue(new CurrentUser(7L, "alice"));
+
+        TokenService later = service(NOW.plus(Duration.ofMinutes(16)));
+
+        assertThrows(BadCredentialsException.class, () -> later.authenticate(tokens.getAccessToken()));
+    }
+
+    @Test
+    void authenticate_ShouldRejectTamperedSignature() {
+        String token = service(NOW).issue(new CurrentUser(7L, "alice")).getAccessToken();
+        TokenService other = new TokenService(userRepository, objectMapper,
+                "fedcba9876543210fedcba9876543210", Duration.ofMinutes(15), Duration.ofDays(14), clock(NOW));
+
+        assertThrows(BadCredentialsException.class, () -> other.authenticate(token));
+    }
+
+    @Test
+    void authenticate_ShouldRejectRefreshToken() {
+        String refresh = service(NOW).issue(new CurrentUser(7L, "alice")).getRefreshToken();
+
+        assertThrows(BadCredentialsException.class, () -> service(NOW).authenticate(refresh));
+    }
+
+    @Test
+    void authenticate_ShouldRejectTokenIssuedBeforeRename() {
+        TokenService service = service(NOW);
+        String access = service.issue(new CurrentUser(7L, "alice")).getAccessToken();
+
+        user.setUsername("alice2");
+
+        assertThrows(BadCredentialsException.class, () -> service.authenticate(access));
+    }
+
+    @Test
+    void authenticate_ShouldRejectTokenOfDeletedUser() {
+        TokenService service = service(NOW);
+        String access = service.issue(new CurrentUser(7L, "alice")).getAccessToken();
+
+        when(userRepository.findUncachedById(7L)).thenReturn(Optional.empty());
+
+        assertThrows(BadCredentialsException.class, () -> service.authenticate(access));
+    }
+
+    @Test
+    void refresh_ShouldIssueNewPair() {
+        String refresh = service(NOW).issue(new CurrentUser(7L, "alice")).getRefreshToken();
+
+        TokenResponse renewed = service(NOW.plus(Duration.ofHours(1))).refresh(refresh);
+
+        assertThat(renewed.getAccessToken()).isNotBlank();
+    }
+
+    @Test
+    void refresh_ShouldBeRevokedByPasswordChange() {
+        String refresh = service(NOW).issue(new CurrentUser(7L, "alice")).getRefreshToken();
+
+        user.setPassword("$2a$10$other");
+
+        assertThrows(BadCredentialsException.class, () -> service(NOW).refresh(refresh));
+    }
+
+    @Test
+    void constructor_ShouldRejectShortSecret() {
+        assertThrows(IllegalStateException.class, () -> new TokenService(userRepository, objectMapper,
+                "short", Duration.ofMinutes(15), Duration.ofDays(14), clock(NOW)));
+    }
+
+    private TokenService service(Instant now) {
+        return new TokenService(userRepository, objectMapper, SECRET, Duration.ofMinutes(15), Duration.ofDays(14), clock(now));
+    }
+
+    private static Clock clock(Instant now) {
+        return Clock.fixed(now, ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.vibelet.security;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.util.unit.DataSize;
+
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UploadLimitFilterTest {
+
+    @Test
+    void secondUploadFromSameUser_ShouldBeRejectedWhileFirstRuns() throws Exception {
+        UploadLimitFilter filter = new UploadLimitFilter(10, 1, DataSize.ofMegabytes(1));
+        MockHttpServletResponse nested = new MockHttpServletResponse();
+
+        MockHttpServletResponse first = run(filter, upload("alice"), (req, res) ->
+                filter.doFilter(upload("alice"), nested, new MockFilterChain()));
+
+        assertThat(first.getStatus()).isEqualTo(200);
+        assertThat(nested.getStatus()).isEqualTo(429);
+        assertThat(nested.getHeader(HttpHeaders.RETRY_AFTER)).isEqualTo("1");
+        assertThat(filter.inFlight()).isZero();
+    }
+
+    @Test
+    void globalLimit_ShouldRejectOtherUsers() throws Exception {
+        UploadLimitFilter filter = new UploadLimitFilter(1, 2, DataSize.ofMegabytes(1));
+        MockHttpServletResponse nested = new MockHttpServletResponse();
+
+        run(filter, upload("alice"), (req, res) ->
+                filter.doFilter(upload("bob"), nested, new MockFilterChain()));
+
+        assertThat(nested.getStatus()).isEqualTo(429);
+        assertThat(filter.inFlight()).isZero();
+    }
+
+    @Test
+    void declaredLengthOverLimit_ShouldBeRejectedWithoutReadingBody() throws Exception {
+        UploadLimitFilter filter = new UploadLimitFilter(10, 2, DataSize.ofKilobytes(1));
+        MockHttpServletRequest request = upload("alice");
+        request.setContent(new byte[2048]);
+        MockFilterChain chain = new MockFilterChain();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(request, response, chain);
+
+        assertThat(response.getStatus()).isEqualTo(413);
+        assertThat(chain.getRequest()).isNull();
+        assertThat(filter.getRejected()).isEqualTo(1);
+    }
+
+    @Test
+    void nonUploadRequests_ShouldPassThrough() throws Exception {
+        UploadLimitFilter filter = new UploadLimitFilter(0, 0, DataSize.ofKilobytes(1));
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/vibes");
+        MockFilterChain chain = new MockFilterChain();
+
+        filter.doFilter(request, new MockHttpServletResponse(), chain);
+
+        assertThat(chain.getRequest()).isSameAs(request);
+    }
+
+    private static MockHttpServletRequest upload(String user) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/v1/vibes");
+        request.setContentType("image/png");
+        request.setUserPrincipal(new TestingAuthenticationToken(user, null));
+        return request;
+    }
+
+    private static MockHttpServletResponse run(UploadLimitFilter filter, MockHttpServletRequest request, Body body) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain(new HttpServlet() {
+            @Override
+            protected void service(HttpServletRequest req, HttpServletResponse res) {
+                try {
+                    body.run(req, res);
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        }));
+        return response;
+    }
+
+    private interface Body {
+        void run(HttpServletRequest request, HttpServletResponse response) throws Exception;
+    }
+}
@@ -21,6 +21,9 @@ class AuthServiceTest {
     @Mock
     private PasswordEncoder passwordEncoder;
 
+    @Mock
+    private UserSearchIndex userSearchIndex;
+
     @InjectMocks
     private AuthService authService;
 
@@ -39,6 +42,7 @@ class AuthServiceTest {
                 user.getPassword().equals("encoded_secret") &&
                         user.getUsername().equals(username)
         ));
+        verify(userSearchIndex).put(any(), eq(username));
     }
 
     @Test
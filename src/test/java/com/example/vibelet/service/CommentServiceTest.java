@@ -2,7 +2,9 @@ package com.example.vibelet.service;
 
 import com.example.vibelet.model.Comment;
 import com.example.vibelet.model.User;
+import com.example.vibelet.model.Vibe;
 import com.example.vibelet.repository.CommentRepository;
+import com.example.vibelet.security.CurrentUser;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
@@ -16,15 +18,21 @@ import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
 class CommentServiceTest {
+    private static final CurrentUser ME = new CurrentUser(1L, ME);
+
     @Mock
     private CommentRepository commentRepository;
 
+    @Mock
+    private VibeCounterService vibeCounterService;
+
     @InjectMocks
     private CommentService commentService;
 
     @Test
     void updateComment_ShouldUpdate_WhenUserIsOwner() {
         User user = new User();
+        user.setId(1L);
         user.setUsername("me");
 
         Comment comment = new Comment();
@@ -33,7 +41,7 @@ class CommentServiceTest {
 
         when(commentRepository.findById(1L)).thenReturn(Optional.of(comment));
 
-        commentService.updateComment(1L, "new content", "me");
+        commentService.updateComment(1L, "new content", ME);
 
         verify(commentRepository).save(comment);
         verify(commentRepository).findById(1L);
@@ -42,7 +50,7 @@ class CommentServiceTest {
     @Test
     void updateComment_ShouldThrow_WhenContentIsNull() {
         assertThatThrownBy(() ->
-                commentService.updateComment(1L, null, "me")
+                commentService.updateComment(1L, null, ME)
         ).isInstanceOf(RuntimeException.class)
                 .hasMessage("Content cannot be empty");
 
@@ -52,7 +60,7 @@ class CommentServiceTest {
     @Test
     void updateComment_ShouldThrow_WhenContentIsBlank() {
         assertThatThrownBy(() ->
-                commentService.updateComment(1L, "   ", "me")
+                commentService.updateComment(1L, "   ", ME)
         ).isInstanceOf(RuntimeException.class)
                 .hasMessage("Content cannot be empty");
 
@@ -62,6 +70,7 @@ class CommentServiceTest {
     @Test
     void updateComment_ShouldThrow_WhenNotOwner() {
         User owner = new User();
+        owner.setId(2L);
         owner.setUsername("owner");
 
         Comment comment = new Comment();
@@ -70,7 +79,7 @@ class CommentServiceTest {
         when(commentRepository.findById(1L)).thenReturn(Optional.of(comment));
 
         assertThatThrownBy(() ->
-                commentService.updateComment(1L, "new", "me")
+                commentService.updateComment(1L, "new", ME)
         ).isInstanceOf(RuntimeException.class)
                 .hasMessage("Not authorized");
 
@@ -82,7 +91,7 @@ class CommentServiceTest {
         when(commentRepository.findById(1L)).thenReturn(Optional.empty());
 
         assertThatThrownBy(() ->
-                commentService.updateComment(1L, "new", "me")
+                commentService.updateComment(1L, "new", ME)
         ).isInstanceOf(RuntimeException.class)
                 .hasMessage("Comment not found");
     }
@@ -90,21 +99,28 @@ class CommentServiceTest {
     @Test
     void deleteComment_ShouldDelete_WhenUserIsOwner() {
         User user = new User();
+        user.setId(1L);
         user.setUsername("me");
 
+        Vibe vibe = new Vibe();
+        vibe.setId(5L);
+
         Comment comment = new Comment();
         comment.setUser(user);
+        comment.setVibe(vibe);
 
         when(commentRepository.findById(1L)).thenReturn(Optional.of(comment));
 
-        commentService.deleteComment(1L, "me");
+        commentService.deleteComment(1L, ME);
 
         verify(commentRepository).delete(comment);
+        verify(vibeCounterService).adjustComments(5L, -1);
     }
 
     @Test
     void deleteComment_ShouldThrow_WhenNotOwner() {
         User owner = new User();
+        owner.setId(2L);
         owner.setUsername("owner");
 
         Comment comment = new Comment();
@@ -113,7 +129,7 @@ class CommentServiceTest {
         when(commentRepository.findById(1L)).thenReturn(Optional.of(comment));
 
         assertThatThrownBy(() ->
-                commentService.deleteComment(1L, "me")
+                commentService.deleteComment(1L, ME)
         ).isInstanceOf(RuntimeException.class)
                 .hasMessage("Not authorized");
 
@@ -125,7 +141,7 @@ class CommentServiceTest {
         when(commentRepository.findById(1L)).thenReturn(Optional.empty());
 
         assertThatThrownBy(() ->
-                commentService.deleteComment(1L, "me")
+                commentService.deleteComment(1L, ME)
         ).isInstanceOf(RuntimeException.class)
                 .hasMessage("Comment not found");
     }
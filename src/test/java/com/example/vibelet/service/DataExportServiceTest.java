@@ -0,0 +1,111 @@
+package com.example.vibelet.service;
+
+import com.example.vibelet.model.*;
+import com.example.vibelet.repository.*;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@Import(ExportRepository.class)
+class DataExportServiceTest {
+    @Autowired private ExportRepository exportRepository;
+    @Autowired private UserRepository userRepository;
+    @Autowired private VibeRepository vibeRepository;
+    @Autowired private FriendshipRepository friendshipRepository;
+    @Autowired private PostLikeRepository postLikeRepository;
+    @Autowired private CommentRepository commentRepository;
+    @Autowired private PlatformTransactionManager transactionManager;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private DataExportService dataExportService;
+    private User exporter;
+    private User other;
+
+    @BeforeEach
+    void setUp() {
+        dataExportService = new DataExportService(exportRepository, objectMapper, transactionManager);
+        exporter = new User("exporter", "ex@test.com", "pass");
+        exporter.setBio("bio");
+        exporter = userRepository.save(exporter);
+        other = userRepository.save(new User("other", "other@test.com", "pass"));
+    }
+
+    @Test
+    void writeExport_ShouldWriteVibesCommentsAndLikes() throws Exception {
+        Vibe mine = createVibe(exporter, "hello");
+        mine.setImageUrl("/uploads/pic.png");
+        vibeRepository.saveAndFlush(mine);
+        Vibe theirs = createVibe(other, "theirs");
+
+        Comment comment = new Comment();
+        comment.setUser(exporter);
+        comment.setVibe(theirs);
+        comment.setContent("nice");
+        commentRepository.save(comment);
+        PostLike like = new PostLike();
+        like.setUser(exporter);
+        like.setVibe(theirs);
+        postLikeRepository.saveAndFlush(like);
+
+        JsonNode json = export();
+
+        assertThat(json.get("username").asText()).isEqualTo("exporter");
+        assertThat(json.get("email").asText()).isEqualTo("ex@test.com");
+        assertThat(json.get("bio").asText()).isEqualTo("bio");
+        assertThat(json.get("vibes")).hasSize(1);
+        assertThat(json.at("/vibes/0/content").asText()).isEqualTo("hello");
+        assertThat(json.at("/vibes/0/imageUrl").asText()).isEqualTo("/uploads/pic.png");
+        assertThat(json.at("/vibes/0/privacyStatus").asText()).isEqualTo("PUBLIC");
+        assertThat(json.at("/vibes/0/createdAt").asText()).isNotEmpty();
+        assertThat(json.at("/comments/0/content").asText()).isEqualTo("nice");
+        assertThat(json.at("/comments/0/vibeAuthor").asText()).isEqualTo("other");
+        assertThat(json.at("/likes/0/vibeId").asLong()).isEqualTo(theirs.getId());
+        assertThat(json.get("friends")).isEmpty();
+    }
+
+    @Test
+    void writeExport_ShouldListAcceptedFriendsInBothDirections() throws Exception {
+        User requester = userRepository.save(new User("requesterUser", "req@test.com", "pass"));
+        User pending = userRepository.save(new User("pendingUser", "pending@test.com", "pass"));
+        befriend(exporter, other, FriendshipStatus.ACCEPTED);
+        befriend(requester, exporter, FriendshipStatus.ACCEPTED);
+        befriend(exporter, pending, FriendshipStatus.PENDING);
+
+        JsonNode json = export();
+
+        assertThat(json.get("friends")).extracting(JsonNode::asText)
+                .containsExactlyInAnyOrder("other", "requesterUser");
+    }
+
+    private JsonNode export() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        dataExportService.writeExport(exporter, out);
+        return objectMapper.readTree(out.toByteArray());
+    }
+
+    private Vibe createVibe(User author, String content) {
+        Vibe vibe = new Vibe();
+        vibe.setUser(author);
+        vibe.setContent(content);
+        vibe.setPrivacyStatus(PrivacyStatus.PUBLIC);
+        return vibeRepository.saveAndFlush(vibe);
+    }
+
+    private void befriend(User requester, User receiver, FriendshipStatus status) {
+        Friendship friendship = new Friendship();
+        friendship.setRequester(requester);
+        friendship.setReceiver(receiver);
+        friendship.setStatus(status);
+        friendshipRepository.saveAndFlush(friendship);
+    }
+}
@@ -0,0 +1,181 @@
+package com.example.vibelet.service;
+
+import com.example.vibelet.dto.ImportProgress;
+import com.example.vibelet.model.*;
+import com.example.vibelet.repository.*;
+import com.example.vibelet.security.CurrentUser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+@DataJpaTest
+@Import({ImportRepository.class, ExportRepository.class})
+class DataImportServiceTest {
+    @Autowired private ImportRepository importRepository;
+    @Autowired private ExportRepository exportRepository;
+    @Autowired private UserRepository userRepository;
+    @Autowired private VibeRepository vibeRepository;
+    @Autowired private FriendshipRepository friendshipRepository;
+    @Autowired private PlatformTransactionManager transactionManager;
+    @Autowired private EntityManager entityManager;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final TimelineService timelineService = mock(TimelineService.class);
+    private final FriendGraphCache friendGraph = mock(FriendGraphCache.class);
+    private User importer;
+
+    @BeforeEach
+    void setUp() {
+        importer = userRepository.saveAndFlush(new User("importer", "importer@test.com", "pass"));
+    }
+
+    @Test
+    void importData_ShouldWriteVibesInChunksAndKeepTimestamps() {
+        ImportProgress result = service(2).importData(CurrentUser.of(importer), json("""
+                {"bio": "New Bio", "vibes": [
+                  {"content": "one", "createdAt": "2024-01-01T10:00:00"},
+                  {"content": "two", "createdAt": "2024-01-02T10:00:00"},
+                  {"content": "three", "createdAt": "2024-01-03T10:00:00", "likeCount": 4},
+                  {"content": "four", "createdAt": "2024-01-04T10:00:00"},
+                  {"content": "five", "createdAt": "2024-01-05T10:00:00"}
+                ], "comments": [{"content": "ignored"}]}
+                """));
+
+        assertThat(result.getVibesImported()).isEqualTo(5);
+        entityManager.clear();
+        List<Vibe> vibes = vibeRepository.findAll();
+        assertThat(vibes).hasSize(5)
+                .allMatch(v -> v.getPrivacyStatus() == PrivacyStatus.PRIVATE);
+        assertThat(vibes).extracting(Vibe::getCreatedAt)
+                .contains(LocalDateTime.parse("2024-01-03T10:00:00"));
+        assertThat(userRepository.findById(importer.getId()).orElseThrow().getBio()).isEqualTo("New Bio");
+        verify(timelineService).scheduleRebuild(importer.getId());
+    }
+
+    @Test
+    void importData_ShouldSkipDuplicatesInDatabaseAndFile() {
+        Vibe existing = new Vibe();
+        existing.setUser(importer);
+        existing.setContent("dup");
+        existing.setPrivacyStatus(PrivacyStatus.PUBLIC);
+        existing = vibeRepository.saveAndFlush(existing);
+        String createdAt = existing.getCreatedAt().toString();
+
+        ImportProgress result = service(500).importData(CurrentUser.of(importer), json("""
+                {"vibes": [
+                  {"content": "dup", "createdAt": "%s"},
+                  {"content": "fresh", "createdAt": "2024-01-01T10:00:00"},
+                  {"content": "fresh", "createdAt": "2024-01-01T10:00:00"}
+                ]}
+                """.formatted(createdAt)));
+
+        assertThat(result.getVibesImported()).isEqualTo(1);
+        assertThat(result.getVibesSkipped()).isEqualTo(2);
+        assertThat(vibeRepository.count()).isEqualTo(2);
+    }
+
+    @Test
+    void importData_WhenDateParseFails_ShouldUseNow() {
+        LocalDateTime before = LocalDateTime.now().minusSeconds(1);
+
+        service(500).importData(CurrentUser.of(importer), json("""
+                {"vibes": [{"content": "bad-date", "createdAt": "NOT_A_DATE"}]}
+                """));
+
+        entityManager.clear();
+        assertThat(vibeRepository.findAll()).singleElement()
+                .satisfies(v -> assertThat(v.getCreatedAt()).isAfter(before));
+    }
+
+    @Test
+    void importData_ShouldRestoreOnlyNewExistingFriends() {
+        User known = userRepository.save(new User("known", "known@test.com", "pass"));
+        User already = userRepository.save(new User("already", "already@test.com", "pass"));
+        User requester = userRepository.save(new User("requester", "requester@test.com", "pass"));
+        befriend(already, importer, FriendshipStatus.ACCEPTED);
+        befriend(requester, importer, FriendshipStatus.PENDING);
+
+        ImportProgress result = service(2).importData(CurrentUser.of(importer), json("""
+                {"friends": ["known", "ghost", "already", "importer", "requester", "known"]}
+                """));
+
+        assertThat(result.getFriendsRestored()).isEqualTo(1);
+        assertThat(friendshipRepository.existsByUsers(importer, known)).isTrue();
+        assertThat(friendshipRepository.count()).isEqualTo(3);
+        verify(friendGraph).invalidate(importer.getId(), known.getId());
+        verify(timelineService).scheduleRebuild(importer.getId(), known.getId());
+    }
+
+    @Test
+    void importData_OfOwnExport_ShouldChangeNothing() throws Exception {
+        User friend = userRepository.save(new User("friend", "friend@test.com", "pass"));
+        befriend(importer, friend, FriendshipStatus.ACCEPTED);
+        Vibe vibe = new Vibe();
+        vibe.setUser(importer);
+        vibe.setContent("round trip");
+        vibe.setPrivacyStatus(PrivacyStatus.PUBLIC);
+        vibeRepository.saveAndFlush(vibe);
+
+        ByteArrayOutputStream backup = new ByteArrayOutputStream();
+        new DataExportService(exportRepository, objectMapper, transactionManager).writeExport(importer, backup);
+
+        ImportProgress result = service(500).importData(CurrentUser.of(importer), new ByteArrayInputStream(backup.toByteArray()));
+
+        assertThat(result.getVibesImported()).isZero();
+        assertThat(result.getVibesSkipped()).isEqualTo(1);
+        assertThat(result.getFriendsRestored()).isZero();
+    }
+
+    @Test
+    void importData_WithNullAndEmptyFields_ShouldSucceed() {
+        ImportProgress result = service(500).importData(CurrentUser.of(importer), json("""
+                {"username": null, "bio": null, "vibes": null, "friends": []}
+                """));
+
+        assertThat(result.getVibesImported()).isZero();
+        assertThat(result.getFriendsRestored()).isZero();
+    }
+
+    @Test
+    void importData_WhenJsonIsMalformed_ShouldRejectAndAllowRetry() {
+        DataImportService service = service(500);
+
+        assertThatThrownBy(() -> service.importData(CurrentUser.of(importer), json("{\"vibes\": [")))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Malformed import file");
+        assertThat(service.getProgress(importer.getId())).isEmpty();
+    }
+
+    private DataImportService service(int batchSize) {
+        return new DataImportService(importRepository, objectMapper, timelineService, friendGraph, transactionManager, batchSize);
+    }
+
+    private static InputStream json(String body) {
+        return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void befriend(User requester, User receiver, FriendshipStatus status) {
+        Friendship friendship = new Friendship();
+        friendship.setRequester(requester);
+        friendship.setReceiver(receiver);
+        friendship.setStatus(status);
+        friendshipRepository.saveAndFlush(friendship);
+    }
+}
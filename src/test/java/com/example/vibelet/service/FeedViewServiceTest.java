@@ -0,0 +1,138 @@
+package com.example.vibelet.service;
+
+import com.example.vibelet.dto.VibeView;
+import com.example.vibelet.model.*;
+import com.example.vibelet.repository.CommentRepository;
+import com.example.vibelet.repository.PostLikeRepository;
+import com.example.vibelet.repository.UserRepository;
+import com.example.vibelet.repository.VibeRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Import(FeedViewService.class)
+class FeedViewServiceTest {
+    @Autowired private FeedViewService feedViewService;
+    @Autowired private VibeRepository vibeRepository;
+    @Autowired private UserRepository userRepository;
+    @Autowired private PostLikeRepository postLikeRepository;
+    @Autowired private CommentRepository commentRepository;
+    @Autowired private EntityManager entityManager;
+    @Autowired private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void toViews_ShouldMapCountsFlagsAndPreviews() {
+        User author = userRepository.save(new User("author", "author@test.com", "pass"));
+        User viewer = userRepository.save(new User("viewer", "viewer@test.com", "pass"));
+        Vibe liked = createVibe(author, "liked");
+        Vibe ignored = createVibe(author, "ignored");
+        like(liked, viewer);
+        like(liked, author);
+        comment(liked, viewer, "first");
+        comment(liked, author, "second");
+        entityManager.flush();
+        entityManager.clear();
+
+        List<VibeView> views = feedViewService.toViews(loadFeed(), viewer.getId());
+
+        VibeView likedView = views.stream().filter(v -> v.getId().equals(liked.getId())).findFirst().orElseThrow();
+        assertThat(likedView.getLikeCount()).isEqualTo(2);
+        assertThat(likedView.isLikedByMe()).isTrue();
+        assertThat(likedView.getCommentCount()).isEqualTo(2);
+        assertThat(likedView.getComments()).extracting(c -> c.getUser().getUsername())
+                .containsExactly("viewer", "author");
+
+        VibeView ignoredView = views.stream().filter(v -> v.getId().equals(ignored.getId())).findFirst().orElseThrow();
+        assertThat(ignoredView.getLikeCount()).isZero();
+        assertThat(ignoredView.isLikedByMe()).isFalse();
+        assertThat(ignoredView.getComments()).isEmpty();
+    }
+
+    @Test
+    void toViews_ShouldCapCommentPreview() {
+        User author = userRepository.save(new User("author", "author@test.com", "pass"));
+        Vibe vibe = createVibe(author, "busy");
+        for (int i = 0; i < FeedViewService.COMMENT_PREVIEW_LIMIT + 5; i++) {
+            comment(vibe, author, "c" + i);
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        VibeView view = feedViewService.toViews(loadFeed(), author.getId()).get(0);
+
+        assertThat(view.getComments()).hasSize(FeedViewService.COMMENT_PREVIEW_LIMIT);
+        assertThat(view.getCommentCount()).isEqualTo(FeedViewService.COMMENT_PREVIEW_LIMIT + 5);
+    }
+
+    @Test
+    void toViews_QueryCountShouldNotGrowWithFeedSize() {
+        List<User> users = List.of(
+                userRepository.save(new User("u1", "u1@test.com", "pass")),
+                userRepository.save(new User("u2", "u2@test.com", "pass")),
+                userRepository.save(new User("u3", "u3@test.com", "pass"))
+        );
+        for (int i = 0; i < 30; i++) {
+            User author = users.get(i % users.size());
+            Vibe vibe = createVibe(author, "vibe " + i);
+            for (User u : users) {
+                like(vibe, u);
+                comment(vibe, u, "hi from " + u.getUsername());
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        List<Vibe> feed = loadFeed();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        List<VibeView> views = feedViewService.toViews(feed, users.get(0).getId());
+        views.forEach(v -> {
+            v.getUser().getUsername();
+            v.getComments().forEach(c -> c.getUser().getUsername());
+        });
+
+        assertThat(views).hasSize(30);
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(2);
+    }
+
+    private List<Vibe> loadFeed() {
+        return vibeRepository.findStreamByPrivacy(PrivacyStatus.PUBLIC, PageRequest.of(0, 50));
+    }
+
+    private Vibe createVibe(User user, String content) {
+        Vibe v = new Vibe();
+        v.setUser(user);
+        v.setContent(content);
+        v.setPrivacyStatus(PrivacyStatus.PUBLIC);
+        return vibeRepository.save(v);
+    }
+
+    private void like(Vibe vibe, User user) {
+        PostLike like = new PostLike();
+        like.setVibe(vibe);
+        like.setUser(user);
+        postLikeRepository.save(like);
+        vibeRepository.adjustLikeCount(vibe.getId(), 1);
+    }
+
+    private void comment(Vibe vibe, User user, String content) {
+        Comment comment = new Comment();
+        comment.setVibe(vibe);
+        comment.setUser(user);
+        comment.setContent(content);
+        commentRepository.save(comment);
+        vibeRepository.adjustCommentCount(vibe.getId(), 1);
+    }
+}
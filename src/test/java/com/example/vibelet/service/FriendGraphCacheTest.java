@@ -0,0 +1,147 @@
+package com.example.vibelet.service;
+
+import com.example.vibelet.model.Friendship;
+import com.example.vibelet.model.FriendshipStatus;
+import com.example.vibelet.model.RelationshipStatus;
+import com.example.vibelet.model.User;
+import com.example.vibelet.repository.FriendshipRepository;
+import com.example.vibelet.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@Import(FriendGraphCache.class)
+class FriendGraphCacheTest {
+    @Autowired private FriendGraphCache friendGraph;
+    @Autowired private FriendshipRepository friendshipRepository;
+    @Autowired private UserRepository userRepository;
+
+    private User me;
+    private User friend;
+    private User requester;
+    private User stranger;
+
+    @BeforeEach
+    void setUp() {
+        me = userRepository.save(new User("me", "me@test.com", "pass"));
+        friend = userRepository.save(new User("friend", "friend@test.com", "pass"));
+        requester = userRepository.save(new User("requester", "requester@test.com", "pass"));
+        stranger = userRepository.save(new User("stranger", "stranger@test.com", "pass"));
+        link(friend, me, FriendshipStatus.ACCEPTED);
+        link(requester, me, FriendshipStatus.PENDING);
+        friendGraph.invalidateAll();
+    }
+
+    @Test
+    void relationship_ShouldResolveEveryEdgeKind() {
+        assertThat(friendGraph.relationship(me.getId(), me.getId())).isEqualTo(RelationshipStatus.SELF);
+        assertThat(friendGraph.relationship(me.getId(), friend.getId())).isEqualTo(RelationshipStatus.FRIEND);
+        assertThat(friendGraph.relationship(me.getId(), requester.getId())).isEqualTo(RelationshipStatus.PENDING_RECEIVED);
+        assertThat(friendGraph.relationship(requester.getId(), me.getId())).isEqualTo(RelationshipStatus.PENDING_SENT);
+        assertThat(friendGraph.relationship(me.getId(), stranger.getId())).isEqualTo(RelationshipStatus.NONE);
+        assertThat(friendGraph.friendCount(me.getId())).isEqualTo(1);
+    }
+
+    @Test
+    void repeatedLookups_ShouldHitCache() {
+        friendGraph.areFriends(me.getId(), friend.getId());
+        friendGraph.isConnected(me.getId(), stranger.getId());
+        friendGraph.hasPendingRequest(me.getId(), requester.getId());
+
+        FriendGraphCache.Stats stats = friendGraph.getStats();
+        assertThat(stats.getMisses()).isEqualTo(1);
+        assertThat(stats.getHits()).isEqualTo(2);
+        assertThat(stats.getUsers()).isEqualTo(1);
+        assertThat(stats.getFootprintBytes()).isPositive();
+    }
+
+    @Test
+    void relationships_ShouldResolveBatchWithoutCachingViewer() {
+        Map<Long, RelationshipStatus> statuses = friendGraph.relationships(me.getId(),
+                List.of(me.getId(), friend.getId(), requester.getId(), stranger.getId()));
+
+        assertThat(statuses).containsEntry(me.getId(), RelationshipStatus.SELF)
+                .containsEntry(friend.getId(), RelationshipStatus.FRIEND)
+                .containsEntry(requester.getId(), RelationshipStatus.PENDING_RECEIVED)
+                .containsEntry(stranger.getId(), RelationshipStatus.NONE);
+        assertThat(friendGraph.getStats().getUsers()).isZero();
+    }
+
+    @Test
+    void relationships_ShouldUseCachedViewer() {
+        friendGraph.friendCount(me.getId());
+
+        Map<Long, RelationshipStatus> statuses = friendGraph.relationships(me.getId(), List.of(friend.getId()));
+
+        assertThat(statuses).containsEntry(friend.getId(), RelationshipStatus.FRIEND);
+        assertThat(friendGraph.getStats().getHits()).isEqualTo(1);
+    }
+
+    @Test
+    void invalidate_ShouldReloadFreshEdges() {
+        assertThat(friendGraph.areFriends(me.getId(), stranger.getId())).isFalse();
+
+        link(me, stranger, FriendshipStatus.ACCEPTED);
+        friendGraph.invalidate(me.getId(), stranger.getId());
+
+        assertThat(friendGraph.areFriends(me.getId(), stranger.getId())).isTrue();
+    }
+
+    @Test
+    void invalidateUser_ShouldDropEntriesThatListTheDeletedUser() {
+        friendGraph.friendCount(me.getId());
+        friendGraph.friendCount(stranger.getId());
+
+        friendGraph.invalidateUser(friend.getId());
+
+        assertThat(friendGraph.getStats().getUsers()).isEqualTo(1);
+    }
+
+    @Test
+    void entries_ShouldExpireAfterTtl() {
+        MutableClock clock = new MutableClock();
+        FriendGraphCache cache = new FriendGraphCache(friendshipRepository, 100, Duration.ofSeconds(60), clock);
+        assertThat(cache.areFriends(me.getId(), stranger.getId())).isFalse();
+
+        // Accepted on another node: nothing invalidates this one.
+        link(me, stranger, FriendshipStatus.ACCEPTED);
+        clock.advance(Duration.ofSeconds(59));
+        assertThat(cache.areFriends(me.getId(), stranger.getId())).isFalse();
+
+        clock.advance(Duration.ofSeconds(1));
+        assertThat(cache.areFriends(me.getId(), stranger.getId())).isTrue();
+    }
+
+    private static final class MutableClock extends Clock {
+        private Instant now = Instant.parse("2026-01-01T12:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override public ZoneId getZone() { return ZoneOffset.UTC; }
+        @Override public Clock withZone(ZoneId zone) { return this; }
+        @Override public Instant instant() { return now; }
+    }
+
+    private void link(User from, User to, FriendshipStatus status) {
+        Friendship f = new Friendship();
+        f.setRequester(from);
+        f.setReceiver(to);
+        f.setStatus(status);
+        friendshipRepository.save(f);
+    }
+}
@@ -1,10 +1,13 @@
 package com.example.vibelet.service;
 
+import com.example.vibelet.dto.FriendRequestResponse;
+import com.example.vibelet.dto.FriendResponse;
 import com.example.vibelet.model.Friendship;
 import com.example.vibelet.model.FriendshipStatus;
 import com.example.vibelet.model.User;
 import com.example.vibelet.repository.FriendshipRepository;
 import com.example.vibelet.repository.UserRepository;
+import com.example.vibelet.security.CurrentUser;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
@@ -21,28 +24,35 @@ import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
 class FriendshipServiceTest {
+    private static final CurrentUser SENDER = new CurrentUser(1L, "sender");
+
     @Mock
     private FriendshipRepository friendshipRepository;
 
     @Mock
     private UserRepository userRepository;
 
+    @Mock
+    private TimelineService timelineService;
+
+    @Mock
+    private FriendGraphCache friendGraph;
+
     @InjectMocks
     private FriendshipService friendshipService;
 
     @Test
     void sendFriendRequest_ShouldCreatePendingFriendship() {
-        String senderName = "sender";
         Long receiverId = 2L;
 
-        User sender = new User(); sender.setUsername(senderName); sender.setId(1L);
+        User sender = new User(); sender.setUsername("sender"); sender.setId(1L);
         User receiver = new User(); receiver.setId(receiverId);
 
-        when(userRepository.findByUsername(senderName)).thenReturn(Optional.of(sender));
+        when(userRepository.findById(1L)).thenReturn(Optional.of(sender));
         when(userRepository.findById(receiverId)).thenReturn(Optional.of(receiver));
         when(friendshipRepository.existsByUsers(sender, receiver)).thenReturn(false);
 
-        friendshipService.sendFriendRequest(senderName, receiverId);
+        friendshipService.sendFriendRequest(SENDER, receiverId);
         verify(friendshipRepository).save(argThat(f ->
                 f.getStatus() == FriendshipStatus.PENDING &&
                         f.getRequester().equals(sender) &&
@@ -52,65 +62,59 @@ class FriendshipServiceTest {
 
     @Test
     void sendFriendRequest_ShouldThrow_WhenFriendshipAlreadyExists() {
-        String senderName = "sender";
         Long receiverId = 2L;
 
-        User sender = new User(); sender.setUsername(senderName); sender.setId(1L);
+        User sender = new User(); sender.setUsername("sender"); sender.setId(1L);
         User receiver = new User(); receiver.setId(receiverId);
 
-        when(userRepository.findByUsername(senderName)).thenReturn(Optional.of(sender));
+        when(userRepository.findById(1L)).thenReturn(Optional.of(sender));
         when(userRepository.findById(receiverId)).thenReturn(Optional.of(receiver));
         when(friendshipRepository.existsByUsers(sender, receiver)).thenReturn(true);
 
         assertThrows(RuntimeException.class, () -> {
-            friendshipService.sendFriendRequest(senderName, receiverId);
+            friendshipService.sendFriendRequest(SENDER, receiverId);
         });
     }
 
     @Test
     void sendFriendRequest_ShouldThrow_WhenSenderEqualsReceiver() {
-        String senderName = "sender";
         Long receiverId = 1L;
-        User sender = new User(); sender.setUsername(senderName); sender.setId(1L);
+        User sender = new User(); sender.setUsername("sender"); sender.setId(1L);
 
-        when(userRepository.findByUsername(senderName)).thenReturn(Optional.of(sender));
         when(userRepository.findById(receiverId)).thenReturn(Optional.of(sender));
         assertThrows(RuntimeException.class, () -> {
-            friendshipService.sendFriendRequest(senderName, receiverId);
+            friendshipService.sendFriendRequest(SENDER, receiverId);
         });
     }
 
     @Test
     void sendFriendRequest_ShouldThrow_WhenReceiverNotFound() {
-        String senderName = "sender";
         Long receiverId = 2L;
-        User sender = new User(); sender.setUsername(senderName); sender.setId(1L);
+        User sender = new User(); sender.setUsername("sender"); sender.setId(1L);
 
-        when(userRepository.findByUsername(senderName)).thenReturn(Optional.of(sender));
+        when(userRepository.findById(1L)).thenReturn(Optional.of(sender));
         when(userRepository.findById(receiverId)).thenReturn(Optional.empty());
         assertThrows(RuntimeException.class, () -> {
-            friendshipService.sendFriendRequest(senderName, receiverId);
+            friendshipService.sendFriendRequest(SENDER, receiverId);
         });
     }
 
     @Test
     void sendFriendRequest_ShouldThrow_WhenSenderNotFound() {
-        String senderName = "sender";
         Long receiverId = 2L;
 
-        when(userRepository.findByUsername(senderName)).thenReturn(Optional.empty());
+        when(userRepository.findById(1L)).thenReturn(Optional.empty());
         assertThrows(RuntimeException.class, () -> {
-            friendshipService.sendFriendRequest(senderName, receiverId);
+            friendshipService.sendFriendRequest(SENDER, receiverId);
         });
     }
 
     @Test
     void acceptFriendRequest_ShouldChangeStatusToAccepted() {
-        String currentUsername = "receiver";
         Long friendshipId = 10L;
 
-        User requester = new User(); requester.setUsername("requester");
-        User receiver = new User(); receiver.setUsername(currentUsername);
+        User requester = new User(); requester.setUsername("requester"); requester.setId(1L);
+        User receiver = new User(); receiver.setUsername("receiver"); receiver.setId(2L);
 
         Friendship friendship = new Friendship();
         friendship.setId(friendshipId);
@@ -119,22 +123,23 @@ class FriendshipServiceTest {
         friendship.setStatus(FriendshipStatus.PENDING);
 
         when(friendshipRepository.findById(friendshipId)).thenReturn(Optional.of(friendship));
-        friendshipService.acceptFriendRequest(currentUsername, friendshipId);
+        friendshipService.acceptFriendRequest(new CurrentUser(2L, "receiver"), friendshipId);
 
         assertEquals(FriendshipStatus.ACCEPTED, friendship.getStatus());
         verify(friendshipRepository).save(friendship);
+        verify(friendGraph).invalidate(1L, 2L);
     }
 
     @Test
     void acceptFriendRequest_ShouldThrow_WhenUserIsNotReceiver() {
         Long friendshipId = 1L;
-        User receiver = new User(); receiver.setUsername("receiver");
+        User receiver = new User(); receiver.setUsername("receiver"); receiver.setId(2L);
         Friendship friendship = new Friendship();
         friendship.setReceiver(receiver);
 
         when(friendshipRepository.findById(friendshipId)).thenReturn(Optional.of(friendship));
         assertThrows(RuntimeException.class, () -> {
-            friendshipService.acceptFriendRequest("hacker", friendshipId);
+            friendshipService.acceptFriendRequest(new CurrentUser(3L, "hacker"), friendshipId);
         });
     }
 
@@ -144,7 +149,7 @@ class FriendshipServiceTest {
 
         when(friendshipRepository.findById(friendshipId)).thenReturn(Optional.empty());
         assertThrows(RuntimeException.class, () -> {
-            friendshipService.acceptFriendRequest("receiver", friendshipId);
+            friendshipService.acceptFriendRequest(new CurrentUser(2L, "receiver"), friendshipId);
         });
     }
 
@@ -152,8 +157,10 @@ class FriendshipServiceTest {
     void removeFriendOrRejectRequest_ShouldDelete_WhenUserIsRequester() {
         Long friendshipId = 1L;
         User requester = new User();
+        requester.setId(1L);
         requester.setUsername("requester");
         User receiver = new User();
+        receiver.setId(2L);
         receiver.setUsername("receiver");
 
         Friendship friendship = new Friendship();
@@ -162,7 +169,7 @@ class FriendshipServiceTest {
         friendship.setReceiver(receiver);
 
         when(friendshipRepository.findById(friendshipId)).thenReturn(Optional.of(friendship));
-        friendshipService.removeFriendOrRejectRequest("requester", friendshipId);
+        friendshipService.removeFriendOrRejectRequest(new CurrentUser(1L, "requester"), friendshipId);
 
         verify(friendshipRepository).delete(friendship);
     }
@@ -171,8 +178,10 @@ class FriendshipServiceTest {
     void removeFriendOrRejectRequest_ShouldDelete_WhenUserIsReceiver() {
         Long friendshipId = 1L;
         User requester = new User();
+        requester.setId(1L);
         requester.setUsername("requester");
         User receiver = new User();
+        receiver.setId(2L);
         receiver.setUsername("receiver");
 
         Friendship friendship = new Friendship();
@@ -181,7 +190,7 @@ class FriendshipServiceTest {
         friendship.setReceiver(receiver);
 
         when(friendshipRepository.findById(friendshipId)).thenReturn(Optional.of(friendship));
-        friendshipService.removeFriendOrRejectRequest("receiver", friendshipId);
+        friendshipService.removeFriendOrRejectRequest(new CurrentUser(2L, "receiver"), friendshipId);
 
         verify(friendshipRepository).delete(friendship);
     }
@@ -190,8 +199,10 @@ class FriendshipServiceTest {
     void removeFriendOrRejectRequest_ShouldThrow_WhenUserIsNotParticipant() {
         Long friendshipId = 1L;
         User requester = new User();
+        requester.setId(1L);
         requester.setUsername("requester");
         User receiver = new User();
+        receiver.setId(2L);
         receiver.setUsername("receiver");
 
         Friendship friendship = new Friendship();
@@ -200,7 +211,7 @@ class FriendshipServiceTest {
 
         when(friendshipRepository.findById(friendshipId)).thenReturn(Optional.of(friendship));
         assertThrows(RuntimeException.class, () ->
-                friendshipService.removeFriendOrRejectRequest("intruder", friendshipId)
+                friendshipService.removeFriendOrRejectRequest(new CurrentUser(3L, "intruder"), friendshipId)
         );
 
         verify(friendshipRepository, never()).delete(any());
@@ -210,38 +221,30 @@ class FriendshipServiceTest {
     void removeFriendOrRejectRequest_ShouldThrow_WhenFriendshipNotFound() {
         when(friendshipRepository.findById(1L)).thenReturn(Optional.empty());
         assertThrows(RuntimeException.class, () ->
-                friendshipService.removeFriendOrRejectRequest("user", 1L)
+                friendshipService.removeFriendOrRejectRequest(SENDER, 1L)
         );
     }
 
     @Test
     void getPendingRequests_ShouldReturnPendingRequests() {
-        String username = "receiver";
         User user = new User();
-        user.setUsername(username);
+        user.setId(2L);
+        user.setUsername("receiver");
 
         Friendship friendship = new Friendship();
         friendship.setStatus(FriendshipStatus.PENDING);
 
-        when(userRepository.findByUsername(username)).thenReturn(Optional.of(user));
+        when(userRepository.getReferenceById(2L)).thenReturn(user);
         when(friendshipRepository.findByReceiverAndStatus(user, FriendshipStatus.PENDING))
                 .thenReturn(List.of(friendship));
 
-        List<Friendship> result = friendshipService.getPendingRequests(username);
+        List<Friendship> result = friendshipService.getPendingRequests(new CurrentUser(2L, "receiver"));
         assertAll(
                 ()->assertEquals(1, result.size()),
                 ()->assertEquals(FriendshipStatus.PENDING, result.get(0).getStatus())
         );
     }
 
-    @Test
-    void getPendingRequests_ShouldThrow_WhenUserNotFound() {
-        when(userRepository.findByUsername("ghost")).thenReturn(Optional.empty());
-        assertThrows(RuntimeException.class, () ->
-                friendshipService.getPendingRequests("ghost")
-        );
-    }
-
     @Test
     void getFriendsList_ShouldReturnFriends_WhenUserIsRequester() {
         User user = new User();
@@ -254,11 +257,11 @@ class FriendshipServiceTest {
         friendship.setRequester(user);
         friendship.setReceiver(friend);
 
-        when(userRepository.findByUsername("user")).thenReturn(Optional.of(user));
+        when(userRepository.getReferenceById(1L)).thenReturn(user);
         when(friendshipRepository.findAllFriendsOfUser(user))
                 .thenReturn(List.of(friendship));
 
-        List<Friendship> result = friendshipService.getAcceptedFriendships("user");
+        List<Friendship> result = friendshipService.getAcceptedFriendships(new CurrentUser(1L, "user"));
         assertAll(
                 ()->assertEquals(1, result.size()),
                 ()->assertEquals(friendship, result.get(0))
@@ -277,11 +280,11 @@ class FriendshipServiceTest {
         friendship.setRequester(friend);
         friendship.setReceiver(user);
 
-        when(userRepository.findByUsername("user")).thenReturn(Optional.of(user));
+        when(userRepository.getReferenceById(1L)).thenReturn(user);
         when(friendshipRepository.findAllFriendsOfUser(user))
                 .thenReturn(List.of(friendship));
 
-        List<Friendship> result = friendshipService.getAcceptedFriendships("user");
+        List<Friendship> result = friendshipService.getAcceptedFriendships(new CurrentUser(1L, "user"));
         assertAll(
                 ()->assertEquals(1, result.size()),
                 ()->assertEquals(friendship, result.get(0))
@@ -289,137 +292,67 @@ class FriendshipServiceTest {
     }
 
     @Test
-    void getFriendsList_ShouldThrow_WhenUserNotFound() {
-        when(userRepository.findByUsername("ghost")).thenReturn(Optional.empty());
-        assertThrows(RuntimeException.class, () ->
-                friendshipService.getAcceptedFriendships("ghost")
-        );
-    }
-
-    @Test
-    void areFriends_ShouldReturnTrue_WhenAccepted_User1ToUser2() {
-        User u1 = new User();
-        User u2 = new User();
-
-        Friendship friendship = new Friendship();
-        friendship.setStatus(FriendshipStatus.ACCEPTED);
-
-        when(friendshipRepository.findByRequesterAndReceiver(u1, u2))
-                .thenReturn(Optional.of(friendship));
-
-        boolean result = friendshipService.areFriends(u1, u2);
-
-        assertTrue(result);
-    }
-
-    @Test
-    void areFriends_ShouldReturnTrue_WhenAccepted_User2ToUser1() {
-        User u1 = new User();
-        User u2 = new User();
-
-        Friendship friendship = new Friendship();
-        friendship.setStatus(FriendshipStatus.ACCEPTED);
-
-        when(friendshipRepository.findByRequesterAndReceiver(u1, u2))
-                .thenReturn(Optional.empty());
-        when(friendshipRepository.findByRequesterAndReceiver(u2, u1))
-                .thenReturn(Optional.of(friendship));
-
-        boolean result = friendshipService.areFriends(u1, u2);
-
-        assertTrue(result);
-    }
-
-    @Test
-    void areFriends_ShouldReturnFalse_WhenPending() {
-        User u1 = new User();
-        User u2 = new User();
+    void getFriends_ShouldReturnProjectionForUserId() {
+        FriendResponse friend = new FriendResponse(5L, 2L, "friend", null, null, null);
 
-        Friendship friendship = new Friendship();
-        friendship.setStatus(FriendshipStatus.PENDING);
-
-        when(friendshipRepository.findByRequesterAndReceiver(u1, u2))
-                .thenReturn(Optional.of(friendship));
-
-        boolean result = friendshipService.areFriends(u1, u2);
+        when(friendshipRepository.findFriendResponses(1L)).thenReturn(List.of(friend));
 
-        assertFalse(result);
+        assertEquals(List.of(friend), friendshipService.getFriends(new CurrentUser(1L, "user")));
+        verifyNoInteractions(userRepository);
     }
 
     @Test
-    void areFriends_ShouldReturnFalse_WhenNoFriendship() {
-        User u1 = new User();
-        User u2 = new User();
+    void getIncomingRequests_ShouldReturnProjectionForUserId() {
+        FriendRequestResponse request = new FriendRequestResponse(6L, 3L, "john", null, null, null);
 
-        when(friendshipRepository.findByRequesterAndReceiver(any(), any()))
-                .thenReturn(Optional.empty());
+        when(friendshipRepository.findPendingRequestResponses(1L)).thenReturn(List.of(request));
 
-        boolean result = friendshipService.areFriends(u1, u2);
-
-        assertFalse(result);
+        assertEquals(List.of(request), friendshipService.getIncomingRequests(new CurrentUser(1L, "user")));
     }
 
     @Test
-    void isPending_ShouldReturnTrue_WhenPending() {
-        User sender = new User();
-        User receiver = new User();
+    void areFriends_ShouldAskFriendGraph() {
+        User u1 = new User(); u1.setId(1L);
+        User u2 = new User(); u2.setId(2L);
 
-        Friendship friendship = new Friendship();
-        friendship.setStatus(FriendshipStatus.PENDING);
-
-        when(friendshipRepository.findByRequesterAndReceiver(sender, receiver))
-                .thenReturn(Optional.of(friendship));
-
-        boolean result = friendshipService.isPending(sender, receiver);
+        when(friendGraph.areFriends(1L, 2L)).thenReturn(true);
 
-        assertTrue(result);
+        assertTrue(friendshipService.areFriends(u1, u2));
+        verifyNoInteractions(friendshipRepository);
     }
 
     @Test
-    void isPending_ShouldReturnFalse_WhenAccepted() {
-        User sender = new User();
-        User receiver = new User();
-
-        Friendship friendship = new Friendship();
-        friendship.setStatus(FriendshipStatus.ACCEPTED);
+    void isPending_ShouldAskFriendGraph() {
+        User sender = new User(); sender.setId(1L);
+        User receiver = new User(); receiver.setId(2L);
 
-        when(friendshipRepository.findByRequesterAndReceiver(sender, receiver))
-                .thenReturn(Optional.of(friendship));
+        when(friendGraph.hasPendingRequest(1L, 2L)).thenReturn(false);
 
-        boolean result = friendshipService.isPending(sender, receiver);
-
-        assertFalse(result);
+        assertFalse(friendshipService.isPending(sender, receiver));
+        verifyNoInteractions(friendshipRepository);
     }
 
     @Test
-    void isPending_ShouldReturnFalse_WhenNoFriendship() {
-        User sender = new User();
-        User receiver = new User();
-
-        when(friendshipRepository.findByRequesterAndReceiver(sender, receiver))
-                .thenReturn(Optional.empty());
+    void findRelationship_ShouldSkipQuery_WhenNotConnected() {
+        User u1 = new User(); u1.setId(1L);
+        User u2 = new User(); u2.setId(2L);
 
-        boolean result = friendshipService.isPending(sender, receiver);
+        when(friendGraph.isConnected(1L, 2L)).thenReturn(false);
 
-        assertFalse(result);
+        assertTrue(friendshipService.findRelationship(u1, u2).isEmpty());
+        verifyNoInteractions(friendshipRepository);
     }
 
     @Test
-    void areFriends_ShouldReturnFalse_WhenSecondDirectionExistsButNotAccepted() {
-        User u1 = new User();
-        User u2 = new User();
-
+    void findRelationship_ShouldLoadFriendship_WhenConnected() {
+        User u1 = new User(); u1.setId(1L);
+        User u2 = new User(); u2.setId(2L);
         Friendship friendship = new Friendship();
-        friendship.setStatus(FriendshipStatus.PENDING);
-
-        when(friendshipRepository.findByRequesterAndReceiver(u1, u2))
-                .thenReturn(Optional.empty());
-        when(friendshipRepository.findByRequesterAndReceiver(u2, u1))
-                .thenReturn(Optional.of(friendship));
 
-        boolean result = friendshipService.areFriends(u1, u2);
+        when(friendGraph.isConnected(1L, 2L)).thenReturn(true);
+        when(friendshipRepository.findBetween(u1, u2)).thenReturn(Optional.of(friendship));
 
-        assertFalse(result);
+        assertEquals(Optional.of(friendship), friendshipService.findRelationship(u1, u2));
     }
 
     @Test
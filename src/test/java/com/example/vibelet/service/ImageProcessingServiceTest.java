@@ -0,0 +1,165 @@
+package com.example.vibelet.service;
+
+import com.example.vibelet.repository.UserRepository;
+import com.example.vibelet.repository.VibeRepository;
+import com.example.vibelet.storage.LocalMediaStorage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ExtendWith(MockitoExtension.class)
+class ImageProcessingServiceTest {
+    @Mock private VibeRepository vibeRepository;
+    @Mock private UserRepository userRepository;
+    @Mock private PlatformTransactionManager transactionManager;
+
+    @TempDir Path root;
+
+    private ImageProcessingService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new ImageProcessingService(vibeRepository, userRepository, new LocalMediaStorage(root), transactionManager,
+                root.toString(), 1, 10, 40_000_000, 8_000_000);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        service.shutdown();
+    }
+
+    @Test
+    void generate_ShouldWriteOnlyWidthsSmallerThanOriginal() throws Exception {
+        writePng("photo.png", 800, 400, true);
+
+        String variants = service.generate("photo.png", ImageProcessingService.VIBE_WIDTHS, new int[0]);
+
+        assertThat(variants).isEqualTo("w320,w640");
+        BufferedImage w640 = ImageIO.read(root.resolve("photo_w640.jpg").toFile());
+        assertThat(w640.getWidth()).isEqualTo(640);
+        assertThat(w640.getHeight()).isEqualTo(320);
+        assertThat(root.resolve("photo_w1080.jpg")).doesNotExist();
+    }
+
+    @Test
+    void generate_ShouldCropSquareThumbnails() throws Exception {
+        writePng("avatar.png", 300, 150, false);
+
+        String variants = service.generate("avatar.png", new int[0], ImageProcessingService.AVATAR_THUMBS);
+
+        assertThat(variants).isEqualTo("s80");
+        BufferedImage thumb = ImageIO.read(root.resolve("avatar_s80.jpg").toFile());
+        assertThat(thumb.getWidth()).isEqualTo(80);
+        assertThat(thumb.getHeight()).isEqualTo(80);
+    }
+
+    @Test
+    void generate_ShouldSubsampleWithinDecodeBudgetWithoutUpscaling() throws Exception {
+        service = new ImageProcessingService(vibeRepository, userRepository, new LocalMediaStorage(root), transactionManager,
+                root.toString(), 1, 10, 40_000_000, 100_000);
+        writePng("big.png", 3000, 2000, false);
+
+        String variants = service.generate("big.png", ImageProcessingService.VIBE_WIDTHS, new int[0]);
+
+        // The budget decodes every 8th pixel (375x250), which only covers the smallest width.
+        assertThat(variants).isEqualTo("w320");
+        assertThat(ImageIO.read(root.resolve("big_w320.jpg").toFile()).getWidth()).isEqualTo(320);
+        assertThat(root.resolve("big_w640.jpg")).doesNotExist();
+    }
+
+    @Test
+    void generate_ShouldCropVeryTallImagesFromTheTop() throws Exception {
+        writePng("tall.png", 400, 6000, false);
+
+        String variants = service.generate("tall.png", ImageProcessingService.VIBE_WIDTHS, new int[0]);
+
+        assertThat(variants).isEqualTo("w320");
+        BufferedImage w320 = ImageIO.read(root.resolve("tall_w320.jpg").toFile());
+        assertThat(w320.getWidth()).isEqualTo(320);
+        assertThat(w320.getHeight()).isEqualTo(320 * ImageProcessingService.MAX_VARIANT_ASPECT);
+    }
+
+    @Test
+    void generate_ShouldTurnImageUprightPerExifOrientation() throws Exception {
+        // Stored landscape, red left half and blue right half; orientation 6 means turn 90° clockwise.
+        BufferedImage stored = new BufferedImage(200, 100, BufferedImage.TYPE_INT_RGB);
+        for (int x = 0; x < 200; x++) {
+            for (int y = 0; y < 100; y++) {
+                stored.setRGB(x, y, x < 100 ? 0xFF0000 : 0x0000FF);
+            }
+        }
+        writeJpegWithOrientation("rotated.jpg", stored, 6);
+
+        String variants = service.generate("rotated.jpg", new int[]{80}, new int[0]);
+
+        assertThat(variants).isEqualTo("w80");
+        BufferedImage upright = ImageIO.read(root.resolve("rotated_w80.jpg").toFile());
+        assertThat(upright.getWidth()).isEqualTo(80);
+        assertThat(upright.getHeight()).isEqualTo(160);
+        assertThat(new Color(upright.getRGB(40, 30)).getRed()).isGreaterThan(200);
+        assertThat(new Color(upright.getRGB(40, 130)).getBlue()).isGreaterThan(200);
+    }
+
+    @Test
+    void generate_ShouldRejectOversizedAndUndecodableFiles() throws Exception {
+        service = new ImageProcessingService(vibeRepository, userRepository, new LocalMediaStorage(root), transactionManager,
+                root.toString(), 1, 10, 1_000, 8_000_000);
+        writePng("huge.png", 100, 100, false);
+        Files.writeString(root.resolve("notes.png"), "not an image");
+
+        assertThat(service.generate("huge.png", ImageProcessingService.VIBE_WIDTHS, ImageProcessingService.AVATAR_THUMBS)).isNull();
+        assertThat(service.generate("notes.png", ImageProcessingService.VIBE_WIDTHS, ImageProcessingService.AVATAR_THUMBS)).isNull();
+        assertThat(service.generate("missing.png", ImageProcessingService.VIBE_WIDTHS, ImageProcessingService.AVATAR_THUMBS)).isNull();
+    }
+
+    private void writeJpegWithOrientation(String name, BufferedImage image, int orientation) throws Exception {
+        ByteArrayOutputStream jpeg = new ByteArrayOutputStream();
+        ImageIO.write(image, "jpeg", jpeg);
+        byte[] plain = jpeg.toByteArray();
+
+        ByteBuffer exif = ByteBuffer.allocate(6 + 8 + 2 + 12 + 4);
+        exif.put("Exif\0\0".getBytes(StandardCharsets.US_ASCII));
+        exif.put((byte) 'M').put((byte) 'M').putShort((short) 42).putInt(8);
+        exif.putShort((short) 1);
+        exif.putShort((short) 0x0112).putShort((short) 3).putInt(1).putShort((short) orientation).putShort((short) 0);
+        exif.putInt(0);
+
+        // After SOI and the JFIF APP0 segment the writer put first.
+        int insertAt = 4 + (((plain[4] & 0xFF) << 8) | (plain[5] & 0xFF));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(plain, 0, insertAt);
+        out.write(0xFF);
+        out.write(0xE1);
+        out.write((exif.capacity() + 2) >> 8);
+        out.write((exif.capacity() + 2) & 0xFF);
+        out.write(exif.array());
+        out.write(plain, insertAt, plain.length - insertAt);
+        Files.write(root.resolve(name), out.toByteArray());
+    }
+
+    private void writePng(String name, int width, int height, boolean alpha) throws Exception {
+        BufferedImage image = new BufferedImage(width, height, alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+        for (int x = 0; x < width; x += 7) {
+            for (int y = 0; y < height; y += 5) {
+                image.setRGB(x, y, 0xFF000000 | (x * 31 + y * 17));
+            }
+        }
+        ImageIO.write(image, "png", root.resolve(name).toFile());
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.vibelet.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LongHashSetTest {
+
+    @Test
+    void add_ShouldIgnoreDuplicatesAndGrow() {
+        LongHashSet set = new LongHashSet();
+        for (long i = 1; i <= 1000; i++) {
+            assertTrue(set.add(i * 31));
+        }
+        assertFalse(set.add(31));
+
+        assertEquals(1000, set.size());
+        assertTrue(set.contains(31_000));
+        assertFalse(set.contains(30));
+    }
+
+    @Test
+    void remove_ShouldKeepCollidingEntriesReachable() {
+        LongHashSet set = new LongHashSet();
+        for (long i = 1; i <= 500; i++) {
+            set.add(i);
+        }
+        for (long i = 1; i <= 500; i += 2) {
+            assertTrue(set.remove(i));
+        }
+
+        assertEquals(250, set.size());
+        for (long i = 1; i <= 500; i++) {
+            assertEquals(i % 2 == 0, set.contains(i));
+        }
+        assertFalse(set.remove(1));
+    }
+
+    @Test
+    void zero_ShouldBeStoredSeparately() {
+        LongHashSet set = new LongHashSet();
+        assertFalse(set.contains(0));
+
+        set.add(0);
+
+        assertTrue(set.contains(0));
+        assertEquals(1, set.size());
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.vibelet.service;
+
+import com.example.vibelet.model.MediaBlob;
+import com.example.vibelet.model.PrivacyStatus;
+import com.example.vibelet.model.User;
+import com.example.vibelet.model.Vibe;
+import com.example.vibelet.repository.MediaBlobRepository;
+import com.example.vibelet.repository.MediaGcRepository;
+import com.example.vibelet.repository.UserRepository;
+import com.example.vibelet.repository.VibeRepository;
+import com.example.vibelet.storage.LocalMediaStorage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Not wrapped in a test transaction: the collector reads with its own transactions.
+@DataJpaTest
+@Import(MediaGcRepository.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class MediaGcServiceTest {
+    private static final String REFERENCED = "aa/bb/" + "a".repeat(64) + ".png";
+    private static final String ORPHAN = "cc/dd/" + "c".repeat(64) + ".png";
+    private static final String BLOB_ONLY = "ee/ff/" + "e".repeat(64) + ".png";
+
+    @Autowired private MediaGcRepository mediaGcRepository;
+    @Autowired private MediaBlobRepository mediaBlobRepository;
+    @Autowired private UserRepository userRepository;
+    @Autowired private VibeRepository vibeRepository;
+    @Autowired private PlatformTransactionManager transactionManager;
+
+    @TempDir Path root;
+
+    private MediaGcService gc;
+
+    @BeforeEach
+    void setUp() {
+        LocalMediaStorage storage = new LocalMediaStorage(root);
+        MediaStore store = new MediaStore(mediaBlobRepository, storage, transactionManager, root.toString(), DataSize.ofMegabytes(1));
+        gc = new MediaGcService(store, storage, mediaGcRepository, transactionManager,
+                true, Duration.ofHours(1), 2, 0, DataSize.ofKilobytes(64));
+    }
+
+    @AfterEach
+    void tearDown() {
+        vibeRepository.deleteAll();
+        userRepository.deleteAll();
+        mediaBlobRepository.deleteAll();
+    }
+
+    @Test
+    void collect_ShouldDeleteOnlyOldUnreferencedMedia() throws Exception {
+        User user = userRepository.save(new User("gc", "gc@test.com", "pass"));
+        Vibe vibe = new Vibe();
+        vibe.setUser(user);
+        vibe.setContent("kept");
+        vibe.setPrivacyStatus(PrivacyStatus.PUBLIC);
+        vibe.setImageUrl(REFERENCED);
+        vibeRepository.save(vibe);
+        mediaBlobRepository.save(new MediaBlob(BLOB_ONLY, 3));
+
+        Path referenced = old(REFERENCED, "ref");
+        Path referencedVariant = old(MediaUrls.variantKey(REFERENCED, "w320"), "refv");
+        Path blobOnly = old(BLOB_ONLY, "blb");
+        Path orphan = old(ORPHAN, "orphan");
+        Path orphanVariant = old(MediaUrls.variantKey(ORPHAN, "w320"), "v1");
+        Path strayVariant = old(MediaUrls.variantKey("99/99/" + "9".repeat(64) + ".png", "w640"), "v22");
+        Path legacy = old("1234_cat.png", "legacy");
+        Path fresh = write("77/77/" + "7".repeat(64) + ".png", "fresh");
+        Path stagedLeftover = old(".incoming/upload123.tmp", "partial");
+
+        MediaGcService.Stats stats = gc.collect();
+
+        assertThat(referenced).exists();
+        assertThat(referencedVariant).exists();
+        assertThat(blobOnly).exists();
+        assertThat(fresh).exists();
+        assertThat(orphan).doesNotExist();
+        assertThat(orphanVariant).doesNotExist();
+        assertThat(strayVariant).doesNotExist();
+        assertThat(legacy).doesNotExist();
+        assertThat(stagedLeftover).doesNotExist();
+        assertThat(stats.getBytesReclaimed()).isEqualTo("orphan".length() + "v1".length() + "v22".length() + "legacy".length());
+        assertThat(stats.getScanned()).isGreaterThanOrEqualTo(6);
+        assertThat(gc.getStats().getTotalBytesReclaimed()).isEqualTo(stats.getBytesReclaimed());
+    }
+
+    private Path old(String key, String content) throws Exception {
+        Path file = write(key, content);
+        Files.setLastModifiedTime(file, FileTime.from(Instant.now().minus(Duration.ofDays(2))));
+        return file;
+    }
+
+    private Path write(String key, String content) throws Exception {
+        Path file = root.resolve(key);
+        Files.createDirectories(file.getParent());
+        return Files.writeString(file, content);
+    }
+}
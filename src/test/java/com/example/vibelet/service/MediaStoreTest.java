@@ -0,0 +1,157 @@
+package com.example.vibelet.service;
+
+import com.example.vibelet.repository.MediaBlobRepository;
+import com.example.vibelet.storage.LocalMediaStorage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Not wrapped in a test transaction: the store commits reference counts on its own.
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class MediaStoreTest {
+    private static final byte[] PNG = {(byte) 0x89, 'P', 'N', 'G', 0x0D, 0x0A, 0x1A, 0x0A, 1, 2, 3, 4};
+
+    @Autowired private MediaBlobRepository mediaBlobRepository;
+    @Autowired private PlatformTransactionManager transactionManager;
+
+    @TempDir Path root;
+
+    private MediaStore store;
+
+    @BeforeEach
+    void setUp() {
+        store = new MediaStore(mediaBlobRepository, new LocalMediaStorage(root), transactionManager, root.toString(), DataSize.ofKilobytes(1));
+    }
+
+    @AfterEach
+    void tearDown() {
+        mediaBlobRepository.deleteAll();
+    }
+
+    @Test
+    void store_ShouldShardByContentHashAndSniffExtension() throws Exception {
+        String key = store.store(new ByteArrayInputStream(PNG));
+
+        assertThat(key).matches("[0-9a-f]{2}/[0-9a-f]{2}/[0-9a-f]{64}\\.png");
+        assertThat(key.substring(0, 2)).isEqualTo(key.substring(6, 8));
+        assertThat(Files.readAllBytes(root.resolve(key))).isEqualTo(PNG);
+        assertThat(mediaBlobRepository.findById(key)).get()
+                .satisfies(blob -> assertThat(blob.getSize()).isEqualTo(PNG.length));
+    }
+
+    @Test
+    void store_SameBytesTwice_ShouldKeepOneFileWithTwoReferences() throws Exception {
+        String first = store.store(new ByteArrayInputStream(PNG));
+        String second = store.store(new ByteArrayInputStream(PNG));
+
+        assertThat(second).isEqualTo(first);
+        assertThat(mediaBlobRepository.findById(first).orElseThrow().getRefCount()).isEqualTo(2);
+        try (var incoming = Files.list(root.resolve(".incoming"))) {
+            assertThat(incoming).isEmpty();
+        }
+    }
+
+    @Test
+    void release_ShouldDropRowWithLastReferenceButLeaveFilesToGc() throws Exception {
+        String key = store.store(new ByteArrayInputStream(PNG));
+        store.store(new ByteArrayInputStream(PNG));
+
+        store.release(key);
+        assertThat(mediaBlobRepository.findById(key).orElseThrow().getRefCount()).isEqualTo(1);
+
+        store.release(key);
+        assertThat(mediaBlobRepository.findById(key)).isEmpty();
+        assertThat(root.resolve(key)).exists();
+    }
+
+    @Test
+    void store_InRolledBackTransaction_ShouldGiveTheReferenceBack() {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        String[] key = new String[1];
+
+        transaction.executeWithoutResult(status -> {
+            try {
+                key[0] = store.store(new ByteArrayInputStream(PNG));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            status.setRollbackOnly();
+        });
+
+        assertThat(mediaBlobRepository.findById(key[0])).isEmpty();
+    }
+
+    @Test
+    void discard_OutsideTransaction_ShouldDropTheReference() throws Exception {
+        String key = store.store(new ByteArrayInputStream(PNG));
+
+        store.discard(key);
+
+        assertThat(mediaBlobRepository.findById(key)).isEmpty();
+    }
+
+    @Test
+    void purge_ShouldDeleteBlobAndVariantsUnlessReferenced() throws Exception {
+        String key = store.store(new ByteArrayInputStream(PNG));
+        Path variant = root.resolve(MediaUrls.variantKey(key, "w320"));
+        Files.writeString(variant, "variant");
+
+        assertThat(store.purge(key, PNG.length, k -> true)).isEqualTo(-1);
+        assertThat(root.resolve(key)).exists();
+
+        assertThat(store.purge(key, PNG.length, k -> false)).isEqualTo(PNG.length + "variant".length());
+        assertThat(root.resolve(key)).doesNotExist();
+        assertThat(variant).doesNotExist();
+    }
+
+    @Test
+    void variantBase_ShouldStripVariantSuffix() {
+        assertThat(MediaStore.variantBase("ab/cd/abcd_w320.jpg")).isEqualTo("ab/cd/abcd");
+        assertThat(MediaStore.variantBase("1234_cat_s80.jpg")).isEqualTo("1234_cat");
+        assertThat(MediaStore.variantBase("ab/cd/abcd.png")).isNull();
+    }
+
+    @Test
+    void store_NotAnImage_ShouldBeRejectedBeforeWriting() throws Exception {
+        assertThatThrownBy(() -> store.store(new ByteArrayInputStream("plain text".getBytes())))
+                .isInstanceOf(IllegalArgumentException.class);
+
+        assertThat(mediaBlobRepository.count()).isZero();
+        try (var incoming = Files.list(root.resolve(".incoming"))) {
+            assertThat(incoming).isEmpty();
+        }
+    }
+
+    @Test
+    void store_OverSizeLimit_ShouldBeRejectedAndCleanedUp() throws Exception {
+        byte[] big = new byte[4096];
+        System.arraycopy(PNG, 0, big, 0, PNG.length);
+
+        assertThatThrownBy(() -> store.store(new ByteArrayInputStream(big)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("limit");
+
+        assertThat(mediaBlobRepository.count()).isZero();
+        try (var incoming = Files.list(root.resolve(".incoming"))) {
+            assertThat(incoming).isEmpty();
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.vibelet.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MediaUrlsTest {
+    private final MediaUrls media = new MediaUrls();
+
+    @Test
+    void thumb_ShouldPickSmallestVariantThatIsLargeEnough() {
+        assertThat(media.thumb("me.png", "s80,s192", 64)).isEqualTo("/uploads/me_s80.jpg");
+        assertThat(media.thumb("me.png", "s80,s192", 100)).isEqualTo("/uploads/me_s192.jpg");
+        assertThat(media.thumb("me.png", "s80", 192)).isEqualTo("/uploads/me_s80.jpg");
+    }
+
+    @Test
+    void thumb_WithoutVariants_ShouldFallBackToOriginal() {
+        assertThat(media.thumb("me.png", null, 80)).isEqualTo("/uploads/me.png");
+        assertThat(media.thumb("https://cdn.example/me.png", "s80", 80)).isEqualTo("https://cdn.example/me.png");
+    }
+
+    @Test
+    void srcset_ShouldListWidthVariants() {
+        assertThat(media.srcset("pic.jpg", "w320,w640"))
+                .isEqualTo("/uploads/pic_w320.jpg 320w, /uploads/pic_w640.jpg 640w");
+        assertThat(media.srcset("pic.jpg", null)).isNull();
+        assertThat(media.preview("pic.jpg", "w320,w640,w1080", 640)).isEqualTo("/uploads/pic_w640.jpg");
+    }
+}
@@ -0,0 +1,180 @@
+package com.example.vibelet.service;
+
+import com.example.vibelet.dto.CursorSlice;
+import com.example.vibelet.dto.FeedCursor;
+import com.example.vibelet.model.*;
+import com.example.vibelet.repository.FriendshipRepository;
+import com.example.vibelet.repository.TimelineRepository;
+import com.example.vibelet.repository.UserRepository;
+import com.example.vibelet.repository.VibeRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Page;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@Import(TimelineService.class)
+class TimelineServiceTest {
+    @Autowired private TimelineService timelineService;
+    @Autowired private TimelineRepository timelineRepository;
+    @Autowired private VibeRepository vibeRepository;
+    @Autowired private UserRepository userRepository;
+    @Autowired private FriendshipRepository friendshipRepository;
+
+    private User me;
+    private User friend;
+    private User stranger;
+
+    @BeforeEach
+    void setUp() {
+        me = userRepository.save(new User("me", "me@test.com", "pass"));
+        friend = userRepository.save(new User("friend", "friend@test.com", "pass"));
+        stranger = userRepository.save(new User("stranger", "stranger@test.com", "pass"));
+    }
+
+    @Test
+    void fanOut_FriendsOnly_ShouldReachAuthorAndFriendsOnly() {
+        befriend(me, friend);
+        Vibe vibe = createVibe(friend, "friends only", PrivacyStatus.FRIENDS_ONLY);
+
+        timelineService.fanOut(vibe);
+
+        assertThat(timelineRepository.countForOwner(friend.getId())).isEqualTo(1);
+        assertThat(timelineRepository.countForOwner(me.getId())).isEqualTo(1);
+        assertThat(timelineRepository.countForOwner(stranger.getId())).isZero();
+    }
+
+    @Test
+    void fanOut_Public_ShouldNotWriteTimelineRows() {
+        befriend(me, friend);
+        Vibe vibe = createVibe(friend, "public", PrivacyStatus.PUBLIC);
+
+        timelineService.fanOut(vibe);
+
+        assertThat(timelineRepository.count()).isZero();
+    }
+
+    @Test
+    void getFeed_ShouldMergeTimelineWithPublicStream() {
+        befriend(me, friend);
+        Vibe mine = createVibe(me, "My private vibe", PrivacyStatus.PRIVATE);
+        Vibe friends = createVibe(friend, "Friend vibe", PrivacyStatus.FRIENDS_ONLY);
+        Vibe secret = createVibe(friend, "Secret vibe", PrivacyStatus.PRIVATE);
+        Vibe open = createVibe(stranger, "Stranger vibe", PrivacyStatus.PUBLIC);
+        timelineService.fanOut(mine);
+        timelineService.fanOut(friends);
+        timelineService.fanOut(secret);
+        timelineService.fanOut(open);
+
+        Page<Vibe> feed = timelineService.getFeed(me.getId(), 0, 10);
+
+        assertThat(feed.getTotalElements()).isEqualTo(3);
+        assertThat(feed.getContent()).extracting(Vibe::getContent)
+                .containsExactly("Stranger vibe", "Friend vibe", "My private vibe");
+    }
+
+    @Test
+    void getFeed_SecondPage_ShouldSkipFirstPage() {
+        for (int i = 0; i < 5; i++) {
+            timelineService.fanOut(createVibe(me, "vibe " + i, PrivacyStatus.PRIVATE));
+        }
+
+        Page<Vibe> feed = timelineService.getFeed(me.getId(), 1, 2);
+
+        assertThat(feed.getTotalElements()).isEqualTo(5);
+        assertThat(feed.getContent()).extracting(Vibe::getContent)
+                .containsExactly("vibe 2", "vibe 1");
+    }
+
+    @Test
+    void getFeedSlice_ShouldWalkPagesWithCursor() {
+        for (int i = 0; i < 3; i++) {
+            timelineService.fanOut(createVibe(me, "private " + i, PrivacyStatus.PRIVATE));
+            createVibe(stranger, "public " + i, PrivacyStatus.PUBLIC);
+        }
+
+        CursorSlice<Vibe> first = timelineService.getFeedSlice(me.getId(), null, 4);
+        assertThat(first.getContent()).extracting(Vibe::getContent)
+                .containsExactly("public 2", "private 2", "public 1", "private 1");
+        assertThat(first.isHasNext()).isTrue();
+
+        CursorSlice<Vibe> second = timelineService.getFeedSlice(me.getId(), FeedCursor.decode(first.getNextCursor()), 4);
+        assertThat(second.getContent()).extracting(Vibe::getContent)
+                .containsExactly("public 0", "private 0");
+        assertThat(second.isHasNext()).isFalse();
+    }
+
+    @Test
+    void reconcile_WhenMadePrivate_ShouldRemoveFriendRows() {
+        befriend(me, friend);
+        Vibe vibe = createVibe(friend, "was shared", PrivacyStatus.FRIENDS_ONLY);
+        timelineService.fanOut(vibe);
+
+        vibe.setPrivacyStatus(PrivacyStatus.PRIVATE);
+        vibeRepository.save(vibe);
+        timelineService.reconcile(vibe);
+
+        assertThat(timelineRepository.countForOwner(me.getId())).isZero();
+        assertThat(timelineRepository.countForOwner(friend.getId())).isEqualTo(1);
+    }
+
+    @Test
+    void unlink_ShouldRemoveEachOthersVibes() {
+        befriend(me, friend);
+        timelineService.fanOut(createVibe(friend, "friend vibe", PrivacyStatus.FRIENDS_ONLY));
+        timelineService.fanOut(createVibe(me, "my vibe", PrivacyStatus.FRIENDS_ONLY));
+
+        timelineService.unlink(me.getId(), friend.getId());
+
+        assertThat(timelineRepository.countForOwner(me.getId())).isEqualTo(1);
+        assertThat(timelineRepository.countForOwner(friend.getId())).isEqualTo(1);
+    }
+
+    @Test
+    void rebuild_ShouldBackfillLateFriend() {
+        timelineService.fanOut(createVibe(friend, "old vibe", PrivacyStatus.FRIENDS_ONLY));
+        assertThat(timelineRepository.countForOwner(me.getId())).isZero();
+
+        befriend(me, friend);
+        timelineService.rebuild(me.getId());
+
+        assertThat(timelineRepository.countForOwner(me.getId())).isEqualTo(1);
+    }
+
+    @Test
+    void processPendingRebuilds_ShouldWorkOffTheStoredQueue() {
+        timelineService.fanOut(createVibe(friend, "old vibe", PrivacyStatus.FRIENDS_ONLY));
+        befriend(me, friend);
+        timelineService.scheduleRebuild(me.getId(), me.getId(), null);
+        assertThat(timelineRepository.findPendingRebuilds(10)).hasSize(1);
+
+        timelineService.processPendingRebuilds();
+
+        assertThat(timelineRepository.countForOwner(me.getId())).isEqualTo(1);
+        assertThat(timelineRepository.findPendingRebuilds(10)).isEmpty();
+    }
+
+    private void befriend(User requester, User receiver) {
+        Friendship f = new Friendship();
+        f.setRequester(requester);
+        f.setReceiver(receiver);
+        f.setStatus(FriendshipStatus.ACCEPTED);
+        friendshipRepository.save(f);
+    }
+
+    private Vibe createVibe(User user, String content, PrivacyStatus privacy) {
+        Vibe v = new Vibe();
+        v.setUser(user);
+        v.setContent(content);
+        v.setPrivacyStatus(privacy);
+        Vibe saved = vibeRepository.save(v);
+        saved.setCreatedAt(LocalDateTime.now().plusNanos(saved.getId() * 1000));
+        return vibeRepository.saveAndFlush(saved);
+    }
+}
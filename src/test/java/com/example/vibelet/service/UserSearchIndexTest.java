@@ -0,0 +1,87 @@
+package com.example.vibelet.service;
+
+import com.example.vibelet.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class UserSearchIndexTest {
+    @Mock private UserRepository userRepository;
+
+    private UserSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        List<Object[]> rows = new ArrayList<>();
+        rows.add(new Object[]{1L, "Bob"});
+        rows.add(new Object[]{2L, "bobby"});
+        rows.add(new Object[]{3L, "jimbob"});
+        rows.add(new Object[]{4L, "alice"});
+        when(userRepository.findIdAndUsernameAfter(eq(0L), any(Pageable.class))).thenReturn(rows);
+        when(userRepository.findIdAndUsernameAfter(eq(4L), any(Pageable.class))).thenReturn(List.of());
+
+        index = new UserSearchIndex(userRepository);
+        index.rebuild();
+    }
+
+    @Test
+    void search_ShouldRankExactThenPrefixThenInfix() {
+        assertTrue(index.isReady());
+        assertEquals(List.of(1L, 2L, 3L), index.search("BOB", 0, 10));
+    }
+
+    @Test
+    void search_ShortQuery_ShouldMatchPrefixOnly() {
+        assertEquals(List.of(1L, 2L), index.search("bo", 0, 10));
+        assertEquals(List.of(4L), index.search("a", 0, 10));
+    }
+
+    @Test
+    void search_ShouldPage() {
+        assertEquals(List.of(2L), index.search("bob", 1, 1));
+        assertEquals(List.of(), index.search("bob", 3, 1));
+    }
+
+    @Test
+    void put_ShouldReindexRenamedUser() {
+        index.put(4L, "bobcat");
+
+        assertEquals(List.of(), index.search("alice", 0, 10));
+        assertEquals(List.of(1L, 2L, 4L, 3L), index.search("bob", 0, 10));
+    }
+
+    @Test
+    void rebuild_ShouldPickUpChangesMadeOnOtherNodes() {
+        List<Object[]> rows = new ArrayList<>();
+        rows.add(new Object[]{1L, "Bob"});
+        rows.add(new Object[]{3L, "jimbo"});
+        when(userRepository.findIdAndUsernameAfter(eq(0L), any(Pageable.class))).thenReturn(rows);
+        when(userRepository.findIdAndUsernameAfter(eq(3L), any(Pageable.class))).thenReturn(List.of());
+
+        index.rebuild();
+
+        assertEquals(List.of(1L), index.search("bob", 0, 10));
+        assertEquals(List.of(3L), index.search("jimbo", 0, 10));
+        assertEquals(List.of(), index.search("alice", 0, 10));
+    }
+
+    @Test
+    void remove_ShouldDropUser() {
+        index.remove(1L);
+
+        assertEquals(List.of(2L, 3L), index.search("bob", 0, 10));
+        assertEquals(List.of(2L), index.search("bo", 0, 10));
+    }
+}
@@ -3,19 +3,25 @@ package com.example.vibelet.service;
 import com.example.vibelet.dto.UserProfileUpdateDto;
 import com.example.vibelet.dto.UserSearchDto;
 import com.example.vibelet.dto.UserSecurityUpdateDto;
-import com.example.vibelet.model.Friendship;
-import com.example.vibelet.model.FriendshipStatus;
+import com.example.vibelet.model.RelationshipStatus;
 import com.example.vibelet.model.User;
-import com.example.vibelet.repository.FriendshipRepository;
 import com.example.vibelet.repository.UserRepository;
+import com.example.vibelet.repository.VibeRepository;
+import com.example.vibelet.security.CurrentUser;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -24,9 +30,15 @@ import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
 class UserServiceTest {
+    private static final CurrentUser ME = new CurrentUser(1L, "user");
+
     @Mock private UserRepository userRepository;
-    @Mock private FriendshipRepository friendshipRepository;
+    @Mock private VibeRepository vibeRepository;
+    @Mock private FriendGraphCache friendGraph;
     @Mock private PasswordEncoder passwordEncoder;
+    @Mock private UserSearchIndex userSearchIndex;
+    @Mock private ImageProcessingService imageProcessingService;
+    @Mock private MediaStore mediaStore;
     @InjectMocks private UserService userService;
 
     @Test
@@ -37,20 +49,19 @@ class UserServiceTest {
         UserProfileUpdateDto dto = new UserProfileUpdateDto();
         dto.setBio("New Bio");
 
-        when(userRepository.findByUsername(username)).thenReturn(Optional.of(user));
+        when(userRepository.findById(ME.getId())).thenReturn(Optional.of(user));
         when(userRepository.save(any(User.class))).thenAnswer(i -> i.getArgument(0));
 
-        userService.updateUserProfile(username, dto, null);
+        userService.updateUserProfile(ME, dto, null);
         assertEquals("New Bio", user.getBio());
     }
 
     @Test
     void updateUserProfile_WhenUserNotFound_ShouldThrow() {
-        String username = "unknown";
         UserProfileUpdateDto dto = new UserProfileUpdateDto();
-        when(userRepository.findByUsername(username)).thenReturn(Optional.empty());
+        when(userRepository.findById(ME.getId())).thenReturn(Optional.empty());
         assertThrows(
-                RuntimeException.class, () -> userService.updateUserProfile(username, dto, null)
+                RuntimeException.class, () -> userService.updateUserProfile(ME, dto, null)
         );
     }
 
@@ -63,20 +74,72 @@ class UserServiceTest {
         dto.setStatus("Online");
         dto.setAvatarUrl("http://avatar.url/image.png");
 
-        when(userRepository.findByUsername(username)).thenReturn(Optional.of(user));
+        when(userRepository.findById(ME.getId())).thenReturn(Optional.of(user));
         when(userRepository.save(any(User.class))).thenAnswer(i -> i.getArgument(0));
 
-        userService.updateUserProfile(username, dto, null);
+        userService.updateUserProfile(ME, dto, null);
         assertAll(
                 ()->assertEquals("Online", user.getStatus()),
                 ()->assertEquals("http://avatar.url/image.png", user.getAvatarUrl())
         );
     }
 
+    @Test
+    void updateUserProfile_WithUpload_ShouldReleasePreviousAvatar() throws Exception {
+        String username = "user";
+        User user = new User(); user.setUsername(username); user.setAvatarUrl("aa/bb/old.png");
+        MockMultipartFile file = new MockMultipartFile("file", "me.png", "image/png", new byte[]{1, 2, 3});
+
+        when(userRepository.findById(ME.getId())).thenReturn(Optional.of(user));
+        when(userRepository.save(any(User.class))).thenAnswer(i -> i.getArgument(0));
+        when(mediaStore.store(any())).thenReturn("cc/dd/new.png");
+
+        userService.updateUserProfile(ME, new UserProfileUpdateDto(), file);
+
+        assertEquals("cc/dd/new.png", user.getAvatarUrl());
+        verify(imageProcessingService).processAvatar(user.getId(), "cc/dd/new.png");
+        verify(mediaStore).release("aa/bb/old.png");
+    }
+
+    @Test
+    void updateAvatar_ShouldStoreStreamAndReleasePreviousAvatar() throws Exception {
+        String username = "user";
+        User user = new User(); user.setUsername(username); user.setAvatarUrl("aa/bb/old.png");
+        InputStream body = new ByteArrayInputStream(new byte[]{1, 2, 3});
+
+        when(userRepository.findById(ME.getId())).thenReturn(Optional.of(user));
+        when(userRepository.save(any(User.class))).thenAnswer(i -> i.getArgument(0));
+        when(mediaStore.store(body)).thenReturn("cc/dd/new.png");
+
+        userService.updateAvatar(ME, body);
+
+        assertEquals("cc/dd/new.png", user.getAvatarUrl());
+        verify(imageProcessingService).processAvatar(user.getId(), "cc/dd/new.png");
+        verify(mediaStore).release("aa/bb/old.png");
+    }
+
+    @Test
+    void updateUserProfile_WithTypedMediaKey_ShouldKeepAvatar() {
+        String username = "user";
+        User user = new User(); user.setUsername(username); user.setAvatarUrl("aa/bb/mine.png");
+
+        UserProfileUpdateDto dto = new UserProfileUpdateDto();
+        dto.setAvatarUrl("ee/ff/theirs.png");
+
+        when(userRepository.findById(ME.getId())).thenReturn(Optional.of(user));
+        when(userRepository.save(any(User.class))).thenAnswer(i -> i.getArgument(0));
+
+        userService.updateUserProfile(ME, dto, null);
+
+        assertEquals("aa/bb/mine.png", user.getAvatarUrl());
+        verify(mediaStore, never()).release(any());
+    }
+
     @Test
     void updateSecurityDetails_ShouldUpdatePassword() {
         String username = "user";
         User user = new User();
+        user.setId(1L);
         user.setUsername(username);
         user.setPassword("encoded_old_pass");
 
@@ -84,33 +147,62 @@ class UserServiceTest {
         dto.setCurrentPassword("old_pass");
         dto.setNewPassword("new_pass");
 
-        when(userRepository.findByUsername(username)).thenReturn(Optional.of(user));
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
         when(passwordEncoder.matches("old_pass", "encoded_old_pass")).thenReturn(true);
         when(passwordEncoder.encode("new_pass")).thenReturn("encoded_new_pass");
 
-        userService.updateSecurityDetails(username, dto);
+        userService.updateSecurityDetails(new CurrentUser(1L, username), dto);
 
         assertEquals("encoded_new_pass", user.getPassword());
         verify(userRepository).save(user);
+        verify(userSearchIndex, never()).put(any(), any());
     }
 
     @Test
-    void deleteUser_ShouldCallRepositoryDelete() {
-        String username = "todelete";
+    void updateSecurityDetails_Rename_ShouldReturnRenamedUser() {
         User user = new User();
-        when(userRepository.findByUsername(username)).thenReturn(Optional.of(user));
+        user.setId(1L);
+        user.setUsername("old");
+        user.setPassword("encoded");
+
+        UserSecurityUpdateDto dto = new UserSecurityUpdateDto();
+        dto.setCurrentPassword("pass");
+        dto.setNewUsername("new");
+
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+        when(passwordEncoder.matches("pass", "encoded")).thenReturn(true);
+        when(userRepository.existsByUsername("new")).thenReturn(false);
+        when(userRepository.save(user)).thenReturn(user);
 
-        userService.deleteUser(username);
-        verify(userRepository).delete(user);
+        User saved = userService.updateSecurityDetails(new CurrentUser(1L, "old"), dto);
+
+        assertEquals("new", saved.getUsername());
+        verify(userSearchIndex).put(1L, "new");
+        verify(userRepository, never()).findByUsername(any());
+    }
+
+    @Test
+    void deleteUser_ShouldCallRepositoryDelete() {
+        User user = new User();
+        user.setAvatarUrl("aa/bb/me.png");
+        when(userRepository.findById(ME.getId())).thenReturn(Optional.of(user));
+
+        userService.deleteUser(ME);
+        InOrder inOrder = inOrder(vibeRepository, userRepository);
+        inOrder.verify(vibeRepository).discountLikesBy(user.getId());
+        inOrder.verify(vibeRepository).discountCommentsBy(user.getId());
+        inOrder.verify(userRepository).delete(user);
+        verify(userSearchIndex).remove(user.getId());
+        verify(friendGraph).invalidateUser(user.getId());
+        verify(mediaStore).release("aa/bb/me.png");
     }
 
     @Test
     void deleteUser_WhenUserNotFound_ShouldThrow() {
-        String username = "nonexistent";
-        when(userRepository.findByUsername(username)).thenReturn(Optional.empty());
+        when(userRepository.findById(ME.getId())).thenReturn(Optional.empty());
 
         assertThrows(
-                RuntimeException.class, () -> userService.deleteUser(username)
+                RuntimeException.class, () -> userService.deleteUser(ME)
         );
     }
 
@@ -122,36 +214,23 @@ class UserServiceTest {
         User friend = new User(); friend.setId(2L); friend.setUsername("friend");
         User stranger = new User(); stranger.setId(3L); stranger.setUsername("stranger");
 
-        Friendship f = new Friendship();
-        f.setRequester(me);
-        f.setReceiver(friend);
-        f.setStatus(FriendshipStatus.ACCEPTED);
-
-        when(userRepository.findByUsername(myName)).thenReturn(Optional.of(me));
-        when(userRepository.findByUsernameContainingIgnoreCase("query")).thenReturn(List.of(me, friend, stranger));
-        when(friendshipRepository.findByRequesterAndReceiver(me, friend)).thenReturn(Optional.of(f));
-        when(friendshipRepository.findByRequesterAndReceiver(me, stranger)).thenReturn(Optional.empty());
-        when(friendshipRepository.findByRequesterAndReceiver(stranger, me)).thenReturn(Optional.empty());
-        List<UserSearchDto> results = userService.searchUsers("query", myName);
+        when(userSearchIndex.isReady()).thenReturn(true);
+        when(userSearchIndex.search("query", 0, 20)).thenReturn(List.of(1L, 2L, 3L));
+        when(userRepository.findAllById(List.of(1L, 2L, 3L))).thenReturn(List.of(stranger, me, friend));
+        when(friendGraph.relationships(1L, List.of(1L, 2L, 3L))).thenReturn(Map.of(
+                1L, RelationshipStatus.SELF,
+                2L, RelationshipStatus.FRIEND,
+                3L, RelationshipStatus.NONE));
+        List<UserSearchDto> results = userService.searchUsers("query", new CurrentUser(1L, myName), 0, 20);
 
         assertAll(
-                ()->assertEquals(3, results.size()),
+                ()->assertEquals(List.of("me", "friend", "stranger"), results.stream().map(UserSearchDto::getUsername).toList()),
                 ()->assertEquals("SELF", results.stream().filter(u -> u.getUsername().equals("me")).findFirst().get().getFriendshipStatus()),
                 ()->assertEquals("FRIEND", results.stream().filter(u -> u.getUsername().equals("friend")).findFirst().get().getFriendshipStatus()),
                 ()->assertEquals("NONE", results.stream().filter(u -> u.getUsername().equals("stranger")).findFirst().get().getFriendshipStatus())
         );
     }
 
-    @Test
-    void searchUsers_WhenUserNotFound_ShouldThrow() {
-        String myName = "unknown";
-        when(userRepository.findByUsername(myName)).thenReturn(Optional.empty());
-
-        assertThrows(
-                RuntimeException.class, () -> userService.searchUsers("query", myName)
-        );
-    }
-
     @Test
     void searchUsers_ShouldReceivePendingStatus() {
         String myName = "me";
@@ -159,19 +238,31 @@ class UserServiceTest {
 
         User pendingUser = new User(); pendingUser.setId(4L); pendingUser.setUsername("pending");
 
-        Friendship f = new Friendship();
-        f.setRequester(me);
-        f.setReceiver(pendingUser);
-        f.setStatus(FriendshipStatus.PENDING);
-
-        when(userRepository.findByUsername(myName)).thenReturn(Optional.of(me));
-        when(userRepository.findByUsernameContainingIgnoreCase("query")).thenReturn(List.of(me, pendingUser));
-        when(friendshipRepository.findByRequesterAndReceiver(me, pendingUser)).thenReturn(Optional.of(f));
-        List<UserSearchDto> results = userService.searchUsers("query", myName);
+        when(userSearchIndex.isReady()).thenReturn(false);
+        when(userRepository.findByUsernameContainingIgnoreCase(eq("query"), any(Pageable.class))).thenReturn(List.of(me, pendingUser));
+        when(friendGraph.relationships(1L, List.of(1L, 4L))).thenReturn(Map.of(
+                1L, RelationshipStatus.SELF,
+                4L, RelationshipStatus.PENDING_SENT));
+        List<UserSearchDto> results = userService.searchUsers("query", new CurrentUser(1L, myName), 0, 20);
 
         assertEquals("PENDING", results.stream().filter(u -> u.getUsername().equals("pending")).findFirst().get().getFriendshipStatus());
     }
 
+    @Test
+    void searchUsers_ShortQueryBeforeIndexIsReady_ShouldMatchPrefixLikeTheIndex() {
+        User me = new User(); me.setId(1L); me.setUsername("me");
+        User bob = new User(); bob.setId(2L); bob.setUsername("bob");
+
+        when(userSearchIndex.isReady()).thenReturn(false);
+        when(userRepository.findByUsernameStartingWithIgnoreCase(eq("bo"), any(Pageable.class))).thenReturn(List.of(bob));
+        when(friendGraph.relationships(1L, List.of(2L))).thenReturn(Map.of(2L, RelationshipStatus.NONE));
+
+        List<UserSearchDto> results = userService.searchUsers(" bo ", new CurrentUser(1L, "me"), 0, 20);
+
+        assertEquals(List.of("bob"), results.stream().map(UserSearchDto::getUsername).toList());
+        verify(userRepository, never()).findByUsernameContainingIgnoreCase(any(), any());
+    }
+
     @Test
     void getCurrentUser_ShouldReturnUser() {
         String username = "current";
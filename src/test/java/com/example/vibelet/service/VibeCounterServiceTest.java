@@ -0,0 +1,115 @@
+package com.example.vibelet.service;
+
+import com.example.vibelet.model.*;
+import com.example.vibelet.repository.CommentRepository;
+import com.example.vibelet.repository.PostLikeRepository;
+import com.example.vibelet.repository.UserRepository;
+import com.example.vibelet.repository.VibeRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+class VibeCounterServiceTest {
+    @Autowired private VibeRepository vibeRepository;
+    @Autowired private UserRepository userRepository;
+    @Autowired private PostLikeRepository postLikeRepository;
+    @Autowired private CommentRepository commentRepository;
+    @Autowired private PlatformTransactionManager transactionManager;
+    @Autowired private EntityManager entityManager;
+
+    private User user;
+    private Vibe vibe;
+
+    @BeforeEach
+    void setUp() {
+        user = userRepository.save(new User("counter", "counter@test.com", "pass"));
+        Vibe v = new Vibe();
+        v.setUser(user);
+        v.setContent("hot vibe");
+        v.setPrivacyStatus(PrivacyStatus.PUBLIC);
+        vibe = vibeRepository.saveAndFlush(v);
+    }
+
+    @Test
+    void adjustLikes_Unbuffered_ShouldUpdateImmediately() {
+        VibeCounterService counters = new VibeCounterService(vibeRepository, transactionManager, false);
+
+        counters.adjustLikes(vibe.getId(), 1);
+        counters.adjustLikes(vibe.getId(), 1);
+        counters.adjustComments(vibe.getId(), 1);
+
+        Vibe reloaded = reload();
+        assertThat(reloaded.getLikeCount()).isEqualTo(2);
+        assertThat(reloaded.getCommentCount()).isEqualTo(1);
+    }
+
+    @Test
+    void adjustLikes_Buffered_ShouldApplyOnFlush() {
+        VibeCounterService counters = new VibeCounterService(vibeRepository, transactionManager, true);
+
+        counters.adjustLikes(vibe.getId(), 1);
+        counters.adjustLikes(vibe.getId(), 1);
+        counters.adjustLikes(vibe.getId(), -1);
+        assertThat(reload().getLikeCount()).isZero();
+
+        counters.flush();
+
+        assertThat(reload().getLikeCount()).isEqualTo(1);
+    }
+
+    @Test
+    void adjust_ShouldNeverGoBelowZero() {
+        VibeCounterService counters = new VibeCounterService(vibeRepository, transactionManager, false);
+
+        counters.adjustComments(vibe.getId(), -3);
+
+        assertThat(reload().getCommentCount()).isZero();
+    }
+
+    @Test
+    void recount_ShouldRebuildCountsFromRows() {
+        PostLike like = new PostLike();
+        like.setUser(user);
+        like.setVibe(vibe);
+        postLikeRepository.save(like);
+        Comment comment = new Comment();
+        comment.setUser(user);
+        comment.setVibe(vibe);
+        comment.setContent("first");
+        commentRepository.saveAndFlush(comment);
+
+        new VibeCounterService(vibeRepository, transactionManager, false).recount();
+
+        Vibe reloaded = reload();
+        assertThat(reloaded.getLikeCount()).isEqualTo(1);
+        assertThat(reloaded.getCommentCount()).isEqualTo(1);
+    }
+
+    @Test
+    void recount_ShouldAlsoLowerCountsAboveTheRows() {
+        PostLike like = new PostLike();
+        like.setUser(user);
+        like.setVibe(vibe);
+        postLikeRepository.saveAndFlush(like);
+        vibeRepository.adjustLikeCount(vibe.getId(), 3);
+        vibeRepository.adjustCommentCount(vibe.getId(), 2);
+
+        new VibeCounterService(vibeRepository, transactionManager, false).recount();
+
+        Vibe reloaded = reload();
+        assertThat(reloaded.getLikeCount()).isEqualTo(1);
+        assertThat(reloaded.getCommentCount()).isZero();
+    }
+
+    private Vibe reload() {
+        entityManager.flush();
+        entityManager.clear();
+        return vibeRepository.findById(vibe.getId()).orElseThrow();
+    }
+}
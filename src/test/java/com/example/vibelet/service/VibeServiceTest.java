@@ -1,18 +1,24 @@
 package com.example.vibelet.service;
 
+import com.example.vibelet.dto.CursorSlice;
+import com.example.vibelet.dto.FeedCursor;
+import com.example.vibelet.dto.LikeState;
+import com.example.vibelet.dto.VibeResponse;
 import com.example.vibelet.model.*;
 import com.example.vibelet.repository.*;
+import com.example.vibelet.security.CurrentUser;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
-import org.mockito.MockedStatic;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -22,21 +28,28 @@ import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
 class VibeServiceTest {
+    private static final CurrentUser ME = new CurrentUser(2L, "u");
+    private static final CurrentUser OWNER = new CurrentUser(1L, "owner");
+
     @Mock private VibeRepository vibeRepository;
     @Mock private UserRepository userRepository;
     @Mock private CommentRepository commentRepository;
     @Mock private PostLikeRepository postLikeRepository;
-    @Mock private FriendshipRepository friendshipRepository;
+    @Mock private FriendGraphCache friendGraph;
+    @Mock private TimelineService timelineService;
+    @Mock private VibeCounterService vibeCounterService;
+    @Mock private ImageProcessingService imageProcessingService;
+    @Mock private MediaStore mediaStore;
 
     @InjectMocks private VibeService vibeService;
 
     @Test
     void createVibe_NoFile_NullFile() {
         User user = new User(); user.setUsername("u");
-        when(userRepository.findByUsername("u")).thenReturn(Optional.of(user));
+        when(userRepository.findById(2L)).thenReturn(Optional.of(user));
         when(vibeRepository.save(any())).thenAnswer(i -> i.getArgument(0));
 
-        Vibe vibe = vibeService.createVibe("u", "c", null, PrivacyStatus.PUBLIC);
+        Vibe vibe = vibeService.createVibe(ME, "c", null, PrivacyStatus.PUBLIC);
         assertNull(vibe.getImageUrl());
     }
 
@@ -46,10 +59,10 @@ class VibeServiceTest {
         when(file.isEmpty()).thenReturn(true);
 
         User user = new User(); user.setUsername("u");
-        when(userRepository.findByUsername("u")).thenReturn(Optional.of(user));
+        when(userRepository.findById(2L)).thenReturn(Optional.of(user));
         when(vibeRepository.save(any())).thenAnswer(i -> i.getArgument(0));
 
-        Vibe vibe = vibeService.createVibe("u", "c", file, PrivacyStatus.PUBLIC);
+        Vibe vibe = vibeService.createVibe(ME, "c", file, PrivacyStatus.PUBLIC);
         assertNull(vibe.getImageUrl());
     }
 
@@ -61,11 +74,29 @@ class VibeServiceTest {
         when(file.getInputStream()).thenReturn(new ByteArrayInputStream("x".getBytes()));
 
         User user = new User(); user.setUsername("u");
-        when(userRepository.findByUsername("u")).thenReturn(Optional.of(user));
+        when(userRepository.findById(2L)).thenReturn(Optional.of(user));
         when(vibeRepository.save(any())).thenAnswer(i -> i.getArgument(0));
+        when(mediaStore.store(any())).thenReturn("ab/cd/abcd.png");
+
+        Vibe vibe = vibeService.createVibe(ME, "c", file, PrivacyStatus.PUBLIC);
+        assertEquals("ab/cd/abcd.png", vibe.getImageUrl());
+        verify(imageProcessingService).processVibeImage(vibe.getId(), vibe.getImageUrl());
+    }
+
+    @Test
+    void createVibe_SaveFails_ShouldDiscardStoredImage() throws Exception {
+        MultipartFile file = mock(MultipartFile.class);
+        when(file.isEmpty()).thenReturn(false);
+        when(file.getInputStream()).thenReturn(new ByteArrayInputStream("x".getBytes()));
 
-        Vibe vibe = vibeService.createVibe("u", "c", file, PrivacyStatus.PUBLIC);
-        assertNotNull(vibe.getImageUrl());
+        User user = new User(); user.setUsername("u");
+        when(userRepository.findById(2L)).thenReturn(Optional.of(user));
+        when(mediaStore.store(any())).thenReturn("ab/cd/abcd.png");
+        when(vibeRepository.save(any())).thenThrow(new DataIntegrityViolationException("boom"));
+
+        assertThrows(DataIntegrityViolationException.class,
+                () -> vibeService.createVibe(ME, "c", file, PrivacyStatus.PUBLIC));
+        verify(mediaStore).discard("ab/cd/abcd.png");
     }
 
     @Test
@@ -76,128 +107,153 @@ class VibeServiceTest {
         when(file.getInputStream()).thenThrow(new IOException());
 
         User user = new User(); user.setUsername("u");
-        when(userRepository.findByUsername("u")).thenReturn(Optional.of(user));
+        when(userRepository.findById(2L)).thenReturn(Optional.of(user));
 
         assertThrows(RuntimeException.class,
-                () -> vibeService.createVibe("u", "c", file, PrivacyStatus.PUBLIC));
+                () -> vibeService.createVibe(ME, "c", file, PrivacyStatus.PUBLIC));
     }
 
     @Test
     void createVibe_UserNotFound() {
-        when(userRepository.findByUsername("x")).thenReturn(Optional.empty());
+        when(userRepository.findById(2L)).thenReturn(Optional.empty());
         assertThrows(RuntimeException.class,
-                () -> vibeService.createVibe("x", "c", null, PrivacyStatus.PUBLIC));
+                () -> vibeService.createVibe(ME, "c", null, PrivacyStatus.PUBLIC));
     }
 
     @Test
     void deleteVibe_NoImage() {
-        User owner = new User(); owner.setUsername("owner");
+        User owner = new User(); owner.setId(1L); owner.setUsername("owner");
         Vibe vibe = new Vibe(); vibe.setUser(owner);
         when(vibeRepository.findById(1L)).thenReturn(Optional.of(vibe));
-        vibeService.deleteVibe(1L, "owner");
+        vibeService.deleteVibe(1L, OWNER);
 
         verify(vibeRepository).delete(vibe);
     }
 
     @Test
-    void deleteVibe_Image_DeleteSuccess() throws Exception {
-        User owner = new User(); owner.setUsername("owner");
-        Vibe vibe = new Vibe(); vibe.setUser(owner); vibe.setImageUrl("file.png");
+    void deleteVibe_Image_ShouldReleaseMedia() {
+        User owner = new User(); owner.setId(1L); owner.setUsername("owner");
+        Vibe vibe = new Vibe(); vibe.setUser(owner); vibe.setImageUrl("ab/cd/abcd.png");
         when(vibeRepository.findById(1L)).thenReturn(Optional.of(vibe));
 
-        try (MockedStatic<java.nio.file.Files> files = mockStatic(java.nio.file.Files.class)) {
-            files.when(() -> java.nio.file.Files.deleteIfExists(any())).thenReturn(true);
-            vibeService.deleteVibe(1L, "owner");
-        }
-
-        verify(vibeRepository).delete(vibe);
-    }
-
-    @Test
-    void deleteVibe_Image_DeleteIOException_Ignored() throws Exception {
-        User owner = new User(); owner.setUsername("owner");
-        Vibe vibe = new Vibe(); vibe.setUser(owner); vibe.setImageUrl("file.png");
-        when(vibeRepository.findById(1L)).thenReturn(Optional.of(vibe));
-
-        try (MockedStatic<java.nio.file.Files> files = mockStatic(java.nio.file.Files.class)) {
-            files.when(() -> java.nio.file.Files.deleteIfExists(any()))
-                    .thenThrow(new IOException());
-            vibeService.deleteVibe(1L, "owner");
-        }
+        vibeService.deleteVibe(1L, OWNER);
 
         verify(vibeRepository).delete(vibe);
+        verify(mediaStore).release("ab/cd/abcd.png");
     }
 
     @Test
     void deleteVibe_NotOwner() {
-        User owner = new User(); owner.setUsername("owner");
+        User owner = new User(); owner.setId(1L); owner.setUsername("owner");
         Vibe vibe = new Vibe(); vibe.setUser(owner);
         when(vibeRepository.findById(1L)).thenReturn(Optional.of(vibe));
 
         assertThrows(RuntimeException.class,
-                () -> vibeService.deleteVibe(1L, "hacker"));
+                () -> vibeService.deleteVibe(1L, ME));
     }
 
     @Test
     void updateVibe_ContentUpdated() {
-        User owner = new User(); owner.setUsername("owner");
+        User owner = new User(); owner.setId(1L); owner.setUsername("owner");
         Vibe vibe = new Vibe(); vibe.setUser(owner); vibe.setContent("old");
         when(vibeRepository.findById(1L)).thenReturn(Optional.of(vibe));
         when(vibeRepository.save(any())).thenAnswer(i -> i.getArgument(0));
 
-        Vibe updated = vibeService.updateVibe(1L, "owner", "new", null);
+        Vibe updated = vibeService.updateVibe(1L, OWNER, "new", null);
         assertEquals("new", updated.getContent());
     }
 
     @Test
     void updateVibe_NullContent_Ignored() {
-        User owner = new User(); owner.setUsername("owner");
+        User owner = new User(); owner.setId(1L); owner.setUsername("owner");
         Vibe vibe = new Vibe(); vibe.setUser(owner); vibe.setContent("x");
         when(vibeRepository.findById(1L)).thenReturn(Optional.of(vibe));
         when(vibeRepository.save(any())).thenAnswer(i -> i.getArgument(0));
 
-        Vibe updated = vibeService.updateVibe(1L, "owner", null, null);
+        Vibe updated = vibeService.updateVibe(1L, OWNER, null, null);
         assertEquals("x", updated.getContent());
     }
 
     @Test
     void updateVibe_BlankContent_Ignored() {
-        User owner = new User(); owner.setUsername("owner");
+        User owner = new User(); owner.setId(1L); owner.setUsername("owner");
         Vibe vibe = new Vibe(); vibe.setUser(owner); vibe.setContent("x");
         when(vibeRepository.findById(1L)).thenReturn(Optional.of(vibe));
         when(vibeRepository.save(any())).thenAnswer(i -> i.getArgument(0));
 
-        Vibe updated = vibeService.updateVibe(1L, "owner", "   ", null);
+        Vibe updated = vibeService.updateVibe(1L, OWNER, "   ", null);
         assertEquals("x", updated.getContent());
     }
 
     @Test
     void updateVibe_NotOwner() {
-        User owner = new User(); owner.setUsername("owner");
+        User owner = new User(); owner.setId(1L); owner.setUsername("owner");
         Vibe vibe = new Vibe(); vibe.setUser(owner);
         when(vibeRepository.findById(1L)).thenReturn(Optional.of(vibe));
 
         assertThrows(RuntimeException.class,
-                () -> vibeService.updateVibe(1L, "hacker", "x", null));
+                () -> vibeService.updateVibe(1L, ME, "x", null));
     }
 
     @Test
     void updateVibe_NotFound() {
         when(vibeRepository.findById(1L)).thenReturn(Optional.empty());
         assertThrows(RuntimeException.class,
-                () -> vibeService.updateVibe(1L, "u", "x", null));
+                () -> vibeService.updateVibe(1L, ME, "x", null));
     }
 
     @Test
     void getUserVibes_Ok() {
-        User user = new User();
-        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
-        when(vibeRepository.findByUserOrderByCreatedAtDesc(eq(user), any()))
+        when(userRepository.existsById(1L)).thenReturn(true);
+        when(vibeRepository.findResponsesByUserId(eq(1L), any()))
                 .thenReturn(new PageImpl<>(List.of()));
 
         assertNotNull(vibeService.getUserVibes(1L, 0, 5));
     }
 
+    @Test
+    void getUserVibes_UserNotFound() {
+        when(userRepository.existsById(1L)).thenReturn(false);
+        assertThrows(RuntimeException.class, () -> vibeService.getUserVibes(1L, 0, 5));
+    }
+
+    @Test
+    void getUserVibesSlice_ShouldReturnCursorWhenMoreRowsExist() {
+        VibeResponse newer = new VibeResponse(2L, "b", null, null, PrivacyStatus.PUBLIC,
+                LocalDateTime.of(2024, 1, 2, 10, 0), 0, 0, 1L, "u", null, null);
+        VibeResponse older = new VibeResponse(1L, "a", null, null, PrivacyStatus.PUBLIC,
+                LocalDateTime.of(2024, 1, 1, 10, 0), 0, 0, 1L, "u", null, null);
+        when(userRepository.existsById(1L)).thenReturn(true);
+        when(vibeRepository.findLatestByUserId(eq(1L), any())).thenReturn(List.of(newer, older));
+
+        CursorSlice<VibeResponse> slice = vibeService.getUserVibesSlice(1L, null, 1);
+
+        assertEquals(List.of(newer), slice.getContent());
+        FeedCursor cursor = FeedCursor.decode(slice.getNextCursor());
+        assertEquals(2L, cursor.getId());
+        assertEquals(newer.getCreatedAt(), cursor.getCreatedAt());
+    }
+
+    @Test
+    void getUserVibesSlice_WithCursor_ShouldSeekPastIt() {
+        LocalDateTime createdAt = LocalDateTime.of(2024, 1, 2, 10, 0);
+        String token = new FeedCursor(createdAt, 7L).encode();
+        when(userRepository.existsById(1L)).thenReturn(true);
+        when(vibeRepository.findByUserIdBefore(eq(1L), eq(createdAt), eq(7L), any())).thenReturn(List.of());
+
+        CursorSlice<VibeResponse> slice = vibeService.getUserVibesSlice(1L, token, 10);
+
+        assertFalse(slice.isHasNext());
+        assertNull(slice.getNextCursor());
+    }
+
+    @Test
+    void getUserVibesSlice_InvalidCursor() {
+        when(userRepository.existsById(1L)).thenReturn(true);
+        assertThrows(IllegalArgumentException.class,
+                () -> vibeService.getUserVibesSlice(1L, "not-a-cursor", 10));
+    }
+
     @Test
     void getUserVibes_UserNotFound() {
         when(userRepository.findById(1L)).thenReturn(Optional.empty());
@@ -207,102 +263,140 @@ class VibeServiceTest {
 
     @Test
     void addComment_PublicAllowed() {
-        User user = new User(); user.setId(2L);
         User author = new User(); author.setId(1L);
 
         Vibe vibe = new Vibe();
         vibe.setUser(author);
         vibe.setPrivacyStatus(PrivacyStatus.PUBLIC);
 
-        when(userRepository.findByUsername("u")).thenReturn(Optional.of(user));
         when(vibeRepository.findById(1L)).thenReturn(Optional.of(vibe));
-        vibeService.addComment(1L, "u", "ok");
+        vibeService.addComment(1L, ME, "ok");
 
+        verify(userRepository).getReferenceById(2L);
+        verify(userRepository, never()).findByUsername(any());
         verify(commentRepository).save(any());
+        verify(vibeCounterService).adjustComments(1L, 1);
     }
 
     @Test
     void addComment_PrivateDenied() {
-        User user = new User(); user.setId(2L);
         User author = new User(); author.setId(1L);
 
         Vibe vibe = new Vibe();
         vibe.setUser(author);
         vibe.setPrivacyStatus(PrivacyStatus.PRIVATE);
 
-        when(userRepository.findByUsername("u")).thenReturn(Optional.of(user));
         when(vibeRepository.findById(1L)).thenReturn(Optional.of(vibe));
         assertThrows(RuntimeException.class,
-                () -> vibeService.addComment(1L, "u", "x"));
+                () -> vibeService.addComment(1L, ME, "x"));
     }
 
     @Test
     void addComment_FriendsOnly_NotFriend() {
-        User user = new User(); user.setId(2L);
         User author = new User(); author.setId(1L);
 
         Vibe vibe = new Vibe();
         vibe.setUser(author);
         vibe.setPrivacyStatus(PrivacyStatus.FRIENDS_ONLY);
 
-        when(userRepository.findByUsername("u")).thenReturn(Optional.of(user));
         when(vibeRepository.findById(1L)).thenReturn(Optional.of(vibe));
-        when(friendshipRepository.existsByUsers(author, user)).thenReturn(false);
+        when(friendGraph.isConnected(1L, 2L)).thenReturn(false);
 
         assertThrows(RuntimeException.class,
-                () -> vibeService.addComment(1L, "u", "x"));
+                () -> vibeService.addComment(1L, ME, "x"));
     }
 
     @Test
     void toggleLike_AddLike() {
-        User user = new User(); user.setId(2L); user.setUsername("u");
+        when(postLikeRepository.deleteByVibeIdAndUserId(1L, 2L)).thenReturn(0);
+        when(postLikeRepository.insertIfPermitted(1L, 2L)).thenReturn(1);
+        when(vibeCounterService.currentLikes(1L)).thenReturn(3L);
+
+        LikeState state = vibeService.toggleLike(1L, ME);
+
+        assertTrue(state.isLiked());
+        assertEquals(3L, state.getLikeCount());
+        verify(vibeCounterService).adjustLikes(1L, 1);
+        verifyNoInteractions(userRepository);
+    }
+
+    @Test
+    void toggleLike_RemoveLike() {
+        when(postLikeRepository.deleteByVibeIdAndUserId(1L, 2L)).thenReturn(1);
+        when(vibeCounterService.currentLikes(1L)).thenReturn(2L);
+
+        LikeState state = vibeService.toggleLike(1L, ME);
+
+        assertFalse(state.isLiked());
+        assertEquals(2L, state.getLikeCount());
+        verify(vibeCounterService).adjustLikes(1L, -1);
+        verify(postLikeRepository, never()).insertIfPermitted(any(), any());
+    }
+
+    @Test
+    void like_AlreadyLiked_ShouldNotAdjustCount() {
         User owner = new User(); owner.setId(1L);
 
         Vibe vibe = new Vibe();
         vibe.setUser(owner);
         vibe.setPrivacyStatus(PrivacyStatus.PUBLIC);
 
-        when(userRepository.findByUsername("u")).thenReturn(Optional.of(user));
+        when(postLikeRepository.insertIfPermitted(1L, 2L)).thenReturn(0);
         when(vibeRepository.findById(1L)).thenReturn(Optional.of(vibe));
-        when(postLikeRepository.findByUserAndVibe(user, vibe))
-                .thenReturn(Optional.empty());
+        when(vibeCounterService.currentLikes(1L)).thenReturn(1L);
+
+        LikeState state = vibeService.like(1L, ME);
 
-        vibeService.toggleLike(1L, "u");
-        verify(postLikeRepository).save(any());
+        assertTrue(state.isLiked());
+        verify(vibeCounterService, never()).adjustLikes(anyLong(), anyLong());
     }
 
     @Test
-    void toggleLike_RemoveLike() {
+    void like_ConcurrentDuplicate_ShouldBeAbsorbed() {
         User user = new User(); user.setId(2L); user.setUsername("u");
+        Vibe vibe = new Vibe();
+        vibe.setUser(user);
+        vibe.setPrivacyStatus(PrivacyStatus.PRIVATE);
+
+        when(postLikeRepository.insertIfPermitted(1L, 2L))
+                .thenThrow(new DataIntegrityViolationException("duplicate key"));
+        when(vibeRepository.findById(1L)).thenReturn(Optional.of(vibe));
+
+        LikeState state = vibeService.like(1L, ME);
+
+        assertTrue(state.isLiked());
+        verify(vibeCounterService, never()).adjustLikes(anyLong(), anyLong());
+    }
+
+    @Test
+    void like_PrivateVibeOfOtherUser_ShouldThrow() {
         User owner = new User(); owner.setId(1L);
 
         Vibe vibe = new Vibe();
         vibe.setUser(owner);
-        vibe.setPrivacyStatus(PrivacyStatus.PUBLIC);
+        vibe.setPrivacyStatus(PrivacyStatus.PRIVATE);
 
-        PostLike like = new PostLike();
-        when(userRepository.findByUsername("u")).thenReturn(Optional.of(user));
+        when(postLikeRepository.insertIfPermitted(1L, 2L)).thenReturn(0);
         when(vibeRepository.findById(1L)).thenReturn(Optional.of(vibe));
-        when(postLikeRepository.findByUserAndVibe(user, vibe))
-                .thenReturn(Optional.of(like));
 
-        vibeService.toggleLike(1L, "u");
-        verify(postLikeRepository).delete(like);
+        assertThrows(RuntimeException.class, () -> vibeService.like(1L, ME));
+        verify(vibeCounterService, never()).currentLikes(any());
     }
 
     @Test
-    void toggleLike_UserNotFound() {
-        when(userRepository.findByUsername("u")).thenReturn(Optional.empty());
-        assertThrows(RuntimeException.class,
-                () -> vibeService.toggleLike(1L, "u"));
+    void unlike_NotLiked_ShouldBeNoOp() {
+        when(postLikeRepository.deleteByVibeIdAndUserId(1L, 2L)).thenReturn(0);
+
+        LikeState state = vibeService.unlike(1L, ME);
+
+        assertFalse(state.isLiked());
+        verify(vibeCounterService, never()).adjustLikes(anyLong(), anyLong());
     }
 
     @Test
     void toggleLike_VibeNotFound() {
-        User user = new User(); user.setUsername("u");
-        when(userRepository.findByUsername("u")).thenReturn(Optional.of(user));
         when(vibeRepository.findById(1L)).thenReturn(Optional.empty());
         assertThrows(RuntimeException.class,
-                () -> vibeService.toggleLike(1L, "u"));
+                () -> vibeService.toggleLike(1L, ME));
     }
 }
@@ -0,0 +1,137 @@
+package com.example.vibelet.storage;
+
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.http.AbortableInputStream;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/** In-process stand-in for the handful of S3 operations S3MediaStorage uses. */
+class FakeS3Client implements S3Client {
+    final NavigableMap<String, StoredObject> objects = new ConcurrentSkipListMap<>();
+    final Map<String, Map<Integer, byte[]>> uploads = new ConcurrentHashMap<>();
+    final AtomicInteger partsUploaded = new AtomicInteger();
+    final AtomicInteger aborted = new AtomicInteger();
+
+    static final class StoredObject {
+        final byte[] bytes;
+        final String contentType;
+        final String cacheControl;
+
+        StoredObject(byte[] bytes, String contentType, String cacheControl) {
+            this.bytes = bytes;
+            this.contentType = contentType;
+            this.cacheControl = cacheControl;
+        }
+    }
+
+    @Override
+    public String serviceName() {
+        return "s3";
+    }
+
+    @Override
+    public void close() {
+    }
+
+    @Override
+    public HeadObjectResponse headObject(HeadObjectRequest request) {
+        StoredObject object = require(request.key());
+        return HeadObjectResponse.builder().contentLength((long) object.bytes.length).build();
+    }
+
+    @Override
+    public PutObjectResponse putObject(PutObjectRequest request, RequestBody body) {
+        objects.put(request.key(), new StoredObject(read(body), request.contentType(), request.cacheControl()));
+        return PutObjectResponse.builder().eTag("\"put\"").build();
+    }
+
+    @Override
+    public ResponseInputStream<GetObjectResponse> getObject(GetObjectRequest request) {
+        StoredObject object = require(request.key());
+        return new ResponseInputStream<>(GetObjectResponse.builder().contentLength((long) object.bytes.length).build(),
+                AbortableInputStream.create(new ByteArrayInputStream(object.bytes)));
+    }
+
+    @Override
+    public DeleteObjectResponse deleteObject(DeleteObjectRequest request) {
+        objects.remove(request.key());
+        return DeleteObjectResponse.builder().build();
+    }
+
+    @Override
+    public ListObjectsV2Response listObjectsV2(ListObjectsV2Request request) {
+        String prefix = request.prefix() == null ? "" : request.prefix();
+        List<S3Object> contents = objects.tailMap(prefix, true).entrySet().stream()
+                .takeWhile(e -> e.getKey().startsWith(prefix))
+                .map(e -> S3Object.builder().key(e.getKey()).size((long) e.getValue().bytes.length)
+                        .lastModified(Instant.EPOCH).build())
+                .toList();
+        return ListObjectsV2Response.builder().contents(contents).keyCount(contents.size()).isTruncated(false).build();
+    }
+
+    @Override
+    public CreateMultipartUploadResponse createMultipartUpload(CreateMultipartUploadRequest request) {
+        String uploadId = UUID.randomUUID().toString();
+        uploads.put(uploadId, new ConcurrentHashMap<>());
+        return CreateMultipartUploadResponse.builder().uploadId(uploadId).build();
+    }
+
+    @Override
+    public UploadPartResponse uploadPart(UploadPartRequest request, RequestBody body) {
+        uploads.get(request.uploadId()).put(request.partNumber(), read(body));
+        partsUploaded.incrementAndGet();
+        return UploadPartResponse.builder().eTag("\"part-" + request.partNumber() + "\"").build();
+    }
+
+    @Override
+    public CompleteMultipartUploadResponse completeMultipartUpload(CompleteMultipartUploadRequest request) {
+        Map<Integer, byte[]> parts = uploads.remove(request.uploadId());
+        ByteArrayOutputStream assembled = new ByteArrayOutputStream();
+        for (CompletedPart part : request.multipartUpload().parts()) {
+            if (!part.eTag().equals("\"part-" + part.partNumber() + "\"")) {
+                throw S3Exception.builder().message("bad etag").statusCode(400).build();
+            }
+            assembled.writeBytes(parts.get(part.partNumber()));
+        }
+        objects.put(request.key(), new StoredObject(assembled.toByteArray(), null, null));
+        return CompleteMultipartUploadResponse.builder().build();
+    }
+
+    @Override
+    public AbortMultipartUploadResponse abortMultipartUpload(AbortMultipartUploadRequest request) {
+        uploads.remove(request.uploadId());
+        aborted.incrementAndGet();
+        return AbortMultipartUploadResponse.builder().build();
+    }
+
+    private StoredObject require(String key) {
+        StoredObject object = objects.get(key);
+        if (object == null) {
+            throw NoSuchKeyException.builder().message(key).statusCode(404).build();
+        }
+        return object;
+    }
+
+    private static byte[] read(RequestBody body) {
+        try (InputStream in = body.contentStreamProvider().newStream()) {
+            return in.readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
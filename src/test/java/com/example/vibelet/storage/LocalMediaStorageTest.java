@@ -0,0 +1,64 @@
+package com.example.vibelet.storage;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LocalMediaStorageTest {
+    @TempDir Path root;
+
+    private LocalMediaStorage storage;
+
+    @BeforeEach
+    void setUp() {
+        storage = new LocalMediaStorage(root);
+    }
+
+    @Test
+    void put_ShouldMoveIntoShardDirectory() throws Exception {
+        Files.createDirectories(root.resolve(".incoming"));
+        Path source = Files.writeString(root.resolve(".incoming/upload.tmp"), "bytes");
+
+        storage.put("ab/cd/abcd.png", source);
+
+        assertThat(source).doesNotExist();
+        assertThat(root.resolve("ab/cd/abcd.png")).hasContent("bytes");
+        assertThat(storage.exists("ab/cd/abcd.png")).isTrue();
+        assertThat(storage.presignedUrl("ab/cd/abcd.png", Duration.ofMinutes(1))).isNull();
+    }
+
+    @Test
+    void localPath_ShouldRejectEscapesAndHiddenEntries() {
+        assertThat(storage.localPath("../secret")).isNull();
+        assertThat(storage.localPath(".incoming/upload.tmp")).isNull();
+        assertThat(storage.localPath("")).isNull();
+        assertThat(storage.localPath("ab/cd/abcd.png")).isEqualTo(root.toAbsolutePath().normalize().resolve("ab/cd/abcd.png"));
+    }
+
+    @Test
+    void list_ShouldVisitMatchingKeysAndSkipStaging() throws Exception {
+        Files.createDirectories(root.resolve("ab/cd"));
+        Files.createDirectories(root.resolve(".incoming"));
+        Files.writeString(root.resolve("ab/cd/x.png"), "1");
+        Files.writeString(root.resolve("ab/cd/x_w320.jpg"), "2");
+        Files.writeString(root.resolve("ab/cd/y.png"), "3");
+        Files.writeString(root.resolve("legacy_cat.png"), "4");
+        Files.writeString(root.resolve(".incoming/upload.tmp"), "5");
+
+        List<String> prefixed = new ArrayList<>();
+        storage.list("ab/cd/x", object -> prefixed.add(object.getKey()));
+        List<String> all = new ArrayList<>();
+        storage.list("", object -> all.add(object.getKey()));
+
+        assertThat(prefixed).containsExactlyInAnyOrder("ab/cd/x.png", "ab/cd/x_w320.jpg");
+        assertThat(all).containsExactlyInAnyOrder("ab/cd/x.png", "ab/cd/x_w320.jpg", "ab/cd/y.png", "legacy_cat.png");
+    }
+}
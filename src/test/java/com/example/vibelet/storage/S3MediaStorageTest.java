@@ -0,0 +1,101 @@
+package com.example.vibelet.storage;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3Configuration;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class S3MediaStorageTest {
+    @TempDir Path staging;
+
+    private FakeS3Client s3;
+    private S3MediaStorage storage;
+
+    @BeforeEach
+    void setUp() {
+        s3 = new FakeS3Client();
+        S3Presigner presigner = S3Presigner.builder()
+                .region(Region.US_EAST_1)
+                .credentialsProvider(StaticCredentialsProvider.create(AwsBasicCredentials.create("key", "secret")))
+                .endpointOverride(URI.create("http://localhost:9000"))
+                .serviceConfiguration(S3Configuration.builder().pathStyleAccessEnabled(true).build())
+                .build();
+        storage = new S3MediaStorage(s3, presigner, "media", 1024, 3);
+    }
+
+    @AfterEach
+    void tearDown() {
+        storage.close();
+    }
+
+    @Test
+    void put_SmallFile_ShouldUploadInOneRequestAndConsumeSource() throws Exception {
+        Path source = Files.write(staging.resolve("a.tmp"), new byte[]{1, 2, 3});
+
+        storage.put("ab/cd/abcd.png", source);
+
+        assertThat(source).doesNotExist();
+        assertThat(storage.exists("ab/cd/abcd.png")).isTrue();
+        FakeS3Client.StoredObject object = s3.objects.get("ab/cd/abcd.png");
+        assertThat(object.bytes).containsExactly(1, 2, 3);
+        assertThat(object.contentType).isEqualTo("image/png");
+        assertThat(object.cacheControl).contains("immutable");
+        assertThat(s3.partsUploaded).hasValue(0);
+    }
+
+    @Test
+    void put_LargeFile_ShouldUploadPartsAndReassemble() throws Exception {
+        byte[] bytes = new byte[5000];
+        new Random(7).nextBytes(bytes);
+        Path source = Files.write(staging.resolve("b.tmp"), bytes);
+
+        storage.put("ab/cd/big.jpg", source);
+
+        assertThat(s3.partsUploaded).hasValue(5);
+        assertThat(s3.uploads).isEmpty();
+        try (InputStream in = storage.open("ab/cd/big.jpg")) {
+            assertThat(in.readAllBytes()).isEqualTo(bytes);
+        }
+    }
+
+    @Test
+    void listAndDelete_ShouldWorkByPrefix() throws Exception {
+        for (String key : List.of("ab/cd/x.png", "ab/cd/x_w320.jpg", "ab/ce/y.png")) {
+            storage.put(key, Files.write(staging.resolve("c.tmp"), new byte[]{9}));
+        }
+
+        List<String> keys = new ArrayList<>();
+        storage.list("ab/cd/x", object -> keys.add(object.getKey()));
+        storage.delete("ab/cd/x.png");
+
+        assertThat(keys).containsExactly("ab/cd/x.png", "ab/cd/x_w320.jpg");
+        assertThat(storage.exists("ab/cd/x.png")).isFalse();
+        assertThat(storage.exists("ab/ce/y.png")).isTrue();
+    }
+
+    @Test
+    void presignedUrl_ShouldPointAtBucketWithSignature() {
+        String url = storage.presignedUrl("ab/cd/abcd.png", Duration.ofMinutes(5));
+
+        assertThat(url).startsWith("http://localhost:9000/media/ab/cd/abcd.png?")
+                .contains("X-Amz-Expires=300")
+                .contains("X-Amz-Signature=");
+        assertThat(storage.localPath("ab/cd/abcd.png")).isNull();
+    }
+}